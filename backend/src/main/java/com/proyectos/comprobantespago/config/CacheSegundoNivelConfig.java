@@ -0,0 +1,122 @@
+package com.proyectos.comprobantespago.config;
+
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caché de segundo nivel de Hibernate para las entidades de referencia
+ * (compañías, catálogos, partidas, proyectos, proveedores, clientes y
+ * personas), que se leen mucho más de lo que se modifican.
+ *
+ * Usa JCache con Caffeine dentro del proceso. Cada entidad tiene su región con
+ * un máximo de entradas y una vigencia; la vigencia acota cuánto puede tardar
+ * en verse un cambio hecho directamente en la BD o en otra instancia. Los
+ * cambios hechos con JPA actualizan o invalidan la región al confirmar la
+ * transacción. Los valores por defecto se pueden cambiar con
+ * cache.segundo-nivel.{region}.max-entradas y
+ * cache.segundo-nivel.{region}.vigencia-minutos.
+ *
+ * Las regiones deben existir antes de iniciar Hibernate
+ * (hibernate.javax.cache.missing_cache_strategy=fail), así una entidad con
+ * una región no declarada aquí falla al arrancar en lugar de usar una caché
+ * sin límites.
+ */
+@Configuration
+@Slf4j
+public class CacheSegundoNivelConfig {
+
+    public static final String REGION_CONSULTAS = "default-query-results-region";
+    public static final String REGION_MARCAS_TIEMPO = "default-update-timestamps-region";
+
+    /**
+     * Regiones con su máximo de entradas y vigencia en minutos (0 = sin límite)
+     */
+    static final List<Region> REGIONES = List.of(
+            new Region("companias", 100, 60),
+            new Region("tabs", 500, 60),
+            new Region("elementos", 5000, 60),
+            new Region("partidas", 20000, 30),
+            // Sin el logo (BLOB), que está en ProyectoLogo fuera de la caché
+            new Region("proyectos", 500, 30),
+            new Region("proveedores", 10000, 30),
+            new Region("clientes", 10000, 30),
+            new Region("personas", 20000, 30),
+            new Region(REGION_CONSULTAS, 2000, 10),
+            // Última modificación de cada tabla: no debe perderse antes que los resultados que valida
+            new Region(REGION_MARCAS_TIEMPO, 0, 0));
+
+    private static final URI URI_CACHE_MANAGER = URI.create("comprobantes-pago-hibernate");
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(Environment environment) {
+        List<Region> regiones = REGIONES.stream()
+                .map(region -> new Region(region.nombre(),
+                        environment.getProperty("cache.segundo-nivel." + region.nombre() + ".max-entradas",
+                                Long.class, region.maxEntradas()),
+                        environment.getProperty("cache.segundo-nivel." + region.nombre() + ".vigencia-minutos",
+                                Long.class, region.vigenciaMinutos())))
+                .toList();
+        regiones.forEach(region -> log.debug("Región de caché {}: máximo {} entradas, vigencia {} min",
+                region.nombre(), region.maxEntradas(), region.vigenciaMinutos()));
+        return crearCacheManager(regiones);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelCustomizer(CacheManager cacheManagerSegundoNivel) {
+        return propiedades -> propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * Crea el CacheManager de Caffeine con las regiones indicadas; si ya
+     * existía una caché con el mismo nombre se reemplaza
+     */
+    static CacheManager crearCacheManager(List<Region> regiones) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI_CACHE_MANAGER,
+                CacheSegundoNivelConfig.class.getClassLoader());
+        for (Region region : regiones) {
+            if (cacheManager.getCache(region.nombre()) != null) {
+                cacheManager.destroyCache(region.nombre());
+            }
+            cacheManager.createCache(region.nombre(), configuracion(region));
+        }
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuracion(Region region) {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        // Hibernate ya guarda copias desensambladas de las entidades; no hace falta copiarlas de nuevo
+        configuracion.setStoreByValue(false);
+        if (region.maxEntradas() > 0) {
+            configuracion.setMaximumSize(OptionalLong.of(region.maxEntradas()));
+        }
+        if (region.vigenciaMinutos() > 0) {
+            configuracion.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(region.vigenciaMinutos())));
+        }
+        return configuracion;
+    }
+
+    // ==================== Clases internas ====================
+
+    record Region(String nombre, long maxEntradas, long vigenciaMinutos) {
+    }
+}
@@ -0,0 +1,279 @@
+package com.proyectos.comprobantespago.config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyectos.comprobantespago.exception.ErrorResponse;
+import com.proyectos.comprobantespago.service.IdempotenciaService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Soporte de la cabecera Idempotency-Key en los POST de creación de
+ * comprobantes (egresos, ingresos y empleados)
+ *
+ * La primera petición con una clave se ejecuta normalmente y su respuesta
+ * (salvo errores 5xx) se guarda en IdempotenciaService. Los reintentos con la
+ * misma clave y el mismo cuerpo reciben esa respuesta sin pasar por el
+ * controller (con la cabecera Idempotency-Replayed: true); si la primera aún
+ * se está ejecutando, esperan su resultado. Reutilizar la clave con otro
+ * cuerpo devuelve 422. Sin la cabecera, la petición sigue igual que antes.
+ */
+@Component
+@Slf4j
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotency-Replayed";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+    private static final int MAX_INTENTOS = 3;
+
+    /** Rutas (sin el context-path) de los POST de creación */
+    private static final Set<String> RUTAS = Set.of(
+            "/comprobantes-pago",
+            "/comprobantes-pago/egreso",
+            "/comprobantes-pago/ingreso",
+            "/comprobantes-venta",
+            "/comprobantes-empleado");
+
+    private final IdempotenciaService idempotenciaService;
+    private final ObjectMapper objectMapper;
+    private final long esperaMs;
+
+    public IdempotenciaFilter(
+            IdempotenciaService idempotenciaService,
+            ObjectMapper objectMapper,
+            @Value("${comprobantes.idempotencia.espera-ms:30000}") long esperaMs) {
+        this.idempotenciaService = idempotenciaService;
+        this.objectMapper = objectMapper;
+        this.esperaMs = esperaMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !RUTAS.contains(ruta(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > LONGITUD_MAXIMA_CLAVE) {
+            error(request, response, HttpStatus.BAD_REQUEST,
+                    "La cabecera " + HEADER + " debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+            return;
+        }
+
+        byte[] cuerpo = request.getInputStream().readAllBytes();
+        String ruta = ruta(request);
+        Principal usuario = request.getUserPrincipal();
+        String clave = (usuario != null ? usuario.getName() : "") + "|" + ruta + "|" + idempotencyKey;
+        String huella = huella(ruta, cuerpo);
+
+        for (int intento = 1; intento <= MAX_INTENTOS; intento++) {
+            IdempotenciaService.Reserva reserva = idempotenciaService.reservar(clave, huella);
+            if (reserva.primera()) {
+                ejecutar(new CuerpoLeido(request, cuerpo), response, filterChain, clave, reserva.entrada());
+                return;
+            }
+
+            if (!reserva.entrada().mismaPeticion(huella)) {
+                error(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "La " + HEADER + " ya se usó con una petición distinta");
+                return;
+            }
+
+            IdempotenciaService.RespuestaGuardada guardada;
+            try {
+                guardada = reserva.entrada().getRespuesta().get(esperaMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                response.setHeader("Retry-After", "1");
+                error(request, response, HttpStatus.CONFLICT,
+                        "Hay una petición con la misma " + HEADER + " en curso");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error(request, response, HttpStatus.SERVICE_UNAVAILABLE, "Petición interrumpida");
+                return;
+            } catch (ExecutionException e) {
+                guardada = null;
+            }
+
+            if (guardada != null) {
+                log.debug("Idempotency-Key {}: se responde con la respuesta guardada", idempotencyKey);
+                response.setStatus(guardada.status());
+                if (guardada.contentType() != null) {
+                    response.setContentType(guardada.contentType());
+                }
+                response.setHeader(HEADER_REPETIDA, "true");
+                response.setContentLength(guardada.cuerpo().length);
+                response.getOutputStream().write(guardada.cuerpo());
+                return;
+            }
+            // La primera petición falló sin respuesta reutilizable: se vuelve a intentar
+        }
+
+        error(request, response, HttpStatus.SERVICE_UNAVAILABLE,
+                "No se pudo completar la petición con la " + HEADER + " indicada; intente nuevamente");
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * Ejecuta la primera petición con la clave y guarda su respuesta
+     */
+    private void ejecutar(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+            String clave, IdempotenciaService.Entrada entrada) throws ServletException, IOException {
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean completada = false;
+        try {
+            filterChain.doFilter(request, respuesta);
+            if (respuesta.getStatus() < 500) {
+                idempotenciaService.completar(entrada, new IdempotenciaService.RespuestaGuardada(
+                        respuesta.getStatus(), respuesta.getContentType(), respuesta.getContentAsByteArray()));
+                completada = true;
+            }
+        } finally {
+            if (!completada) {
+                idempotenciaService.descartar(clave, entrada);
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    private void error(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String mensaje)
+            throws IOException {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(mensaje)
+                .path(request.getRequestURI())
+                .build();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static String ruta(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return ruta.length() > 1 && ruta.endsWith("/") ? ruta.substring(0, ruta.length() - 1) : ruta;
+    }
+
+    private static String huella(String ruta, byte[] cuerpo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("POST " + ruta + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(cuerpo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Petición cuyo cuerpo ya se leyó para calcular la huella; lo vuelve a
+     * entregar al controller
+     */
+    private static final class CuerpoLeido extends HttpServletRequestWrapper {
+        private final byte[] cuerpo;
+
+        private CuerpoLeido(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * El cuerpo ya está en memoria: se avisa de inmediato que hay
+                 * datos y que se leyeron completos
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return cuerpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return cuerpo.length;
+        }
+    }
+}
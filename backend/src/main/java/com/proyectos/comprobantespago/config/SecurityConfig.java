@@ -67,7 +67,7 @@ public class SecurityConfig {
                 "http://localhost:3001"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Tenant-ID"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Tenant-ID", "Idempotency-Replayed"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
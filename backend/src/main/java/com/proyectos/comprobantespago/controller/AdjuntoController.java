@@ -0,0 +1,82 @@
+package com.proyectos.comprobantespago.controller;
+
+import java.util.List;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.proyectos.comprobantespago.dto.AdjuntoDTO;
+import com.proyectos.comprobantespago.dto.ApiResponse;
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
+import com.proyectos.comprobantespago.service.AdjuntoDescargaService;
+import com.proyectos.comprobantespago.service.AdjuntoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller REST para adjuntos de comprobantes (facturas, abonos y otros)
+ * Los archivos se guardan fuera de la BD; la tabla ADJUNTO_COMPROBANTE solo
+ * guarda la referencia y los metadatos.
+ */
+@RestController
+@RequestMapping("/adjuntos")
+@RequiredArgsConstructor
+@Tag(name = "Adjuntos", description = "Archivos adjuntos de comprobantes de egreso, ingreso y empleado")
+public class AdjuntoController {
+
+    private final AdjuntoService adjuntoService;
+    private final AdjuntoDescargaService adjuntoDescargaService;
+
+    @PostMapping("/{tipo}/{codCia}/{codTercero}/{nroCp}")
+    @Operation(summary = "Subir adjunto", description = "Agrega un archivo al comprobante (máx 10MB, pdf/jpg/png). "
+            + "Tipo: EGR (tercero = proveedor), ING (tercero = 0) o EMP (tercero = empleado)")
+    public ResponseEntity<ApiResponse<AdjuntoDTO>> subir(
+            @PathVariable String tipo,
+            @PathVariable Long codCia,
+            @PathVariable Long codTercero,
+            @PathVariable String nroCp,
+            @Parameter(description = "CP=comprobante, ABO=abono, OTR=otros") @RequestParam(defaultValue = AdjuntoComprobante.CATEGORIA_OTROS) String categoria,
+            @RequestParam("file") MultipartFile file) {
+
+        AdjuntoDTO adjunto = adjuntoService.subir(codCia, tipo, codTercero, nroCp, categoria, file);
+        return ResponseEntity.ok(ApiResponse.success("Adjunto subido exitosamente", adjunto));
+    }
+
+    @GetMapping("/{tipo}/{codCia}/{codTercero}/{nroCp}")
+    @Operation(summary = "Listar adjuntos del comprobante", description = "Del más reciente al más antiguo")
+    public ResponseEntity<ApiResponse<List<AdjuntoDTO>>> listar(
+            @PathVariable String tipo,
+            @PathVariable Long codCia,
+            @PathVariable Long codTercero,
+            @PathVariable String nroCp) {
+
+        List<AdjuntoDTO> adjuntos = adjuntoService.listar(codCia, tipo, codTercero, nroCp);
+        return ResponseEntity.ok(ApiResponse.success(
+                String.format("Se encontraron %d adjuntos", adjuntos.size()), adjuntos));
+    }
+
+    @GetMapping("/{codAdjunto}/contenido")
+    @Operation(summary = "Descargar adjunto", description = "Envía el archivo como flujo desde el almacenamiento. "
+            + "Admite Range y devuelve ETag (SHA-256 del contenido) para peticiones condicionales")
+    public ResponseEntity<Resource> contenido(@PathVariable Long codAdjunto) {
+        return DescargaArchivo.respuesta(adjuntoDescargaService.descargar(codAdjunto));
+    }
+
+    @DeleteMapping("/{codAdjunto}")
+    @Operation(summary = "Eliminar adjunto")
+    public ResponseEntity<ApiResponse<Void>> eliminar(@PathVariable Long codAdjunto) {
+        adjuntoService.eliminar(codAdjunto);
+        return ResponseEntity.ok(ApiResponse.success("Adjunto eliminado", null));
+    }
+}
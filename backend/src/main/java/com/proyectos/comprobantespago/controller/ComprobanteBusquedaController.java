@@ -0,0 +1,47 @@
+package com.proyectos.comprobantespago.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyectos.comprobantespago.dto.ApiResponse;
+import com.proyectos.comprobantespago.dto.BusquedaComprobantesDTO;
+import com.proyectos.comprobantespago.service.ComprobanteBusquedaService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/comprobantes/buscar")
+@RequiredArgsConstructor
+@Tag(name = "Búsqueda de Comprobantes", description = "Búsqueda de texto libre sobre egresos, ingresos y empleados")
+public class ComprobanteBusquedaController {
+
+    private final ComprobanteBusquedaService comprobanteBusquedaService;
+
+    /**
+     * GET /comprobantes/buscar/{codCia}?q=...
+     */
+    @GetMapping("/{codCia}")
+    @Operation(summary = "Buscar comprobantes por texto libre", description = "Busca por número de comprobante, "
+            + "proveedor/cliente/empleado, descripción del abono y descripción de las partidas. Todas las palabras "
+            + "deben coincidir (la última se trata como prefijo); sin distinguir mayúsculas ni tildes. "
+            + "Resultados ordenados por relevancia.")
+    public ResponseEntity<ApiResponse<BusquedaComprobantesDTO>> buscar(
+            @PathVariable @Parameter(description = "Código de la compañía") Long codCia,
+            @RequestParam @Parameter(description = "Texto a buscar") String q,
+            @RequestParam(required = false) @Parameter(description = "EGRESO, INGRESO o EMPLEADO (opcional)") ComprobanteBusquedaService.Origen origen,
+            @RequestParam(required = false) @Parameter(description = "Código de estado (opcional)") String estado,
+            @RequestParam(defaultValue = "0") @Parameter(description = "Página (desde 0)") int pagina,
+            @RequestParam(defaultValue = "20") @Parameter(description = "Resultados por página (1-100)") int tamanio) {
+
+        BusquedaComprobantesDTO resultado = comprobanteBusquedaService.buscar(codCia, q, origen, estado, pagina,
+                tamanio);
+        return ResponseEntity.ok(ApiResponse.success("Búsqueda realizada exitosamente", resultado));
+    }
+}
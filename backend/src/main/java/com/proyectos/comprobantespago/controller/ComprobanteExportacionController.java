@@ -0,0 +1,92 @@
+package com.proyectos.comprobantespago.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.proyectos.comprobantespago.service.ComprobanteExportacionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/comprobantes/exportar")
+@RequiredArgsConstructor
+@Tag(name = "Exportación de Comprobantes", description = "Descarga de egresos, ingresos y empleados en CSV o NDJSON")
+public class ComprobanteExportacionController {
+
+    private final ComprobanteExportacionService exportacionService;
+
+    /**
+     * GET /comprobantes/exportar/{codCia}/egresos?fechaInicio=...&fechaFin=...&formato=CSV
+     */
+    @GetMapping("/{codCia}/egresos")
+    @Operation(summary = "Exportar comprobantes de egreso", description = "Descarga los comprobantes de pago del "
+            + "rango como flujo (CSV o NDJSON); la memoria usada no depende del número de comprobantes")
+    public ResponseEntity<StreamingResponseBody> exportarEgresos(
+            @PathVariable Long codCia,
+            @Parameter(description = "Fecha inicio (yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @Parameter(description = "Fecha fin (yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @Parameter(description = "CSV o NDJSON") @RequestParam(defaultValue = "CSV") ComprobanteExportacionService.Formato formato) {
+        exportacionService.validarRango(fechaInicio, fechaFin);
+        return respuesta("egresos", codCia, fechaInicio, fechaFin, formato,
+                salida -> exportacionService.exportarEgresos(codCia, fechaInicio, fechaFin, formato, salida));
+    }
+
+    /**
+     * GET /comprobantes/exportar/{codCia}/ingresos?fechaInicio=...&fechaFin=...&formato=CSV
+     */
+    @GetMapping("/{codCia}/ingresos")
+    @Operation(summary = "Exportar comprobantes de ingreso", description = "Descarga los comprobantes de venta del "
+            + "rango como flujo (CSV o NDJSON)")
+    public ResponseEntity<StreamingResponseBody> exportarIngresos(
+            @PathVariable Long codCia,
+            @Parameter(description = "Fecha inicio (yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @Parameter(description = "Fecha fin (yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @Parameter(description = "CSV o NDJSON") @RequestParam(defaultValue = "CSV") ComprobanteExportacionService.Formato formato) {
+        exportacionService.validarRango(fechaInicio, fechaFin);
+        return respuesta("ingresos", codCia, fechaInicio, fechaFin, formato,
+                salida -> exportacionService.exportarIngresos(codCia, fechaInicio, fechaFin, formato, salida));
+    }
+
+    /**
+     * GET /comprobantes/exportar/{codCia}/empleados?fechaInicio=...&fechaFin=...&formato=CSV
+     */
+    @GetMapping("/{codCia}/empleados")
+    @Operation(summary = "Exportar comprobantes de empleados", description = "Descarga los comprobantes de "
+            + "empleados del rango como flujo (CSV o NDJSON)")
+    public ResponseEntity<StreamingResponseBody> exportarEmpleados(
+            @PathVariable Long codCia,
+            @Parameter(description = "Fecha inicio (yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @Parameter(description = "Fecha fin (yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @Parameter(description = "CSV o NDJSON") @RequestParam(defaultValue = "CSV") ComprobanteExportacionService.Formato formato) {
+        exportacionService.validarRango(fechaInicio, fechaFin);
+        return respuesta("empleados", codCia, fechaInicio, fechaFin, formato,
+                salida -> exportacionService.exportarEmpleados(codCia, fechaInicio, fechaFin, formato, salida));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> respuesta(String origen, Long codCia, LocalDate fechaInicio,
+            LocalDate fechaFin, ComprobanteExportacionService.Formato formato, StreamingResponseBody cuerpo) {
+        String nombreArchivo = String.format("%s_%d_%s_%s.%s", origen, codCia, fechaInicio, fechaFin,
+                formato.getExtension());
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(formato.getContentType()),
+                        StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(nombreArchivo).build().toString())
+                .body(cuerpo);
+    }
+}
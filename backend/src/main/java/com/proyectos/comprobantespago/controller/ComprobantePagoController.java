@@ -5,6 +5,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,7 +21,15 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.proyectos.comprobantespago.dto.ApiResponse;
+import com.proyectos.comprobantespago.dto.CambioEstadoMasivoDTO;
 import com.proyectos.comprobantespago.dto.ComprobantePagoDTO;
+import com.proyectos.comprobantespago.dto.FiltroComprobantesDTO;
+import com.proyectos.comprobantespago.dto.ImportacionComprobantesDTO;
+import com.proyectos.comprobantespago.dto.PaginaCursorDTO;
+import com.proyectos.comprobantespago.dto.ResultadoCambioEstadoMasivoDTO;
+import com.proyectos.comprobantespago.enums.EstadoComprobanteEnum;
+import com.proyectos.comprobantespago.service.ComprobanteEstadoMasivoService;
+import com.proyectos.comprobantespago.service.ComprobanteImportacionService;
 import com.proyectos.comprobantespago.service.ComprobantePagoService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -39,6 +48,8 @@ import lombok.RequiredArgsConstructor;
 public class ComprobantePagoController {
 
     private final ComprobantePagoService comprobantePagoService;
+    private final ComprobanteImportacionService comprobanteImportacionService;
+    private final ComprobanteEstadoMasivoService comprobanteEstadoMasivoService;
 
     @GetMapping("/compania/{codCia}")
     @Operation(summary = "Listar comprobantes por compañía")
@@ -48,6 +59,37 @@ public class ComprobantePagoController {
                 String.format("Se encontraron %d comprobantes", comprobantes.size()), comprobantes));
     }
 
+    @GetMapping("/listado/{codCia}")
+    @Operation(summary = "Listar comprobantes con filtros y paginación por cursor", description = "Filtros combinables "
+            + "(proyecto, proveedor, estado, rango de fechas y de montos). Ordena del más reciente al más antiguo; "
+            + "para la página siguiente se envía el cursor devuelto en la respuesta.")
+    public ResponseEntity<ApiResponse<PaginaCursorDTO<ComprobantePagoDTO>>> listar(
+            @PathVariable Long codCia,
+            @RequestParam(required = false) Long codPyto,
+            @RequestParam(required = false) Long codProveedor,
+            @RequestParam(required = false) String estado,
+            @Parameter(description = "Fecha inicio (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @Parameter(description = "Fecha fin (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(required = false) BigDecimal montoMin,
+            @RequestParam(required = false) BigDecimal montoMax,
+            @Parameter(description = "Cursor de la página anterior (vacío para la primera)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (1-200)") @RequestParam(defaultValue = "50") int limite,
+            @Parameter(description = "Incluir el total de comprobantes que cumplen los filtros") @RequestParam(defaultValue = "false") boolean incluirTotal) {
+        FiltroComprobantesDTO filtro = FiltroComprobantesDTO.builder()
+                .codPyto(codPyto)
+                .codProveedor(codProveedor)
+                .estado(estado)
+                .fechaInicio(fechaInicio)
+                .fechaFin(fechaFin)
+                .montoMin(montoMin)
+                .montoMax(montoMax)
+                .build();
+        PaginaCursorDTO<ComprobantePagoDTO> pagina = comprobantePagoService.listar(codCia, filtro, cursor, limite,
+                incluirTotal);
+        return ResponseEntity.ok(ApiResponse.success(
+                String.format("Se obtuvieron %d comprobantes", pagina.getItems().size()), pagina));
+    }
+
     @GetMapping("/proyecto/{codCia}/{codPyto}")
     @Operation(summary = "Listar comprobantes por proyecto")
     public ResponseEntity<ApiResponse<List<ComprobantePagoDTO>>> findAllByProyecto(
@@ -115,6 +157,21 @@ public class ComprobantePagoController {
                 .body(ApiResponse.success("Comprobante creado exitosamente", created));
     }
 
+    @PostMapping("/importar/{codCia}")
+    @Operation(summary = "Importar comprobantes desde CSV", description = "Carga masiva de comprobantes de egreso: "
+            + "una fila por detalle, con las filas de cada comprobante juntas. Los comprobantes válidos se guardan "
+            + "en estado Registrado; los rechazados y los que exceden el presupuesto se devuelven en el reporte")
+    public ResponseEntity<ApiResponse<ImportacionComprobantesDTO>> importar(
+            @PathVariable Long codCia,
+            @RequestParam("file") org.springframework.web.multipart.MultipartFile file) {
+
+        ImportacionComprobantesDTO resultado = comprobanteImportacionService.importar(codCia, file);
+        return ResponseEntity.ok(ApiResponse.success(
+                String.format("Se importaron %d de %d comprobantes", resultado.getComprobantesImportados(),
+                        resultado.getComprobantesLeidos()),
+                resultado));
+    }
+
     @PutMapping("/{codCia}/{codProveedor}/{nroCp}")
     @Operation(summary = "Actualizar comprobante de pago")
     public ResponseEntity<ApiResponse<ComprobantePagoDTO>> update(
@@ -138,6 +195,34 @@ public class ComprobantePagoController {
         return ResponseEntity.ok(ApiResponse.success("Estado actualizado correctamente", null));
     }
 
+    @PatchMapping("/masivo/{codCia}/estado")
+    @Operation(summary = "Cambiar estado de varios comprobantes", description = "Aplica el estado a los comprobantes "
+            + "indicados por clave o, si no se envían claves, a los que cumplen el filtro del listado. Solo cambian "
+            + "los que admiten la transición; el resto se devuelve como rechazado con el motivo")
+    public ResponseEntity<ApiResponse<ResultadoCambioEstadoMasivoDTO>> cambiarEstadoMasivo(
+            @PathVariable Long codCia,
+            @Valid @RequestBody CambioEstadoMasivoDTO request) {
+        ResultadoCambioEstadoMasivoDTO resultado = comprobanteEstadoMasivoService.cambiarEstado(codCia, request);
+        return ResponseEntity.ok(ApiResponse.success(
+                String.format("Se actualizaron %d de %d comprobantes", resultado.getActualizados(),
+                        resultado.getSolicitados()),
+                resultado));
+    }
+
+    @PatchMapping("/masivo/{codCia}/anular")
+    @Operation(summary = "Anular varios comprobantes", description = "Igual que el cambio de estado masivo con "
+            + "estado ANU. Los comprobantes pagados solo se anulan con confirmarPagado=true")
+    public ResponseEntity<ApiResponse<ResultadoCambioEstadoMasivoDTO>> anularMasivo(
+            @PathVariable Long codCia,
+            @RequestBody CambioEstadoMasivoDTO request) {
+        request.setEstado(EstadoComprobanteEnum.ANULADO.getCodigo());
+        ResultadoCambioEstadoMasivoDTO resultado = comprobanteEstadoMasivoService.cambiarEstado(codCia, request);
+        return ResponseEntity.ok(ApiResponse.success(
+                String.format("Se anularon %d de %d comprobantes", resultado.getActualizados(),
+                        resultado.getSolicitados()),
+                resultado));
+    }
+
     @GetMapping("/total-pagado/{codCia}/{codPyto}")
     @Operation(summary = "Obtener total pagado por proyecto")
     public ResponseEntity<ApiResponse<Map<String, BigDecimal>>> getTotalPagado(
@@ -148,6 +233,19 @@ public class ComprobantePagoController {
                 Map.of("totalPagado", total)));
     }
 
+    @GetMapping("/numero-disponible/{codCia}/{codProveedor}")
+    @Operation(summary = "Verificar si un número de comprobante está libre", description = "Pensado para validar "
+            + "mientras se escribe: responde desde el índice en memoria y solo consulta la BD ante posibles coincidencias.")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> numeroDisponible(
+            @PathVariable Long codCia,
+            @PathVariable Long codProveedor,
+            @RequestParam String nroCp) {
+        boolean disponible = comprobantePagoService.validarNumeroComprobanteUnico(codCia, codProveedor, nroCp);
+        return ResponseEntity.ok(ApiResponse.success(
+                disponible ? "Número de comprobante disponible" : "El número de comprobante ya está registrado",
+                Map.of("disponible", disponible)));
+    }
+
     @PatchMapping("/{codCia}/{codProveedor}/{nroCp}/anular")
     @Operation(summary = "Anular comprobante de pago", description = "Cambia el estado del comprobante a ANU (Anulado) y restaura el presupuesto disponible. "
             +
@@ -261,14 +359,13 @@ public class ComprobantePagoController {
     }
 
     @GetMapping("/{codCia}/{codProveedor}/{nroCp}/foto-cp")
-    @Operation(summary = "Obtener imagen comprobante (BLOB)", description = "Obtiene la imagen del comprobante desde BLOB")
-    public ResponseEntity<byte[]> getFotoCp(
+    @Operation(summary = "Obtener imagen comprobante", description = "Envía la imagen del comprobante como flujo (admite Range, ETag y 304)")
+    public ResponseEntity<Resource> getFotoCp(
             @PathVariable Long codCia,
             @PathVariable Long codProveedor,
             @PathVariable String nroCp) {
 
-        byte[] foto = comprobantePagoService.getFotoCp(codCia, codProveedor, nroCp);
-        return createImageResponse(foto);
+        return DescargaArchivo.respuesta(comprobantePagoService.getFotoCp(codCia, codProveedor, nroCp));
     }
 
     @DeleteMapping("/{codCia}/{codProveedor}/{nroCp}/foto-cp")
@@ -295,14 +392,13 @@ public class ComprobantePagoController {
     }
 
     @GetMapping("/{codCia}/{codProveedor}/{nroCp}/foto-abono")
-    @Operation(summary = "Obtener imagen abono (BLOB)", description = "Obtiene la imagen del abono desde BLOB")
-    public ResponseEntity<byte[]> getFotoAbono(
+    @Operation(summary = "Obtener imagen abono", description = "Envía la imagen del abono como flujo (admite Range, ETag y 304)")
+    public ResponseEntity<Resource> getFotoAbono(
             @PathVariable Long codCia,
             @PathVariable Long codProveedor,
             @PathVariable String nroCp) {
 
-        byte[] foto = comprobantePagoService.getFotoAbono(codCia, codProveedor, nroCp);
-        return createImageResponse(foto);
+        return DescargaArchivo.respuesta(comprobantePagoService.getFotoAbono(codCia, codProveedor, nroCp));
     }
 
     @DeleteMapping("/{codCia}/{codProveedor}/{nroCp}/foto-abono")
@@ -315,12 +411,4 @@ public class ComprobantePagoController {
         comprobantePagoService.deleteFotoAbono(codCia, codProveedor, nroCp);
         return ResponseEntity.ok(ApiResponse.success("Imagen de abono eliminada", null));
     }
-
-    private ResponseEntity<byte[]> createImageResponse(byte[] data) {
-        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-        headers.setContentType(org.springframework.http.MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentLength(data.length);
-        headers.setCacheControl("max-age=3600");
-        return new ResponseEntity<>(data, headers, HttpStatus.OK);
-    }
 }
@@ -2,9 +2,8 @@ package com.proyectos.comprobantespago.controller;
 
 import java.util.List;
 
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -114,15 +113,14 @@ public class ComprobantePagoEmpleadoController {
         return ResponseEntity.ok(ApiResponse.success("Imagen de comprobante subida exitosamente", null));
     }
 
-    @Operation(summary = "Obtener imagen comprobante", description = "Obtiene la imagen del comprobante (FotoCP)")
+    @Operation(summary = "Obtener imagen comprobante", description = "Envía la imagen del comprobante (FotoCP) como flujo (admite Range, ETag y 304)")
     @GetMapping("/{codCia}/{codEmpleado}/{nroCp}/foto-cp")
-    public ResponseEntity<byte[]> getFotoCp(
+    public ResponseEntity<Resource> getFotoCp(
             @PathVariable Long codCia,
             @PathVariable Long codEmpleado,
             @PathVariable String nroCp) {
 
-        byte[] foto = service.getFotoCp(codCia, codEmpleado, nroCp);
-        return createImageResponse(foto);
+        return DescargaArchivo.respuesta(service.getFotoCp(codCia, codEmpleado, nroCp));
     }
 
     @Operation(summary = "Eliminar imagen comprobante", description = "Elimina la imagen del comprobante (FotoCP)")
@@ -148,15 +146,14 @@ public class ComprobantePagoEmpleadoController {
         return ResponseEntity.ok(ApiResponse.success("Imagen de abono subida exitosamente", null));
     }
 
-    @Operation(summary = "Obtener imagen abono", description = "Obtiene la imagen del abono (FotoAbono)")
+    @Operation(summary = "Obtener imagen abono", description = "Envía la imagen del abono (FotoAbono) como flujo (admite Range, ETag y 304)")
     @GetMapping("/{codCia}/{codEmpleado}/{nroCp}/foto-abono")
-    public ResponseEntity<byte[]> getFotoAbono(
+    public ResponseEntity<Resource> getFotoAbono(
             @PathVariable Long codCia,
             @PathVariable Long codEmpleado,
             @PathVariable String nroCp) {
 
-        byte[] foto = service.getFotoAbono(codCia, codEmpleado, nroCp);
-        return createImageResponse(foto);
+        return DescargaArchivo.respuesta(service.getFotoAbono(codCia, codEmpleado, nroCp));
     }
 
     @Operation(summary = "Eliminar imagen abono", description = "Elimina la imagen del abono (FotoAbono)")
@@ -170,14 +167,6 @@ public class ComprobantePagoEmpleadoController {
         return ResponseEntity.ok(ApiResponse.success("Imagen de abono eliminada", null));
     }
 
-    private ResponseEntity<byte[]> createImageResponse(byte[] data) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentLength(data.length);
-        headers.setCacheControl("max-age=3600");
-        return new ResponseEntity<>(data, headers, HttpStatus.OK);
-    }
-
     // ==================== Endpoints de Detalles (COMP_PAGOEMPLEADO_DET)
     // ====================
 
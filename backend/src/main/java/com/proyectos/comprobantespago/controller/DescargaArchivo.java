@@ -0,0 +1,41 @@
+package com.proyectos.comprobantespago.controller;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.proyectos.comprobantespago.service.AdjuntoDescargaService;
+
+/**
+ * Respuesta HTTP para descargar imágenes y adjuntos de comprobantes
+ * El cuerpo es un Resource, por lo que Spring lo envía como flujo y atiende
+ * las peticiones Range (206) de PDFs grandes; con el ETag (hash del contenido)
+ * responde 304 a If-None-Match sin enviar el archivo. No se fija
+ * Content-Length: el conversor lo calcula para el archivo o el rango.
+ */
+final class DescargaArchivo {
+
+    private DescargaArchivo() {
+    }
+
+    static ResponseEntity<Resource> respuesta(AdjuntoDescargaService.Descarga descarga) {
+        MediaType contentType = descarga.contentType() != null
+                ? MediaType.parseMediaType(descarga.contentType())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(contentType)
+                // El navegador guarda la imagen pero revalida cada vez (un reemplazo se ve de inmediato)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(descarga.hash());
+        if (descarga.nombreArchivo() != null) {
+            builder.header(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.inline().filename(descarga.nombreArchivo(), StandardCharsets.UTF_8).build().toString());
+        }
+        return builder.body(descarga.recurso());
+    }
+}
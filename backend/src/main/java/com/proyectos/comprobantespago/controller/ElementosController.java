@@ -2,6 +2,7 @@ package com.proyectos.comprobantespago.controller;
 
 import com.proyectos.comprobantespago.dto.ApiResponse;
 import com.proyectos.comprobantespago.dto.ElementosDTO;
+import com.proyectos.comprobantespago.service.CatalogoService;
 import com.proyectos.comprobantespago.service.ElementosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -23,12 +24,14 @@ import java.util.List;
 public class ElementosController {
 
     private final ElementosService elementosService;
+    private final CatalogoService catalogoService;
 
     @Operation(summary = "Obtener elementos de una tabla específica")
     @GetMapping("/tabla/{codTab}")
     public ResponseEntity<ApiResponse<List<ElementosDTO>>> obtenerPorTabla(@PathVariable String codTab) {
+        String etag = catalogoService.etag();
         List<ElementosDTO> elementos = elementosService.obtenerPorTabla(codTab);
-        return ResponseEntity.ok(ApiResponse.success("Elementos obtenidos exitosamente", elementos));
+        return RespuestaCatalogo.ok(etag, "Elementos obtenidos exitosamente", elementos);
     }
 
     @Operation(summary = "Obtener elemento específico")
@@ -36,29 +39,33 @@ public class ElementosController {
     public ResponseEntity<ApiResponse<ElementosDTO>> obtenerElemento(
             @PathVariable String codTab,
             @PathVariable String codElem) {
+        String etag = catalogoService.etag();
         ElementosDTO elemento = elementosService.obtenerElemento(codTab, codElem);
-        return ResponseEntity.ok(ApiResponse.success("Elemento obtenido exitosamente", elemento));
+        return RespuestaCatalogo.ok(etag, "Elemento obtenido exitosamente", elemento);
     }
 
     @Operation(summary = "Obtener tipos de moneda")
     @GetMapping("/monedas")
     public ResponseEntity<ApiResponse<List<ElementosDTO>>> obtenerTiposMoneda() {
+        String etag = catalogoService.etag();
         List<ElementosDTO> monedas = elementosService.obtenerTiposMoneda();
-        return ResponseEntity.ok(ApiResponse.success("Tipos de moneda obtenidos exitosamente", monedas));
+        return RespuestaCatalogo.ok(etag, "Tipos de moneda obtenidos exitosamente", monedas);
     }
 
     @Operation(summary = "Obtener unidades de medida")
     @GetMapping("/unidades-medida")
     public ResponseEntity<ApiResponse<List<ElementosDTO>>> obtenerUnidadesMedida() {
+        String etag = catalogoService.etag();
         List<ElementosDTO> unidades = elementosService.obtenerUnidadesMedida();
-        return ResponseEntity.ok(ApiResponse.success("Unidades de medida obtenidas exitosamente", unidades));
+        return RespuestaCatalogo.ok(etag, "Unidades de medida obtenidas exitosamente", unidades);
     }
 
     @Operation(summary = "Obtener tipos de comprobante")
     @GetMapping("/tipos-comprobante")
     public ResponseEntity<ApiResponse<List<ElementosDTO>>> obtenerTiposComprobante() {
+        String etag = catalogoService.etag();
         List<ElementosDTO> tipos = elementosService.obtenerTiposComprobante();
-        return ResponseEntity.ok(ApiResponse.success("Tipos de comprobante obtenidos exitosamente", tipos));
+        return RespuestaCatalogo.ok(etag, "Tipos de comprobante obtenidos exitosamente", tipos);
     }
 
     @Operation(summary = "Crear nuevo elemento")
@@ -7,6 +7,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -20,12 +21,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.proyectos.comprobantespago.dto.ArbolPresupuestoDTO;
 import com.proyectos.comprobantespago.dto.PartidaDTO;
 import com.proyectos.comprobantespago.dto.PartidaTreeNode;
 import com.proyectos.comprobantespago.entity.Partida;
 import com.proyectos.comprobantespago.entity.PartidaMezcla;
 import com.proyectos.comprobantespago.repository.PartidaMezclaRepository;
 import com.proyectos.comprobantespago.repository.PartidaRepository;
+import com.proyectos.comprobantespago.service.PartidaBusquedaService;
 import com.proyectos.comprobantespago.service.PartidaHierarchyService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -53,6 +56,12 @@ public class PartidaController {
     @Autowired
     private PartidaHierarchyService partidaHierarchyService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PartidaBusquedaService partidaBusquedaService;
+
     /**
      * GET /partidas
      * Lista todas las partidas
@@ -94,6 +103,27 @@ public class PartidaController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * GET /partidas/{codCia}/{ingEgr}/{codPartida}/descendientes
+     * Obtiene la partida y todas las que cuelgan de ella (opcionalmente de un
+     * nivel), resuelto en una sola consulta sobre PARTIDA_CLOSURE
+     */
+    @GetMapping("/{codCia}/{ingEgr}/{codPartida}/descendientes")
+    @Operation(summary = "Obtener subárbol de una partida", description = "Retorna la partida y todos sus descendientes. "
+            +
+            "Con nivel=3 bajo una partida de nivel 1 retorna sus partidas de último nivel.")
+    public ResponseEntity<List<PartidaDTO>> obtenerDescendientes(
+            @PathVariable @Parameter(description = "Código de la compañía") Long codCia,
+            @PathVariable @Parameter(description = "Tipo: I=Ingreso, E=Egreso") String ingEgr,
+            @PathVariable @Parameter(description = "Código de la partida") Long codPartida,
+            @RequestParam(required = false) @Parameter(description = "Nivel de las partidas (opcional)") Integer nivel) {
+
+        List<PartidaDTO> partidas = partidaRepository.findDescendientes(codCia, ingEgr, codPartida, nivel).stream()
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(partidas);
+    }
+
     /**
      * POST /partidas
      * Crea una nueva partida
@@ -143,6 +173,8 @@ public class PartidaController {
             log.info("Partida convertida a entidad");
 
             Partida partidaGuardada = partidaRepository.save(partida);
+            eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(
+                    partidaGuardada.getCodCia(), partidaGuardada.getIngEgr()));
             log.info("✓ Partida guardada: codCia={}, ingEgr={}, codPartida={}",
                     partidaGuardada.getCodCia(), partidaGuardada.getIngEgr(), partidaGuardada.getCodPartida());
 
@@ -201,6 +233,7 @@ public class PartidaController {
             }
 
             Partida actualizada = partidaRepository.save(partidaExistente);
+            eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(codCia, ingEgr));
             log.info("Partida actualizada: codCia={}, ingEgr={}, codPartida={}", codCia, ingEgr, codPartida);
 
             // NOTA: Ya NO se sincroniza automáticamente con PARTIDA_MEZCLA
@@ -248,6 +281,7 @@ public class PartidaController {
 
         // Si no hay dependencias, proceder a eliminar
         partidaRepository.deleteById(id);
+        eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(codCia, ingEgr));
         return ResponseEntity.noContent().build();
     }
 
@@ -379,6 +413,28 @@ public class PartidaController {
         return ResponseEntity.ok(partidas);
     }
 
+    /**
+     * GET /partidas/buscar/{codCia}/{ingEgr}?q=...
+     * Búsqueda incremental (typeahead) de partidas para el registro de
+     * comprobantes; devuelve solo las mejores coincidencias
+     */
+    @GetMapping("/buscar/{codCia}/{ingEgr}")
+    @Operation(summary = "Buscar partidas (typeahead)", description = "Busca partidas vigentes por descripción o código. "
+            +
+            "Cada palabra se trata como prefijo; sin distinguir mayúsculas ni tildes. " +
+            "Opcionalmente se restringe a las partidas de un proyecto y a un nivel.")
+    public ResponseEntity<List<PartidaDTO>> buscarPartidas(
+            @PathVariable @Parameter(description = "Código de la compañía") Long codCia,
+            @PathVariable @Parameter(description = "Tipo: I=Ingreso, E=Egreso") String ingEgr,
+            @RequestParam @Parameter(description = "Texto a buscar") String q,
+            @RequestParam(required = false) @Parameter(description = "Código del proyecto (opcional)") Long codPyto,
+            @RequestParam(required = false) @Parameter(description = "Nivel de las partidas (opcional)") Integer nivel,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Máximo de resultados (1-50)") int limite) {
+
+        List<PartidaDTO> partidas = partidaBusquedaService.buscar(codCia, ingEgr, q, codPyto, nivel, limite);
+        return ResponseEntity.ok(partidas);
+    }
+
     /**
      * GET /partidas/arbol/{codCia}/{ingEgr}
      * Obtiene el árbol jerárquico completo de partidas
@@ -450,4 +506,23 @@ public class PartidaController {
         List<PartidaDTO> partidas = partidaHierarchyService.getAllPartidasByProyecto(codCia, codPyto, ingEgr);
         return ResponseEntity.ok(partidas);
     }
+
+    /**
+     * GET /partidas/proyecto/{codCia}/{codPyto}/{ingEgr}/arbol-presupuesto
+     * Obtiene el árbol de partidas del proyecto con presupuesto, ejecutado y
+     * disponible acumulados por nivel en una sola respuesta
+     */
+    @GetMapping("/proyecto/{codCia}/{codPyto}/{ingEgr}/arbol-presupuesto")
+    @Operation(summary = "Obtener árbol de presupuesto por proyecto", description = "Retorna el árbol de partidas del proyecto. "
+            +
+            "Cada nodo incluye sus importes propios y los acumulados de sus subpartidas (presupuestado, " +
+            "ejecutado, disponible y nivel de alerta), calculados en un único recorrido del árbol.")
+    public ResponseEntity<ArbolPresupuestoDTO> obtenerArbolPresupuestoPorProyecto(
+            @PathVariable @Parameter(description = "Código de la compañía") Long codCia,
+            @PathVariable @Parameter(description = "Código del proyecto") Long codPyto,
+            @PathVariable @Parameter(description = "Tipo: I=Ingreso, E=Egreso") String ingEgr) {
+
+        ArbolPresupuestoDTO arbol = partidaHierarchyService.calcularArbolPresupuesto(codCia, codPyto, ingEgr);
+        return ResponseEntity.ok(arbol);
+    }
 }
@@ -9,20 +9,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.proyectos.comprobantespago.dto.AlertaPresupuestoDTO;
+import com.proyectos.comprobantespago.dto.AlertasCompaniaDTO;
 import com.proyectos.comprobantespago.dto.ApiResponse;
+import com.proyectos.comprobantespago.dto.BorradorEgresoDTO;
 import com.proyectos.comprobantespago.dto.ComprobantePagoDetalleDTO;
 import com.proyectos.comprobantespago.dto.PresupuestoDisponibleDTO;
 import com.proyectos.comprobantespago.dto.PresupuestoPartidaDTO;
 import com.proyectos.comprobantespago.dto.ResumenPresupuestoProyectoDTO;
+import com.proyectos.comprobantespago.dto.SimulacionPresupuestoDTO;
 import com.proyectos.comprobantespago.dto.ValidacionPresupuestoDTO;
+import com.proyectos.comprobantespago.dto.VerificacionEjecucionDTO;
+import com.proyectos.comprobantespago.service.AlertaPresupuestoService;
+import com.proyectos.comprobantespago.service.EjecucionPresupuestoService;
 import com.proyectos.comprobantespago.service.PresupuestoService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +47,8 @@ import lombok.extern.slf4j.Slf4j;
 public class PresupuestoController {
 
     private final PresupuestoService presupuestoService;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
+    private final AlertaPresupuestoService alertaPresupuestoService;
 
     /**
      * Obtiene el presupuesto disponible de una partida específica
@@ -96,8 +107,8 @@ public class PresupuestoController {
 
         log.info("GET /presupuesto/alertas/{}/{}", codCia, codPyto);
 
-        List<AlertaPresupuestoDTO> alertas = presupuestoService
-                .generarAlertas(codCia, codPyto);
+        List<AlertaPresupuestoDTO> alertas = alertaPresupuestoService
+                .obtenerAlertas(codCia, codPyto);
 
         return ResponseEntity.ok(ApiResponse.<List<AlertaPresupuestoDTO>>builder()
                 .success(true)
@@ -106,6 +117,30 @@ public class PresupuestoController {
                 .build());
     }
 
+    /**
+     * Obtiene las alertas de presupuesto de todos los proyectos de una compañía
+     * GET /presupuesto/alertas/compania/{codCia}?limite=50
+     */
+    @GetMapping("/alertas/compania/{codCia}")
+    @Operation(summary = "Obtener alertas de presupuesto de la compañía", description = "Retorna las partidas en alerta de todos los proyectos de la compañía ordenadas por criticidad, con totales por nivel")
+    public ResponseEntity<ApiResponse<AlertasCompaniaDTO>> obtenerAlertasCompania(
+            @PathVariable Long codCia,
+            @RequestParam(defaultValue = "50") int limite) {
+
+        log.info("GET /presupuesto/alertas/compania/{}?limite={}", codCia, limite);
+
+        AlertasCompaniaDTO resultado = presupuestoService.generarAlertasCompania(codCia, limite);
+
+        return ResponseEntity.ok(ApiResponse.<AlertasCompaniaDTO>builder()
+                .success(true)
+                .message(String.format("Se encontraron %d partidas en alerta en %d proyectos",
+                        resultado.getAlertasCriticas() + resultado.getAlertasUrgentes()
+                                + resultado.getAlertasAtencion(),
+                        resultado.getProyectosEvaluados()))
+                .data(resultado)
+                .build());
+    }
+
     /**
      * Valida si un egreso puede ser registrado (no supera el presupuesto)
      * POST /presupuesto/validar
@@ -128,6 +163,29 @@ public class PresupuestoController {
                 .build());
     }
 
+    /**
+     * Simula una serie de egresos hipotéticos sobre el presupuesto de un proyecto
+     * POST /presupuesto/simular
+     */
+    @PostMapping("/simular")
+    @Operation(summary = "Simular egresos sobre el presupuesto", description = "Aplica en orden una lista de borradores de comprobantes sobre un snapshot del presupuesto del proyecto y retorna la ejecución proyectada por partida y el primer borrador que excede cada una")
+    public ResponseEntity<ApiResponse<SimulacionPresupuestoDTO>> simularEgresos(
+            @Valid @RequestBody SimularEgresosRequest request) {
+
+        log.info("POST /presupuesto/simular - Proyecto: {}-{}, Borradores: {}",
+                request.getCodCia(), request.getCodPyto(), request.getBorradores().size());
+
+        SimulacionPresupuestoDTO simulacion = presupuestoService
+                .simularEgresos(request.getCodCia(), request.getCodPyto(), request.getBorradores());
+
+        return ResponseEntity.ok(ApiResponse.<SimulacionPresupuestoDTO>builder()
+                .success(true)
+                .message(String.format("Simulación completada: %d de %d borradores exceden el presupuesto",
+                        simulacion.getBorradoresConExceso(), simulacion.getBorradoresSimulados()))
+                .data(simulacion)
+                .build());
+    }
+
     /**
      * Obtiene el presupuesto de todas las partidas de un proyecto
      * GET /presupuesto/proyecto/{codCia}/{codPyto}
@@ -150,6 +208,29 @@ public class PresupuestoController {
                 .build());
     }
 
+    /**
+     * Verifica el ledger de ejecución contra las tablas origen y opcionalmente lo
+     * reconstruye
+     * POST /presupuesto/ejecucion/verificar/{codCia}?corregir=true
+     */
+    @PostMapping("/ejecucion/verificar/{codCia}")
+    @Operation(summary = "Verificar/reconstruir ledger de ejecución", description = "Recalcula el importe ejecutado por partida desde los comprobantes y reporta las diferencias con el ledger. Con corregir=true ajusta el ledger")
+    public ResponseEntity<ApiResponse<VerificacionEjecucionDTO>> verificarEjecucion(
+            @PathVariable Long codCia,
+            @RequestParam(defaultValue = "false") boolean corregir) {
+
+        log.info("POST /presupuesto/ejecucion/verificar/{} - corregir: {}", codCia, corregir);
+
+        VerificacionEjecucionDTO verificacion = ejecucionPresupuestoService.verificar(codCia, corregir);
+
+        return ResponseEntity.ok(ApiResponse.<VerificacionEjecucionDTO>builder()
+                .success(true)
+                .message(String.format("Se encontraron %d partidas con diferencia",
+                        verificacion.getPartidasConDiferencia()))
+                .data(verificacion)
+                .build());
+    }
+
     // ==================== DTOs internos ====================
 
     /**
@@ -163,4 +244,20 @@ public class PresupuestoController {
         private Long codPyto;
         private List<ComprobantePagoDetalleDTO> detalles;
     }
+
+    /**
+     * DTO para request de simulación de egresos
+     */
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class SimularEgresosRequest {
+        @NotNull
+        private Long codCia;
+        @NotNull
+        private Long codPyto;
+        @NotEmpty
+        @Valid
+        private List<@NotNull BorradorEgresoDTO> borradores;
+    }
 }
@@ -0,0 +1,26 @@
+package com.proyectos.comprobantespago.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+import com.proyectos.comprobantespago.dto.ApiResponse;
+
+/**
+ * Respuesta HTTP de las consultas de catálogos (TABS y ELEMENTOS)
+ * Lleva el ETag de CatalogoService: el navegador guarda la respuesta y la
+ * revalida con If-None-Match, y Spring responde 304 sin cuerpo mientras los
+ * catálogos no cambien. El ETag se lee antes que los datos, así que una
+ * recarga intermedia a lo sumo provoca una descarga de más.
+ */
+final class RespuestaCatalogo {
+
+    private RespuestaCatalogo() {
+    }
+
+    static <T> ResponseEntity<ApiResponse<T>> ok(String etag, String mensaje, T datos) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(ApiResponse.success(mensaje, datos));
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.proyectos.comprobantespago.dto.ApiResponse;
 import com.proyectos.comprobantespago.dto.TabsDTO;
+import com.proyectos.comprobantespago.service.CatalogoService;
 import com.proyectos.comprobantespago.service.TabsService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,19 +33,22 @@ import lombok.RequiredArgsConstructor;
 public class TabsController {
 
     private final TabsService tabsService;
+    private final CatalogoService catalogoService;
 
     @Operation(summary = "Obtener todas las tablas vigentes")
     @GetMapping
     public ResponseEntity<ApiResponse<List<TabsDTO>>> obtenerTodas() {
+        String etag = catalogoService.etag();
         List<TabsDTO> tabs = tabsService.obtenerTodasVigentes();
-        return ResponseEntity.ok(ApiResponse.success("Tablas obtenidas exitosamente", tabs));
+        return RespuestaCatalogo.ok(etag, "Tablas obtenidas exitosamente", tabs);
     }
 
     @Operation(summary = "Obtener tabla por código")
     @GetMapping("/{codTab}")
     public ResponseEntity<ApiResponse<TabsDTO>> obtenerPorCodigo(@PathVariable String codTab) {
+        String etag = catalogoService.etag();
         TabsDTO tabs = tabsService.obtenerPorCodigo(codTab);
-        return ResponseEntity.ok(ApiResponse.success("Tabla obtenida exitosamente", tabs));
+        return RespuestaCatalogo.ok(etag, "Tabla obtenida exitosamente", tabs);
     }
 
     @Operation(summary = "Crear nueva tabla")
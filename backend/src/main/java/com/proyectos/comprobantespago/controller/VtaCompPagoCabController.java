@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -170,16 +171,13 @@ public class VtaCompPagoCabController {
         return ResponseEntity.ok(ApiResponse.success("Imagen de comprobante subida exitosamente", null));
     }
 
-    @Operation(summary = "Obtener imagen comprobante", description = "Obtiene la imagen del comprobante de ingreso como BLOB")
+    @Operation(summary = "Obtener imagen comprobante", description = "Envía la imagen del comprobante de ingreso como flujo (admite Range, ETag y 304)")
     @GetMapping("/{codCia}/{nroCp}/foto-cp")
-    public ResponseEntity<byte[]> getFotoCp(
+    public ResponseEntity<Resource> getFotoCp(
             @PathVariable Long codCia,
             @PathVariable String nroCp) {
 
-        byte[] foto = vtaCompPagoCabService.getFotoCp(codCia, nroCp);
-        return ResponseEntity.ok()
-                .contentType(org.springframework.http.MediaType.IMAGE_JPEG)
-                .body(foto);
+        return DescargaArchivo.respuesta(vtaCompPagoCabService.getFotoCp(codCia, nroCp));
     }
 
     @Operation(summary = "Eliminar imagen comprobante", description = "Elimina la imagen del comprobante de ingreso")
@@ -203,16 +201,13 @@ public class VtaCompPagoCabController {
         return ResponseEntity.ok(ApiResponse.success("Imagen de abono subida exitosamente", null));
     }
 
-    @Operation(summary = "Obtener imagen abono", description = "Obtiene la imagen del abono de ingreso como BLOB")
+    @Operation(summary = "Obtener imagen abono", description = "Envía la imagen del abono de ingreso como flujo (admite Range, ETag y 304)")
     @GetMapping("/{codCia}/{nroCp}/foto-abono")
-    public ResponseEntity<byte[]> getFotoAbono(
+    public ResponseEntity<Resource> getFotoAbono(
             @PathVariable Long codCia,
             @PathVariable String nroCp) {
 
-        byte[] foto = vtaCompPagoCabService.getFotoAbono(codCia, nroCp);
-        return ResponseEntity.ok()
-                .contentType(org.springframework.http.MediaType.IMAGE_JPEG)
-                .body(foto);
+        return DescargaArchivo.respuesta(vtaCompPagoCabService.getFotoAbono(codCia, nroCp));
     }
 
     @Operation(summary = "Eliminar imagen abono", description = "Elimina la imagen del abono de ingreso")
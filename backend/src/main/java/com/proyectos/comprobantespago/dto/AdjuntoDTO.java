@@ -0,0 +1,40 @@
+package com.proyectos.comprobantespago.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para archivos adjuntos de comprobantes (sin el contenido)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdjuntoDTO {
+
+    private Long codAdjunto;
+    private Long codCia;
+
+    /** EGR = egreso, ING = ingreso, EMP = empleado */
+    private String tipoComprobante;
+
+    /** Proveedor (EGR), empleado (EMP) o 0 (ING) */
+    private Long codTercero;
+    private String nroCp;
+
+    /** CP = comprobante, ABO = abono, OTR = otros */
+    private String categoria;
+
+    private String nombreArchivo;
+    private String contentType;
+    private Long tamanio;
+
+    /** SHA-256 del contenido (hexadecimal) */
+    private String hash;
+
+    private LocalDateTime fecCreacion;
+}
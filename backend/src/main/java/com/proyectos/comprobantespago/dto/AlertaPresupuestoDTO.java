@@ -20,6 +20,8 @@ public class AlertaPresupuestoDTO {
     private String tipo; // info, warning, error
     private String nivel; // verde, amarillo, naranja, rojo
     private String mensaje;
+    private Long codPyto;
+    private String nombPyto;
     private Long codPartida;
     private String nombrePartida;
     private BigDecimal porcentajeEjecucion;
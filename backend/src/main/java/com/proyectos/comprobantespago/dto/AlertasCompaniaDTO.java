@@ -0,0 +1,29 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el resultado del barrido de alertas de presupuesto de todos los
+ * proyectos de una compañía
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertasCompaniaDTO {
+    private Long codCia;
+    private int proyectosEvaluados;
+    private int partidasEvaluadas;
+    private long alertasCriticas; // rojo
+    private long alertasUrgentes; // naranja
+    private long alertasAtencion; // amarillo
+    private List<AlertaPresupuestoDTO> alertas; // ordenadas por criticidad, limitadas
+    private long tiempoMs;
+    private LocalDateTime fechaCalculo;
+}
@@ -0,0 +1,59 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con el árbol de partidas de un proyecto anotado con los importes
+ * presupuestados, ejecutados y disponibles acumulados en cada nivel
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArbolPresupuestoDTO {
+    private Long codCia;
+    private Long codPyto;
+    private String ingEgr;
+    private BigDecimal totalPresupuestado;
+    private BigDecimal totalEjecutado;
+    private BigDecimal totalDisponible;
+    private BigDecimal porcentajeEjecutado;
+    private int partidasEvaluadas;
+    private List<NodoPresupuesto> arbol;
+    private LocalDateTime fechaCalculo;
+
+    /**
+     * Partida del árbol con sus importes propios y los acumulados de su subárbol
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NodoPresupuesto {
+        private Long codPartida;
+        private String codPartidas;
+        private String desPartida;
+        private Integer nivel;
+        private Long padCodPartida;
+        private String fullPath;
+        private Integer orden;
+        private boolean isLeaf;
+        private BigDecimal presupuestadoPropio;
+        private BigDecimal ejecutadoPropio;
+        private BigDecimal presupuestado; // propio + subpartidas
+        private BigDecimal ejecutado; // propio + subpartidas
+        private BigDecimal disponible;
+        private BigDecimal porcentajeEjecutado;
+        private String nivelAlerta; // verde, amarillo, naranja, rojo
+        @Builder.Default
+        private List<NodoPresupuesto> children = new ArrayList<>();
+    }
+}
@@ -0,0 +1,26 @@
+package com.proyectos.comprobantespago.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para un comprobante de egreso hipotético (borrador) usado en la
+ * simulación de presupuesto
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BorradorEgresoDTO {
+    private String referencia; // identificador libre del borrador (ej. nroCp tentativo)
+
+    @NotEmpty(message = "Debe incluir al menos un detalle")
+    private List<@NotNull @Valid ComprobantePagoDetalleDTO> detalles;
+}
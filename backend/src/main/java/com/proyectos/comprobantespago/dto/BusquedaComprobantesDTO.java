@@ -0,0 +1,46 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Página de resultados de la búsqueda de texto libre de comprobantes,
+ * ordenados de mayor a menor relevancia
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusquedaComprobantesDTO {
+    private String consulta;
+    private int pagina;
+    private int tamanio;
+    /** Total de comprobantes que coinciden (con los filtros aplicados) */
+    private long total;
+    private List<Resultado> resultados;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Resultado {
+        /** EGRESO, INGRESO o EMPLEADO */
+        private String origen;
+        /** Proveedor, cliente o empleado */
+        private Long codPersona;
+        private String desPersona;
+        private String nroCp;
+        private Long codPyto;
+        private LocalDate fecCp;
+        private BigDecimal impTotalMn;
+        private String codEstado;
+        private String desAbono;
+        private float puntaje;
+    }
+}
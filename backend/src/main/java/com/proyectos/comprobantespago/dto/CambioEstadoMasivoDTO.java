@@ -0,0 +1,45 @@
+package com.proyectos.comprobantespago.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para el cambio de estado masivo de comprobantes de pago
+ * Se indican los comprobantes por clave o, si la lista está vacía, con los
+ * mismos filtros del listado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioEstadoMasivoDTO {
+
+    @NotBlank(message = "El estado es obligatorio")
+    private String estado;
+
+    /** Permite anular comprobantes en estado PAG */
+    private boolean confirmarPagado;
+
+    private List<@Valid ClaveComprobante> comprobantes;
+
+    private FiltroComprobantesDTO filtro;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClaveComprobante {
+        @NotNull(message = "El proveedor es obligatorio")
+        private Long codProveedor;
+
+        @NotBlank(message = "El número de comprobante es obligatorio")
+        private String nroCp;
+    }
+}
@@ -0,0 +1,27 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Filtros combinables para el listado de comprobantes
+ * Los campos nulos no filtran.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroComprobantesDTO {
+    private Long codPyto;
+    private Long codProveedor;
+    private String estado;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private BigDecimal montoMin;
+    private BigDecimal montoMax;
+}
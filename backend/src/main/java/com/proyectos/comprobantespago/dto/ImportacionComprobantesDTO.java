@@ -0,0 +1,43 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de la importación masiva de comprobantes de pago desde
+ * un archivo CSV: totales y el detalle de los comprobantes rechazados o con
+ * advertencias
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionComprobantesDTO {
+    private Long codCia;
+    private int filasLeidas;
+    private int comprobantesLeidos;
+    private int comprobantesImportados;
+    private int comprobantesRechazados;
+    private long duracionMs;
+    private List<ResultadoFila> errores;
+    private List<ResultadoFila> advertencias;
+
+    /**
+     * Error o advertencia de un comprobante del archivo
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultadoFila {
+        /** Línea del archivo donde empieza el comprobante (la cabecera CSV es la línea 1) */
+        private int fila;
+        private Long codProveedor;
+        private String nroCp;
+        private String mensaje;
+    }
+}
@@ -0,0 +1,24 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor (keyset)
+ * El cursor es opaco: se envía tal cual para obtener la página siguiente.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDTO<T> {
+    private List<T> items;
+    private int limite;
+    private boolean hayMas;
+    private String siguienteCursor; // null si no hay más resultados
+    private Long total; // solo si se solicitó el conteo
+}
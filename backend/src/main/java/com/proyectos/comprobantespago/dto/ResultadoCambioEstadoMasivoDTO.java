@@ -0,0 +1,37 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resumen de un cambio de estado masivo: comprobantes
+ * actualizados y rechazados con el motivo
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoCambioEstadoMasivoDTO {
+    private Long codCia;
+    private String estado;
+    private int solicitados;
+    private int actualizados;
+    private int rechazados;
+    private List<Rechazo> detalleRechazos;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rechazo {
+        private Long codProveedor;
+        private String nroCp;
+        /** Estado actual del comprobante (null si no existe) */
+        private String estadoActual;
+        private String motivo;
+    }
+}
@@ -0,0 +1,64 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO con el resultado de simular una serie de egresos hipotéticos sobre el
+ * presupuesto de un proyecto
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulacionPresupuestoDTO {
+    private Long codCia;
+    private Long codPyto;
+    private int borradoresSimulados;
+    private int borradoresConExceso;
+    private List<PartidaSimulada> partidas;
+    private List<ResultadoBorrador> borradores;
+
+    /**
+     * Ejecución proyectada de una partida después de aplicar todos los borradores
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PartidaSimulada {
+        private Long codPartida;
+        private String ingEgr;
+        private String nombrePartida;
+        private BigDecimal presupuestoOriginal;
+        private BigDecimal ejecutadoActual;
+        private BigDecimal montoSimulado;
+        private BigDecimal ejecutadoProyectado;
+        private BigDecimal disponibleProyectado;
+        private BigDecimal porcentajeProyectado;
+        private String nivelAlerta; // verde, amarillo, naranja, rojo
+        private Integer primerBorradorExcedido; // índice (0..n-1) del primer borrador que excede
+        private String referenciaPrimerExceso;
+    }
+
+    /**
+     * Resultado acumulado después de aplicar un borrador
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultadoBorrador {
+        private int indice;
+        private String referencia;
+        private BigDecimal montoTotal;
+        private boolean excede;
+        private List<Long> partidasExcedidas;
+        private String nivelAlertaMaximo;
+    }
+}
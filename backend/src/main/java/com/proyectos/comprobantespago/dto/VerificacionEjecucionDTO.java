@@ -0,0 +1,43 @@
+package com.proyectos.comprobantespago.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el resultado de verificar/reconstruir el ledger de ejecución
+ * presupuestal contra las tablas origen
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VerificacionEjecucionDTO {
+    private Long codCia;
+    private int partidasRevisadas;
+    private int partidasConDiferencia;
+    private boolean corregido;
+    private List<DiferenciaEjecucion> diferencias;
+    private LocalDateTime fechaVerificacion;
+
+    /**
+     * Diferencia encontrada entre el ledger y el importe recalculado
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DiferenciaEjecucion {
+        private Long codPyto;
+        private String ingEgr;
+        private Long codPartida;
+        private BigDecimal importeLedger;
+        private BigDecimal importeOrigen;
+        private BigDecimal diferencia;
+    }
+}
@@ -0,0 +1,79 @@
+package com.proyectos.comprobantespago.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad ADJUNTO_COMPROBANTE - Archivos adjuntos de los comprobantes
+ * El contenido vive en el almacenamiento de archivos (FileStorageService);
+ * la fila guarda la referencia, el tamaño y el hash SHA-256.
+ */
+@Entity
+@Table(name = "ADJUNTO_COMPROBANTE")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdjuntoComprobante {
+
+    /** Comprobante de egreso (COMP_PAGOCAB); codTercero = codProveedor */
+    public static final String TIPO_EGRESO = "EGR";
+    /** Comprobante de ingreso (VTACOMP_PAGOCAB); codTercero = 0 */
+    public static final String TIPO_INGRESO = "ING";
+    /** Comprobante de empleado (COMP_PAGOEMPLEADO); codTercero = codEmpleado */
+    public static final String TIPO_EMPLEADO = "EMP";
+
+    public static final String CATEGORIA_COMPROBANTE = "CP";
+    public static final String CATEGORIA_ABONO = "ABO";
+    public static final String CATEGORIA_OTROS = "OTR";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "adjunto_comprobante_seq")
+    @SequenceGenerator(name = "adjunto_comprobante_seq", sequenceName = "SEQ_ADJUNTO_COMPROBANTE", allocationSize = 1)
+    @Column(name = "CODADJUNTO")
+    private Long codAdjunto;
+
+    @Column(name = "CODCIA", nullable = false)
+    private Long codCia;
+
+    @Column(name = "TIPOCOMPROBANTE", nullable = false, length = 3)
+    private String tipoComprobante;
+
+    @Column(name = "CODTERCERO", nullable = false)
+    private Long codTercero;
+
+    @Column(name = "NROCP", nullable = false, length = 20)
+    private String nroCp;
+
+    @Column(name = "CATEGORIA", nullable = false, length = 3)
+    private String categoria;
+
+    @Column(name = "NOMBREARCHIVO", nullable = false, length = 255)
+    private String nombreArchivo;
+
+    @Column(name = "CONTENTTYPE", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "TAMANIO", nullable = false)
+    private Long tamanio;
+
+    @Column(name = "HASH", nullable = false, length = 64)
+    private String hash;
+
+    @Column(name = "RUTAARCHIVO", nullable = false, length = 500)
+    private String rutaArchivo;
+
+    @Column(name = "FECCREACION", nullable = false)
+    private LocalDateTime fecCreacion;
+}
@@ -0,0 +1,61 @@
+package com.proyectos.comprobantespago.entity;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad ADJUNTO_MIGRACION_FALLO - Comprobantes cuyas imágenes BLOB no se
+ * pudieron trasladar a adjuntos. AdjuntoMigracionJob los omite en los lotes
+ * siguientes; para reintentar uno basta con eliminar su fila.
+ */
+@Entity
+@Table(name = "ADJUNTO_MIGRACION_FALLO")
+@IdClass(AdjuntoMigracionFallo.AdjuntoMigracionFalloId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdjuntoMigracionFallo {
+
+    @Id
+    @Column(name = "CODCIA", nullable = false)
+    private Long codCia;
+
+    @Id
+    @Column(name = "TIPOCOMPROBANTE", nullable = false, length = 3)
+    private String tipoComprobante;
+
+    @Id
+    @Column(name = "CODTERCERO", nullable = false)
+    private Long codTercero;
+
+    @Id
+    @Column(name = "NROCP", nullable = false, length = 20)
+    private String nroCp;
+
+    @Column(name = "MENSAJE", length = 500)
+    private String mensaje;
+
+    @Column(name = "FECFALLO", nullable = false)
+    private LocalDateTime fecFallo;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AdjuntoMigracionFalloId implements Serializable {
+        private Long codCia;
+        private String tipoComprobante;
+        private Long codTercero;
+        private String nroCp;
+    }
+}
@@ -2,6 +2,10 @@ package com.proyectos.comprobantespago.entity;
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -23,6 +27,8 @@ import lombok.Setter;
  * Tabla principal para multi-tenancy
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "companias")
 @Table(name = "CIA")
 @Getter
 @Setter
@@ -4,17 +4,19 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import org.hibernate.annotations.Formula;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.proyectos.comprobantespago.service.ComprobanteBusquedaListener;
 
-import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinColumns;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.DecimalMin;
@@ -32,6 +34,7 @@ import lombok.Setter;
  * Entidad COMP_PAGOCAB - Comprobantes de Pago (Cabecera)
  */
 @Entity
+@EntityListeners(ComprobanteBusquedaListener.class)
 @Table(name = "COMP_PAGOCAB")
 @IdClass(ComprobantePagoCab.ComprobantePagoCabId.class)
 @Getter
@@ -145,15 +148,18 @@ public class ComprobantePagoCab implements Serializable {
     @Column(name = "IMPTOTALMN", nullable = false, precision = 10, scale = 2)
     private BigDecimal impTotalMn;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "FOTOCP")
-    private byte[] fotoCp;
-
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "FOTOABONO")
-    private byte[] fotoAbono;
+    // Indica si hay imagen, calculado en SQL sin leer el contenido: un adjunto de la
+    // categoría en ADJUNTO_COMPROBANTE o el BLOB heredado FOTOCP / FOTOABONO, que se
+    // mapea en ComprobantePagoCabFotos para que ninguna consulta de cabeceras lo lea
+    @Formula("CASE WHEN DBMS_LOB.GETLENGTH(FOTOCP) > 0 OR EXISTS (SELECT 1 FROM ADJUNTO_COMPROBANTE a "
+            + "WHERE a.CodCia = CODCIA AND a.TipoComprobante = 'EGR' AND a.CodTercero = CODPROVEEDOR "
+            + "AND a.NroCP = NROCP AND a.Categoria = 'CP') THEN 1 ELSE 0 END")
+    private Boolean tieneFotoCp;
+
+    @Formula("CASE WHEN DBMS_LOB.GETLENGTH(FOTOABONO) > 0 OR EXISTS (SELECT 1 FROM ADJUNTO_COMPROBANTE a "
+            + "WHERE a.CodCia = CODCIA AND a.TipoComprobante = 'EGR' AND a.CodTercero = CODPROVEEDOR "
+            + "AND a.NroCP = NROCP AND a.Categoria = 'ABO') THEN 1 ELSE 0 END")
+    private Boolean tieneFotoAbono;
 
     @Column(name = "FECABONO")
     private LocalDate fecAbono;
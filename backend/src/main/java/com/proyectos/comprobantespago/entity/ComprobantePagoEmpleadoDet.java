@@ -3,8 +3,11 @@ package com.proyectos.comprobantespago.entity;
 import java.io.Serializable;
 import java.math.BigDecimal;
 
+import com.proyectos.comprobantespago.service.ComprobanteBusquedaListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
@@ -27,6 +30,7 @@ import lombok.Setter;
  * Entidad COMP_PAGOEMPLEADO_DET - Detalle de Comprobantes de Pago a Empleados
  */
 @Entity
+@EntityListeners(ComprobanteBusquedaListener.class)
 @Table(name = "COMP_PAGOEMPLEADO_DET")
 @IdClass(ComprobantePagoEmpleadoDet.ComprobantePagoEmpleadoDetId.class)
 @Getter
@@ -0,0 +1,53 @@
+package com.proyectos.comprobantespago.entity;
+
+import java.io.Serializable;
+
+import org.hibernate.annotations.DynamicUpdate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Imágenes (BLOB) de COMP_PAGOEMPLEADO - Comprobantes de Pago a Empleados
+ * Se mapean sobre la misma fila que ComprobantePagoEmpleado, pero en una entidad aparte,
+ * para que las consultas y actualizaciones de la cabecera no lean ni
+ * reescriban los BLOB. Las filas se crean siempre a través de ComprobantePagoEmpleado.
+ * Son imágenes heredadas: las nuevas se guardan como adjuntos
+ * (AdjuntoService) y AdjuntoMigracionJob traslada las existentes.
+ */
+@Entity
+@DynamicUpdate
+@Table(name = "COMP_PAGOEMPLEADO")
+@IdClass(ComprobantePagoEmpleado.ComprobantePagoEmpleadoId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ComprobantePagoEmpleadoFotos implements Serializable, FotosComprobante {
+
+    @Id
+    @Column(name = "CODCIA", nullable = false)
+    private Long codCia;
+
+    @Id
+    @Column(name = "CODEMPLEADO", nullable = false)
+    private Long codEmpleado;
+
+    @Id
+    @Column(name = "NROCP", nullable = false, length = 20)
+    private String nroCp;
+
+    @Lob
+    @Column(name = "FOTOCP")
+    private byte[] fotoCp;
+
+    @Lob
+    @Column(name = "FOTOABONO")
+    private byte[] fotoAbono;
+}
@@ -2,6 +2,10 @@ package com.proyectos.comprobantespago.entity;
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -23,6 +27,8 @@ import lombok.Setter;
  * Entidad ELEMENTOS - Elementos de catálogos maestros
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "elementos")
 @Table(name = "ELEMENTOS")
 @IdClass(Elementos.ElementosId.class)
 @Getter
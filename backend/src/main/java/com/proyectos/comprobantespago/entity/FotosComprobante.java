@@ -0,0 +1,16 @@
+package com.proyectos.comprobantespago.entity;
+
+/**
+ * Columnas BLOB FOTOCP / FOTOABONO comunes a las cabeceras de comprobantes
+ * (COMP_PAGOCAB, VTACOMP_PAGOCAB y COMP_PAGOEMPLEADO)
+ */
+public interface FotosComprobante {
+
+    byte[] getFotoCp();
+
+    void setFotoCp(byte[] fotoCp);
+
+    byte[] getFotoAbono();
+
+    void setFotoAbono(byte[] fotoAbono);
+}
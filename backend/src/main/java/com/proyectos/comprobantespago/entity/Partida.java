@@ -2,6 +2,10 @@ package com.proyectos.comprobantespago.entity;
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
@@ -20,6 +24,8 @@ import lombok.Setter;
  * Entidad PARTIDA
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "partidas")
 @Table(name = "PARTIDA")
 @IdClass(Partida.PartidaId.class)
 @Getter
@@ -2,6 +2,10 @@ package com.proyectos.comprobantespago.entity;
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -24,6 +28,8 @@ import lombok.Setter;
  * Clase padre para Cliente, Proveedor y Empleado
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "personas")
 @Table(name = "PERSONA")
 @IdClass(Persona.PersonaId.class)
 @Getter
@@ -0,0 +1,74 @@
+package com.proyectos.comprobantespago.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entidad PROY_PARTIDA_EJEC - Ledger de ejecución presupuestal por partida
+ * Acumula el importe ejecutado de comprobantes no anulados por
+ * (compañía, proyecto, tipo, partida)
+ */
+@Entity
+@Table(name = "PROY_PARTIDA_EJEC")
+@IdClass(ProyPartidaEjec.ProyPartidaEjecId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProyPartidaEjec implements Serializable {
+
+    @Id
+    @NotNull
+    @Column(name = "CODCIA", nullable = false)
+    private Long codCia;
+
+    @Id
+    @NotNull
+    @Column(name = "CODPYTO", nullable = false)
+    private Long codPyto;
+
+    @Id
+    @NotBlank
+    @Size(max = 1)
+    @Column(name = "INGEGR", nullable = false, length = 1)
+    private String ingEgr;
+
+    @Id
+    @NotNull
+    @Column(name = "CODPARTIDA", nullable = false)
+    private Long codPartida;
+
+    @NotNull
+    @Column(name = "IMPEJECMN", nullable = false, precision = 14, scale = 2)
+    private BigDecimal impEjecMn;
+
+    @Column(name = "FECACTUALIZA", nullable = false)
+    private LocalDateTime fecActualiza;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProyPartidaEjecId implements Serializable {
+        private Long codCia;
+        private Long codPyto;
+        private String ingEgr;
+        private Long codPartida;
+    }
+}
@@ -4,7 +4,10 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
-import jakarta.persistence.Basic;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -12,7 +15,6 @@ import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinColumns;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
@@ -27,8 +29,12 @@ import lombok.Setter;
 
 /**
  * Entidad PROYECTO
+ * El logo (LOGOPROY) se mapea en ProyectoLogo para que no entre en la caché
+ * de segundo nivel
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "proyectos")
 @Table(name = "PROYECTO")
 @IdClass(Proyecto.ProyectoId.class)
 @Getter
@@ -190,11 +196,6 @@ public class Proyecto implements Serializable {
     @Column(name = "CODOBJC", nullable = false)
     private Integer codObjC;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "LOGOPROY")
-    private byte[] logoProy;
-
     @NotBlank
     @Size(max = 3)
     @Column(name = "TABESTADO", nullable = false, length = 3)
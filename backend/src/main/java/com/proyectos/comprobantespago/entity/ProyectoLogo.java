@@ -0,0 +1,42 @@
+package com.proyectos.comprobantespago.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Logo (BLOB) de PROYECTO
+ * Se mapea sobre la misma fila que Proyecto, pero en una entidad aparte y sin
+ * caché de segundo nivel: Proyecto está en la región "proyectos" y, sin
+ * bytecode enhancement, un @Basic(fetch = LAZY) se cargaría igual y la
+ * imagen quedaría guardada en la caché. Las filas se crean siempre a través
+ * de Proyecto.
+ */
+@Entity
+@Table(name = "PROYECTO")
+@IdClass(Proyecto.ProyectoId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProyectoLogo implements Serializable {
+
+    @Id
+    @Column(name = "CODCIA", nullable = false)
+    private Long codCia;
+
+    @Id
+    @Column(name = "CODPYTO", nullable = false)
+    private Long codPyto;
+
+    @Lob
+    @Column(name = "LOGOPROY")
+    private byte[] logoProy;
+}
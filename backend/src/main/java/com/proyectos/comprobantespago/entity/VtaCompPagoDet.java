@@ -3,8 +3,11 @@ package com.proyectos.comprobantespago.entity;
 import java.io.Serializable;
 import java.math.BigDecimal;
 
+import com.proyectos.comprobantespago.service.ComprobanteBusquedaListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
@@ -26,6 +29,7 @@ import lombok.Setter;
  * Entidad VTACOMP_PAGODET - Detalle de Comprobantes de Venta/Ingreso
  */
 @Entity
+@EntityListeners(ComprobanteBusquedaListener.class)
 @Table(name = "VTACOMP_PAGODET")
 @IdClass(VtaCompPagoDet.VtaCompPagoDetId.class)
 @Getter
@@ -28,8 +28,8 @@ public interface ComprobantePagoMapper {
     @Mapping(target = "impIgvMn", source = "impIgvmn")
     @Mapping(target = "fotoCp", ignore = true)
     @Mapping(target = "fotoAbono", ignore = true)
-    @Mapping(target = "tieneFotoCp", expression = "java(entity.getFotoCp() != null && entity.getFotoCp().length > 0)")
-    @Mapping(target = "tieneFotoAbono", expression = "java(entity.getFotoAbono() != null && entity.getFotoAbono().length > 0)")
+    @Mapping(target = "tieneFotoCp", expression = "java(Boolean.TRUE.equals(entity.getTieneFotoCp()))")
+    @Mapping(target = "tieneFotoAbono", expression = "java(Boolean.TRUE.equals(entity.getTieneFotoAbono()))")
     ComprobantePagoDTO toDTO(ComprobantePagoCab entity);
 
     @Mapping(target = "impIgvmn", source = "impIgvMn")
@@ -37,8 +37,8 @@ public interface ComprobantePagoMapper {
     @Mapping(target = "eCompPago", ignore = true)
     @Mapping(target = "tMoneda", ignore = true)
     @Mapping(target = "eMoneda", ignore = true)
-    @Mapping(target = "fotoCp", ignore = true)
-    @Mapping(target = "fotoAbono", ignore = true)
+    @Mapping(target = "tieneFotoCp", ignore = true)
+    @Mapping(target = "tieneFotoAbono", ignore = true)
     ComprobantePagoCab toEntity(ComprobantePagoDTO dto);
 
     List<ComprobantePagoDTO> toDTOList(List<ComprobantePagoCab> entities);
@@ -51,7 +51,7 @@ public interface ComprobantePagoMapper {
     List<ComprobantePagoDetalleDTO> toDetalleDTOList(List<ComprobantePagoDet> entities);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
-    @Mapping(target = "fotoCp", ignore = true)
-    @Mapping(target = "fotoAbono", ignore = true)
+    @Mapping(target = "tieneFotoCp", ignore = true)
+    @Mapping(target = "tieneFotoAbono", ignore = true)
     void updateEntityFromDTO(ComprobantePagoDTO dto, @MappingTarget ComprobantePagoCab entity);
 }
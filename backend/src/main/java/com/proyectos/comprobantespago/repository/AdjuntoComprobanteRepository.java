@@ -0,0 +1,34 @@
+package com.proyectos.comprobantespago.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
+
+/**
+ * Repositorio para la entidad ADJUNTO_COMPROBANTE (Archivos adjuntos de comprobantes)
+ */
+@Repository
+public interface AdjuntoComprobanteRepository extends JpaRepository<AdjuntoComprobante, Long> {
+
+    /**
+     * Adjuntos de un comprobante, del más reciente al más antiguo
+     */
+    List<AdjuntoComprobante> findByCodCiaAndTipoComprobanteAndCodTerceroAndNroCpOrderByCodAdjuntoDesc(
+            Long codCia, String tipoComprobante, Long codTercero, String nroCp);
+
+    /**
+     * Adjuntos de una categoría (CP, ABO, OTR) de un comprobante
+     */
+    List<AdjuntoComprobante> findByCodCiaAndTipoComprobanteAndCodTerceroAndNroCpAndCategoria(
+            Long codCia, String tipoComprobante, Long codTercero, String nroCp, String categoria);
+
+    /**
+     * Adjunto más reciente de una categoría de un comprobante
+     */
+    Optional<AdjuntoComprobante> findFirstByCodCiaAndTipoComprobanteAndCodTerceroAndNroCpAndCategoriaOrderByCodAdjuntoDesc(
+            Long codCia, String tipoComprobante, Long codTercero, String nroCp, String categoria);
+}
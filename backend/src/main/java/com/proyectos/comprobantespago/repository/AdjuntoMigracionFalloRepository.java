@@ -0,0 +1,15 @@
+package com.proyectos.comprobantespago.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.proyectos.comprobantespago.entity.AdjuntoMigracionFallo;
+
+/**
+ * Repositorio para ADJUNTO_MIGRACION_FALLO (comprobantes que la migración de
+ * imágenes BLOB omite)
+ */
+@Repository
+public interface AdjuntoMigracionFalloRepository
+        extends JpaRepository<AdjuntoMigracionFallo, AdjuntoMigracionFallo.AdjuntoMigracionFalloId> {
+}
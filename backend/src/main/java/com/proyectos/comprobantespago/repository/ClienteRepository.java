@@ -1,15 +1,20 @@
 package com.proyectos.comprobantespago.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.proyectos.comprobantespago.entity.Cliente;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository para Cliente
  */
@@ -21,9 +26,19 @@ public interface ClienteRepository extends JpaRepository<Cliente, Cliente.Client
     List<Cliente> findByCodCiaAndVigente(Long codCia, String vigente);
 
     @Query("SELECT c FROM Cliente c WHERE c.codCia = :codCia AND c.vigente IN ('1', 'S') ORDER BY c.persona.desPersona")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Cliente> findByCodCiaAndVigentes(Long codCia);
 
-    Optional<Cliente> findByCodCiaAndCodCliente(Long codCia, Long codCliente);
+    // Por clave primaria: findById usa la caché de segundo nivel, una consulta derivada iría a la BD
+    default Optional<Cliente> findByCodCiaAndCodCliente(Long codCia, Long codCliente) {
+        return findById(new Cliente.ClienteId(codCia, codCliente));
+    }
+
+    // Nombres (codCliente, desPersona) de varios clientes en una sola consulta
+    @Query("SELECT c.codCliente, p.desPersona FROM Cliente c JOIN c.persona p "
+            + "WHERE c.codCia = :codCia AND c.codCliente IN :codClientes")
+    List<Object[]> findNombresByCodCiaAndCodClienteIn(@Param("codCia") Long codCia,
+            @Param("codClientes") Collection<Long> codClientes);
 
     @Query("SELECT c FROM Cliente c WHERE c.codCia = :codCia AND c.vigente = 'S' ORDER BY c.codCliente")
     List<Cliente> findAllActiveByCodCia(@Param("codCia") Long codCia);
@@ -3,12 +3,16 @@ package com.proyectos.comprobantespago.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.proyectos.comprobantespago.entity.Compania;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository para Compania
  */
@@ -20,6 +24,7 @@ public interface CompaniaRepository extends JpaRepository<Compania, Long> {
     Optional<Compania> findByCodCiaAndVigente(Long codCia, String vigente);
 
     @Query("SELECT c FROM Compania c WHERE c.vigente = 'S' ORDER BY c.desCia")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Compania> findAllActive();
 
     boolean existsByDesCia(String desCia);
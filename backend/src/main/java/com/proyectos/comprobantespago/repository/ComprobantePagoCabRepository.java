@@ -1,16 +1,24 @@
 package com.proyectos.comprobantespago.repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.proyectos.comprobantespago.entity.ComprobantePagoCab;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository para ComprobantePagoCab
  */
@@ -20,6 +28,23 @@ public interface ComprobantePagoCabRepository
 
         Optional<ComprobantePagoCab> findByCodCiaAndCodProveedorAndNroCp(Long codCia, Long codProveedor, String nroCp);
 
+        /**
+         * Existencia por clave sin cargar la entidad
+         */
+        boolean existsByCodCiaAndCodProveedorAndNroCp(Long codCia, Long codProveedor, String nroCp);
+
+        /**
+         * Compañías con comprobantes (carga inicial del índice de duplicados)
+         */
+        @Query("SELECT DISTINCT c.codCia FROM ComprobantePagoCab c")
+        List<Long> findCodCias();
+
+        /**
+         * Claves (codProveedor, nroCp) de todos los comprobantes de la compañía
+         */
+        @Query("SELECT c.codProveedor, c.nroCp FROM ComprobantePagoCab c WHERE c.codCia = :codCia")
+        List<Object[]> findClavesByCodCia(@Param("codCia") Long codCia);
+
         @Query("SELECT c FROM ComprobantePagoCab c " +
                         "LEFT JOIN FETCH c.proveedor p LEFT JOIN FETCH p.persona " +
                         "LEFT JOIN FETCH c.proyecto " +
@@ -54,10 +79,127 @@ public interface ComprobantePagoCabRepository
                         @Param("fechaInicio") LocalDate fechaInicio,
                         @Param("fechaFin") LocalDate fechaFin);
 
+        /**
+         * Comprobantes del rango con el nombre del proveedor ([cabecera, desPersona]),
+         * leídos con un cursor de BD para la exportación. Debe consumirse dentro de
+         * una transacción y cerrarse al terminar.
+         */
+        @QueryHints({
+                        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE_EXPORTACION),
+                        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+        @Query("SELECT c, per.desPersona FROM ComprobantePagoCab c " +
+                        "LEFT JOIN c.proveedor p LEFT JOIN p.persona per " +
+                        "WHERE c.codCia = :codCia AND c.fecCp BETWEEN :fechaInicio AND :fechaFin " +
+                        "ORDER BY c.fecCp, c.codProveedor, c.nroCp")
+        Stream<Object[]> streamByFechaRange(@Param("codCia") Long codCia,
+                        @Param("fechaInicio") LocalDate fechaInicio,
+                        @Param("fechaFin") LocalDate fechaFin);
+
+        /** Filas que el driver JDBC trae por cada viaje a la BD al exportar */
+        String FETCH_SIZE_EXPORTACION = "500";
+
         @Query("SELECT c FROM ComprobantePagoCab c WHERE c.codCia = :codCia AND c.codPyto = :codPyto AND EXTRACT(YEAR FROM c.fecCp) = :anio")
         List<ComprobantePagoCab> findByProyectoAndAnio(@Param("codCia") Long codCia, @Param("codPyto") Long codPyto,
                         @Param("anio") Integer anio);
 
         @Query("SELECT SUM(c.impTotalMn) FROM ComprobantePagoCab c WHERE c.codCia = :codCia AND c.codPyto = :codPyto AND c.codEstado = 'PAG'")
         java.math.BigDecimal getTotalPagadoByProyecto(@Param("codCia") Long codCia, @Param("codPyto") Long codPyto);
+
+        // ==================== Listado paginado por cursor (keyset) ====================
+        // Orden estable: fecCp DESC, codProveedor DESC, nroCp DESC. Cada página
+        // continúa después de la última fila de la anterior sin OFFSET.
+
+        String FILTROS_LISTADO = "c.codCia = :codCia " +
+                        "AND (:codPyto IS NULL OR c.codPyto = :codPyto) " +
+                        "AND (:codProveedor IS NULL OR c.codProveedor = :codProveedor) " +
+                        "AND (:estado IS NULL OR c.codEstado = :estado) " +
+                        "AND (:fechaInicio IS NULL OR c.fecCp >= :fechaInicio) " +
+                        "AND (:fechaFin IS NULL OR c.fecCp <= :fechaFin) " +
+                        "AND (:montoMin IS NULL OR c.impTotalMn >= :montoMin) " +
+                        "AND (:montoMax IS NULL OR c.impTotalMn <= :montoMax) ";
+
+        String SELECT_LISTADO = "SELECT c FROM ComprobantePagoCab c " +
+                        "LEFT JOIN FETCH c.proveedor p LEFT JOIN FETCH p.persona " +
+                        "LEFT JOIN FETCH c.proyecto " +
+                        "LEFT JOIN FETCH c.moneda " +
+                        "LEFT JOIN FETCH c.tipoComprobante " +
+                        "LEFT JOIN FETCH c.estado " +
+                        "WHERE " + FILTROS_LISTADO;
+
+        String ORDEN_LISTADO = "ORDER BY c.fecCp DESC, c.codProveedor DESC, c.nroCp DESC";
+
+        /**
+         * Primera página del listado filtrado
+         */
+        @Query(SELECT_LISTADO + ORDEN_LISTADO)
+        List<ComprobantePagoCab> findPrimeraPagina(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("codProveedor") Long codProveedor,
+                        @Param("estado") String estado,
+                        @Param("fechaInicio") LocalDate fechaInicio,
+                        @Param("fechaFin") LocalDate fechaFin,
+                        @Param("montoMin") BigDecimal montoMin,
+                        @Param("montoMax") BigDecimal montoMax,
+                        Limit limite);
+
+        /**
+         * Página siguiente a la fila (fecCp, codProveedor, nroCp) del cursor
+         */
+        @Query(SELECT_LISTADO +
+                        "AND (c.fecCp < :cursorFecha " +
+                        "OR (c.fecCp = :cursorFecha AND c.codProveedor < :cursorProveedor) " +
+                        "OR (c.fecCp = :cursorFecha AND c.codProveedor = :cursorProveedor AND c.nroCp < :cursorNroCp)) " +
+                        ORDEN_LISTADO)
+        List<ComprobantePagoCab> findPaginaDespuesDe(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("codProveedor") Long codProveedor,
+                        @Param("estado") String estado,
+                        @Param("fechaInicio") LocalDate fechaInicio,
+                        @Param("fechaFin") LocalDate fechaFin,
+                        @Param("montoMin") BigDecimal montoMin,
+                        @Param("montoMax") BigDecimal montoMax,
+                        @Param("cursorFecha") LocalDate cursorFecha,
+                        @Param("cursorProveedor") Long cursorProveedor,
+                        @Param("cursorNroCp") String cursorNroCp,
+                        Limit limite);
+
+        /**
+         * Total de comprobantes que cumplen los filtros del listado
+         */
+        @Query("SELECT COUNT(c) FROM ComprobantePagoCab c WHERE " + FILTROS_LISTADO)
+        long contarListado(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("codProveedor") Long codProveedor,
+                        @Param("estado") String estado,
+                        @Param("fechaInicio") LocalDate fechaInicio,
+                        @Param("fechaFin") LocalDate fechaFin,
+                        @Param("montoMin") BigDecimal montoMin,
+                        @Param("montoMax") BigDecimal montoMax);
+
+        /**
+         * Claves (codProveedor, nroCp) de los comprobantes que cumplen los filtros
+         * del listado; el cambio de estado masivo las procesa por lotes
+         */
+        @Query("SELECT c.codProveedor, c.nroCp FROM ComprobantePagoCab c WHERE " + FILTROS_LISTADO + ORDEN_LISTADO)
+        List<Object[]> findClavesListado(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("codProveedor") Long codProveedor,
+                        @Param("estado") String estado,
+                        @Param("fechaInicio") LocalDate fechaInicio,
+                        @Param("fechaFin") LocalDate fechaFin,
+                        @Param("montoMin") BigDecimal montoMin,
+                        @Param("montoMax") BigDecimal montoMax,
+                        Limit limite);
+
+        /**
+         * Claves (codProveedor, nroCp) ya registradas entre los números indicados;
+         * la importación masiva detecta duplicados con una consulta por lote
+         */
+        @Query("SELECT c.codProveedor, c.nroCp FROM ComprobantePagoCab c WHERE c.codCia = :codCia AND c.nroCp IN :nroCps")
+        List<Object[]> findClavesExistentes(@Param("codCia") Long codCia,
+                        @Param("nroCps") Collection<String> nroCps);
 }
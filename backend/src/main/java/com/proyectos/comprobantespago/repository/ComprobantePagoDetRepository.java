@@ -40,4 +40,33 @@ public interface ComprobantePagoDetRepository
         @Query("DELETE FROM ComprobantePagoDet d WHERE d.codCia = :codCia AND d.codProveedor = :codProveedor AND d.nroCp = :nroCp")
         void deleteByComprobante(@Param("codCia") Long codCia, @Param("codProveedor") Long codProveedor,
                         @Param("nroCp") String nroCp);
+
+        /**
+         * Importe ejecutado (comprobantes de egreso no anulados) del subárbol de
+         * una partida en un proyecto, resuelto con PARTIDA_CLOSURE
+         */
+        @Query(value = "SELECT COALESCE(SUM(d.IMPTOTALMN), 0) FROM COMP_PAGODET d " +
+                        "JOIN COMP_PAGOCAB c ON c.CODCIA = d.CODCIA AND c.CODPROVEEDOR = d.CODPROVEEDOR AND c.NROCP = d.NROCP " +
+                        "JOIN PARTIDA_CLOSURE pc ON pc.CODCIA = d.CODCIA AND pc.INGEGR = d.INGEGR " +
+                        "AND pc.DESCODPARTIDA = d.CODPARTIDA " +
+                        "WHERE d.CODCIA = :codCia AND c.CODPYTO = :codPyto AND d.INGEGR = :ingEgr " +
+                        "AND pc.ANCCODPARTIDA = :codPartida AND c.CODESTADO <> 'ANU'", nativeQuery = true)
+        java.math.BigDecimal sumarEjecutadoSubarbol(@Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("ingEgr") String ingEgr,
+                        @Param("codPartida") Long codPartida);
+
+        /**
+         * Importe ejecutado (comprobantes de egreso no anulados) del subárbol de
+         * cada partida de un proyecto. Columnas: CODPARTIDA (ancestro), TOTAL
+         */
+        @Query(value = "SELECT pc.ANCCODPARTIDA, SUM(d.IMPTOTALMN) FROM COMP_PAGODET d " +
+                        "JOIN COMP_PAGOCAB c ON c.CODCIA = d.CODCIA AND c.CODPROVEEDOR = d.CODPROVEEDOR AND c.NROCP = d.NROCP " +
+                        "JOIN PARTIDA_CLOSURE pc ON pc.CODCIA = d.CODCIA AND pc.INGEGR = d.INGEGR " +
+                        "AND pc.DESCODPARTIDA = d.CODPARTIDA " +
+                        "WHERE d.CODCIA = :codCia AND c.CODPYTO = :codPyto AND d.INGEGR = :ingEgr " +
+                        "AND c.CODESTADO <> 'ANU' GROUP BY pc.ANCCODPARTIDA", nativeQuery = true)
+        List<Object[]> sumarEjecutadoPorSubarbol(@Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("ingEgr") String ingEgr);
 }
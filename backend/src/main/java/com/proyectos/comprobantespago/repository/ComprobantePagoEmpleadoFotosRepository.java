@@ -0,0 +1,30 @@
+package com.proyectos.comprobantespago.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleado;
+import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleadoFotos;
+
+/**
+ * Repositorio para las imágenes (FOTOCP, FOTOABONO) de COMP_PAGOEMPLEADO
+ */
+@Repository
+public interface ComprobantePagoEmpleadoFotosRepository
+        extends JpaRepository<ComprobantePagoEmpleadoFotos, ComprobantePagoEmpleado.ComprobantePagoEmpleadoId> {
+
+    /**
+     * Claves (codCia, codEmpleado, nroCp) de las filas que aún tienen imágenes en BLOB,
+     * pendientes de trasladar al almacenamiento de adjuntos; omite las que ya
+     * fallaron (ADJUNTO_MIGRACION_FALLO)
+     */
+    @Query("SELECT f.codCia, f.codEmpleado, f.nroCp FROM ComprobantePagoEmpleadoFotos f " +
+            "WHERE (f.fotoCp IS NOT NULL OR f.fotoAbono IS NOT NULL) " +
+            "AND NOT EXISTS (SELECT 1 FROM AdjuntoMigracionFallo e WHERE e.codCia = f.codCia " +
+            "AND e.tipoComprobante = 'EMP' AND e.codTercero = f.codEmpleado AND e.nroCp = f.nroCp)")
+    List<Object[]> findPendientesMigracion(Limit limite);
+}
@@ -1,14 +1,18 @@
 package com.proyectos.comprobantespago.repository;
 
 import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleado;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ComprobantePagoEmpleadoRepository extends JpaRepository<ComprobantePagoEmpleado, ComprobantePagoEmpleado.ComprobantePagoEmpleadoId> {
@@ -64,6 +68,20 @@ public interface ComprobantePagoEmpleadoRepository extends JpaRepository<Comprob
             @Param("fechaInicio") LocalDate fechaInicio,
             @Param("fechaFin") LocalDate fechaFin);
 
+    // Exportación: [cabecera, desPersona] con un cursor de BD; sin JOIN FETCH del empleado
+    // para no leer su foto. Debe consumirse dentro de una transacción y cerrarse al terminar.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ComprobantePagoCabRepository.FETCH_SIZE_EXPORTACION),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT c, per.desPersona FROM ComprobantePagoEmpleado c " +
+           "LEFT JOIN c.empleado e LEFT JOIN e.persona per " +
+           "WHERE c.codCia = :codCia AND c.fecCp BETWEEN :fechaInicio AND :fechaFin " +
+           "ORDER BY c.fecCp, c.codEmpleado, c.nroCp")
+    Stream<Object[]> streamByFechaRange(
+            @Param("codCia") Long codCia,
+            @Param("fechaInicio") LocalDate fechaInicio,
+            @Param("fechaFin") LocalDate fechaFin);
+
     @Query("SELECT c FROM ComprobantePagoEmpleado c WHERE c.codCia = :codCia AND c.codEstado = :estado")
     List<ComprobantePagoEmpleado> findByEstado(@Param("codCia") Long codCia, @Param("estado") String estado);
 
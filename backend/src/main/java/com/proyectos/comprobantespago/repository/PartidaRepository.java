@@ -1,12 +1,21 @@
 package com.proyectos.comprobantespago.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.proyectos.comprobantespago.entity.Partida;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository para Partida
  */
@@ -30,6 +39,91 @@ public interface PartidaRepository extends JpaRepository<Partida, Partida.Partid
     // Métodos para jerarquía de partidas
     List<Partida> findByCodCiaAndIngEgrAndNivel(Long codCia, String ingEgr, Integer nivel);
 
-    // Buscar partida específica por código
-    Partida findByCodCiaAndIngEgrAndCodPartida(Long codCia, String ingEgr, Long codPartida);
+    // Buscar partida específica por código (findById usa la caché de segundo nivel)
+    default Partida findByCodCiaAndIngEgrAndCodPartida(Long codCia, String ingEgr, Long codPartida) {
+        return findById(new Partida.PartidaId(codCia, ingEgr, codPartida)).orElse(null);
+    }
+
+    // Buscar varias partidas (ingreso y egreso) en una sola consulta
+    List<Partida> findByCodCiaAndCodPartidaIn(Long codCia, Collection<Long> codPartidas);
+
+    // Buscar varias partidas de un tipo en una sola consulta
+    List<Partida> findByCodCiaAndIngEgrAndCodPartidaIn(Long codCia, String ingEgr, Collection<Long> codPartidas);
+
+    // ==================== Subárboles (PARTIDA_CLOSURE) ====================
+
+    /**
+     * Partidas que cuelgan de una partida (incluida ella misma), opcionalmente
+     * filtradas por nivel. Ej: todas las partidas de nivel 3 bajo una de nivel 1
+     */
+    @Query(value = "SELECT p.* FROM PARTIDA p " +
+            "JOIN PARTIDA_CLOSURE c ON c.CODCIA = p.CODCIA AND c.INGEGR = p.INGEGR AND c.DESCODPARTIDA = p.CODPARTIDA " +
+            "WHERE c.CODCIA = :codCia AND c.INGEGR = :ingEgr AND c.ANCCODPARTIDA = :codPartida " +
+            "AND (:nivel IS NULL OR p.NIVEL = :nivel) " +
+            "ORDER BY p.NIVEL, p.CODPARTIDA", nativeQuery = true)
+    List<Partida> findDescendientes(
+            @Param("codCia") Long codCia,
+            @Param("ingEgr") String ingEgr,
+            @Param("codPartida") Long codPartida,
+            @Param("nivel") Integer nivel);
+
+    /**
+     * Presupuesto total (PROY_PARTIDA_MEZCLA.COSTOTOT) del subárbol de una
+     * partida en un proyecto, o en todos los proyectos si codPyto es null
+     */
+    @Query(value = "SELECT COALESCE(SUM(m.COSTOTOT), 0) FROM PROY_PARTIDA_MEZCLA m " +
+            "JOIN PARTIDA_CLOSURE c ON c.CODCIA = m.CODCIA AND c.INGEGR = m.INGEGR AND c.DESCODPARTIDA = m.CODPARTIDA " +
+            "WHERE c.CODCIA = :codCia AND c.INGEGR = :ingEgr AND c.ANCCODPARTIDA = :codPartida " +
+            "AND (:codPyto IS NULL OR m.CODPYTO = :codPyto)", nativeQuery = true)
+    BigDecimal sumarPresupuestoSubarbol(
+            @Param("codCia") Long codCia,
+            @Param("codPyto") Long codPyto,
+            @Param("ingEgr") String ingEgr,
+            @Param("codPartida") Long codPartida);
+
+    /**
+     * Presupuesto total del subárbol de cada partida de un proyecto.
+     * Columnas: CODPARTIDA (ancestro), TOTAL
+     */
+    @Query(value = "SELECT c.ANCCODPARTIDA, SUM(m.COSTOTOT) FROM PROY_PARTIDA_MEZCLA m " +
+            "JOIN PARTIDA_CLOSURE c ON c.CODCIA = m.CODCIA AND c.INGEGR = m.INGEGR AND c.DESCODPARTIDA = m.CODPARTIDA " +
+            "WHERE m.CODCIA = :codCia AND m.CODPYTO = :codPyto AND m.INGEGR = :ingEgr " +
+            "GROUP BY c.ANCCODPARTIDA", nativeQuery = true)
+    List<Object[]> sumarPresupuestoPorSubarbol(
+            @Param("codCia") Long codCia,
+            @Param("codPyto") Long codPyto,
+            @Param("ingEgr") String ingEgr);
+
+    /**
+     * Elimina la tabla de cierre de una compañía y tipo. Vacía antes el contexto
+     * de persistencia: el espacio nativo declarado solo cubre PARTIDA_CLOSURE y
+     * Hibernate no enviaría los cambios pendientes de PARTIDA y PARTIDA_MEZCLA
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "PARTIDA_CLOSURE"))
+    @Query(value = "DELETE FROM PARTIDA_CLOSURE WHERE CODCIA = :codCia AND INGEGR = :ingEgr", nativeQuery = true)
+    int eliminarClosure(@Param("codCia") Long codCia, @Param("ingEgr") String ingEgr);
+
+    /**
+     * Genera la tabla de cierre de una compañía y tipo desde PARTIDA y las
+     * mezclas vigentes de PARTIDA_MEZCLA (padre = primera mezcla por CORR)
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "PARTIDA_CLOSURE"))
+    @Query(value = "INSERT INTO PARTIDA_CLOSURE (CODCIA, INGEGR, ANCCODPARTIDA, DESCODPARTIDA, PROFUNDIDAD) " +
+            "WITH arista AS (" +
+            "SELECT m.CODPARTIDA, m.PADCODPARTIDA FROM (" +
+            "SELECT CODPARTIDA, PADCODPARTIDA, ROW_NUMBER() OVER (PARTITION BY CODPARTIDA ORDER BY CORR) AS RN " +
+            "FROM PARTIDA_MEZCLA WHERE CODCIA = :codCia AND INGEGR = :ingEgr AND VIGENTE = '1') m " +
+            "JOIN PARTIDA p ON p.CODCIA = :codCia AND p.INGEGR = :ingEgr AND p.CODPARTIDA = m.PADCODPARTIDA " +
+            "WHERE m.RN = 1 AND m.PADCODPARTIDA <> m.CODPARTIDA), " +
+            "cierre (ANCCODPARTIDA, DESCODPARTIDA, PROFUNDIDAD) AS (" +
+            "SELECT CODPARTIDA, CODPARTIDA, 0 FROM PARTIDA WHERE CODCIA = :codCia AND INGEGR = :ingEgr " +
+            "UNION ALL " +
+            "SELECT a.PADCODPARTIDA, c.DESCODPARTIDA, c.PROFUNDIDAD + 1 FROM cierre c " +
+            "JOIN arista a ON a.CODPARTIDA = c.ANCCODPARTIDA" +
+            ") CYCLE ANCCODPARTIDA SET ESCICLO TO 'S' DEFAULT 'N' " +
+            "SELECT :codCia, :ingEgr, ANCCODPARTIDA, DESCODPARTIDA, MIN(PROFUNDIDAD) FROM cierre " +
+            "WHERE ESCICLO = 'N' GROUP BY ANCCODPARTIDA, DESCODPARTIDA", nativeQuery = true)
+    int insertarClosure(@Param("codCia") Long codCia, @Param("ingEgr") String ingEgr);
 }
@@ -22,7 +22,10 @@ public interface PersonaRepository extends JpaRepository<Persona, Persona.Person
     @Query("SELECT p FROM Persona p WHERE p.codCia = :codCia AND p.vigente = 'S' ORDER BY p.desPersona")
     List<Persona> findByCodCiaAndVigenteOrderByDesPersona(Long codCia);
 
-    Optional<Persona> findByCodCiaAndCodPersona(Long codCia, Long codPersona);
+    // Por clave primaria: findById usa la caché de segundo nivel, una consulta derivada iría a la BD
+    default Optional<Persona> findByCodCiaAndCodPersona(Long codCia, Long codPersona) {
+        return findById(new Persona.PersonaId(codCia, codPersona));
+    }
 
     List<Persona> findByCodCia(Long codCia);
 
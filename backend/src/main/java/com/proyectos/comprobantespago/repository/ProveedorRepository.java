@@ -3,12 +3,16 @@ package com.proyectos.comprobantespago.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.proyectos.comprobantespago.entity.Proveedor;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository para Proveedor
  */
@@ -17,9 +21,13 @@ public interface ProveedorRepository extends JpaRepository<Proveedor, Proveedor.
 
     List<Proveedor> findByCodCiaAndVigente(Long codCia, String vigente);
 
-    Optional<Proveedor> findByCodCiaAndCodProveedor(Long codCia, Long codProveedor);
+    // Por clave primaria: findById usa la caché de segundo nivel, una consulta derivada iría a la BD
+    default Optional<Proveedor> findByCodCiaAndCodProveedor(Long codCia, Long codProveedor) {
+        return findById(new Proveedor.ProveedorId(codCia, codProveedor));
+    }
 
     @Query("SELECT p FROM Proveedor p WHERE p.codCia = :codCia AND p.vigente IN ('1', 'S') ORDER BY p.persona.desPersona")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Proveedor> findByCodCiaAndVigentes(Long codCia);
 
     @Query("SELECT p FROM Proveedor p WHERE p.codCia = :codCia AND p.vigente = 'S' ORDER BY p.persona.desPersona")
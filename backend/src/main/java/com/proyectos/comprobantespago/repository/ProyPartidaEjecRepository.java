@@ -0,0 +1,135 @@
+package com.proyectos.comprobantespago.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.proyectos.comprobantespago.entity.ProyPartidaEjec;
+
+import jakarta.persistence.QueryHint;
+
+/**
+ * Repositorio para el ledger de ejecución presupuestal PROY_PARTIDA_EJEC
+ */
+@Repository
+public interface ProyPartidaEjecRepository
+                extends JpaRepository<ProyPartidaEjec, ProyPartidaEjec.ProyPartidaEjecId> {
+
+        /**
+         * Importe ejecutado de una partida en un proyecto (lectura por clave)
+         */
+        @Query("SELECT e.impEjecMn FROM ProyPartidaEjec e WHERE e.codCia = :codCia AND e.codPyto = :codPyto " +
+                        "AND e.ingEgr = :ingEgr AND e.codPartida = :codPartida")
+        BigDecimal findImporteEjecutado(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("ingEgr") String ingEgr,
+                        @Param("codPartida") Long codPartida);
+
+        List<ProyPartidaEjec> findByCodCia(Long codCia);
+
+        List<ProyPartidaEjec> findByCodCiaAndCodPyto(Long codCia, Long codPyto);
+
+        List<ProyPartidaEjec> findByCodCiaAndCodPytoAndCodPartidaIn(Long codCia, Long codPyto,
+                        Collection<Long> codPartidas);
+
+        /**
+         * Claves (INGEGR, CODPARTIDA) de las filas que ya existen para las partidas
+         * de un proyecto; no carga las entidades, que el MERGE dejaría desactualizadas
+         */
+        @Query("SELECT e.ingEgr, e.codPartida FROM ProyPartidaEjec e WHERE e.codCia = :codCia " +
+                        "AND e.codPyto = :codPyto AND e.codPartida IN :codPartidas")
+        List<Object[]> findClavesByCodCiaAndCodPytoAndCodPartidaIn(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("codPartidas") Collection<Long> codPartidas);
+
+        /**
+         * Crea la fila de una partida con importe cero si aún no existe. Con el hint
+         * IGNORE_ROW_ON_DUPKEY_INDEX, Oracle omite la fila (sin ORA-00001) si otra
+         * transacción ya la creó; si la está creando, espera a que termine. Cualquier
+         * otra violación (p. ej. la FK a PARTIDA) se propaga.
+         *
+         * @return 1 si creó la fila, 0 si ya existía
+         */
+        @Modifying
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "PROY_PARTIDA_EJEC"))
+        @Query(value = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(PROY_PARTIDA_EJEC, PROY_PARTIDA_EJEC_PK) */ " +
+                        "INTO PROY_PARTIDA_EJEC (CODCIA, CODPYTO, INGEGR, CODPARTIDA, IMPEJECMN, FECACTUALIZA) " +
+                        "VALUES (:codCia, :codPyto, :ingEgr, :codPartida, 0, SYSTIMESTAMP)", nativeQuery = true)
+        int crearFila(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("ingEgr") String ingEgr,
+                        @Param("codPartida") Long codPartida);
+
+        /**
+         * Suma (o resta, con monto negativo) un importe al ledger de forma atómica.
+         * Crea la fila si aún no existe; EjecucionPresupuestoService la crea antes
+         * con crearFila para que dos transacciones no la inserten a la vez.
+         */
+        @Modifying
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "PROY_PARTIDA_EJEC"))
+        @Query(value = "MERGE INTO PROY_PARTIDA_EJEC e " +
+                        "USING (SELECT :codCia AS CODCIA, :codPyto AS CODPYTO, :ingEgr AS INGEGR, " +
+                        ":codPartida AS CODPARTIDA, :monto AS MONTO FROM DUAL) s " +
+                        "ON (e.CODCIA = s.CODCIA AND e.CODPYTO = s.CODPYTO AND e.INGEGR = s.INGEGR " +
+                        "AND e.CODPARTIDA = s.CODPARTIDA) " +
+                        "WHEN MATCHED THEN UPDATE SET e.IMPEJECMN = e.IMPEJECMN + s.MONTO, " +
+                        "e.FECACTUALIZA = SYSTIMESTAMP " +
+                        "WHEN NOT MATCHED THEN INSERT (CODCIA, CODPYTO, INGEGR, CODPARTIDA, IMPEJECMN, FECACTUALIZA) " +
+                        "VALUES (s.CODCIA, s.CODPYTO, s.INGEGR, s.CODPARTIDA, s.MONTO, SYSTIMESTAMP)", nativeQuery = true)
+        int acumular(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("ingEgr") String ingEgr,
+                        @Param("codPartida") Long codPartida,
+                        @Param("monto") BigDecimal monto);
+
+        /**
+         * Bloquea (FOR UPDATE) las filas del ledger de un proyecto y devuelve su
+         * importe vigente. Los MERGE de acumular sobre esas filas esperan hasta que
+         * termine la transacción que las bloqueó.
+         * Columnas: INGEGR, CODPARTIDA, IMPEJECMN
+         */
+        @Query(value = "SELECT INGEGR, CODPARTIDA, IMPEJECMN FROM PROY_PARTIDA_EJEC " +
+                        "WHERE CODCIA = :codCia AND CODPYTO = :codPyto " +
+                        "ORDER BY INGEGR, CODPARTIDA FOR UPDATE", nativeQuery = true)
+        List<Object[]> bloquearProyecto(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto);
+
+        /**
+         * Recalcula el importe ejecutado desde las tablas origen (comprobantes de
+         * egreso, ingreso y empleados no anulados), agrupado por proyecto y partida.
+         * Con codPyto null recalcula todos los proyectos de la compañía.
+         * Columnas: CODPYTO, INGEGR, CODPARTIDA, IMPORTE
+         */
+        @Query(value = "SELECT CODPYTO, INGEGR, CODPARTIDA, SUM(IMPTOTALMN) AS IMPORTE FROM (" +
+                        "SELECT c.CODPYTO, d.INGEGR, d.CODPARTIDA, d.IMPTOTALMN FROM COMP_PAGODET d " +
+                        "JOIN COMP_PAGOCAB c ON c.CODCIA = d.CODCIA AND c.CODPROVEEDOR = d.CODPROVEEDOR AND c.NROCP = d.NROCP " +
+                        "WHERE d.CODCIA = :codCia AND c.CODESTADO <> 'ANU' " +
+                        "AND (:codPyto IS NULL OR c.CODPYTO = :codPyto) " +
+                        "UNION ALL " +
+                        "SELECT c.CODPYTO, d.INGEGR, d.CODPARTIDA, d.IMPTOTALMN FROM VTACOMP_PAGODET d " +
+                        "JOIN VTACOMP_PAGOCAB c ON c.CODCIA = d.CODCIA AND c.NROCP = d.NROCP " +
+                        "WHERE d.CODCIA = :codCia AND c.CODESTADO <> 'ANU' " +
+                        "AND (:codPyto IS NULL OR c.CODPYTO = :codPyto) " +
+                        "UNION ALL " +
+                        "SELECT c.CODPYTO, d.INGEGR, d.CODPARTIDA, d.IMPTOTALMN FROM COMP_PAGOEMPLEADO_DET d " +
+                        "JOIN COMP_PAGOEMPLEADO c ON c.CODCIA = d.CODCIA AND c.CODEMPLEADO = d.CODEMPLEADO AND c.NROCP = d.NROCP " +
+                        "WHERE d.CODCIA = :codCia AND c.CODESTADO <> 'ANU' " +
+                        "AND (:codPyto IS NULL OR c.CODPYTO = :codPyto)" +
+                        ") GROUP BY CODPYTO, INGEGR, CODPARTIDA", nativeQuery = true)
+        List<Object[]> calcularEjecutadoDesdeOrigen(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto);
+}
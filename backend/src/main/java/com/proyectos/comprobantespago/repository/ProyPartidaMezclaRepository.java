@@ -1,6 +1,7 @@
 package com.proyectos.comprobantespago.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -66,6 +67,48 @@ public interface ProyPartidaMezclaRepository
         List<ProyPartidaMezcla> findByCodCiaAndCodPytoAndIngEgrAndCodPartida(
                         Long codCia, Long codPyto, String ingEgr, Long codPartida);
 
+        /**
+         * Presupuesto total de varias partidas de un proyecto (cualquier versión),
+         * agrupado por partida. Columnas: ingEgr, codPartida, total
+         */
+        @Query("SELECT ppm.ingEgr, ppm.codPartida, SUM(ppm.costoTot) FROM ProyPartidaMezcla ppm " +
+                        "WHERE ppm.codCia = :codCia AND ppm.codPyto = :codPyto AND ppm.codPartida IN :codPartidas " +
+                        "GROUP BY ppm.ingEgr, ppm.codPartida")
+        List<Object[]> sumarCostoTotalPorPartidas(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("codPartidas") Collection<Long> codPartidas);
+
+        /**
+         * Presupuesto total de cada partida de un proyecto y tipo (cualquier
+         * versión). Columnas: codPartida, total
+         */
+        @Query("SELECT ppm.codPartida, SUM(ppm.costoTot) FROM ProyPartidaMezcla ppm " +
+                        "WHERE ppm.codCia = :codCia AND ppm.codPyto = :codPyto AND ppm.ingEgr = :ingEgr " +
+                        "GROUP BY ppm.codPartida")
+        List<Object[]> sumarCostoTotalPorProyectoYTipo(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("ingEgr") String ingEgr);
+
+        /**
+         * Presupuesto total de todas las partidas de todos los proyectos de una
+         * compañía (cualquier versión). Columnas: codPyto, ingEgr, codPartida, total
+         */
+        @Query("SELECT ppm.codPyto, ppm.ingEgr, ppm.codPartida, SUM(ppm.costoTot) FROM ProyPartidaMezcla ppm " +
+                        "WHERE ppm.codCia = :codCia GROUP BY ppm.codPyto, ppm.ingEgr, ppm.codPartida")
+        List<Object[]> sumarCostoTotalPorCompania(@Param("codCia") Long codCia);
+
+        /**
+         * Códigos de las partidas asignadas a un proyecto por tipo (cualquier versión)
+         */
+        @Query("SELECT DISTINCT ppm.codPartida FROM ProyPartidaMezcla ppm WHERE ppm.codCia = :codCia " +
+                        "AND ppm.codPyto = :codPyto AND ppm.ingEgr = :ingEgr")
+        List<Long> findCodPartidasByProyectoAndTipo(
+                        @Param("codCia") Long codCia,
+                        @Param("codPyto") Long codPyto,
+                        @Param("ingEgr") String ingEgr);
+
         /**
          * Obtener solo partidas de NIVEL 3 de un proyecto
          * Según especificaciones: Solo nivel 3 se usa en comprobantes
@@ -0,0 +1,14 @@
+package com.proyectos.comprobantespago.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.proyectos.comprobantespago.entity.Proyecto;
+import com.proyectos.comprobantespago.entity.ProyectoLogo;
+
+/**
+ * Repositorio para el logo (LOGOPROY) de PROYECTO
+ */
+@Repository
+public interface ProyectoLogoRepository extends JpaRepository<ProyectoLogo, Proyecto.ProyectoId> {
+}
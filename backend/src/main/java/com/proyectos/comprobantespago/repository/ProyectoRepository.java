@@ -1,26 +1,42 @@
 package com.proyectos.comprobantespago.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.proyectos.comprobantespago.entity.Proyecto;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository para Proyecto
  */
 @Repository
 public interface ProyectoRepository extends JpaRepository<Proyecto, Proyecto.ProyectoId> {
 
+    List<Proyecto> findByCodCia(Long codCia);
+
     List<Proyecto> findByCodCiaAndVigente(Long codCia, String vigente);
 
-    Optional<Proyecto> findByCodCiaAndCodPyto(Long codCia, Long codPyto);
+    // Por clave primaria: findById usa la caché de segundo nivel, una consulta derivada iría a la BD
+    default Optional<Proyecto> findByCodCiaAndCodPyto(Long codCia, Long codPyto) {
+        return findById(new Proyecto.ProyectoId(codCia, codPyto));
+    }
+
+    // Nombres (codPyto, nombPyto) de varios proyectos en una sola consulta
+    @Query("SELECT p.codPyto, p.nombPyto FROM Proyecto p WHERE p.codCia = :codCia AND p.codPyto IN :codPytos")
+    List<Object[]> findNombresByCodCiaAndCodPytoIn(@Param("codCia") Long codCia,
+            @Param("codPytos") Collection<Long> codPytos);
 
     @Query("SELECT p FROM Proyecto p WHERE p.codCia = :codCia AND p.vigente IN ('1', 'S') ORDER BY p.nombPyto")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Proyecto> findAllActiveByCodCia(@Param("codCia") Long codCia);
 
     @Query("SELECT p FROM Proyecto p WHERE p.codCia = :codCia AND p.emplJefeProy = :codEmpleado AND p.vigente IN ('1', 'S')")
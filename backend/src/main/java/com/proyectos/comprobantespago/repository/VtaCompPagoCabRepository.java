@@ -1,8 +1,11 @@
 package com.proyectos.comprobantespago.repository;
 
 import com.proyectos.comprobantespago.entity.VtaCompPagoCab;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,6 +13,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad VTACOMP_PAGOCAB (Comprobantes de Venta/Ingreso - Cabecera)
@@ -42,6 +46,23 @@ public interface VtaCompPagoCabRepository extends JpaRepository<VtaCompPagoCab,
         @Param("fechaInicio") LocalDate fechaInicio,
         @Param("fechaFin") LocalDate fechaFin);
 
+    /**
+     * Comprobantes del rango con el nombre del cliente ([cabecera, desPersona]),
+     * leídos con un cursor de BD para la exportación. Debe consumirse dentro de
+     * una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ComprobantePagoCabRepository.FETCH_SIZE_EXPORTACION),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT v, per.desPersona FROM VtaCompPagoCab v " +
+           "LEFT JOIN v.cliente c LEFT JOIN c.persona per " +
+           "WHERE v.codCia = :codCia AND v.fecCp BETWEEN :fechaInicio AND :fechaFin " +
+           "ORDER BY v.fecCp, v.nroCp")
+    Stream<Object[]> streamByFechaRange(
+        @Param("codCia") Long codCia,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin);
+
     /**
      * Buscar comprobantes por proyecto y rango de fechas
      */
@@ -1,6 +1,7 @@
 package com.proyectos.comprobantespago.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -22,6 +23,11 @@ public interface VtaCompPagoDetRepository extends JpaRepository<VtaCompPagoDet,
      */
     List<VtaCompPagoDet> findByCodCiaAndNroCpOrderBySec(Long codCia, String nroCp);
 
+    /**
+     * Detalles de varios comprobantes en una sola consulta (listados)
+     */
+    List<VtaCompPagoDet> findByCodCiaAndNroCpInOrderByNroCpAscSecAsc(Long codCia, Collection<String> nroCps);
+
     /**
      * Buscar detalles por tipo de partida (Ingreso/Egreso)
      */
@@ -0,0 +1,144 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de descarga de imágenes y adjuntos de comprobantes
+ * Devuelve el archivo como recurso para enviarlo como flujo (sin cargarlo en
+ * memoria) junto con su hash SHA-256, que se usa como ETag. Los metadatos del
+ * adjunto vigente de cada imagen (FotoCp / FotoAbono) se guardan en memoria,
+ * así que las vistas repetidas, incluidas las respuestas 304, no consultan la
+ * BD. La entrada se descarta después del commit cuando cambian los adjuntos
+ * del comprobante. Las imágenes que aún están en el BLOB heredado se sirven
+ * desde la BD sin guardarlas en memoria.
+ *
+ * Este servicio no es transaccional a propósito: un acierto en memoria no
+ * debe tomar una conexión.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdjuntoDescargaService {
+
+    private static final int MAX_ENTRADAS = 10_000;
+
+    private final AdjuntoService adjuntoService;
+    private final FileStorageService fileStorageService;
+    private final MeterRegistry meterRegistry;
+
+    /** Adjunto vigente por comprobante y categoría */
+    private final Map<FotoKey, AdjuntoComprobante> fotosVigentes = new ConcurrentHashMap<>();
+    /** Se incrementa en cada invalidación; evita guardar lecturas anteriores a un cambio */
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    private Counter aciertos;
+    private Counter fallos;
+
+    @PostConstruct
+    void registrarMetricas() {
+        aciertos = meterRegistry.counter("adjuntos.descarga.cache", "resultado", "acierto");
+        fallos = meterRegistry.counter("adjuntos.descarga.cache", "resultado", "fallo");
+    }
+
+    /**
+     * Imagen vigente de la categoría (CP o ABO) del comprobante
+     *
+     * @param tipo       EGR, ING o EMP
+     * @param codTercero Proveedor (EGR), empleado (EMP); se ignora en ING
+     * @throws com.proyectos.comprobantespago.exception.ResourceNotFoundException si no tiene imagen
+     */
+    public Descarga descargarFoto(Long codCia, String tipo, Long codTercero, String nroCp, String categoria) {
+        FotoKey key = new FotoKey(codCia, tipo, AdjuntoComprobante.TIPO_INGRESO.equals(tipo) ? 0L : codTercero,
+                nroCp, categoria);
+        AdjuntoComprobante adjunto = fotosVigentes.get(key);
+        if (adjunto != null) {
+            aciertos.increment();
+            return descarga(adjunto);
+        }
+
+        fallos.increment();
+        long generacion = invalidaciones.get();
+        AdjuntoService.FotoVigente foto = adjuntoService.obtenerFoto(codCia, tipo, codTercero, nroCp, categoria);
+        if (foto.adjunto() == null) {
+            AdjuntoService.FotoHeredada heredada = foto.heredada();
+            return new Descarga(new ByteArrayResource(heredada.contenido()), heredada.nombreArchivo(),
+                    heredada.contentType(), heredada.hash());
+        }
+        recordar(key, foto.adjunto(), generacion);
+        return descarga(foto.adjunto());
+    }
+
+    /**
+     * Adjunto por su código (sin caché: cada adjunto se pide pocas veces)
+     */
+    public Descarga descargar(Long codAdjunto) {
+        return descarga(adjuntoService.obtener(codAdjunto));
+    }
+
+    /**
+     * Descarta las imágenes en memoria del comprobante cuando cambian sus
+     * adjuntos. Se ejecuta después del commit (o de inmediato si no hay
+     * transacción activa).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAdjuntosModificados(AdjuntoService.AdjuntosModificadosEvent event) {
+        invalidaciones.incrementAndGet();
+        fotosVigentes.keySet().removeIf(key -> key.codCia().equals(event.codCia())
+                && key.tipo().equals(event.tipo())
+                && key.codTercero().equals(event.codTercero())
+                && key.nroCp().equals(event.nroCp()));
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * Guarda el adjunto leído de la BD. Si hubo una invalidación mientras se
+     * leía, la lectura puede ser anterior al cambio y se descarta.
+     */
+    private void recordar(FotoKey key, AdjuntoComprobante adjunto, long generacion) {
+        if (fotosVigentes.size() >= MAX_ENTRADAS) {
+            log.debug("Caché de imágenes de comprobantes llena ({} entradas), se vacía", fotosVigentes.size());
+            fotosVigentes.clear();
+        }
+        fotosVigentes.put(key, adjunto);
+        if (invalidaciones.get() != generacion) {
+            fotosVigentes.remove(key, adjunto);
+        }
+    }
+
+    private Descarga descarga(AdjuntoComprobante adjunto) {
+        Resource recurso = fileStorageService.loadFileAsResource(adjunto.getRutaArchivo());
+        return new Descarga(recurso, adjunto.getNombreArchivo(), adjunto.getContentType(), adjunto.getHash());
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Archivo listo para enviarse
+     *
+     * @param recurso       Contenido (se lee como flujo al escribir la respuesta)
+     * @param nombreArchivo Nombre original del archivo
+     * @param contentType   Tipo de contenido
+     * @param hash          SHA-256 en hexadecimal del contenido (ETag fuerte)
+     */
+    public record Descarga(Resource recurso, String nombreArchivo, String contentType, String hash) {
+    }
+
+    private record FotoKey(Long codCia, String tipo, Long codTercero, String nroCp, String categoria) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.proyectos.comprobantespago.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
+import com.proyectos.comprobantespago.entity.AdjuntoMigracionFallo;
+import com.proyectos.comprobantespago.repository.AdjuntoMigracionFalloRepository;
+import com.proyectos.comprobantespago.repository.ComprobantePagoCabFotosRepository;
+import com.proyectos.comprobantespago.repository.ComprobantePagoEmpleadoFotosRepository;
+import com.proyectos.comprobantespago.repository.VtaCompPagoCabFotosRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tarea programada que traslada por lotes las imágenes BLOB (FOTOCP /
+ * FOTOABONO) de COMP_PAGOCAB, VTACOMP_PAGOCAB y COMP_PAGOEMPLEADO al
+ * almacenamiento de adjuntos. Cada comprobante se migra en su propia
+ * transacción y los endpoints de imágenes leen de ambos orígenes mientras
+ * tanto, por lo que no requiere detener la aplicación. Un comprobante que
+ * falla se registra en ADJUNTO_MIGRACION_FALLO y los lotes siguientes lo
+ * omiten, para no reintentarlo en cada ejecución.
+ */
+@Component
+@Slf4j
+public class AdjuntoMigracionJob {
+
+    private final AdjuntoService adjuntoService;
+    private final ComprobantePagoCabFotosRepository cabFotosRepository;
+    private final VtaCompPagoCabFotosRepository vtaFotosRepository;
+    private final ComprobantePagoEmpleadoFotosRepository empleadoFotosRepository;
+    private final AdjuntoMigracionFalloRepository falloRepository;
+    private final boolean habilitada;
+    private final int lote;
+
+    public AdjuntoMigracionJob(AdjuntoService adjuntoService,
+            ComprobantePagoCabFotosRepository cabFotosRepository,
+            VtaCompPagoCabFotosRepository vtaFotosRepository,
+            ComprobantePagoEmpleadoFotosRepository empleadoFotosRepository,
+            AdjuntoMigracionFalloRepository falloRepository,
+            @Value("${adjuntos.migracion.habilitada:false}") boolean habilitada,
+            @Value("${adjuntos.migracion.lote:50}") int lote) {
+        this.adjuntoService = adjuntoService;
+        this.cabFotosRepository = cabFotosRepository;
+        this.vtaFotosRepository = vtaFotosRepository;
+        this.empleadoFotosRepository = empleadoFotosRepository;
+        this.falloRepository = falloRepository;
+        this.habilitada = habilitada;
+        this.lote = lote;
+    }
+
+    @Scheduled(fixedDelayString = "${adjuntos.migracion.intervalo-ms:60000}")
+    public void migrarLote() {
+        if (!habilitada) {
+            return;
+        }
+        int migradas = migrar(AdjuntoComprobante.TIPO_EGRESO,
+                cabFotosRepository.findPendientesMigracion(Limit.of(lote)))
+                + migrar(AdjuntoComprobante.TIPO_INGRESO,
+                        vtaFotosRepository.findPendientesMigracion(Limit.of(lote)))
+                + migrar(AdjuntoComprobante.TIPO_EMPLEADO,
+                        empleadoFotosRepository.findPendientesMigracion(Limit.of(lote)));
+        if (migradas > 0) {
+            log.info("Migración de imágenes BLOB a adjuntos: {} imágenes trasladadas en este lote", migradas);
+        }
+    }
+
+    /**
+     * Migra las filas pendientes de un tipo de comprobante. Las claves vienen
+     * como (codCia, nroCp) para ingresos y (codCia, codTercero, nroCp) para
+     * egresos y empleados.
+     */
+    private int migrar(String tipo, List<Object[]> pendientes) {
+        int migradas = 0;
+        for (Object[] clave : pendientes) {
+            Long codCia = ((Number) clave[0]).longValue();
+            Long codTercero = clave.length == 3 ? ((Number) clave[1]).longValue() : 0L;
+            String nroCp = (String) clave[clave.length - 1];
+            try {
+                migradas += adjuntoService.migrarFotos(codCia, tipo, codTercero, nroCp);
+            } catch (Exception e) {
+                log.error("Error al migrar las imágenes del comprobante {} {}-{}-{}, se omitirá en los próximos lotes: {}",
+                        tipo, codCia, codTercero, nroCp, e.getMessage());
+                registrarFallo(codCia, tipo, codTercero, nroCp, e);
+            }
+        }
+        return migradas;
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private void registrarFallo(Long codCia, String tipo, Long codTercero, String nroCp, Exception error) {
+        String mensaje = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        try {
+            falloRepository.save(AdjuntoMigracionFallo.builder()
+                    .codCia(codCia)
+                    .tipoComprobante(tipo)
+                    .codTercero(codTercero)
+                    .nroCp(nroCp)
+                    .mensaje(mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje)
+                    .fecFallo(LocalDateTime.now())
+                    .build());
+        } catch (Exception e) {
+            log.warn("No se pudo registrar el fallo de migración del comprobante {} {}-{}-{}: {}", tipo, codCia,
+                    codTercero, nroCp, e.getMessage());
+        }
+    }
+}
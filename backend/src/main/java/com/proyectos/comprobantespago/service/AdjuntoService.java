@@ -0,0 +1,440 @@
+package com.proyectos.comprobantespago.service;
+
+import static com.proyectos.comprobantespago.entity.AdjuntoComprobante.CATEGORIA_ABONO;
+import static com.proyectos.comprobantespago.entity.AdjuntoComprobante.CATEGORIA_COMPROBANTE;
+import static com.proyectos.comprobantespago.entity.AdjuntoComprobante.CATEGORIA_OTROS;
+import static com.proyectos.comprobantespago.entity.AdjuntoComprobante.TIPO_EGRESO;
+import static com.proyectos.comprobantespago.entity.AdjuntoComprobante.TIPO_EMPLEADO;
+import static com.proyectos.comprobantespago.entity.AdjuntoComprobante.TIPO_INGRESO;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.proyectos.comprobantespago.dto.AdjuntoDTO;
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
+import com.proyectos.comprobantespago.entity.ComprobantePagoCab;
+import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleado;
+import com.proyectos.comprobantespago.entity.FotosComprobante;
+import com.proyectos.comprobantespago.entity.VtaCompPagoCab;
+import com.proyectos.comprobantespago.exception.FileStorageException;
+import com.proyectos.comprobantespago.exception.ResourceNotFoundException;
+import com.proyectos.comprobantespago.exception.ValidationException;
+import com.proyectos.comprobantespago.repository.AdjuntoComprobanteRepository;
+import com.proyectos.comprobantespago.repository.ComprobantePagoCabFotosRepository;
+import com.proyectos.comprobantespago.repository.ComprobantePagoEmpleadoFotosRepository;
+import com.proyectos.comprobantespago.repository.VtaCompPagoCabFotosRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de archivos adjuntos de comprobantes (egresos, ingresos y empleados)
+ * El contenido se guarda como flujo en el almacenamiento de archivos
+ * (FileStorageService) y ADJUNTO_COMPROBANTE solo guarda la referencia, por lo
+ * que subir o eliminar un adjunto nunca reescribe la fila de la cabecera. Un
+ * comprobante puede tener varios adjuntos por categoría. Las imágenes que aún
+ * están en las columnas BLOB FOTOCP / FOTOABONO se trasladan con
+ * AdjuntoMigracionJob o con la primera subida al comprobante; mientras tanto
+ * se sirven desde el BLOB sin modificarlo.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class AdjuntoService {
+
+    private static final Set<String> CATEGORIAS = Set.of(CATEGORIA_COMPROBANTE, CATEGORIA_ABONO, CATEGORIA_OTROS);
+
+    private final AdjuntoComprobanteRepository adjuntoRepository;
+    private final ComprobantePagoCabFotosRepository cabFotosRepository;
+    private final VtaCompPagoCabFotosRepository vtaFotosRepository;
+    private final ComprobantePagoEmpleadoFotosRepository empleadoFotosRepository;
+    private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Sube un adjunto al comprobante
+     *
+     * @param codCia     Código de compañía
+     * @param tipo       EGR, ING o EMP
+     * @param codTercero Proveedor (EGR), empleado (EMP); se ignora en ING
+     * @param nroCp      Número de comprobante
+     * @param categoria  CP, ABO u OTR
+     * @param file       Archivo (PDF, JPG o PNG)
+     */
+    public AdjuntoDTO subir(Long codCia, String tipo, Long codTercero, String nroCp, String categoria,
+            MultipartFile file) {
+        if (categoria == null || !CATEGORIAS.contains(categoria)) {
+            throw new ValidationException("Categoría de adjunto inválida: " + categoria);
+        }
+        Long tercero = tercero(tipo, codTercero);
+        FotosComprobante fotos = buscarFotos(codCia, tipo, tercero, nroCp);
+        fileStorageService.validateFile(file);
+
+        // Las imágenes heredadas pasan primero a adjuntos para conservar el orden de antigüedad
+        trasladarBlobs(fotos, codCia, tipo, tercero, nroCp);
+        AdjuntoComprobante adjunto = guardar(codCia, tipo, tercero, nroCp, categoria, file);
+        log.info("Adjunto {} subido: codCia={}, tipo={}, nroCp={}, categoria={}", adjunto.getCodAdjunto(), codCia,
+                tipo, nroCp, categoria);
+        return toDTO(adjunto);
+    }
+
+    /**
+     * Adjuntos de un comprobante, del más reciente al más antiguo
+     */
+    @Transactional(readOnly = true)
+    public List<AdjuntoDTO> listar(Long codCia, String tipo, Long codTercero, String nroCp) {
+        return adjuntoRepository
+                .findByCodCiaAndTipoComprobanteAndCodTerceroAndNroCpOrderByCodAdjuntoDesc(codCia, tipo,
+                        tercero(tipo, codTercero), nroCp)
+                .stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public AdjuntoComprobante obtener(Long codAdjunto) {
+        return adjuntoRepository.findById(codAdjunto)
+                .orElseThrow(() -> new ResourceNotFoundException("Adjunto no encontrado: " + codAdjunto));
+    }
+
+    /**
+     * Elimina el adjunto; el archivo se borra después del commit
+     */
+    public void eliminar(Long codAdjunto) {
+        AdjuntoComprobante adjunto = obtener(codAdjunto);
+        adjuntoRepository.delete(adjunto);
+        eliminarArchivoAlConfirmar(adjunto.getRutaArchivo());
+        publicarModificacion(adjunto.getCodCia(), adjunto.getTipoComprobante(), adjunto.getCodTercero(),
+                adjunto.getNroCp());
+        log.info("Adjunto {} eliminado", codAdjunto);
+    }
+
+    // ==================== Compatibilidad con FotoCp / FotoAbono ====================
+
+    /**
+     * Reemplaza la imagen de la categoría (CP o ABO) de un comprobante: la
+     * guarda como adjunto y descarta los adjuntos anteriores de la categoría y
+     * el BLOB heredado. El archivo debe venir validado por el llamador.
+     */
+    public void reemplazarFoto(Long codCia, String tipo, Long codTercero, String nroCp, String categoria,
+            MultipartFile file) {
+        Long tercero = tercero(tipo, codTercero);
+        FotosComprobante fotos = buscarFotos(codCia, tipo, tercero, nroCp);
+        eliminarAdjuntos(codCia, tipo, tercero, nroCp, categoria);
+        limpiarBlob(fotos, categoria);
+        guardar(codCia, tipo, tercero, nroCp, categoria, file);
+    }
+
+    /**
+     * Imagen vigente de la categoría: el adjunto más reciente o, si el
+     * comprobante aún no se migró, el BLOB heredado. Solo lee; el traslado del
+     * BLOB queda a cargo de AdjuntoMigracionJob.
+     *
+     * @throws ResourceNotFoundException si el comprobante no tiene imagen
+     */
+    @Transactional(readOnly = true)
+    public FotoVigente obtenerFoto(Long codCia, String tipo, Long codTercero, String nroCp, String categoria) {
+        Long tercero = tercero(tipo, codTercero);
+        Optional<AdjuntoComprobante> adjunto = ultimoAdjunto(codCia, tipo, tercero, nroCp, categoria);
+        if (adjunto.isPresent()) {
+            return new FotoVigente(adjunto.get(), null);
+        }
+
+        byte[] blob = blob(buscarFotos(codCia, tipo, tercero, nroCp), categoria);
+        if (blob == null || blob.length == 0) {
+            throw new ResourceNotFoundException(CATEGORIA_ABONO.equals(categoria)
+                    ? "El comprobante no tiene imagen de abono"
+                    : "El comprobante no tiene imagen de comprobante");
+        }
+        String[] formato = detectarFormato(blob);
+        return new FotoVigente(null, new FotoHeredada(blob, nombreHeredado(nroCp, categoria, formato),
+                formato[0], HexFormat.of().formatHex(sha256().digest(blob))));
+    }
+
+    /**
+     * Elimina la imagen de la categoría (adjuntos y BLOB heredado)
+     */
+    public void eliminarFoto(Long codCia, String tipo, Long codTercero, String nroCp, String categoria) {
+        Long tercero = tercero(tipo, codTercero);
+        FotosComprobante fotos = buscarFotos(codCia, tipo, tercero, nroCp);
+        eliminarAdjuntos(codCia, tipo, tercero, nroCp, categoria);
+        limpiarBlob(fotos, categoria);
+    }
+
+    // ==================== Migración de BLOB ====================
+
+    /**
+     * Traslada las imágenes BLOB de un comprobante al almacenamiento de adjuntos
+     * y deja las columnas en NULL. Cada comprobante se migra en su propia
+     * transacción corta, por lo que la aplicación sigue operando mientras tanto.
+     *
+     * @return Número de imágenes trasladadas
+     */
+    public int migrarFotos(Long codCia, String tipo, Long codTercero, String nroCp) {
+        Long tercero = tercero(tipo, codTercero);
+        return trasladarBlobs(buscarFotos(codCia, tipo, tercero, nroCp), codCia, tipo, tercero, nroCp);
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private int trasladarBlobs(FotosComprobante fotos, Long codCia, String tipo, Long codTercero, String nroCp) {
+        int trasladadas = 0;
+        for (String categoria : List.of(CATEGORIA_COMPROBANTE, CATEGORIA_ABONO)) {
+            byte[] blob = blob(fotos, categoria);
+            if (blob == null) {
+                continue;
+            }
+            if (blob.length > 0) {
+                String[] formato = detectarFormato(blob);
+                guardar(codCia, tipo, codTercero, nroCp, categoria, nombreHeredado(nroCp, categoria, formato),
+                        formato[0], blob.length, new ByteArrayInputStream(blob));
+                trasladadas++;
+            }
+            limpiarBlob(fotos, categoria);
+        }
+        return trasladadas;
+    }
+
+    private AdjuntoComprobante guardar(Long codCia, String tipo, Long codTercero, String nroCp, String categoria,
+            MultipartFile file) {
+        try {
+            String nombre = StringUtils.cleanPath(file.getOriginalFilename() != null ? file.getOriginalFilename()
+                    : "archivo");
+            return guardar(codCia, tipo, codTercero, nroCp, categoria, nombre, file.getContentType(), file.getSize(),
+                    file.getInputStream());
+        } catch (IOException e) {
+            throw new FileStorageException("Error al procesar el archivo: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copia el contenido al almacenamiento calculando el SHA-256 en el mismo
+     * recorrido y registra el adjunto. Si la transacción se revierte, el
+     * archivo copiado se elimina.
+     */
+    private AdjuntoComprobante guardar(Long codCia, String tipo, Long codTercero, String nroCp, String categoria,
+            String nombre, String contentType, long tamanio, InputStream contenido) {
+        MessageDigest sha256 = sha256();
+        String ruta;
+        try (DigestInputStream entrada = new DigestInputStream(contenido, sha256)) {
+            ruta = fileStorageService.storeAdjunto(entrada, codCia, tipo, extension(nombre));
+        } catch (IOException e) {
+            throw new FileStorageException("No se pudo almacenar el adjunto", e);
+        }
+        eliminarArchivoSiRevierte(ruta);
+        publicarModificacion(codCia, tipo, codTercero, nroCp);
+
+        return adjuntoRepository.save(AdjuntoComprobante.builder()
+                .codCia(codCia)
+                .tipoComprobante(tipo)
+                .codTercero(codTercero)
+                .nroCp(nroCp)
+                .categoria(categoria)
+                .nombreArchivo(nombre.length() > 255 ? nombre.substring(nombre.length() - 255) : nombre)
+                .contentType(contentType != null ? contentType : "application/octet-stream")
+                .tamanio(tamanio)
+                .hash(HexFormat.of().formatHex(sha256.digest()))
+                .rutaArchivo(ruta)
+                .fecCreacion(LocalDateTime.now())
+                .build());
+    }
+
+    private void eliminarAdjuntos(Long codCia, String tipo, Long codTercero, String nroCp, String categoria) {
+        for (AdjuntoComprobante adjunto : adjuntoRepository
+                .findByCodCiaAndTipoComprobanteAndCodTerceroAndNroCpAndCategoria(codCia, tipo, codTercero, nroCp,
+                        categoria)) {
+            adjuntoRepository.delete(adjunto);
+            eliminarArchivoAlConfirmar(adjunto.getRutaArchivo());
+        }
+        publicarModificacion(codCia, tipo, codTercero, nroCp);
+    }
+
+    private Optional<AdjuntoComprobante> ultimoAdjunto(Long codCia, String tipo, Long codTercero, String nroCp,
+            String categoria) {
+        return adjuntoRepository
+                .findFirstByCodCiaAndTipoComprobanteAndCodTerceroAndNroCpAndCategoriaOrderByCodAdjuntoDesc(codCia,
+                        tipo, codTercero, nroCp, categoria);
+    }
+
+    private void publicarModificacion(Long codCia, String tipo, Long codTercero, String nroCp) {
+        eventPublisher.publishEvent(new AdjuntosModificadosEvent(codCia, tipo, codTercero, nroCp));
+    }
+
+    /**
+     * Fila de imágenes BLOB del comprobante; también valida que exista
+     */
+    private FotosComprobante buscarFotos(Long codCia, String tipo, Long codTercero, String nroCp) {
+        Optional<? extends FotosComprobante> fotos = switch (tipo != null ? tipo : "") {
+            case TIPO_EGRESO -> cabFotosRepository
+                    .findById(new ComprobantePagoCab.ComprobantePagoCabId(codCia, codTercero, nroCp));
+            case TIPO_INGRESO -> vtaFotosRepository.findById(new VtaCompPagoCab.VtaCompPagoCabId(codCia, nroCp));
+            case TIPO_EMPLEADO -> empleadoFotosRepository
+                    .findById(new ComprobantePagoEmpleado.ComprobantePagoEmpleadoId(codCia, codTercero, nroCp));
+            default -> throw new ValidationException("Tipo de comprobante inválido: " + tipo);
+        };
+        return fotos.orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado: " + nroCp));
+    }
+
+    private static Long tercero(String tipo, Long codTercero) {
+        return TIPO_INGRESO.equals(tipo) ? 0L : codTercero;
+    }
+
+    private static byte[] blob(FotosComprobante fotos, String categoria) {
+        return CATEGORIA_ABONO.equals(categoria) ? fotos.getFotoAbono() : fotos.getFotoCp();
+    }
+
+    /**
+     * Pone en NULL la columna BLOB de la categoría (la entidad usa
+     * actualización dinámica, así que la otra columna no se reescribe)
+     */
+    private static void limpiarBlob(FotosComprobante fotos, String categoria) {
+        if (CATEGORIA_ABONO.equals(categoria)) {
+            fotos.setFotoAbono(null);
+        } else {
+            fotos.setFotoCp(null);
+        }
+    }
+
+    private static String nombreHeredado(String nroCp, String categoria, String[] formato) {
+        return (CATEGORIA_ABONO.equals(categoria) ? "abono-" : "comprobante-") + nroCp + formato[1];
+    }
+
+    /**
+     * Tipo de contenido y extensión a partir de la firma del archivo
+     */
+    private static String[] detectarFormato(byte[] contenido) {
+        if (empiezaCon(contenido, 0x25, 0x50, 0x44, 0x46)) {
+            return new String[] { "application/pdf", ".pdf" };
+        }
+        if (empiezaCon(contenido, 0x89, 0x50, 0x4E, 0x47)) {
+            return new String[] { "image/png", ".png" };
+        }
+        if (empiezaCon(contenido, 0xFF, 0xD8, 0xFF)) {
+            return new String[] { "image/jpeg", ".jpg" };
+        }
+        if (empiezaCon(contenido, 0x47, 0x49, 0x46, 0x38)) {
+            return new String[] { "image/gif", ".gif" };
+        }
+        return new String[] { "application/octet-stream", "" };
+    }
+
+    private static boolean empiezaCon(byte[] contenido, int... firma) {
+        if (contenido.length < firma.length) {
+            return false;
+        }
+        for (int i = 0; i < firma.length; i++) {
+            if ((contenido[i] & 0xFF) != firma[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String extension(String nombre) {
+        int punto = nombre.lastIndexOf('.');
+        return punto >= 0 && nombre.length() - punto <= 10 ? nombre.substring(punto).toLowerCase() : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private void eliminarArchivoAlConfirmar(String ruta) {
+        alCompletar(ruta, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private void eliminarArchivoSiRevierte(String ruta) {
+        alCompletar(ruta, TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    /**
+     * Elimina el archivo cuando la transacción termina con el estado indicado
+     */
+    private void alCompletar(String ruta, int estado) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (estado == TransactionSynchronization.STATUS_COMMITTED) {
+                eliminarArchivo(ruta);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == estado) {
+                    eliminarArchivo(ruta);
+                }
+            }
+        });
+    }
+
+    private void eliminarArchivo(String ruta) {
+        try {
+            fileStorageService.deleteFile(ruta);
+        } catch (FileStorageException e) {
+            log.warn("No se pudo eliminar el archivo adjunto {}: {}", ruta, e.getMessage());
+        }
+    }
+
+    private AdjuntoDTO toDTO(AdjuntoComprobante adjunto) {
+        return AdjuntoDTO.builder()
+                .codAdjunto(adjunto.getCodAdjunto())
+                .codCia(adjunto.getCodCia())
+                .tipoComprobante(adjunto.getTipoComprobante())
+                .codTercero(adjunto.getCodTercero())
+                .nroCp(adjunto.getNroCp())
+                .categoria(adjunto.getCategoria())
+                .nombreArchivo(adjunto.getNombreArchivo())
+                .contentType(adjunto.getContentType())
+                .tamanio(adjunto.getTamanio())
+                .hash(adjunto.getHash())
+                .fecCreacion(adjunto.getFecCreacion())
+                .build();
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Evento publicado cuando cambian los adjuntos de un comprobante
+     */
+    public record AdjuntosModificadosEvent(Long codCia, String tipo, Long codTercero, String nroCp) {
+    }
+
+    /**
+     * Imagen vigente de una categoría; solo uno de los dos componentes tiene valor
+     *
+     * @param adjunto  Adjunto más reciente de la categoría
+     * @param heredada Imagen que aún está en la columna BLOB
+     */
+    public record FotoVigente(AdjuntoComprobante adjunto, FotoHeredada heredada) {
+    }
+
+    /**
+     * Imagen leída de la columna BLOB FOTOCP / FOTOABONO
+     *
+     * @param hash SHA-256 en hexadecimal del contenido
+     */
+    public record FotoHeredada(byte[] contenido, String nombreArchivo, String contentType, String hash) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyectos.comprobantespago.dto.AlertaPresupuestoDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de alertas de presupuesto precalculadas
+ * Los cambios en la ejecución presupuestal y en el presupuesto de las partidas
+ * del proyecto encolan el proyecto después del commit; un proceso en segundo plano recalcula las alertas una sola vez por
+ * proyecto (agrupando ráfagas de escrituras) y las deja en un almacén en
+ * memoria que los endpoints GET leen directamente.
+ *
+ * Las alertas de un proyecto vencen a los presupuesto.alertas.ttl-minutos de
+ * calculadas (la siguiente lectura las recalcula) y el almacén está acotado a
+ * presupuesto.alertas.max-proyectos: al llenarse se descartan primero las
+ * vencidas y luego las calculadas hace más tiempo.
+ */
+@Service
+@Slf4j
+public class AlertaPresupuestoService {
+
+    private final PresupuestoService presupuestoService;
+    private final MeterRegistry meterRegistry;
+    private final long ttlNanos;
+    private final int maxProyectos;
+
+    /** Proyectos pendientes de recálculo -> instante (nanoTime) del primer encolado */
+    private final Map<ProyectoKey, Long> pendientes = new ConcurrentHashMap<>();
+
+    /** Almacén de alertas calculadas por proyecto */
+    private final Map<ProyectoKey, AlertasProyecto> almacen = new ConcurrentHashMap<>();
+
+    private Timer lagTimer;
+    private Timer recalculoTimer;
+
+    public AlertaPresupuestoService(
+            PresupuestoService presupuestoService,
+            MeterRegistry meterRegistry,
+            @Value("${presupuesto.alertas.ttl-minutos:30}") long ttlMinutos,
+            @Value("${presupuesto.alertas.max-proyectos:1000}") int maxProyectos) {
+        this.presupuestoService = presupuestoService;
+        this.meterRegistry = meterRegistry;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutos);
+        this.maxProyectos = maxProyectos;
+    }
+
+    @PostConstruct
+    void registrarMetricas() {
+        meterRegistry.gauge("presupuesto.alertas.cola", pendientes, Map::size);
+        meterRegistry.gauge("presupuesto.alertas.almacen", almacen, Map::size);
+        meterRegistry.gauge("presupuesto.alertas.cola.antiguedad.segundos", pendientes,
+                p -> {
+                    long ahora = System.nanoTime();
+                    return p.values().stream()
+                            .mapToLong(inicio -> ahora - inicio)
+                            .max()
+                            .orElse(0L) / 1_000_000_000.0;
+                });
+        lagTimer = meterRegistry.timer("presupuesto.alertas.lag");
+        recalculoTimer = meterRegistry.timer("presupuesto.alertas.recalculo");
+    }
+
+    /**
+     * Encola el proyecto cuando su ejecución cambia. Se ejecuta después del commit
+     * (o de inmediato si no hay transacción activa).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEjecucionActualizada(EjecucionPresupuestoService.EjecucionActualizadaEvent event) {
+        solicitarRecalculo(event.codCia(), event.codPyto());
+    }
+
+    /**
+     * Encola el proyecto cuando cambia el presupuesto de sus partidas
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPartidasProyectoModificadas(ProyPartidaMezclaService.PartidasProyectoModificadasEvent event) {
+        solicitarRecalculo(event.codCia(), event.codPyto());
+    }
+
+    /**
+     * Encola un proyecto para recalcular sus alertas. Si ya estaba pendiente se
+     * agrupa con la solicitud anterior.
+     */
+    public void solicitarRecalculo(Long codCia, Long codPyto) {
+        Long anterior = pendientes.putIfAbsent(new ProyectoKey(codCia, codPyto), System.nanoTime());
+        if (anterior != null) {
+            meterRegistry.counter("presupuesto.alertas.agrupadas").increment();
+        }
+    }
+
+    /**
+     * Procesa la cola de proyectos pendientes
+     */
+    @Scheduled(fixedDelayString = "${presupuesto.alertas.intervalo-ms:500}")
+    public void procesarPendientes() {
+        for (ProyectoKey key : List.copyOf(pendientes.keySet())) {
+            Long encolado = pendientes.remove(key);
+            if (encolado == null) {
+                continue;
+            }
+            try {
+                recalcular(key);
+                lagTimer.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                log.error("Error al recalcular alertas del proyecto {}-{}: {}",
+                        key.codCia(), key.codPyto(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Obtiene las alertas del proyecto desde el almacén. Si aún no se han
+     * calculado o ya vencieron, las calcula en el momento.
+     */
+    public List<AlertaPresupuestoDTO> obtenerAlertas(Long codCia, Long codPyto) {
+        AlertasProyecto alertas = almacen.get(new ProyectoKey(codCia, codPyto));
+        if (alertas != null && !alertas.vencida(ttlNanos)) {
+            return alertas.alertas();
+        }
+        return recalcular(new ProyectoKey(codCia, codPyto)).alertas();
+    }
+
+    /**
+     * Elimina del almacén las alertas vencidas
+     */
+    @Scheduled(fixedDelayString = "${presupuesto.alertas.purga-ms:60000}")
+    public void purgarVencidas() {
+        int antes = almacen.size();
+        almacen.values().removeIf(alertas -> alertas.vencida(ttlNanos));
+        if (antes != almacen.size()) {
+            log.debug("Alertas: {} proyectos vencidos eliminados del almacén", antes - almacen.size());
+        }
+    }
+
+    /**
+     * Número de proyectos con alertas en el almacén
+     */
+    int proyectosAlmacenados() {
+        return almacen.size();
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private AlertasProyecto recalcular(ProyectoKey key) {
+        AlertasProyecto alertas = recalculoTimer.record(() -> new AlertasProyecto(
+                List.copyOf(presupuestoService.generarAlertas(key.codCia(), key.codPyto())),
+                System.nanoTime()));
+        if (!almacen.containsKey(key) && almacen.size() >= maxProyectos) {
+            liberarEspacio();
+        }
+        almacen.put(key, alertas);
+        return alertas;
+    }
+
+    private void liberarEspacio() {
+        purgarVencidas();
+        int exceso = almacen.size() - maxProyectos + 1;
+        if (exceso <= 0) {
+            return;
+        }
+        almacen.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().calculadoEn()))
+                .limit(exceso)
+                .toList()
+                .forEach(e -> almacen.remove(e.getKey(), e.getValue()));
+        log.debug("Alertas: almacén lleno, se descartaron {} proyectos", exceso);
+    }
+
+    // ==================== Clases internas ====================
+
+    private record ProyectoKey(Long codCia, Long codPyto) {
+    }
+
+    /**
+     * @param calculadoEn Instante (nanoTime) del cálculo
+     */
+    private record AlertasProyecto(List<AlertaPresupuestoDTO> alertas, long calculadoEn) {
+
+        private boolean vencida(long ttlNanos) {
+            return System.nanoTime() - calculadoEn >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.proyectos.comprobantespago.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyectos.comprobantespago.entity.Elementos;
+import com.proyectos.comprobantespago.entity.Tabs;
+import com.proyectos.comprobantespago.repository.ElementosRepository;
+import com.proyectos.comprobantespago.repository.TabsRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catálogos maestros (TABS) y sus elementos (ELEMENTOS) en memoria
+ *
+ * Se guardan como una instantánea inmutable que se reemplaza completa: al
+ * iniciar, después del commit de cada cambio hecho con ElementosService o
+ * TabsService (CatalogoModificadoEvent) y cada cierto tiempo, para recoger
+ * cambios hechos directamente en la BD o en otra instancia. Las lecturas no
+ * consultan la BD. Cada instantánea tiene un ETag (hash de su contenido) que
+ * los controladores usan para responder 304 si el navegador ya tiene los
+ * datos.
+ */
+@Service
+@Slf4j
+public class CatalogoService {
+
+    public static final String TAB_MONEDA = "003";
+    public static final String TAB_COMPROBANTE = "004";
+    public static final String TAB_UNIDAD_MEDIDA = "012";
+    public static final String TAB_ESTADO = "014";
+
+    private static final String VIGENTE = "1";
+
+    private final TabsRepository tabsRepository;
+    private final ElementosRepository elementosRepository;
+
+    private volatile Instantanea instantanea;
+
+    public CatalogoService(TabsRepository tabsRepository, ElementosRepository elementosRepository) {
+        this.tabsRepository = tabsRepository;
+        this.elementosRepository = elementosRepository;
+    }
+
+    /**
+     * ETag de los catálogos actuales; cambia con cualquier modificación
+     */
+    public String etag() {
+        return actual().etag();
+    }
+
+    /**
+     * Tablas vigentes ordenadas por denominación
+     */
+    public List<Tabla> tablasVigentes() {
+        return actual().tablasVigentes();
+    }
+
+    /**
+     * Tabla por código (vigente o no)
+     */
+    public Optional<Tabla> tabla(String codTab) {
+        return Optional.ofNullable(actual().tablas().get(codTab));
+    }
+
+    /**
+     * Elementos vigentes de una tabla ordenados por denominación
+     */
+    public List<Elemento> elementosVigentes(String codTab) {
+        return actual().vigentesPorTabla().getOrDefault(codTab, List.of());
+    }
+
+    /**
+     * Elemento por clave (vigente o no)
+     */
+    public Optional<Elemento> elemento(String codTab, String codElem) {
+        return Optional.ofNullable(actual().elementos().get(new ClaveElemento(codTab, codElem)));
+    }
+
+    /**
+     * Denominación del elemento si está vigente; null si no existe o está inactivo
+     */
+    public String denominacion(String codTab, String codElem) {
+        Elemento elemento = actual().elementos().get(new ClaveElemento(codTab, codElem));
+        return elemento != null && VIGENTE.equals(elemento.vigente()) ? elemento.denEle() : null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        log.debug("Catálogo {} modificado, recargando", event.codTab());
+        recargar();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        try {
+            recargar();
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron cargar los catálogos al iniciar; se cargarán en la primera consulta: {}",
+                    e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${catalogos.recarga-ms:300000}", fixedDelayString = "${catalogos.recarga-ms:300000}")
+    public void recargarPeriodicamente() {
+        try {
+            recargar();
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron recargar los catálogos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lee de nuevo todas las tablas y elementos y publica la instantánea
+     */
+    public synchronized void recargar() {
+        long inicio = System.currentTimeMillis();
+        Instantanea nueva = construir(tabsRepository.findAll(), elementosRepository.findAll());
+        Instantanea anterior = instantanea;
+        instantanea = nueva;
+        if (anterior == null || !anterior.etag().equals(nueva.etag())) {
+            log.info("Catálogos cargados: {} tablas y {} elementos en {} ms", nueva.tablas().size(),
+                    nueva.elementos().size(), System.currentTimeMillis() - inicio);
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private Instantanea actual() {
+        Instantanea actual = instantanea;
+        if (actual == null) {
+            recargar();
+            actual = instantanea;
+        }
+        return actual;
+    }
+
+    private static Instantanea construir(List<Tabs> tabs, List<Elementos> elementos) {
+        Comparator<Tabla> porDenTab = Comparator.comparing(Tabla::denTab, Comparator.nullsLast(Comparator.naturalOrder()));
+        Comparator<Elemento> porDenEle = Comparator.comparing(Elemento::denEle,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+
+        List<Tabla> listaTablas = tabs.stream()
+                .map(t -> new Tabla(t.getCodTab(), t.getDenTab(), t.getDenCorta(), t.getVigente()))
+                .sorted(Comparator.comparing(Tabla::codTab))
+                .toList();
+        Map<String, Tabla> tablas = new LinkedHashMap<>();
+        listaTablas.forEach(t -> tablas.put(t.codTab(), t));
+
+        List<Elemento> listaElementos = elementos.stream()
+                .map(e -> new Elemento(e.getCodTab(), e.getCodElem(), e.getDenEle(), e.getDenCorta(),
+                        e.getVigente(), tablas.containsKey(e.getCodTab()) ? tablas.get(e.getCodTab()).denTab() : null))
+                .sorted(Comparator.comparing(Elemento::codTab).thenComparing(Elemento::codElem))
+                .toList();
+        Map<ClaveElemento, Elemento> porClave = new LinkedHashMap<>();
+        Map<String, List<Elemento>> vigentes = new LinkedHashMap<>();
+        for (Elemento elemento : listaElementos) {
+            porClave.put(new ClaveElemento(elemento.codTab(), elemento.codElem()), elemento);
+            if (VIGENTE.equals(elemento.vigente())) {
+                vigentes.computeIfAbsent(elemento.codTab(), k -> new ArrayList<>()).add(elemento);
+            }
+        }
+        Map<String, List<Elemento>> vigentesOrdenados = new LinkedHashMap<>();
+        vigentes.forEach((codTab, lista) -> vigentesOrdenados.put(codTab,
+                lista.stream().sorted(porDenEle).toList()));
+
+        List<Tabla> tablasVigentes = listaTablas.stream()
+                .filter(t -> VIGENTE.equals(t.vigente()))
+                .sorted(porDenTab)
+                .toList();
+
+        return new Instantanea(Map.copyOf(tablas), tablasVigentes, Map.copyOf(vigentesOrdenados),
+                Map.copyOf(porClave), hash(listaTablas, listaElementos));
+    }
+
+    private static String hash(List<Tabla> tablas, List<Elemento> elementos) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Tabla tabla : tablas) {
+                digest.update(tabla.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            for (Elemento elemento : elementos) {
+                digest.update(elemento.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // ==================== Clases internas ====================
+
+    public record Tabla(String codTab, String denTab, String denCorta, String vigente) {
+    }
+
+    public record Elemento(String codTab, String codElem, String denEle, String denCorta, String vigente,
+            String denTab) {
+    }
+
+    /**
+     * Se publica al crear, modificar o inactivar una tabla o un elemento
+     */
+    public record CatalogoModificadoEvent(String codTab) {
+    }
+
+    private record ClaveElemento(String codTab, String codElem) {
+    }
+
+    private record Instantanea(Map<String, Tabla> tablas, List<Tabla> tablasVigentes,
+            Map<String, List<Elemento>> vigentesPorTabla, Map<ClaveElemento, Elemento> elementos, String etag) {
+    }
+}
@@ -0,0 +1,468 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice invertido en memoria de los comprobantes (egresos, ingresos y
+ * empleados) de una compañía
+ * Cada comprobante se divide en términos normalizados (minúsculas, sin tildes)
+ * de su número, el nombre de la persona, la descripción del abono y las
+ * descripciones de sus partidas; cada término guarda la lista ordenada de
+ * documentos que lo contienen con su peso. Las consultas exigen todos los
+ * términos (la última palabra se trata como prefijo) y se ordenan por BM25.
+ *
+ * La consulta recorre la lista del término menos frecuente y busca cada
+ * documento en las demás avanzando por saltos (galloping), así que el costo
+ * depende de la lista más corta y no del tamaño del índice; el puntaje solo
+ * se calcula para los documentos que coinciden con todos los términos.
+ *
+ * Los cambios se aplican en el momento: un comprobante modificado se marca
+ * como eliminado y se agrega de nuevo al final, así que las listas siguen
+ * ordenadas sin reescribirse. Las entradas eliminadas se descartan al
+ * reconstruir el índice (ver {@link #fraccionEliminada()}).
+ */
+final class ComprobanteBusquedaIndex {
+
+    private static final float PESO_NUMERO = 3f;
+    private static final float PESO_PERSONA = 2f;
+    private static final float PESO_TEXTO = 1f;
+
+    /** Puntaje relativo de un término que solo coincide por prefijo */
+    private static final float FACTOR_PREFIJO = 0.6f;
+    private static final int MAX_EXPANSIONES = 64;
+    private static final int LARGO_MINIMO_PREFIJO = 2;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terminos = new HashMap<>();
+    /** Términos ordenados en la última carga (búsqueda por prefijo); null mientras se carga */
+    private String[] ordenados = new String[0];
+    /** Términos que aparecieron después de la carga */
+    private final TreeSet<String> nuevos = new TreeSet<>();
+    private final Map<String, Integer> porClave = new HashMap<>();
+    private final BitSet eliminados = new BitSet();
+    private Documento[] documentos = new Documento[256];
+    private float[] longitudes = new float[256];
+    private int total;
+    private int totalEliminados;
+    private double sumaLongitudes;
+
+    /**
+     * Inicia una carga masiva: los términos no se ordenan hasta
+     * {@link #terminarCarga()}. El índice no debe consultarse mientras tanto.
+     */
+    void iniciarCarga() {
+        lock.writeLock().lock();
+        try {
+            ordenados = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void terminarCarga() {
+        lock.writeLock().lock();
+        try {
+            ordenados = terminos.keySet().toArray(new String[0]);
+            Arrays.sort(ordenados);
+            nuevos.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega el comprobante o reemplaza el que tenga la misma clave
+     *
+     * @param documento Datos del comprobante
+     * @param partidas  Descripciones de las partidas de sus detalles
+     */
+    void agregar(Documento documento, Collection<String> partidas) {
+        Map<String, Float> pesos = new LinkedHashMap<>();
+        String numero = PartidaBusquedaIndex.normalizar(documento.nroCp());
+        Set<String> terminosNumero = new LinkedHashSet<>(PartidaBusquedaIndex.tokenizar(numero));
+        terminosNumero.add(PartidaBusquedaIndex.compactar(numero));
+        sumar(pesos, terminosNumero, PESO_NUMERO);
+        sumar(pesos, PartidaBusquedaIndex.tokenizar(PartidaBusquedaIndex.normalizar(documento.desPersona())),
+                PESO_PERSONA);
+        sumar(pesos, PartidaBusquedaIndex.tokenizar(PartidaBusquedaIndex.normalizar(documento.desAbono())),
+                PESO_TEXTO);
+        for (String partida : partidas) {
+            sumar(pesos, PartidaBusquedaIndex.tokenizar(PartidaBusquedaIndex.normalizar(partida)), PESO_TEXTO);
+        }
+
+        float longitud = 0;
+        for (float peso : pesos.values()) {
+            longitud += peso;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer anterior = porClave.remove(documento.clave());
+            if (anterior != null) {
+                marcarEliminado(anterior);
+            }
+
+            int posicion = total++;
+            if (posicion == documentos.length) {
+                documentos = Arrays.copyOf(documentos, posicion * 2);
+                longitudes = Arrays.copyOf(longitudes, posicion * 2);
+            }
+            documentos[posicion] = documento;
+            longitudes[posicion] = longitud;
+            sumaLongitudes += longitud;
+            porClave.put(documento.clave(), posicion);
+            for (Map.Entry<String, Float> peso : pesos.entrySet()) {
+                Postings postings = terminos.get(peso.getKey());
+                if (postings == null) {
+                    postings = new Postings();
+                    terminos.put(peso.getKey(), postings);
+                    if (ordenados != null) {
+                        nuevos.add(peso.getKey());
+                    }
+                }
+                postings.agregar(posicion, peso.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita el comprobante (si estaba indexado)
+     */
+    void eliminar(String clave) {
+        lock.writeLock().lock();
+        try {
+            Integer posicion = porClave.remove(clave);
+            if (posicion != null) {
+                marcarEliminado(posicion);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los comprobantes que contienen todos los términos de la consulta
+     *
+     * @param consulta Texto ingresado por el usuario
+     * @param filtro   Restringe los documentos (tipo, estado)
+     * @param desde    Posición del primer resultado (paginación)
+     * @param limite   Número máximo de resultados
+     * @return Total de coincidencias y la página pedida, de mayor a menor relevancia
+     */
+    Resultado buscar(String consulta, Predicate<Documento> filtro, int desde, int limite) {
+        List<String> palabras = new ArrayList<>(new LinkedHashSet<>(
+                PartidaBusquedaIndex.tokenizar(PartidaBusquedaIndex.normalizar(consulta))));
+        if (palabras.isEmpty()) {
+            return Resultado.VACIO;
+        }
+
+        lock.readLock().lock();
+        try {
+            int vigentes = total - totalEliminados;
+            if (vigentes == 0) {
+                return Resultado.VACIO;
+            }
+            double promedio = sumaLongitudes / vigentes;
+
+            Termino[] consultados = new Termino[palabras.size()];
+            for (int k = 0; k < palabras.size(); k++) {
+                String palabra = palabras.get(k);
+                boolean prefijo = k == palabras.size() - 1 && palabra.length() >= LARGO_MINIMO_PREFIJO;
+                consultados[k] = termino(palabra, prefijo, vigentes);
+                if (consultados[k] == null) {
+                    return Resultado.VACIO;
+                }
+            }
+            // Guía: el término con menos documentos
+            Arrays.sort(consultados, Comparator.comparingLong(t -> t.documentos));
+            Termino guia = consultados[0];
+
+            int tope = desde + limite;
+            Comparator<Coincidencia> relevancia = this::comparar;
+            PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(Math.max(tope, 1) + 1,
+                    relevancia.reversed());
+            long totalCoincidencias = 0;
+
+            for (int doc = guia.siguiente(0); doc != Integer.MAX_VALUE; doc = guia.siguiente(doc + 1)) {
+                if (eliminados.get(doc)) {
+                    continue;
+                }
+                float puntaje = guia.puntaje(doc, promedio);
+                for (int k = 1; k < consultados.length && puntaje >= 0; k++) {
+                    float parcial = consultados[k].puntaje(doc, promedio);
+                    puntaje = parcial < 0 ? -1 : puntaje + parcial;
+                }
+                if (puntaje < 0 || !filtro.test(documentos[doc])) {
+                    continue;
+                }
+
+                totalCoincidencias++;
+                if (tope > 0) {
+                    Coincidencia coincidencia = new Coincidencia(documentos[doc], puntaje, doc);
+                    if (mejores.size() < tope) {
+                        mejores.add(coincidencia);
+                    } else if (comparar(coincidencia, mejores.peek()) < 0) {
+                        mejores.poll();
+                        mejores.add(coincidencia);
+                    }
+                }
+            }
+
+            List<Coincidencia> ordenadas = new ArrayList<>(mejores);
+            ordenadas.sort(relevancia);
+            return new Resultado(totalCoincidencias,
+                    desde < ordenadas.size() ? ordenadas.subList(desde, ordenadas.size()) : List.of());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Comprobantes vigentes en el índice
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return total - totalEliminados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fracción de entradas que corresponden a versiones reemplazadas o
+     * eliminadas (espacio que se recupera al reconstruir)
+     */
+    double fraccionEliminada() {
+        lock.readLock().lock();
+        try {
+            return total == 0 ? 0 : (double) totalEliminados / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private void marcarEliminado(int posicion) {
+        eliminados.set(posicion);
+        documentos[posicion] = null;
+        sumaLongitudes -= longitudes[posicion];
+        totalEliminados++;
+    }
+
+    private static void sumar(Map<String, Float> pesos, Collection<String> terminos, float peso) {
+        for (String termino : terminos) {
+            if (!termino.isEmpty()) {
+                pesos.merge(termino, peso, Float::sum);
+            }
+        }
+    }
+
+    /**
+     * Listas de la palabra (exacta o, como prefijo, hasta MAX_EXPANSIONES
+     * términos); null si ningún término coincide
+     */
+    private Termino termino(String palabra, boolean prefijo, int vigentes) {
+        List<String> coincidentes = new ArrayList<>();
+        if (!prefijo) {
+            if (terminos.containsKey(palabra)) {
+                coincidentes.add(palabra);
+            }
+        } else {
+            int desde = Arrays.binarySearch(ordenados, palabra);
+            for (int t = desde >= 0 ? desde : -desde - 1; t < ordenados.length && ordenados[t].startsWith(palabra)
+                    && coincidentes.size() < MAX_EXPANSIONES; t++) {
+                coincidentes.add(ordenados[t]);
+            }
+            for (String nuevo : nuevos.subSet(palabra, palabra + Character.MAX_VALUE)) {
+                if (coincidentes.size() == 2 * MAX_EXPANSIONES) {
+                    break;
+                }
+                coincidentes.add(nuevo);
+            }
+            if (coincidentes.size() > MAX_EXPANSIONES) {
+                coincidentes.sort(null);
+                coincidentes = coincidentes.subList(0, MAX_EXPANSIONES);
+            }
+        }
+        if (coincidentes.isEmpty()) {
+            return null;
+        }
+
+        Postings[] listas = new Postings[coincidentes.size()];
+        float[] pesos = new float[listas.length];
+        long documentosTermino = 0;
+        for (int i = 0; i < listas.length; i++) {
+            listas[i] = terminos.get(coincidentes.get(i));
+            int df = listas[i].size;
+            double idf = Math.log(1 + (Math.max(vigentes - df, 0) + 0.5) / (df + 0.5));
+            pesos[i] = (float) (idf * (coincidentes.get(i).equals(palabra) ? 1f : FACTOR_PREFIJO));
+            documentosTermino += df;
+        }
+        return new Termino(listas, pesos, documentosTermino);
+    }
+
+    /**
+     * Primera posición desde la indicada cuyo documento es >= objetivo:
+     * avanza en saltos de 1, 2, 4... y termina con búsqueda binaria
+     */
+    private static int galope(int[] docs, int size, int desde, int objetivo) {
+        if (desde >= size || docs[desde] >= objetivo) {
+            return desde;
+        }
+        int bajo = desde;
+        int salto = 1;
+        int alto = desde + 1;
+        while (alto < size && docs[alto] < objetivo) {
+            bajo = alto;
+            salto <<= 1;
+            alto = desde + salto;
+        }
+        int posicion = Arrays.binarySearch(docs, bajo + 1, Math.min(alto, size), objetivo);
+        return posicion >= 0 ? posicion : -posicion - 1;
+    }
+
+    /**
+     * Orden de relevancia: mayor puntaje, fecha más reciente, registrado después
+     */
+    private int comparar(Coincidencia a, Coincidencia b) {
+        int porPuntaje = Float.compare(b.puntaje(), a.puntaje());
+        if (porPuntaje != 0) {
+            return porPuntaje;
+        }
+        LocalDate fechaA = a.documento().fecCp();
+        LocalDate fechaB = b.documento().fecCp();
+        if (fechaA != null && fechaB != null && !fechaA.equals(fechaB)) {
+            return fechaB.compareTo(fechaA);
+        }
+        return Integer.compare(b.posicion(), a.posicion());
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Documentos que contienen un término, con el peso del término en cada uno
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private float[] pesos = new float[4];
+        private int size;
+
+        private void agregar(int doc, float peso) {
+            if (size == docs.length) {
+                int capacidad = size + (size >> 1) + 1;
+                docs = Arrays.copyOf(docs, capacidad);
+                pesos = Arrays.copyOf(pesos, capacidad);
+            }
+            docs[size] = doc;
+            pesos[size++] = peso;
+        }
+    }
+
+    /**
+     * Palabra de la consulta: sus listas con un cursor por lista. Los
+     * documentos se piden en orden creciente, así que los cursores solo avanzan.
+     */
+    private final class Termino {
+        private final Postings[] listas;
+        /** idf por lista (reducido en las que solo coinciden por prefijo) */
+        private final float[] pesos;
+        private final int[] cursores;
+        private final long documentos;
+
+        private Termino(Postings[] listas, float[] pesos, long documentos) {
+            this.listas = listas;
+            this.pesos = pesos;
+            this.cursores = new int[listas.length];
+            this.documentos = documentos;
+        }
+
+        /**
+         * Menor documento >= desde presente en alguna lista
+         * (Integer.MAX_VALUE si no quedan)
+         */
+        private int siguiente(int desde) {
+            int menor = Integer.MAX_VALUE;
+            for (int i = 0; i < listas.length; i++) {
+                Postings lista = listas[i];
+                cursores[i] = galope(lista.docs, lista.size, cursores[i], desde);
+                if (cursores[i] < lista.size && lista.docs[cursores[i]] < menor) {
+                    menor = lista.docs[cursores[i]];
+                }
+            }
+            return menor;
+        }
+
+        /**
+         * Puntaje BM25 de la palabra en el documento (el mejor entre sus
+         * listas) o -1 si no lo contiene
+         */
+        private float puntaje(int doc, double promedio) {
+            float mejor = -1;
+            double norma = -1;
+            for (int i = 0; i < listas.length; i++) {
+                Postings lista = listas[i];
+                cursores[i] = galope(lista.docs, lista.size, cursores[i], doc);
+                if (cursores[i] < lista.size && lista.docs[cursores[i]] == doc) {
+                    float tf = lista.pesos[cursores[i]];
+                    if (norma < 0) {
+                        norma = K1 * (1 - B + B * longitudes[doc] / promedio);
+                    }
+                    mejor = Math.max(mejor, (float) (pesos[i] * tf * (K1 + 1) / (tf + norma)));
+                }
+            }
+            return mejor;
+        }
+    }
+
+    /**
+     * Datos de un comprobante indexado
+     *
+     * @param clave      Identifica el comprobante dentro de la compañía
+     * @param codPersona Proveedor, cliente o empleado
+     */
+    record Documento(
+            String clave,
+            ComprobanteBusquedaService.Origen origen,
+            Long codPersona,
+            String nroCp,
+            Long codPyto,
+            LocalDate fecCp,
+            BigDecimal impTotalMn,
+            String codEstado,
+            String desPersona,
+            String desAbono) {
+    }
+
+    /**
+     * @param posicion Posición interna del documento (desempate)
+     */
+    record Coincidencia(Documento documento, float puntaje, int posicion) {
+    }
+
+    record Resultado(long total, List<Coincidencia> coincidencias) {
+        static final Resultado VACIO = new Resultado(0, List.of());
+    }
+}
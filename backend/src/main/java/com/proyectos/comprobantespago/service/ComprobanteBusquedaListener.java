@@ -0,0 +1,113 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.proyectos.comprobantespago.entity.ComprobantePagoCab;
+import com.proyectos.comprobantespago.entity.ComprobantePagoDet;
+import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleado;
+import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleadoDet;
+import com.proyectos.comprobantespago.entity.VtaCompPagoCab;
+import com.proyectos.comprobantespago.entity.VtaCompPagoDet;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Listener JPA de las cabeceras y detalles de comprobantes: registra los
+ * comprobantes escritos en la transacción y, después del commit, actualiza el
+ * índice de búsqueda una sola vez por comprobante (aunque se hayan escrito la
+ * cabecera y varios detalles). Si la transacción se revierte no se aplica nada.
+ */
+@Component
+public class ComprobanteBusquedaListener {
+
+    private static final Object RECURSO = new Object();
+
+    private final ObjectProvider<ComprobanteBusquedaService> busquedaService;
+
+    public ComprobanteBusquedaListener(ObjectProvider<ComprobanteBusquedaService> busquedaService) {
+        this.busquedaService = busquedaService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void modificado(Object entidad) {
+        Cambio cambio = switch (entidad) {
+            case ComprobantePagoCab c -> new Cambio(ComprobanteBusquedaService.Origen.EGRESO, c.getCodCia(),
+                    c.getCodProveedor(), c.getNroCp());
+            case ComprobantePagoDet d -> new Cambio(ComprobanteBusquedaService.Origen.EGRESO, d.getCodCia(),
+                    d.getCodProveedor(), d.getNroCp());
+            case VtaCompPagoCab c -> new Cambio(ComprobanteBusquedaService.Origen.INGRESO, c.getCodCia(),
+                    null, c.getNroCp());
+            case VtaCompPagoDet d -> new Cambio(ComprobanteBusquedaService.Origen.INGRESO, d.getCodCia(),
+                    null, d.getNroCp());
+            case ComprobantePagoEmpleado c -> new Cambio(ComprobanteBusquedaService.Origen.EMPLEADO,
+                    c.getCodCia(), c.getCodEmpleado(), c.getNroCp());
+            case ComprobantePagoEmpleadoDet d -> new Cambio(ComprobanteBusquedaService.Origen.EMPLEADO,
+                    d.getCodCia(), d.getCodEmpleado(), d.getNroCp());
+            default -> null;
+        };
+        if (cambio == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            busquedaService.getObject().actualizar(new ComprobanteBusquedaService.ComprobantesModificadosEvent(
+                    cambio.origen(), cambio.codCia(),
+                    List.of(new ComprobanteBusquedaService.Clave(cambio.codPersona(), cambio.nroCp()))));
+            return;
+        }
+        Pendientes pendientes = (Pendientes) TransactionSynchronizationManager.getResource(RECURSO);
+        if (pendientes == null) {
+            pendientes = new Pendientes();
+            TransactionSynchronizationManager.bindResource(RECURSO, pendientes);
+            TransactionSynchronizationManager.registerSynchronization(pendientes);
+        }
+        pendientes.cambios.add(cambio);
+    }
+
+    // ==================== Clases internas ====================
+
+    private record Cambio(ComprobanteBusquedaService.Origen origen, Long codCia, Long codPersona, String nroCp) {
+    }
+
+    private record Grupo(ComprobanteBusquedaService.Origen origen, Long codCia) {
+    }
+
+    /**
+     * Comprobantes escritos en la transacción actual
+     */
+    private final class Pendientes implements TransactionSynchronization {
+        private final Set<Cambio> cambios = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            Map<Grupo, List<ComprobanteBusquedaService.Clave>> porGrupo = new LinkedHashMap<>();
+            for (Cambio cambio : cambios) {
+                porGrupo.computeIfAbsent(new Grupo(cambio.origen(), cambio.codCia()), k -> new ArrayList<>())
+                        .add(new ComprobanteBusquedaService.Clave(cambio.codPersona(), cambio.nroCp()));
+            }
+            ComprobanteBusquedaService servicio = busquedaService.getObject();
+            porGrupo.forEach((grupo, claves) -> servicio.actualizar(
+                    new ComprobanteBusquedaService.ComprobantesModificadosEvent(grupo.origen(), grupo.codCia(),
+                            claves)));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RECURSO);
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.proyectos.comprobantespago.service;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyectos.comprobantespago.dto.BusquedaComprobantesDTO;
+import com.proyectos.comprobantespago.exception.ValidationException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Búsqueda de texto libre sobre los comprobantes de egreso, ingreso y
+ * empleados
+ * Mantiene en memoria un índice invertido por compañía con el número del
+ * comprobante, el nombre del proveedor/cliente/empleado, la descripción del
+ * abono y las descripciones de las partidas. Los índices se cargan desde la
+ * BD al iniciar (o en la primera búsqueda de la compañía) y se actualizan
+ * después del commit de cada escritura, releyendo solo los comprobantes
+ * afectados. Cuando un índice acumula demasiadas entradas reemplazadas se
+ * reconstruye en segundo plano.
+ */
+@Service
+@Slf4j
+public class ComprobanteBusquedaService {
+
+    public static final int TAMANIO_MAXIMO = 100;
+    /** Máximo de resultados alcanzables paginando (pagina * tamanio + tamanio) */
+    public static final int RESULTADOS_MAXIMOS = 1000;
+
+    private static final int LOTE_CLAVES = 500;
+
+    /** Columnas comunes: CODCIA, persona, NROCP, CODPYTO, FECCP, IMPTOTALMN, CODESTADO, DESABONO, DESPERSONA, DESPARTIDA */
+    private static final String SELECT_EGRESOS = "SELECT c.CODCIA, c.CODPROVEEDOR, c.NROCP, c.CODPYTO, c.FECCP, "
+            + "c.IMPTOTALMN, c.CODESTADO, c.DESABONO, p.DESPERSONA, pa.DESPARTIDA "
+            + "FROM COMP_PAGOCAB c "
+            + "LEFT JOIN PERSONA p ON p.CODCIA = c.CODCIA AND p.CODPERSONA = c.CODPROVEEDOR "
+            + "LEFT JOIN COMP_PAGODET d ON d.CODCIA = c.CODCIA AND d.CODPROVEEDOR = c.CODPROVEEDOR "
+            + "AND d.NROCP = c.NROCP "
+            + "LEFT JOIN PARTIDA pa ON pa.CODCIA = d.CODCIA AND pa.INGEGR = d.INGEGR AND pa.CODPARTIDA = d.CODPARTIDA "
+            + "WHERE c.CODCIA = :codCia %s ORDER BY c.CODPROVEEDOR, c.NROCP";
+
+    private static final String SELECT_INGRESOS = "SELECT c.CODCIA, c.CODCLIENTE, c.NROCP, c.CODPYTO, c.FECCP, "
+            + "c.IMPTOTALMN, c.CODESTADO, c.DESABONO, p.DESPERSONA, pa.DESPARTIDA "
+            + "FROM VTACOMP_PAGOCAB c "
+            + "LEFT JOIN PERSONA p ON p.CODCIA = c.CODCIA AND p.CODPERSONA = c.CODCLIENTE "
+            + "LEFT JOIN VTACOMP_PAGODET d ON d.CODCIA = c.CODCIA AND d.NROCP = c.NROCP "
+            + "LEFT JOIN PARTIDA pa ON pa.CODCIA = d.CODCIA AND pa.INGEGR = d.INGEGR AND pa.CODPARTIDA = d.CODPARTIDA "
+            + "WHERE c.CODCIA = :codCia %s ORDER BY c.NROCP";
+
+    private static final String SELECT_EMPLEADOS = "SELECT c.CODCIA, c.CODEMPLEADO, c.NROCP, c.CODPYTO, c.FECCP, "
+            + "c.IMPTOTALMN, c.CODESTADO, c.DESABONO, p.DESPERSONA, pa.DESPARTIDA "
+            + "FROM COMP_PAGOEMPLEADO c "
+            + "LEFT JOIN PERSONA p ON p.CODCIA = c.CODCIA AND p.CODPERSONA = c.CODEMPLEADO "
+            + "LEFT JOIN COMP_PAGOEMPLEADO_DET d ON d.CODCIA = c.CODCIA AND d.CODEMPLEADO = c.CODEMPLEADO "
+            + "AND d.NROCP = c.NROCP "
+            + "LEFT JOIN PARTIDA pa ON pa.CODCIA = d.CODCIA AND pa.INGEGR = d.INGEGR AND pa.CODPARTIDA = d.CODPARTIDA "
+            + "WHERE c.CODCIA = :codCia %s ORDER BY c.CODEMPLEADO, c.NROCP";
+
+    private static final String SELECT_COMPANIAS = "SELECT CODCIA FROM CIA";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean cargarAlIniciar;
+    private final double maxEliminados;
+
+    private final Map<Long, ComprobanteBusquedaIndex> indices = new ConcurrentHashMap<>();
+    /** Cambios recibidos mientras se carga el índice de la compañía; se aplican al terminar */
+    private final Map<Long, Queue<ComprobantesModificadosEvent>> enCarga = new ConcurrentHashMap<>();
+    private final Map<Long, Object> cerrojos = new ConcurrentHashMap<>();
+
+    private Timer busquedaTimer;
+
+    public ComprobanteBusquedaService(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${comprobantes.busqueda.cargar-al-iniciar:true}") boolean cargarAlIniciar,
+            @Value("${comprobantes.busqueda.max-eliminados:0.25}") double maxEliminados) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.cargarAlIniciar = cargarAlIniciar;
+        this.maxEliminados = maxEliminados;
+    }
+
+    @PostConstruct
+    void registrarMetricas() {
+        busquedaTimer = meterRegistry.timer("comprobantes.busqueda.tiempo");
+        Gauge.builder("comprobantes.busqueda.documentos", indices,
+                mapa -> mapa.values().stream().mapToInt(ComprobanteBusquedaIndex::size).sum())
+                .description("Comprobantes indexados para la búsqueda de texto libre")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Busca comprobantes de la compañía por texto libre
+     *
+     * @param codCia   Código de compañía
+     * @param consulta Palabras a buscar (todas deben coincidir; la última como prefijo)
+     * @param origen   Si se indica, solo egresos, ingresos o empleados
+     * @param estado   Si se indica, solo comprobantes en ese estado
+     * @param pagina   Página (desde 0)
+     * @param tamanio  Resultados por página (1..100)
+     * @return Página de resultados de mayor a menor relevancia
+     */
+    public BusquedaComprobantesDTO buscar(Long codCia, String consulta, Origen origen, String estado, int pagina,
+            int tamanio) {
+        if (pagina < 0 || tamanio < 1 || tamanio > TAMANIO_MAXIMO) {
+            throw new ValidationException(
+                    String.format("La página debe ser >= 0 y el tamaño estar entre 1 y %d", TAMANIO_MAXIMO));
+        }
+        if ((long) pagina * tamanio + tamanio > RESULTADOS_MAXIMOS) {
+            throw new ValidationException(String.format(
+                    "Solo se pueden consultar los primeros %d resultados; refine la búsqueda", RESULTADOS_MAXIMOS));
+        }
+
+        int desde = pagina * tamanio;
+        return busquedaTimer.record(() -> {
+            Predicate<ComprobanteBusquedaIndex.Documento> filtro = documento -> (origen == null
+                    || origen == documento.origen())
+                    && (estado == null || estado.equals(documento.codEstado()));
+            ComprobanteBusquedaIndex.Resultado resultado = indice(codCia).buscar(consulta, filtro, desde, tamanio);
+
+            List<BusquedaComprobantesDTO.Resultado> resultados = new ArrayList<>();
+            for (ComprobanteBusquedaIndex.Coincidencia coincidencia : resultado.coincidencias()) {
+                ComprobanteBusquedaIndex.Documento documento = coincidencia.documento();
+                resultados.add(BusquedaComprobantesDTO.Resultado.builder()
+                        .origen(documento.origen().name())
+                        .codPersona(documento.codPersona())
+                        .desPersona(documento.desPersona())
+                        .nroCp(documento.nroCp())
+                        .codPyto(documento.codPyto())
+                        .fecCp(documento.fecCp())
+                        .impTotalMn(documento.impTotalMn())
+                        .codEstado(documento.codEstado())
+                        .desAbono(documento.desAbono())
+                        .puntaje(coincidencia.puntaje())
+                        .build());
+            }
+            return BusquedaComprobantesDTO.builder()
+                    .consulta(consulta)
+                    .pagina(pagina)
+                    .tamanio(tamanio)
+                    .total(resultado.total())
+                    .resultados(resultados)
+                    .build();
+        });
+    }
+
+    /**
+     * Aplica los cambios hechos por escrituras JDBC (importación, cambio de
+     * estado masivo). Se ejecuta después del commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onComprobantesModificados(ComprobantesModificadosEvent event) {
+        actualizar(event);
+    }
+
+    /**
+     * Vuelve a leer de la BD los comprobantes modificados y actualiza el índice
+     * de su compañía (si está cargado). Los que ya no existen se quitan.
+     */
+    public void actualizar(ComprobantesModificadosEvent event) {
+        Queue<ComprobantesModificadosEvent> pendientes = enCarga.get(event.codCia());
+        if (pendientes != null) {
+            pendientes.add(event);
+        }
+        ComprobanteBusquedaIndex indice = indices.get(event.codCia());
+        if (indice == null || event.claves().isEmpty()) {
+            return;
+        }
+        try {
+            aplicar(indice, event);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo actualizar el índice de búsqueda de la compañía {}: {}", event.codCia(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Carga los índices de todas las compañías al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        if (!cargarAlIniciar) {
+            return;
+        }
+        try {
+            for (Long codCia : jdbcTemplate.getJdbcTemplate().queryForList(SELECT_COMPANIAS, Long.class)) {
+                cargar(codCia);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron cargar los índices de búsqueda de comprobantes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye los índices con demasiadas entradas reemplazadas o eliminadas
+     */
+    @Scheduled(initialDelayString = "${comprobantes.busqueda.compactacion-ms:600000}",
+            fixedDelayString = "${comprobantes.busqueda.compactacion-ms:600000}")
+    public void compactar() {
+        for (Map.Entry<Long, ComprobanteBusquedaIndex> entrada : indices.entrySet()) {
+            if (entrada.getValue().fraccionEliminada() > maxEliminados) {
+                try {
+                    cargar(entrada.getKey());
+                } catch (DataAccessException e) {
+                    log.warn("No se pudo reconstruir el índice de búsqueda de la compañía {}: {}",
+                            entrada.getKey(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Carga (o reconstruye) el índice de una compañía desde la BD
+     *
+     * @return Número de comprobantes indexados
+     */
+    public int cargar(Long codCia) {
+        synchronized (cerrojos.computeIfAbsent(codCia, k -> new Object())) {
+            return construir(codCia).size();
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private ComprobanteBusquedaIndex indice(Long codCia) {
+        ComprobanteBusquedaIndex indice = indices.get(codCia);
+        if (indice != null) {
+            return indice;
+        }
+        synchronized (cerrojos.computeIfAbsent(codCia, k -> new Object())) {
+            indice = indices.get(codCia);
+            return indice != null ? indice : construir(codCia);
+        }
+    }
+
+    /**
+     * Lee todos los comprobantes de la compañía y publica el índice nuevo; los
+     * cambios confirmados mientras se leía se vuelven a aplicar sobre él
+     */
+    private ComprobanteBusquedaIndex construir(Long codCia) {
+        long inicio = System.currentTimeMillis();
+        Queue<ComprobantesModificadosEvent> pendientes = new ConcurrentLinkedQueue<>();
+        enCarga.put(codCia, pendientes);
+        ComprobanteBusquedaIndex nuevo = new ComprobanteBusquedaIndex();
+        try {
+            MapSqlParameterSource parametros = new MapSqlParameterSource("codCia", codCia);
+            nuevo.iniciarCarga();
+            for (Origen origen : Origen.values()) {
+                leer(origen, String.format(origen.select, ""), parametros, nuevo::agregar);
+            }
+            nuevo.terminarCarga();
+            indices.put(codCia, nuevo);
+        } finally {
+            enCarga.remove(codCia);
+        }
+
+        for (ComprobantesModificadosEvent event : pendientes) {
+            aplicar(nuevo, event);
+        }
+        log.info("Índice de búsqueda de comprobantes de la compañía {} cargado: {} comprobantes en {} ms", codCia,
+                nuevo.size(), System.currentTimeMillis() - inicio);
+        return nuevo;
+    }
+
+    private void aplicar(ComprobanteBusquedaIndex indice, ComprobantesModificadosEvent event) {
+        Origen origen = event.origen();
+        List<Clave> claves = new ArrayList<>(new LinkedHashSet<>(event.claves()));
+        for (int desde = 0; desde < claves.size(); desde += LOTE_CLAVES) {
+            List<Clave> lote = claves.subList(desde, Math.min(desde + LOTE_CLAVES, claves.size()));
+            List<Object> valores = new ArrayList<>(lote.size());
+            for (Clave clave : lote) {
+                valores.add(origen.personaEnClave ? new Object[] { clave.codPersona(), clave.nroCp() }
+                        : clave.nroCp());
+            }
+
+            Set<String> encontrados = new HashSet<>();
+            leer(origen, String.format(origen.select, origen.filtroClaves),
+                    new MapSqlParameterSource("codCia", event.codCia()).addValue("claves", valores),
+                    (documento, partidas) -> {
+                        indice.agregar(documento, partidas);
+                        encontrados.add(documento.clave());
+                    });
+            for (Clave clave : lote) {
+                String id = origen.clave(clave.codPersona(), clave.nroCp());
+                if (!encontrados.contains(id)) {
+                    indice.eliminar(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la consulta y entrega cada comprobante con las descripciones de
+     * sus partidas (las filas de un comprobante llegan juntas por el ORDER BY)
+     */
+    private void leer(Origen origen, String sql, MapSqlParameterSource parametros,
+            BiConsumer<ComprobanteBusquedaIndex.Documento, Collection<String>> destino) {
+        Lector lector = new Lector(origen, destino);
+        jdbcTemplate.query(sql, parametros, lector);
+        lector.terminar();
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Tipo de comprobante indexado, con la consulta que lo lee
+     */
+    public enum Origen {
+        EGRESO(SELECT_EGRESOS, "AND (c.CODPROVEEDOR, c.NROCP) IN (:claves)", true),
+        INGRESO(SELECT_INGRESOS, "AND c.NROCP IN (:claves)", false),
+        EMPLEADO(SELECT_EMPLEADOS, "AND (c.CODEMPLEADO, c.NROCP) IN (:claves)", true);
+
+        private final String select;
+        private final String filtroClaves;
+        /** false si la persona no forma parte de la clave del comprobante (ingresos) */
+        private final boolean personaEnClave;
+
+        Origen(String select, String filtroClaves, boolean personaEnClave) {
+            this.select = select;
+            this.filtroClaves = filtroClaves;
+            this.personaEnClave = personaEnClave;
+        }
+
+        private String clave(Long codPersona, String nroCp) {
+            return personaEnClave ? name() + "|" + codPersona + "|" + nroCp : name() + "|" + nroCp;
+        }
+    }
+
+    /**
+     * Agrupa las filas de un comprobante (una por detalle) en un documento
+     */
+    private static final class Lector implements RowCallbackHandler {
+        private final Origen origen;
+        private final BiConsumer<ComprobanteBusquedaIndex.Documento, Collection<String>> destino;
+        private final Map<String, String> descripciones = new HashMap<>();
+        private ComprobanteBusquedaIndex.Documento actual;
+        private Set<String> partidas = new LinkedHashSet<>();
+
+        private Lector(Origen origen,
+                BiConsumer<ComprobanteBusquedaIndex.Documento, Collection<String>> destino) {
+            this.origen = origen;
+            this.destino = destino;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long codPersona = rs.getLong(2);
+            String nroCp = rs.getString(3);
+            String clave = origen.clave(codPersona, nroCp);
+            if (actual == null || !actual.clave().equals(clave)) {
+                terminar();
+                Date fecCp = rs.getDate(5);
+                actual = new ComprobanteBusquedaIndex.Documento(
+                        clave,
+                        origen,
+                        codPersona,
+                        nroCp,
+                        rs.getLong(4),
+                        fecCp != null ? fecCp.toLocalDate() : null,
+                        rs.getBigDecimal(6),
+                        rs.getString(7),
+                        rs.getString(9),
+                        rs.getString(8));
+            }
+            String partida = rs.getString(10);
+            if (partida != null) {
+                // Las mismas descripciones se repiten en muchos comprobantes: se comparte una instancia
+                partidas.add(descripciones.computeIfAbsent(partida, k -> k));
+            }
+        }
+
+        private void terminar() {
+            if (actual != null) {
+                destino.accept(actual, partidas);
+                actual = null;
+                partidas = new LinkedHashSet<>();
+            }
+        }
+    }
+
+    /**
+     * @param codPersona Proveedor o empleado (null en ingresos)
+     */
+    public record Clave(Long codPersona, String nroCp) {
+    }
+
+    /**
+     * Evento publicado al escribir comprobantes fuera de JPA (las escrituras por
+     * JPA las detecta ComprobanteBusquedaListener)
+     */
+    public record ComprobantesModificadosEvent(Origen origen, Long codCia, List<Clave> claves) {
+
+        public static ComprobantesModificadosEvent egresos(Long codCia, List<Object[]> claves) {
+            List<Clave> lista = new ArrayList<>(claves.size());
+            for (Object[] clave : claves) {
+                lista.add(new Clave(((Number) clave[0]).longValue(), (String) clave[1]));
+            }
+            return new ComprobantesModificadosEvent(Origen.EGRESO, codCia, lista);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.proyectos.comprobantespago.entity.ComprobantePagoDet;
+import com.proyectos.comprobantespago.enums.EstadoComprobanteEnum;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cambio de estado de un lote de comprobantes en una sola transacción
+ * Las precondiciones (estados de origen permitidos) van en el WHERE del
+ * UPDATE, así que un lote es una sola sentencia sin importar cuántos
+ * comprobantes tenga. Las filas se bloquean antes para que el ajuste del
+ * ledger presupuestal y el reporte de rechazos correspondan exactamente a lo
+ * que el UPDATE modifica.
+ */
+@Component
+@RequiredArgsConstructor
+public class ComprobanteEstadoEscritor {
+
+    private static final String CLAVES = "CODCIA = :codCia AND (CODPROVEEDOR, NROCP) IN (:claves) ";
+
+    private static final String SELECT_ESTADOS = "SELECT CODPROVEEDOR, NROCP, CODESTADO FROM COMP_PAGOCAB WHERE "
+            + CLAVES + "FOR UPDATE";
+
+    private static final String SUMA_DETALLES = "SELECT c.CODPYTO, d.INGEGR, d.CODPARTIDA, SUM(d.IMPTOTALMN) "
+            + "FROM COMP_PAGODET d JOIN COMP_PAGOCAB c ON c.CODCIA = d.CODCIA AND c.CODPROVEEDOR = d.CODPROVEEDOR "
+            + "AND c.NROCP = d.NROCP "
+            + "WHERE c.CODCIA = :codCia AND (c.CODPROVEEDOR, c.NROCP) IN (:claves) AND c.CODESTADO IN (:origenes) "
+            + "GROUP BY c.CODPYTO, d.INGEGR, d.CODPARTIDA";
+
+    private static final String UPDATE_ESTADO = "UPDATE COMP_PAGOCAB SET CODESTADO = :destino%s WHERE " + CLAVES
+            + "AND CODESTADO IN (:permitidos)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Aplica el cambio de estado a los comprobantes del lote que están en un
+     * estado de origen permitido
+     *
+     * @param codCia     Código de compañía
+     * @param claves     Claves {codProveedor, nroCp} del lote (máx 1000)
+     * @param destino    Estado destino
+     * @param permitidos Estados de origen desde los que se permite el cambio
+     * @return Comprobantes actualizados y estado previo de cada clave encontrada
+     */
+    @Transactional
+    public ResultadoLote aplicar(Long codCia, List<Object[]> claves, String destino, List<String> permitidos) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("codCia", codCia)
+                .addValue("claves", claves)
+                .addValue("destino", destino)
+                .addValue("permitidos", permitidos);
+
+        // 1. Bloquear las filas y leer su estado actual (para el reporte de rechazos)
+        Map<String, String> estados = new HashMap<>();
+        jdbcTemplate.query(SELECT_ESTADOS, parametros, rs -> {
+            estados.put(clave(rs.getLong(1), rs.getString(2)), rs.getString(3));
+        });
+        if (permitidos.isEmpty()) {
+            return new ResultadoLote(0, estados);
+        }
+
+        // 2. Ledger: solo los orígenes cuyo paso al destino cambia la ejecución
+        boolean cuentaDestino = EjecucionPresupuestoService.cuentaEnEjecucion(destino);
+        List<String> origenesLedger = permitidos.stream()
+                .filter(origen -> EjecucionPresupuestoService.cuentaEnEjecucion(origen) != cuentaDestino)
+                .toList();
+        if (!origenesLedger.isEmpty()) {
+            actualizarEjecucion(codCia, parametros.addValue("origenes", origenesLedger), cuentaDestino);
+        }
+
+        // 3. UPDATE por conjunto con las precondiciones en el WHERE
+        boolean pagado = EstadoComprobanteEnum.TOTALMENTE_PAGADO.getCodigo().equals(destino);
+        if (pagado) {
+            parametros.addValue("hoy", Date.valueOf(LocalDate.now()));
+        }
+        int actualizados = jdbcTemplate.update(
+                String.format(UPDATE_ESTADO, pagado ? ", FECABONO = NVL(FECABONO, :hoy)" : ""), parametros);
+        if (actualizados > 0) {
+            eventPublisher.publishEvent(ComprobanteBusquedaService.ComprobantesModificadosEvent.egresos(codCia, claves));
+        }
+        return new ResultadoLote(actualizados, estados);
+    }
+
+    /**
+     * Registra o revierte en el ledger los detalles de los comprobantes que
+     * cambian, sumados por proyecto y partida (un MERGE por partida)
+     */
+    private void actualizarEjecucion(Long codCia, MapSqlParameterSource parametros, boolean registrar) {
+        Map<Long, List<ComprobantePagoDet>> porProyecto = new LinkedHashMap<>();
+        jdbcTemplate.query(SUMA_DETALLES, parametros, rs -> {
+            porProyecto.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>())
+                    .add(ComprobantePagoDet.builder()
+                            .ingEgr(rs.getString(2))
+                            .codPartida(rs.getLong(3))
+                            .impTotalMn(rs.getBigDecimal(4) != null ? rs.getBigDecimal(4) : BigDecimal.ZERO)
+                            .build());
+        });
+        porProyecto.forEach((codPyto, detalles) -> {
+            if (registrar) {
+                ejecucionPresupuestoService.registrarEgresos(codCia, codPyto, detalles);
+            } else {
+                ejecucionPresupuestoService.revertirEgresos(codCia, codPyto, detalles);
+            }
+        });
+    }
+
+    static String clave(Long codProveedor, String nroCp) {
+        return codProveedor + "|" + nroCp;
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * @param actualizados Filas modificadas por el UPDATE
+     * @param estados      Estado previo por clave (codProveedor|nroCp); las
+     *                     claves ausentes no existen
+     */
+    public record ResultadoLote(int actualizados, Map<String, String> estados) {
+    }
+}
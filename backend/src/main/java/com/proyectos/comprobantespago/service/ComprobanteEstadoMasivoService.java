@@ -0,0 +1,156 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.proyectos.comprobantespago.dto.CambioEstadoMasivoDTO;
+import com.proyectos.comprobantespago.dto.FiltroComprobantesDTO;
+import com.proyectos.comprobantespago.dto.ResultadoCambioEstadoMasivoDTO;
+import com.proyectos.comprobantespago.enums.EstadoComprobanteEnum;
+import com.proyectos.comprobantespago.exception.ValidationException;
+import com.proyectos.comprobantespago.repository.ComprobantePagoCabRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de cambio de estado masivo de comprobantes de pago (egresos)
+ * Pensado para el cierre de periodo: marcar como pagados o anular cientos de
+ * comprobantes en una llamada. Los comprobantes se procesan por lotes, cada
+ * uno con un UPDATE por conjunto en su propia transacción
+ * (ComprobanteEstadoEscritor), en lugar de una lectura y un guardado por
+ * comprobante. Las transiciones permitidas son las de EstadoComprobanteEnum;
+ * anular un comprobante pagado requiere confirmarPagado, igual que anular().
+ */
+@Service
+@Slf4j
+public class ComprobanteEstadoMasivoService {
+
+    private final ComprobanteEstadoEscritor escritor;
+    private final ComprobantePagoCabRepository cabRepository;
+    private final int tamanoLote;
+    private final int maximo;
+
+    public ComprobanteEstadoMasivoService(
+            ComprobanteEstadoEscritor escritor,
+            ComprobantePagoCabRepository cabRepository,
+            @Value("${comprobantes.estado-masivo.lote:500}") int tamanoLote,
+            @Value("${comprobantes.estado-masivo.maximo:10000}") int maximo) {
+        this.escritor = escritor;
+        this.cabRepository = cabRepository;
+        // Oracle admite hasta 1000 elementos en la lista IN
+        this.tamanoLote = Math.min(Math.max(tamanoLote, 1), 1000);
+        this.maximo = maximo;
+    }
+
+    /**
+     * Cambia el estado de los comprobantes indicados por clave o por filtro
+     *
+     * @param codCia    Código de compañía
+     * @param solicitud Estado destino y comprobantes (claves o filtro)
+     * @return Resumen de actualizados y rechazados con el motivo
+     */
+    public ResultadoCambioEstadoMasivoDTO cambiarEstado(Long codCia, CambioEstadoMasivoDTO solicitud) {
+        EstadoComprobanteEnum destino = estado(solicitud.getEstado());
+        List<EstadoComprobanteEnum> permitidos = Arrays.stream(EstadoComprobanteEnum.values())
+                .filter(origen -> origen.puedeTransicionarA(destino))
+                .filter(origen -> solicitud.isConfirmarPagado() || destino != EstadoComprobanteEnum.ANULADO
+                        || origen != EstadoComprobanteEnum.TOTALMENTE_PAGADO)
+                .toList();
+        List<String> codigosPermitidos = permitidos.stream().map(EstadoComprobanteEnum::getCodigo).toList();
+
+        List<Object[]> claves = claves(codCia, solicitud);
+        log.info("Cambio de estado masivo a {} de {} comprobantes de la compañía {}", destino.getCodigo(),
+                claves.size(), codCia);
+
+        int actualizados = 0;
+        List<ResultadoCambioEstadoMasivoDTO.Rechazo> rechazos = new ArrayList<>();
+        for (int desde = 0; desde < claves.size(); desde += tamanoLote) {
+            List<Object[]> lote = claves.subList(desde, Math.min(desde + tamanoLote, claves.size()));
+            ComprobanteEstadoEscritor.ResultadoLote resultado = escritor.aplicar(codCia, lote, destino.getCodigo(),
+                    codigosPermitidos);
+            actualizados += resultado.actualizados();
+
+            for (Object[] clave : lote) {
+                String estadoActual = resultado.estados()
+                        .get(ComprobanteEstadoEscritor.clave((Long) clave[0], (String) clave[1]));
+                if (estadoActual == null || !codigosPermitidos.contains(estadoActual)) {
+                    rechazos.add(ResultadoCambioEstadoMasivoDTO.Rechazo.builder()
+                            .codProveedor((Long) clave[0])
+                            .nroCp((String) clave[1])
+                            .estadoActual(estadoActual)
+                            .motivo(motivoRechazo(estadoActual, destino))
+                            .build());
+                }
+            }
+        }
+
+        log.info("Cambio de estado masivo a {}: {} actualizados, {} rechazados", destino.getCodigo(), actualizados,
+                rechazos.size());
+        return ResultadoCambioEstadoMasivoDTO.builder()
+                .codCia(codCia)
+                .estado(destino.getCodigo())
+                .solicitados(claves.size())
+                .actualizados(actualizados)
+                .rechazados(rechazos.size())
+                .detalleRechazos(rechazos)
+                .build();
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private EstadoComprobanteEnum estado(String codigo) {
+        try {
+            return EstadoComprobanteEnum.fromCodigo(codigo);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Estado no válido: " + codigo);
+        }
+    }
+
+    /**
+     * Claves {codProveedor, nroCp} sin repetir, de la lista o del filtro
+     */
+    private List<Object[]> claves(Long codCia, CambioEstadoMasivoDTO solicitud) {
+        Map<String, Object[]> claves = new LinkedHashMap<>();
+        if (solicitud.getComprobantes() != null && !solicitud.getComprobantes().isEmpty()) {
+            for (CambioEstadoMasivoDTO.ClaveComprobante clave : solicitud.getComprobantes()) {
+                claves.putIfAbsent(ComprobanteEstadoEscritor.clave(clave.getCodProveedor(), clave.getNroCp()),
+                        new Object[] { clave.getCodProveedor(), clave.getNroCp() });
+            }
+        } else if (solicitud.getFiltro() != null) {
+            FiltroComprobantesDTO f = solicitud.getFiltro();
+            for (Object[] fila : cabRepository.findClavesListado(codCia, f.getCodPyto(), f.getCodProveedor(),
+                    f.getEstado(), f.getFechaInicio(), f.getFechaFin(), f.getMontoMin(), f.getMontoMax(),
+                    Limit.of(maximo + 1))) {
+                Long codProveedor = ((Number) fila[0]).longValue();
+                claves.put(ComprobanteEstadoEscritor.clave(codProveedor, (String) fila[1]),
+                        new Object[] { codProveedor, fila[1] });
+            }
+        } else {
+            throw new ValidationException("Debe indicar los comprobantes o un filtro");
+        }
+
+        if (claves.size() > maximo) {
+            throw new ValidationException(String.format(
+                    "La operación abarca más de %d comprobantes; acote la lista o el filtro", maximo));
+        }
+        return new ArrayList<>(claves.values());
+    }
+
+    private String motivoRechazo(String estadoActual, EstadoComprobanteEnum destino) {
+        if (estadoActual == null) {
+            return "Comprobante no encontrado";
+        }
+        if (EstadoComprobanteEnum.TOTALMENTE_PAGADO.getCodigo().equals(estadoActual)
+                && destino == EstadoComprobanteEnum.ANULADO) {
+            return "Este comprobante ya fue pagado. Debe confirmar la anulación explícitamente.";
+        }
+        return String.format("No se puede cambiar del estado %s a %s", estadoActual, destino.getCodigo());
+    }
+}
@@ -0,0 +1,349 @@
+package com.proyectos.comprobantespago.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyectos.comprobantespago.entity.ComprobantePagoCab;
+import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleado;
+import com.proyectos.comprobantespago.entity.VtaCompPagoCab;
+import com.proyectos.comprobantespago.exception.ValidationException;
+import com.proyectos.comprobantespago.repository.ComprobantePagoCabRepository;
+import com.proyectos.comprobantespago.repository.ComprobantePagoEmpleadoRepository;
+import com.proyectos.comprobantespago.repository.VtaCompPagoCabRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de exportación de comprobantes (egresos, ingresos y empleados) por
+ * rango de fechas en CSV o NDJSON (un objeto JSON por línea)
+ *
+ * Las cabeceras se leen con un cursor de BD (Stream del repositorio con fetch
+ * size) y cada fila se escribe en la salida y se separa del contexto de
+ * persistencia antes de leer la siguiente, así que la memoria usada no
+ * depende del número de comprobantes exportados. Se exporta una fila por
+ * comprobante (solo cabecera), por lo que el CSV no sirve como archivo de
+ * importación (ComprobanteImportacionService espera una fila por detalle).
+ */
+@Service
+@Slf4j
+public class ComprobanteExportacionService {
+
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final List<Columna<ComprobantePagoCab>> COLUMNAS_EGRESO = List.of(
+            Columna.de("codProveedor", ComprobantePagoCab::getCodProveedor),
+            Columna.persona(),
+            Columna.de("nroCp", ComprobantePagoCab::getNroCp),
+            Columna.de("codPyto", ComprobantePagoCab::getCodPyto),
+            Columna.de("nroPago", ComprobantePagoCab::getNroPago),
+            Columna.de("eCompPago", ComprobantePagoCab::getECompPago),
+            Columna.de("fecCp", ComprobantePagoCab::getFecCp),
+            Columna.de("eMoneda", ComprobantePagoCab::getEMoneda),
+            Columna.de("tipCambio", ComprobantePagoCab::getTipCambio),
+            Columna.de("impMo", ComprobantePagoCab::getImpMo),
+            Columna.de("impNetoMn", ComprobantePagoCab::getImpNetoMn),
+            Columna.de("impIgvMn", ComprobantePagoCab::getImpIgvmn),
+            Columna.de("impTotalMn", ComprobantePagoCab::getImpTotalMn),
+            Columna.de("fecAbono", ComprobantePagoCab::getFecAbono),
+            Columna.de("desAbono", ComprobantePagoCab::getDesAbono),
+            Columna.de("codEstado", ComprobantePagoCab::getCodEstado));
+
+    private static final List<Columna<VtaCompPagoCab>> COLUMNAS_INGRESO = List.of(
+            Columna.de("codCliente", VtaCompPagoCab::getCodCliente),
+            Columna.persona(),
+            Columna.de("nroCp", VtaCompPagoCab::getNroCp),
+            Columna.de("codPyto", VtaCompPagoCab::getCodPyto),
+            Columna.de("nroPago", VtaCompPagoCab::getNroPago),
+            Columna.de("eCompPago", VtaCompPagoCab::getECompPago),
+            Columna.de("fecCp", VtaCompPagoCab::getFecCp),
+            Columna.de("eMoneda", VtaCompPagoCab::getEMoneda),
+            Columna.de("tipCambio", VtaCompPagoCab::getTipCambio),
+            Columna.de("impMo", VtaCompPagoCab::getImpMo),
+            Columna.de("impNetoMn", VtaCompPagoCab::getImpNetoMn),
+            Columna.de("impIgvMn", VtaCompPagoCab::getImpIgvMn),
+            Columna.de("impTotalMn", VtaCompPagoCab::getImpTotalMn),
+            Columna.de("fecAbono", VtaCompPagoCab::getFecAbono),
+            Columna.de("desAbono", VtaCompPagoCab::getDesAbono),
+            Columna.de("codEstado", VtaCompPagoCab::getCodEstado));
+
+    private static final List<Columna<ComprobantePagoEmpleado>> COLUMNAS_EMPLEADO = List.of(
+            Columna.de("codEmpleado", ComprobantePagoEmpleado::getCodEmpleado),
+            Columna.persona(),
+            Columna.de("nroCp", ComprobantePagoEmpleado::getNroCp),
+            Columna.de("codPyto", ComprobantePagoEmpleado::getCodPyto),
+            Columna.de("nroPago", ComprobantePagoEmpleado::getNroPago),
+            Columna.de("eCompPago", ComprobantePagoEmpleado::getECompPago),
+            Columna.de("fecCp", ComprobantePagoEmpleado::getFecCp),
+            Columna.de("eMoneda", ComprobantePagoEmpleado::getEMoneda),
+            Columna.de("tipCambio", ComprobantePagoEmpleado::getTipCambio),
+            Columna.de("impMo", ComprobantePagoEmpleado::getImpMo),
+            Columna.de("impNetoMn", ComprobantePagoEmpleado::getImpNetoMn),
+            Columna.de("impIgvMn", ComprobantePagoEmpleado::getImpIgvmn),
+            Columna.de("impTotalMn", ComprobantePagoEmpleado::getImpTotalMn),
+            Columna.de("fecAbono", ComprobantePagoEmpleado::getFecAbono),
+            Columna.de("desAbono", ComprobantePagoEmpleado::getDesAbono),
+            Columna.de("codEstado", ComprobantePagoEmpleado::getCodEstado));
+
+    private final ComprobantePagoCabRepository cabRepository;
+    private final VtaCompPagoCabRepository vtaCompPagoCabRepository;
+    private final ComprobantePagoEmpleadoRepository empleadoRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public ComprobanteExportacionService(
+            ComprobantePagoCabRepository cabRepository,
+            VtaCompPagoCabRepository vtaCompPagoCabRepository,
+            ComprobantePagoEmpleadoRepository empleadoRepository,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.cabRepository = cabRepository;
+        this.vtaCompPagoCabRepository = vtaCompPagoCabRepository;
+        this.empleadoRepository = empleadoRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Valida el rango antes de empezar a escribir la respuesta (después ya no
+     * se puede devolver un error)
+     */
+    public void validarRango(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new ValidationException("La fecha de inicio no puede ser posterior a la fecha fin");
+        }
+    }
+
+    /**
+     * Escribe los comprobantes de egreso del rango, ordenados por fecha
+     *
+     * @return Número de comprobantes exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportarEgresos(Long codCia, LocalDate fechaInicio, LocalDate fechaFin, Formato formato,
+            OutputStream salida) throws IOException {
+        try (Stream<Object[]> filas = cabRepository.streamByFechaRange(codCia, fechaInicio, fechaFin)) {
+            return exportar("egresos", codCia, filas, ComprobantePagoCab.class, COLUMNAS_EGRESO, formato, salida);
+        }
+    }
+
+    /**
+     * Escribe los comprobantes de ingreso del rango, ordenados por fecha
+     *
+     * @return Número de comprobantes exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportarIngresos(Long codCia, LocalDate fechaInicio, LocalDate fechaFin, Formato formato,
+            OutputStream salida) throws IOException {
+        try (Stream<Object[]> filas = vtaCompPagoCabRepository.streamByFechaRange(codCia, fechaInicio, fechaFin)) {
+            return exportar("ingresos", codCia, filas, VtaCompPagoCab.class, COLUMNAS_INGRESO, formato, salida);
+        }
+    }
+
+    /**
+     * Escribe los comprobantes de empleados del rango, ordenados por fecha
+     *
+     * @return Número de comprobantes exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportarEmpleados(Long codCia, LocalDate fechaInicio, LocalDate fechaFin, Formato formato,
+            OutputStream salida) throws IOException {
+        try (Stream<Object[]> filas = empleadoRepository.streamByFechaRange(codCia, fechaInicio, fechaFin)) {
+            return exportar("empleados", codCia, filas, ComprobantePagoEmpleado.class, COLUMNAS_EMPLEADO, formato,
+                    salida);
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private <E> long exportar(String origen, Long codCia, Stream<Object[]> filas, Class<E> tipo,
+            List<Columna<E>> columnas, Formato formato, OutputStream salida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        Escritor escritor = formato == Formato.NDJSON
+                ? new EscritorNdjson(objectMapper.getFactory().createGenerator(writer), columnas)
+                : new EscritorCsv(writer, columnas);
+
+        Object[] valores = new Object[columnas.size()];
+        long total = 0;
+        Iterator<Object[]> iterador = filas.iterator();
+        while (iterador.hasNext()) {
+            Object[] fila = iterador.next();
+            E comprobante = tipo.cast(fila[0]);
+            String desPersona = (String) fila[1];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = columnas.get(i).valor(comprobante, desPersona);
+            }
+            escritor.fila(valores);
+            // La fila ya se escribió: se suelta para que el contexto de persistencia no crezca
+            entityManager.detach(comprobante);
+            total++;
+        }
+        escritor.terminar();
+
+        meterRegistry.counter("comprobantes.exportacion.filas", "origen", origen, "formato", formato.name())
+                .increment(total);
+        log.info("Exportación de {} de la compañía {} ({}): {} comprobantes en {} ms", origen, codCia, formato,
+                total, System.currentTimeMillis() - inicio);
+        return total;
+    }
+
+    /**
+     * Valor de celda CSV: entre comillas si contiene separador, comillas o saltos de línea
+     * Los textos que empiezan con =, +, -, @, tabulador o retorno de carro llevan
+     * un apóstrofo delante para que una hoja de cálculo no los evalúe como fórmula
+     * (los números se dejan igual para no alterar los importes negativos).
+     */
+    static String celdaCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto;
+        if (valor instanceof Number) {
+            texto = valor instanceof BigDecimal numero ? numero.toPlainString() : valor.toString();
+        } else {
+            texto = valor.toString();
+            if (!texto.isEmpty() && "=+-@\t\r".indexOf(texto.charAt(0)) >= 0) {
+                texto = "'" + texto;
+            }
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + texto.replace("\"", "\"\"") + '"';
+            }
+        }
+        return texto;
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Columna exportada: nombre y cómo obtener el valor de la cabecera y el
+     * nombre de la persona
+     */
+    private record Columna<E>(String nombre, Function<E, Object> extractor, boolean esPersona) {
+
+        static <E> Columna<E> de(String nombre, Function<E, Object> extractor) {
+            return new Columna<>(nombre, extractor, false);
+        }
+
+        static <E> Columna<E> persona() {
+            return new Columna<>("desPersona", null, true);
+        }
+
+        Object valor(E comprobante, String desPersona) {
+            return esPersona ? desPersona : extractor.apply(comprobante);
+        }
+    }
+
+    private interface Escritor {
+        void fila(Object[] valores) throws IOException;
+
+        /** Vacía lo pendiente sin cerrar la salida (la cierra el contenedor) */
+        void terminar() throws IOException;
+    }
+
+    private static final class EscritorCsv implements Escritor {
+        private final Writer writer;
+
+        EscritorCsv(Writer writer, List<? extends Columna<?>> columnas) throws IOException {
+            this.writer = writer;
+            for (int i = 0; i < columnas.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columnas.get(i).nombre());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void fila(Object[] valores) throws IOException {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(celdaCsv(valores[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class EscritorNdjson implements Escritor {
+        private final JsonGenerator generator;
+        private final String[] nombres;
+
+        EscritorNdjson(JsonGenerator generator, List<? extends Columna<?>> columnas) {
+            this.generator = generator;
+            // Sin el espacio que Jackson pone entre valores raíz: cada objeto termina en su propio salto de línea
+            this.generator.setRootValueSeparator(null);
+            this.nombres = columnas.stream().map(Columna::nombre).toArray(String[]::new);
+        }
+
+        @Override
+        public void fila(Object[] valores) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < valores.length; i++) {
+                generator.writeFieldName(nombres[i]);
+                switch (valores[i]) {
+                    case null -> generator.writeNull();
+                    case BigDecimal numero -> generator.writeNumber(numero);
+                    case Long numero -> generator.writeNumber(numero);
+                    case Integer numero -> generator.writeNumber(numero);
+                    default -> generator.writeString(valores[i].toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            generator.flush();
+        }
+    }
+}
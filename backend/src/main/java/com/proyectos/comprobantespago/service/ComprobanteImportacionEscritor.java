@@ -0,0 +1,90 @@
+package com.proyectos.comprobantespago.service;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.proyectos.comprobantespago.dto.ComprobantePagoDTO;
+import com.proyectos.comprobantespago.dto.ComprobantePagoDetalleDTO;
+import com.proyectos.comprobantespago.entity.ComprobantePagoDet;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Escritura de un lote de comprobantes importados en una sola transacción
+ * Inserta cabeceras y detalles con inserciones JDBC por lotes (sin pasar por
+ * el contexto de persistencia) y registra la ejecución en el ledger
+ * presupuestal en la misma transacción, igual que el alta individual.
+ */
+@Component
+@RequiredArgsConstructor
+public class ComprobanteImportacionEscritor {
+
+    private static final String INSERT_CABECERA = "INSERT INTO COMP_PAGOCAB (CODCIA, CODPROVEEDOR, NROCP, CODPYTO, "
+            + "NROPAGO, TCOMPPAGO, ECOMPPAGO, FECCP, TMONEDA, EMONEDA, TIPCAMBIO, IMPMO, IMPNETOMN, IMPIGVMN, "
+            + "IMPTOTALMN, SEMILLA, TABESTADO, CODESTADO) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DETALLE = "INSERT INTO COMP_PAGODET (CODCIA, CODPROVEEDOR, NROCP, SEC, INGEGR, "
+            + "CODPARTIDA, IMPNETOMN, IMPIGVMN, IMPTOTALMN, SEMILLA) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Inserta los comprobantes (ya validados) en estado Registrado
+     *
+     * @param codCia        Código de compañía
+     * @param comprobantes  Comprobantes con sus detalles (sec y semilla asignados)
+     */
+    @Transactional
+    public void escribir(Long codCia, List<ComprobantePagoDTO> comprobantes) {
+        List<Object[]> cabeceras = new ArrayList<>(comprobantes.size());
+        List<Object[]> detalles = new ArrayList<>();
+        List<IndiceDuplicadosService.Clave> claves = new ArrayList<>(comprobantes.size());
+        Map<Long, List<ComprobantePagoDet>> egresosPorProyecto = new LinkedHashMap<>();
+
+        for (ComprobantePagoDTO dto : comprobantes) {
+            cabeceras.add(new Object[] {
+                    codCia, dto.getCodProveedor(), dto.getNroCp(), dto.getCodPyto(), dto.getNroPago(),
+                    dto.getTCompPago(), dto.getECompPago(), Date.valueOf(dto.getFecCp()), dto.getTMoneda(),
+                    dto.getEMoneda(), dto.getTipCambio(), dto.getImpMo(), dto.getImpNetoMn(), dto.getImpIgvMn(),
+                    dto.getImpTotalMn(), dto.getSemilla(), dto.getTabEstado(), dto.getCodEstado() });
+            claves.add(new IndiceDuplicadosService.Clave(dto.getCodProveedor(), dto.getNroCp()));
+
+            List<ComprobantePagoDet> egresos = egresosPorProyecto.computeIfAbsent(dto.getCodPyto(),
+                    k -> new ArrayList<>());
+            for (ComprobantePagoDetalleDTO detalle : dto.getDetalles()) {
+                detalles.add(new Object[] {
+                        codCia, dto.getCodProveedor(), dto.getNroCp(), detalle.getSec(), detalle.getIngEgr(),
+                        detalle.getCodPartida(), detalle.getImpNetoMn(), detalle.getImpIgvMn(),
+                        detalle.getImpTotalMn(), detalle.getSemilla() });
+                egresos.add(ComprobantePagoDet.builder()
+                        .ingEgr(detalle.getIngEgr())
+                        .codPartida(detalle.getCodPartida())
+                        .impTotalMn(detalle.getImpTotalMn())
+                        .build());
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_CABECERA, cabeceras);
+        jdbcTemplate.batchUpdate(INSERT_DETALLE, detalles);
+
+        // Ledger presupuestal: un MERGE por (proyecto, partida) del lote
+        egresosPorProyecto.forEach((codPyto, egresos) -> ejecucionPresupuestoService.registrarEgresos(codCia,
+                codPyto, egresos));
+
+        eventPublisher.publishEvent(new IndiceDuplicadosService.ComprobantesRegistradosEvent(codCia, claves));
+        eventPublisher.publishEvent(new ComprobanteBusquedaService.ComprobantesModificadosEvent(
+                ComprobanteBusquedaService.Origen.EGRESO, codCia, claves.stream()
+                        .map(clave -> new ComprobanteBusquedaService.Clave(clave.codProveedor(), clave.nroCp()))
+                        .toList()));
+    }
+}
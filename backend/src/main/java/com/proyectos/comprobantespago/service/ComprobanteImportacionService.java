@@ -0,0 +1,630 @@
+package com.proyectos.comprobantespago.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.proyectos.comprobantespago.dto.ComprobantePagoDTO;
+import com.proyectos.comprobantespago.dto.ComprobantePagoDetalleDTO;
+import com.proyectos.comprobantespago.dto.ImportacionComprobantesDTO;
+import com.proyectos.comprobantespago.dto.PresupuestoDisponibleDTO;
+import com.proyectos.comprobantespago.entity.Proveedor;
+import com.proyectos.comprobantespago.entity.Proyecto;
+import com.proyectos.comprobantespago.exception.ValidationException;
+import com.proyectos.comprobantespago.repository.ComprobantePagoCabRepository;
+import com.proyectos.comprobantespago.repository.PartidaRepository;
+import com.proyectos.comprobantespago.repository.ProveedorRepository;
+import com.proyectos.comprobantespago.repository.ProyectoRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de importación masiva de comprobantes de pago (egresos) desde CSV
+ *
+ * Formato: una fila por detalle; las filas consecutivas con el mismo
+ * (codProveedor, nroCp) forman un comprobante y sus columnas de cabecera se
+ * toman de la primera. La primera línea lleva los nombres de columna (en
+ * cualquier orden, separados por coma o punto y coma):
+ * <ul>
+ * <li>Obligatorias: codProveedor, nroCp, codPyto, eCompPago, fecCp
+ * (yyyy-MM-dd), eMoneda, impNetoMn, impTotalMn, codPartida, detImpNetoMn,
+ * detImpTotalMn</li>
+ * <li>Opcionales: nroPago (1), tCompPago (004), tMoneda (003), tipCambio (1),
+ * impMo (impTotalMn), impIgvMn (0), semilla (1), ingEgr (E), detImpIgvMn
+ * (0)</li>
+ * </ul>
+ *
+ * El archivo se lee como flujo y se procesa por lotes: las validaciones de
+ * cada lote corren en paralelo contra catálogos cargados una sola vez
+ * (proveedores, proyectos, partidas) y una consulta de duplicados por lote; el
+ * presupuesto se compara con una sola lectura por (proyecto, partida) más lo
+ * ya importado. Los comprobantes válidos se escriben con
+ * ComprobanteImportacionEscritor en una transacción por lote. Las reglas son
+ * las mismas del alta individual y el presupuesto excedido solo genera
+ * advertencias, igual que en ComprobantePagoService.create.
+ */
+@Service
+@Slf4j
+public class ComprobanteImportacionService {
+
+    private static final String TAB_COMPROBANTE = "004";
+    private static final String TAB_MONEDA = "003";
+    private static final String TAB_ESTADO = "014";
+    private static final String ESTADO_REGISTRADO = "REG";
+
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("codProveedor", "nroCp", "codPyto",
+            "eCompPago", "fecCp", "eMoneda", "impNetoMn", "impTotalMn", "codPartida", "detImpNetoMn",
+            "detImpTotalMn");
+
+    private final ComprobanteValidador validador;
+    private final PresupuestoService presupuestoService;
+    private final ComprobanteImportacionEscritor escritor;
+    private final ComprobantePagoCabRepository cabRepository;
+    private final ProveedorRepository proveedorRepository;
+    private final ProyectoRepository proyectoRepository;
+    private final PartidaRepository partidaRepository;
+    private final MeterRegistry meterRegistry;
+    private final int tamanoLote;
+
+    public ComprobanteImportacionService(
+            ComprobanteValidador validador,
+            PresupuestoService presupuestoService,
+            ComprobanteImportacionEscritor escritor,
+            ComprobantePagoCabRepository cabRepository,
+            ProveedorRepository proveedorRepository,
+            ProyectoRepository proyectoRepository,
+            PartidaRepository partidaRepository,
+            MeterRegistry meterRegistry,
+            @Value("${comprobantes.importacion.lote:500}") int tamanoLote) {
+        this.validador = validador;
+        this.presupuestoService = presupuestoService;
+        this.escritor = escritor;
+        this.cabRepository = cabRepository;
+        this.proveedorRepository = proveedorRepository;
+        this.proyectoRepository = proyectoRepository;
+        this.partidaRepository = partidaRepository;
+        this.meterRegistry = meterRegistry;
+        // Oracle admite hasta 1000 valores en la lista IN de la consulta de duplicados
+        this.tamanoLote = Math.min(Math.max(tamanoLote, 1), 1000);
+    }
+
+    /**
+     * Importa los comprobantes del archivo CSV
+     *
+     * @param codCia  Código de compañía
+     * @param archivo Archivo CSV (UTF-8)
+     * @return Totales y reporte por comprobante de errores y advertencias
+     */
+    public ImportacionComprobantesDTO importar(Long codCia, MultipartFile archivo) {
+        if (archivo == null || archivo.isEmpty()) {
+            throw new ValidationException("El archivo está vacío");
+        }
+        log.info("Importando comprobantes de la compañía {} desde {}", codCia, archivo.getOriginalFilename());
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        long inicio = System.nanoTime();
+
+        Importacion importacion = new Importacion(codCia, cargarCatalogos(codCia));
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8))) {
+            leer(lector, importacion);
+        } catch (IOException e) {
+            throw new ValidationException("No se pudo leer el archivo: " + e.getMessage());
+        }
+
+        muestra.stop(meterRegistry.timer("comprobantes.importacion.tiempo"));
+        meterRegistry.counter("comprobantes.importacion.comprobantes", "resultado", "importado")
+                .increment(importacion.importados);
+        meterRegistry.counter("comprobantes.importacion.comprobantes", "resultado", "rechazado")
+                .increment(importacion.errores.size());
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Importación de la compañía {}: {} comprobantes leídos, {} importados, {} rechazados en {} ms",
+                codCia, importacion.leidos, importacion.importados, importacion.errores.size(), duracionMs);
+
+        importacion.errores.sort((a, b) -> Integer.compare(a.getFila(), b.getFila()));
+        return ImportacionComprobantesDTO.builder()
+                .codCia(codCia)
+                .filasLeidas(importacion.filas)
+                .comprobantesLeidos(importacion.leidos)
+                .comprobantesImportados(importacion.importados)
+                .comprobantesRechazados(importacion.errores.size())
+                .duracionMs(duracionMs)
+                .errores(importacion.errores)
+                .advertencias(importacion.advertencias)
+                .build();
+    }
+
+    // ==================== Lectura ====================
+
+    /**
+     * Lee el archivo agrupando filas consecutivas por comprobante y procesa un
+     * lote cada vez que se completa
+     */
+    private void leer(BufferedReader lector, Importacion importacion) throws IOException {
+        String linea = lector.readLine();
+        if (linea == null || linea.isBlank()) {
+            throw new ValidationException("El archivo no tiene la fila de nombres de columna");
+        }
+        if (linea.startsWith("\uFEFF")) {
+            linea = linea.substring(1);
+        }
+        char separador = linea.indexOf(';') >= 0 && linea.indexOf(',') < 0 ? ';' : ',';
+        Map<String, Integer> columnas = columnas(separarCampos(linea, separador));
+
+        List<ComprobanteCsv> lote = new ArrayList<>(tamanoLote);
+        ComprobanteCsv actual = null;
+        int numero = 1;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            importacion.filas++;
+            FilaCsv fila = new FilaCsv(numero, separarCampos(linea, separador), columnas);
+            String codProveedor = fila.texto("codProveedor");
+            String nroCp = fila.texto("nroCp");
+
+            if (actual == null || !actual.esDe(codProveedor, nroCp)) {
+                if (actual != null) {
+                    lote.add(actual);
+                    if (lote.size() >= tamanoLote) {
+                        procesarLote(lote, importacion);
+                        lote = new ArrayList<>(tamanoLote);
+                    }
+                }
+                actual = new ComprobanteCsv(fila, codProveedor, nroCp);
+            }
+            actual.agregarDetalle(fila);
+        }
+        if (actual != null) {
+            lote.add(actual);
+        }
+        if (!lote.isEmpty()) {
+            procesarLote(lote, importacion);
+        }
+    }
+
+    private Map<String, Integer> columnas(List<String> nombres) {
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas.put(nombres.get(i).trim().toLowerCase(), i);
+        }
+        List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream()
+                .filter(nombre -> !columnas.containsKey(nombre.toLowerCase()))
+                .toList();
+        if (!faltantes.isEmpty()) {
+            throw new ValidationException("Faltan columnas obligatorias en el archivo: " + faltantes);
+        }
+        return columnas;
+    }
+
+    /**
+     * Separa una línea CSV; admite campos entre comillas dobles con el
+     * separador o comillas escapadas ("") dentro
+     */
+    static List<String> separarCampos(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    // ==================== Procesamiento por lote ====================
+
+    private void procesarLote(List<ComprobanteCsv> lote, Importacion importacion) {
+        importacion.leidos += lote.size();
+
+        // 1. Duplicados dentro del archivo (un comprobante en filas no consecutivas)
+        for (ComprobanteCsv comprobante : lote) {
+            if (comprobante.valido() && !importacion.claves.add(comprobante.clave())) {
+                comprobante.error = "El comprobante aparece más de una vez en el archivo; "
+                        + "sus filas deben ir juntas";
+            }
+        }
+
+        // 2. Duplicados en BD: una consulta para todo el lote
+        Set<String> nroCps = lote.stream()
+                .filter(ComprobanteCsv::valido)
+                .map(c -> c.dto.getNroCp())
+                .collect(Collectors.toSet());
+        if (!nroCps.isEmpty()) {
+            Set<String> existentes = new HashSet<>();
+            for (Object[] fila : cabRepository.findClavesExistentes(importacion.codCia, nroCps)) {
+                existentes.add(((Number) fila[0]).longValue() + "|" + fila[1]);
+            }
+            for (ComprobanteCsv comprobante : lote) {
+                if (comprobante.valido() && existentes.contains(comprobante.clave())) {
+                    comprobante.error = String.format("Ya existe un comprobante con el número %s para el proveedor %d",
+                            comprobante.dto.getNroCp(), comprobante.dto.getCodProveedor());
+                }
+            }
+        }
+
+        // 3. Reglas del comprobante, en paralelo (solo memoria)
+        lote.parallelStream()
+                .filter(ComprobanteCsv::valido)
+                .forEach(comprobante -> comprobante.error = validar(comprobante.dto, importacion.catalogos));
+
+        List<ComprobanteCsv> validos = lote.stream().filter(ComprobanteCsv::valido).toList();
+
+        // 4. Presupuesto: se lee una vez por (proyecto, partida) antes de escribir lo importado
+        cargarPresupuestos(validos, importacion);
+
+        // 5. Escritura del lote en una transacción; si falla, se aísla el comprobante con error
+        List<ComprobanteCsv> escritos = escribir(validos, importacion.codCia);
+        importacion.importados += escritos.size();
+        for (ComprobanteCsv comprobante : escritos) {
+            acumularPresupuesto(comprobante, importacion);
+        }
+
+        for (ComprobanteCsv comprobante : lote) {
+            if (!comprobante.valido()) {
+                importacion.errores.add(resultado(comprobante, comprobante.error));
+            }
+        }
+        log.debug("Lote de {} comprobantes procesado: {} importados", lote.size(), escritos.size());
+    }
+
+    /**
+     * Aplica las reglas del alta individual; devuelve el mensaje del primer
+     * error o null si el comprobante es válido
+     */
+    private String validar(ComprobantePagoDTO dto, Catalogos catalogos) {
+        if (!catalogos.proveedores().contains(dto.getCodProveedor())) {
+            return String.format("El proveedor %d no existe", dto.getCodProveedor());
+        }
+        if (!catalogos.proyectos().contains(dto.getCodPyto())) {
+            return String.format("El proyecto %d no existe", dto.getCodPyto());
+        }
+        for (ComprobantePagoDetalleDTO detalle : dto.getDetalles()) {
+            if (!catalogos.partidas().contains(detalle.getIngEgr() + "|" + detalle.getCodPartida())) {
+                return String.format("La partida %d no existe o no está vigente.", detalle.getCodPartida());
+            }
+        }
+        try {
+            validador.validarMontos(dto);
+            validador.validarTotales(dto);
+            validador.validarPartidasUnicas(dto);
+            validador.validarFechas(dto);
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    private List<ComprobanteCsv> escribir(List<ComprobanteCsv> validos, Long codCia) {
+        if (validos.isEmpty()) {
+            return validos;
+        }
+        try {
+            escritor.escribir(codCia, validos.stream().map(c -> c.dto).toList());
+            return validos;
+        } catch (DataAccessException e) {
+            log.warn("Falló la escritura del lote de {} comprobantes, se reintenta uno por uno: {}",
+                    validos.size(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+
+        List<ComprobanteCsv> escritos = new ArrayList<>();
+        for (ComprobanteCsv comprobante : validos) {
+            try {
+                escritor.escribir(codCia, List.of(comprobante.dto));
+                escritos.add(comprobante);
+            } catch (DataAccessException e) {
+                comprobante.error = "No se pudo guardar el comprobante: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            }
+        }
+        return escritos;
+    }
+
+    // ==================== Presupuesto ====================
+
+    /**
+     * Lee el presupuesto disponible de las partidas que aparecen por primera vez
+     * en la importación, con una consulta agrupada por proyecto
+     */
+    private void cargarPresupuestos(List<ComprobanteCsv> validos, Importacion importacion) {
+        Map<Long, Set<Long>> faltantes = new LinkedHashMap<>();
+        for (ComprobanteCsv comprobante : validos) {
+            Map<Long, PresupuestoPartida> proyecto = importacion.presupuestos
+                    .computeIfAbsent(comprobante.dto.getCodPyto(), k -> new HashMap<>());
+            for (ComprobantePagoDetalleDTO detalle : comprobante.dto.getDetalles()) {
+                if (!proyecto.containsKey(detalle.getCodPartida())) {
+                    faltantes.computeIfAbsent(comprobante.dto.getCodPyto(), k -> new HashSet<>())
+                            .add(detalle.getCodPartida());
+                }
+            }
+        }
+        faltantes.forEach((codPyto, partidas) -> {
+            Map<Long, PresupuestoDisponibleDTO> disponibles = presupuestoService
+                    .getPresupuestosDisponibles(importacion.codCia, codPyto, partidas);
+            Map<Long, PresupuestoPartida> proyecto = importacion.presupuestos.get(codPyto);
+            for (Long codPartida : partidas) {
+                PresupuestoDisponibleDTO disponible = disponibles.get(codPartida);
+                proyecto.put(codPartida, disponible != null
+                        ? new PresupuestoPartida(disponible.getNombrePartida(),
+                                valor(disponible.getPresupuestoOriginal()),
+                                valor(disponible.getPresupuestoEjecutado()))
+                        : new PresupuestoPartida(String.valueOf(codPartida), BigDecimal.ZERO, BigDecimal.ZERO));
+            }
+        });
+    }
+
+    private void acumularPresupuesto(ComprobanteCsv comprobante, Importacion importacion) {
+        Map<Long, PresupuestoPartida> proyecto = importacion.presupuestos.get(comprobante.dto.getCodPyto());
+        List<String> excedidas = new ArrayList<>();
+        for (ComprobantePagoDetalleDTO detalle : comprobante.dto.getDetalles()) {
+            PresupuestoPartida presupuesto = proyecto.get(detalle.getCodPartida());
+            BigDecimal disponible = presupuesto.original.subtract(presupuesto.ejecutado);
+            if (disponible.compareTo(detalle.getImpTotalMn()) < 0) {
+                excedidas.add(String.format("Partida %s: Presupuesto insuficiente. Disponible: S/ %.2f, "
+                        + "Solicitado: S/ %.2f", presupuesto.nombre, disponible, detalle.getImpTotalMn()));
+            }
+            presupuesto.ejecutado = presupuesto.ejecutado.add(detalle.getImpTotalMn());
+        }
+        if (!excedidas.isEmpty()) {
+            importacion.advertencias.add(resultado(comprobante, String.join("; ", excedidas)));
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private Catalogos cargarCatalogos(Long codCia) {
+        Set<Long> proveedores = proveedorRepository.findByCodCia(codCia).stream()
+                .map(Proveedor::getCodProveedor)
+                .collect(Collectors.toUnmodifiableSet());
+        Set<Long> proyectos = proyectoRepository.findByCodCia(codCia).stream()
+                .map(Proyecto::getCodPyto)
+                .collect(Collectors.toUnmodifiableSet());
+        Set<String> partidas = partidaRepository.findByCodCia(codCia).stream()
+                .map(p -> p.getIngEgr() + "|" + p.getCodPartida())
+                .collect(Collectors.toUnmodifiableSet());
+        return new Catalogos(proveedores, proyectos, partidas);
+    }
+
+    private static ImportacionComprobantesDTO.ResultadoFila resultado(ComprobanteCsv comprobante, String mensaje) {
+        return ImportacionComprobantesDTO.ResultadoFila.builder()
+                .fila(comprobante.fila)
+                .codProveedor(comprobante.dto.getCodProveedor())
+                .nroCp(comprobante.dto.getNroCp())
+                .mensaje(mensaje)
+                .build();
+    }
+
+    private static BigDecimal valor(BigDecimal importe) {
+        return importe != null ? importe : BigDecimal.ZERO;
+    }
+
+    // ==================== Clases internas ====================
+
+    private record Catalogos(Set<Long> proveedores, Set<Long> proyectos, Set<String> partidas) {
+    }
+
+    /**
+     * Estado de una importación en curso
+     */
+    private static final class Importacion {
+        private final Long codCia;
+        private final Catalogos catalogos;
+        /** Claves codProveedor|nroCp ya leídas del archivo */
+        private final Set<String> claves = new HashSet<>();
+        /** Presupuesto por proyecto y partida: lectura inicial más lo importado */
+        private final Map<Long, Map<Long, PresupuestoPartida>> presupuestos = new HashMap<>();
+        private final List<ImportacionComprobantesDTO.ResultadoFila> errores = new ArrayList<>();
+        private final List<ImportacionComprobantesDTO.ResultadoFila> advertencias = new ArrayList<>();
+        private int filas;
+        private int leidos;
+        private int importados;
+
+        private Importacion(Long codCia, Catalogos catalogos) {
+            this.codCia = codCia;
+            this.catalogos = catalogos;
+        }
+    }
+
+    private static final class PresupuestoPartida {
+        private final String nombre;
+        private final BigDecimal original;
+        private BigDecimal ejecutado;
+
+        private PresupuestoPartida(String nombre, BigDecimal original, BigDecimal ejecutado) {
+            this.nombre = nombre;
+            this.original = original;
+            this.ejecutado = ejecutado;
+        }
+    }
+
+    /**
+     * Fila del archivo con acceso a los campos por nombre de columna
+     */
+    private static final class FilaCsv {
+        private final int numero;
+        private final List<String> campos;
+        private final Map<String, Integer> columnas;
+
+        private FilaCsv(int numero, List<String> campos, Map<String, Integer> columnas) {
+            this.numero = numero;
+            this.campos = campos;
+            this.columnas = columnas;
+        }
+
+        private String texto(String columna) {
+            Integer indice = columnas.get(columna.toLowerCase());
+            if (indice == null || indice >= campos.size()) {
+                return null;
+            }
+            String valor = campos.get(indice).trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        private String texto(String columna, String porDefecto) {
+            String valor = texto(columna);
+            return valor != null ? valor : porDefecto;
+        }
+
+        private Long entero(String columna) {
+            String valor = texto(columna);
+            try {
+                return valor != null ? Long.valueOf(valor) : null;
+            } catch (NumberFormatException e) {
+                throw invalido(columna, valor);
+            }
+        }
+
+        private BigDecimal importe(String columna, BigDecimal porDefecto) {
+            String valor = texto(columna);
+            try {
+                return valor != null ? new BigDecimal(valor) : porDefecto;
+            } catch (NumberFormatException e) {
+                throw invalido(columna, valor);
+            }
+        }
+
+        private LocalDate fecha(String columna) {
+            String valor = texto(columna);
+            try {
+                return valor != null ? LocalDate.parse(valor) : null;
+            } catch (DateTimeParseException e) {
+                throw invalido(columna, valor);
+            }
+        }
+
+        private ValidationException invalido(String columna, String valor) {
+            return new ValidationException(
+                    String.format("Fila %d: valor inválido '%s' en la columna %s", numero, valor, columna));
+        }
+    }
+
+    /**
+     * Comprobante armado a partir de sus filas; error != null si se rechaza
+     */
+    private static final class ComprobanteCsv {
+        private final int fila;
+        private final String codProveedorTexto;
+        private final String nroCpTexto;
+        private final ComprobantePagoDTO dto;
+        private volatile String error;
+
+        private ComprobanteCsv(FilaCsv cabecera, String codProveedor, String nroCp) {
+            this.fila = cabecera.numero;
+            this.codProveedorTexto = codProveedor;
+            this.nroCpTexto = nroCp;
+            this.dto = ComprobantePagoDTO.builder()
+                    .nroCp(nroCp)
+                    .tabEstado(TAB_ESTADO)
+                    .codEstado(ESTADO_REGISTRADO)
+                    .detalles(new ArrayList<>())
+                    .build();
+            try {
+                dto.setCodProveedor(cabecera.entero("codProveedor"));
+                dto.setCodPyto(cabecera.entero("codPyto"));
+                Long nroPago = cabecera.entero("nroPago");
+                dto.setNroPago(nroPago != null ? nroPago.intValue() : 1);
+                dto.setTCompPago(cabecera.texto("tCompPago", TAB_COMPROBANTE));
+                dto.setECompPago(cabecera.texto("eCompPago"));
+                dto.setFecCp(cabecera.fecha("fecCp"));
+                dto.setTMoneda(cabecera.texto("tMoneda", TAB_MONEDA));
+                dto.setEMoneda(cabecera.texto("eMoneda"));
+                dto.setTipCambio(cabecera.importe("tipCambio", BigDecimal.ONE));
+                dto.setImpNetoMn(cabecera.importe("impNetoMn", null));
+                dto.setImpIgvMn(cabecera.importe("impIgvMn", BigDecimal.ZERO));
+                dto.setImpTotalMn(cabecera.importe("impTotalMn", null));
+                dto.setImpMo(cabecera.importe("impMo", dto.getImpTotalMn()));
+                Long semilla = cabecera.entero("semilla");
+                dto.setSemilla(semilla != null ? semilla.intValue() : 1);
+
+                if (dto.getCodProveedor() == null || nroCp == null || dto.getCodPyto() == null) {
+                    error = "El proveedor, el número de comprobante y el proyecto son obligatorios";
+                } else if (nroCp.length() > 20) {
+                    error = "El número de comprobante no puede tener más de 20 caracteres";
+                } else if (dto.getECompPago() == null || dto.getEMoneda() == null) {
+                    error = "El tipo de comprobante y la moneda son obligatorios";
+                }
+            } catch (ValidationException e) {
+                error = e.getMessage();
+            }
+        }
+
+        private boolean esDe(String codProveedor, String nroCp) {
+            return Objects.equals(codProveedorTexto, codProveedor) && Objects.equals(nroCpTexto, nroCp);
+        }
+
+        private void agregarDetalle(FilaCsv fila) {
+            if (error != null) {
+                return;
+            }
+            int sec = dto.getDetalles().size() + 1;
+            try {
+                Long codPartida = fila.entero("codPartida");
+                if (codPartida == null) {
+                    error = String.format("Fila %d: la partida es obligatoria", fila.numero);
+                    return;
+                }
+                dto.getDetalles().add(ComprobantePagoDetalleDTO.builder()
+                        .codCia(dto.getCodCia())
+                        .codProveedor(dto.getCodProveedor())
+                        .nroCp(dto.getNroCp())
+                        .sec(sec)
+                        .ingEgr(fila.texto("ingEgr", "E"))
+                        .codPartida(codPartida)
+                        .impNetoMn(fila.importe("detImpNetoMn", null))
+                        .impIgvMn(fila.importe("detImpIgvMn", BigDecimal.ZERO))
+                        .impTotalMn(fila.importe("detImpTotalMn", null))
+                        .semilla(sec)
+                        .build());
+            } catch (ValidationException e) {
+                error = e.getMessage();
+            }
+        }
+
+        private boolean valido() {
+            return error == null;
+        }
+
+        private String clave() {
+            return dto.getCodProveedor() + "|" + dto.getNroCp();
+        }
+    }
+}
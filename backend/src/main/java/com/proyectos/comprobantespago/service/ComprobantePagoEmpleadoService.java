@@ -56,9 +56,9 @@ public interface ComprobantePagoEmpleadoService {
     void uploadFotoCp(Long codCia, Long codEmpleado, String nroCp, MultipartFile file);
 
     /**
-     * Obtener imagen del comprobante (FotoCP)
+     * Obtener imagen del comprobante (FotoCP) para enviarla como flujo
      */
-    byte[] getFotoCp(Long codCia, Long codEmpleado, String nroCp);
+    AdjuntoDescargaService.Descarga getFotoCp(Long codCia, Long codEmpleado, String nroCp);
 
     /**
      * Eliminar imagen del comprobante (FotoCP)
@@ -71,9 +71,9 @@ public interface ComprobantePagoEmpleadoService {
     void uploadFotoAbono(Long codCia, Long codEmpleado, String nroCp, MultipartFile file);
 
     /**
-     * Obtener imagen del abono (FotoAbono)
+     * Obtener imagen del abono (FotoAbono) para enviarla como flujo
      */
-    byte[] getFotoAbono(Long codCia, Long codEmpleado, String nroCp);
+    AdjuntoDescargaService.Descarga getFotoAbono(Long codCia, Long codEmpleado, String nroCp);
 
     /**
      * Eliminar imagen del abono (FotoAbono)
@@ -1,15 +1,26 @@
 package com.proyectos.comprobantespago.service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.proyectos.comprobantespago.dto.ComprobantePagoDTO;
 import com.proyectos.comprobantespago.dto.ComprobantePagoDetalleDTO;
+import com.proyectos.comprobantespago.dto.FiltroComprobantesDTO;
+import com.proyectos.comprobantespago.dto.PaginaCursorDTO;
 import com.proyectos.comprobantespago.dto.ValidacionPresupuestoDTO;
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
 import com.proyectos.comprobantespago.entity.ComprobantePagoCab;
 import com.proyectos.comprobantespago.entity.ComprobantePagoDet;
 import com.proyectos.comprobantespago.exception.DuplicateComprobanteException;
@@ -37,10 +48,18 @@ public class ComprobantePagoService {
     private final ComprobantePagoDetRepository detRepository;
     private final ComprobantePagoMapper mapper;
     private final PresupuestoService presupuestoService;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
     private final PartidaHierarchyService partidaHierarchyService;
     private final TaxCalculationService taxCalculationService;
+    private final AdjuntoService adjuntoService;
+    private final AdjuntoDescargaService adjuntoDescargaService;
     private final PartidaRepository partidaRepository;
     private final EntityManager entityManager;
+    private final IndiceDuplicadosService indiceDuplicadosService;
+    private final ComprobanteValidador validador;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public static final int LIMITE_MAXIMO_PAGINA = 200;
 
     public List<ComprobantePagoDTO> findAllByCompania(Long codCia) {
         log.debug("Buscando comprobantes de la compañía: {}", codCia);
@@ -72,6 +91,56 @@ public class ComprobantePagoService {
         return mapper.toDTOList(comprobantes);
     }
 
+    /**
+     * Lista comprobantes con filtros combinables y paginación por cursor
+     * (keyset) sobre (fecCp, codProveedor, nroCp), del más reciente al más
+     * antiguo. Cada página se obtiene con una consulta por rango del índice,
+     * sin OFFSET, y el cursor sigue siendo válido aunque se inserten
+     * comprobantes nuevos entre una página y otra.
+     *
+     * @param codCia       Código de compañía
+     * @param filtro       Filtros opcionales (proyecto, proveedor, estado, fechas, montos)
+     * @param cursor       Cursor devuelto por la página anterior (null para la primera)
+     * @param limite       Tamaño de página (1..200)
+     * @param incluirTotal Si es true, incluye el total de comprobantes que cumplen los filtros
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<ComprobantePagoDTO> listar(Long codCia, FiltroComprobantesDTO filtro, String cursor,
+            int limite, boolean incluirTotal) {
+        FiltroComprobantesDTO f = filtro != null ? filtro : new FiltroComprobantesDTO();
+        int tamanio = Math.min(Math.max(limite, 1), LIMITE_MAXIMO_PAGINA);
+        // Se pide una fila extra para saber si hay una página siguiente
+        Limit limit = Limit.of(tamanio + 1);
+
+        List<ComprobantePagoCab> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = cabRepository.findPrimeraPagina(codCia, f.getCodPyto(), f.getCodProveedor(), f.getEstado(),
+                    f.getFechaInicio(), f.getFechaFin(), f.getMontoMin(), f.getMontoMax(), limit);
+        } else {
+            CursorComprobante desde = decodificarCursor(cursor);
+            filas = cabRepository.findPaginaDespuesDe(codCia, f.getCodPyto(), f.getCodProveedor(), f.getEstado(),
+                    f.getFechaInicio(), f.getFechaFin(), f.getMontoMin(), f.getMontoMax(),
+                    desde.fecCp(), desde.codProveedor(), desde.nroCp(), limit);
+        }
+
+        boolean hayMas = filas.size() > tamanio;
+        if (hayMas) {
+            filas = filas.subList(0, tamanio);
+        }
+        ComprobantePagoCab ultima = hayMas ? filas.get(filas.size() - 1) : null;
+
+        return PaginaCursorDTO.<ComprobantePagoDTO>builder()
+                .items(mapper.toDTOList(filas))
+                .limite(tamanio)
+                .hayMas(hayMas)
+                .siguienteCursor(ultima != null ? codificarCursor(ultima) : null)
+                .total(incluirTotal
+                        ? cabRepository.contarListado(codCia, f.getCodPyto(), f.getCodProveedor(), f.getEstado(),
+                                f.getFechaInicio(), f.getFechaFin(), f.getMontoMin(), f.getMontoMax())
+                        : null)
+                .build();
+    }
+
     public ComprobantePagoDTO findById(Long codCia, Long codProveedor, String nroCp) {
         log.debug("Buscando comprobante: {}", nroCp);
 
@@ -95,16 +164,16 @@ public class ComprobantePagoService {
         validarDuplicado(dto.getCodCia(), dto.getCodProveedor(), dto.getNroCp());
 
         // 2. Validar partidas únicas en detalles (Requirements: 3.3)
-        validarPartidasUnicas(dto);
+        validador.validarPartidasUnicas(dto);
 
         // 2.1 Validar niveles de partidas según tipo de movimiento (Requirements: 4.5,
         // 5.5)
         validarNivelesPartidas(dto);
 
         // 3. Validar totales y datos básicos (Subtask 2.3)
-        validarTotales(dto);
-        validarMontos(dto);
-        validarFechas(dto);
+        validador.validarTotales(dto);
+        validador.validarMontos(dto);
+        validador.validarFechas(dto);
 
         // 4. Validar presupuesto disponible (Subtask 2.1)
         ValidacionPresupuestoDTO validacion = presupuestoService.validarEgreso(
@@ -125,9 +194,12 @@ public class ComprobantePagoService {
 
         cabecera.setTabEstado("014"); // Tabla de estados de comprobante
         cabecera.setCodEstado("REG"); // Estado inicial: Registrado
-        cabecera = cabRepository.save(cabecera);
+        // persist y no save: con la clave asignada save haría un merge y
+        // sobrescribiría un comprobante creado en paralelo; persist inserta y la PK lo rechaza
+        entityManager.persist(cabecera);
 
         // 6. Guardar detalles
+        List<ComprobantePagoDet> detallesGuardados = new ArrayList<>();
         for (int i = 0; i < dto.getDetalles().size(); i++) {
             ComprobantePagoDetalleDTO detalleDTO = dto.getDetalles().get(i);
             ComprobantePagoDet detalle = mapper.toDetalleEntity(detalleDTO);
@@ -142,11 +214,16 @@ public class ComprobantePagoService {
             int semilla = detalleDTO.getSemilla() != null ? detalleDTO.getSemilla() : (i + 1);
             detalle.setSemilla(semilla);
 
-            detRepository.save(detalle);
+            detallesGuardados.add(detRepository.save(detalle));
         }
 
-        // 7. Generar alertas automáticas después de guardar (Subtask 2.1)
-        presupuestoService.generarAlertas(dto.getCodCia(), dto.getCodPyto());
+        // 7. Registrar la ejecución en el ledger presupuestal; las alertas se
+        // recalculan en segundo plano después del commit (Subtask 2.1)
+        ejecucionPresupuestoService.registrarEgresos(cabecera.getCodCia(), cabecera.getCodPyto(), detallesGuardados);
+
+        // 8. El índice de duplicados incorpora el número después del commit
+        eventPublisher.publishEvent(new IndiceDuplicadosService.ComprobantesRegistradosEvent(cabecera.getCodCia(),
+                List.of(new IndiceDuplicadosService.Clave(cabecera.getCodProveedor(), cabecera.getNroCp()))));
 
         log.info("Comprobante creado exitosamente: {}", cabecera.getNroCp());
         return findById(cabecera.getCodCia(), cabecera.getCodProveedor(), cabecera.getNroCp());
@@ -166,16 +243,16 @@ public class ComprobantePagoService {
         }
 
         // 3. Validar partidas únicas en detalles (Requirements: 3.3)
-        validarPartidasUnicas(dto);
+        validador.validarPartidasUnicas(dto);
 
         // 3.1 Validar niveles de partidas según tipo de movimiento (Requirements: 4.5,
         // 5.5)
         validarNivelesPartidas(dto);
 
         // 4. Validar totales y datos básicos
-        validarTotales(dto);
-        validarMontos(dto);
-        validarFechas(dto);
+        validador.validarTotales(dto);
+        validador.validarMontos(dto);
+        validador.validarFechas(dto);
 
         // 5. Validar presupuesto con montos actualizados (Subtask 2.4)
         ValidacionPresupuestoDTO validacion = presupuestoService.validarEgreso(
@@ -186,15 +263,18 @@ public class ComprobantePagoService {
         log.info("Validación de presupuesto aprobada para actualización con {} alertas",
                 validacion.getAlertas().size());
 
-        // 6. Actualizar cabecera
+        // 6. Actualizar cabecera (conservando proyecto/estado previos para el ledger)
+        Long codPytoAnterior = cabecera.getCodPyto();
+        boolean contabaEnEjecucion = EjecucionPresupuestoService.cuentaEnEjecucion(cabecera.getCodEstado());
+        List<ComprobantePagoDet> detallesActuales = detRepository.findDetallesByComprobante(codCia, codProveedor,
+                nroCp);
+
         mapper.updateEntityFromDTO(dto, cabecera);
         cabRepository.save(cabecera);
 
-        // 7. Eliminar detalles antiguos y guardar nuevos
-        detRepository.deleteByComprobante(codCia, codProveedor, nroCp);
-        detRepository.flush(); // Forzar eliminación antes de insertar nuevos
-        entityManager.clear(); // Limpiar caché de Hibernate para evitar conflictos
-
+        // 7. Aplicar solo los cambios del detalle (por sec): inserta, modifica y
+        // elimina las filas que cambian
+        List<ComprobantePagoDet> detallesNuevos = new ArrayList<>();
         for (int i = 0; i < dto.getDetalles().size(); i++) {
             ComprobantePagoDetalleDTO detalleDTO = dto.getDetalles().get(i);
             ComprobantePagoDet detalle = mapper.toDetalleEntity(detalleDTO);
@@ -209,15 +289,39 @@ public class ComprobantePagoService {
             int semilla = detalleDTO.getSemilla() != null ? detalleDTO.getSemilla() : (i + 1);
             detalle.setSemilla(semilla);
 
-            detRepository.save(detalle);
+            detallesNuevos.add(detalle);
         }
 
-        detRepository.flush(); // Asegurar que los nuevos detalles estén guardados
-
-        // 8. Generar alertas automáticas después de actualizar
-        presupuestoService.generarAlertas(dto.getCodCia(), dto.getCodPyto());
+        DiferenciaDetalles<ComprobantePagoDet> diferencia = DiferenciaDetalles.aplicar(entityManager,
+                detallesActuales, detallesNuevos, ComprobantePagoDet::getSec,
+                d -> Arrays.asList(d.getIngEgr(), d.getCodPartida(), d.getImpNetoMn(), d.getImpIgvMn(),
+                        d.getImpTotalMn(), d.getSemilla()),
+                ComprobantePagoService::copiarDetalle,
+                d -> ComprobantePagoDet.builder()
+                        .codCia(d.getCodCia()).codProveedor(d.getCodProveedor()).nroCp(d.getNroCp()).sec(d.getSec())
+                        .ingEgr(d.getIngEgr()).codPartida(d.getCodPartida()).impNetoMn(d.getImpNetoMn())
+                        .impIgvMn(d.getImpIgvMn()).impTotalMn(d.getImpTotalMn()).semilla(d.getSemilla())
+                        .build());
+
+        // 8. Actualizar el ledger presupuestal (las alertas se recalculan en segundo
+        // plano después del commit). Si el proyecto y el estado no cambian, solo se
+        // mueve lo que cambió en el detalle.
+        boolean cuentaEnEjecucion = EjecucionPresupuestoService.cuentaEnEjecucion(cabecera.getCodEstado());
+        if (codPytoAnterior.equals(cabecera.getCodPyto()) && contabaEnEjecucion == cuentaEnEjecucion) {
+            if (cuentaEnEjecucion) {
+                ejecucionPresupuestoService.revertirEgresos(codCia, codPytoAnterior, diferencia.getAnteriores());
+                ejecucionPresupuestoService.registrarEgresos(codCia, codPytoAnterior, diferencia.getCambiados());
+            }
+        } else {
+            if (contabaEnEjecucion) {
+                ejecucionPresupuestoService.revertirEgresos(codCia, codPytoAnterior, diferencia.getTodosAnteriores());
+            }
+            if (cuentaEnEjecucion) {
+                ejecucionPresupuestoService.registrarEgresos(codCia, cabecera.getCodPyto(), diferencia.getDetalles());
+            }
+        }
 
-        log.info("Comprobante actualizado exitosamente: {}", nroCp);
+        log.info("Comprobante actualizado exitosamente: {} (detalle: {})", nroCp, diferencia);
         return findById(codCia, codProveedor, nroCp);
     }
 
@@ -227,6 +331,7 @@ public class ComprobantePagoService {
         ComprobantePagoCab cabecera = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
                 .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
 
+        actualizarEjecucionPorEstado(cabecera, nuevoEstado);
         cabecera.setCodEstado(nuevoEstado);
 
         // Si se marca como pagado (código '002'), actualizar fecha de abono
@@ -264,13 +369,11 @@ public class ComprobantePagoService {
                     "Este comprobante ya fue pagado. Debe confirmar la anulación explícitamente.");
         }
 
-        // Cambiar estado a ANU (Anulado)
+        // Cambiar estado a ANU (Anulado) y liberar la ejecución en el ledger
+        actualizarEjecucionPorEstado(cabecera, "ANU");
         cabecera.setCodEstado("ANU");
         cabRepository.save(cabecera);
 
-        // Generar alertas para actualizar el presupuesto disponible
-        presupuestoService.generarAlertas(codCia, cabecera.getCodPyto());
-
         log.info("Comprobante anulado exitosamente: {}. Presupuesto restaurado.", nroCp);
     }
 
@@ -322,44 +425,80 @@ public class ComprobantePagoService {
         return mapper.toDTO(cabecera);
     }
 
-    // ==================== Métodos de validación privados ====================
-
     /**
-     * Valida que no exista un comprobante duplicado
-     * Subtask 2.2
+     * Ajusta el ledger presupuestal cuando el comprobante entra o sale del estado
+     * anulado
      */
-    private void validarDuplicado(Long codCia, Long codProveedor, String nroCp) {
-        boolean existe = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .isPresent();
+    private void actualizarEjecucionPorEstado(ComprobantePagoCab cabecera, String nuevoEstado) {
+        boolean contabaAntes = EjecucionPresupuestoService.cuentaEnEjecucion(cabecera.getCodEstado());
+        boolean cuentaAhora = EjecucionPresupuestoService.cuentaEnEjecucion(nuevoEstado);
+        if (contabaAntes == cuentaAhora) {
+            return;
+        }
 
-        if (existe) {
-            throw new DuplicateComprobanteException(
-                    String.format("Ya existe un comprobante con el número %s para el proveedor %d",
-                            nroCp, codProveedor));
+        List<ComprobantePagoDet> detalles = detRepository.findDetallesByComprobante(
+                cabecera.getCodCia(), cabecera.getCodProveedor(), cabecera.getNroCp());
+        if (cuentaAhora) {
+            ejecucionPresupuestoService.registrarEgresos(cabecera.getCodCia(), cabecera.getCodPyto(), detalles);
+        } else {
+            ejecucionPresupuestoService.revertirEgresos(cabecera.getCodCia(), cabecera.getCodPyto(), detalles);
         }
     }
 
     /**
-     * Valida que no haya partidas duplicadas en los detalles
-     * Requirements: 3.3
+     * Copia los valores de un detalle recibido al detalle guardado (sin la clave)
      */
-    private void validarPartidasUnicas(ComprobantePagoDTO dto) {
-        List<Long> partidas = dto.getDetalles().stream()
-                .map(ComprobantePagoDetalleDTO::getCodPartida)
-                .toList();
+    private static void copiarDetalle(ComprobantePagoDet origen, ComprobantePagoDet destino) {
+        destino.setIngEgr(origen.getIngEgr());
+        destino.setCodPartida(origen.getCodPartida());
+        destino.setImpNetoMn(origen.getImpNetoMn());
+        destino.setImpIgvMn(origen.getImpIgvMn());
+        destino.setImpTotalMn(origen.getImpTotalMn());
+        destino.setSemilla(origen.getSemilla());
+    }
 
-        long partidasUnicas = partidas.stream().distinct().count();
+    // ==================== Métodos de validación privados ====================
 
-        if (partidasUnicas < partidas.size()) {
-            // Encontrar la partida duplicada
-            Long partidaDuplicada = partidas.stream()
-                    .filter(p -> partidas.stream().filter(p2 -> p2.equals(p)).count() > 1)
-                    .findFirst()
-                    .orElse(null);
+    /**
+     * Cursor opaco: "fecCp|codProveedor|nroCp" en Base64 URL-safe. El nroCp va
+     * al final para admitir cualquier carácter.
+     */
+    private String codificarCursor(ComprobantePagoCab cab) {
+        String valor = cab.getFecCp() + "|" + cab.getCodProveedor() + "|" + cab.getNroCp();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
 
-            throw new ValidationException(
-                    String.format("La partida %d está duplicada en los detalles del comprobante. " +
-                            "Cada partida solo puede aparecer una vez.", partidaDuplicada));
+    private CursorComprobante decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", 3);
+            if (partes.length != 3) {
+                throw new ValidationException("Cursor de paginación inválido");
+            }
+            return new CursorComprobante(LocalDate.parse(partes[0]), Long.valueOf(partes[1]), partes[2]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException también es IllegalArgumentException
+            throw new ValidationException("Cursor de paginación inválido");
+        }
+    }
+
+    /**
+     * Última fila (clave de orden) de la página anterior
+     */
+    private record CursorComprobante(LocalDate fecCp, Long codProveedor, String nroCp) {
+    }
+
+    /**
+     * Valida que no exista un comprobante duplicado
+     * Subtask 2.2
+     * Consulta siempre la BD: el índice en memoria puede no conocer altas hechas
+     * por otra instancia o por INSERTAR_COMPROBANTE_PROVEEDOR.
+     */
+    private void validarDuplicado(Long codCia, Long codProveedor, String nroCp) {
+        if (cabRepository.existsByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)) {
+            throw new DuplicateComprobanteException(
+                    String.format("Ya existe un comprobante con el número %s para el proveedor %d",
+                            nroCp, codProveedor));
         }
     }
 
@@ -381,9 +520,10 @@ public class ComprobantePagoService {
 
             // Solo validar que la partida existe y está vigente
             // No validar el nivel específico - el usuario puede elegir cualquier nivel
-            boolean existePartida = partidaRepository.existsById(
+            // (findById en lugar de existsById: existsById siempre consulta la BD, findById usa la caché)
+            boolean existePartida = partidaRepository.findById(
                     new com.proyectos.comprobantespago.entity.Partida.PartidaId(
-                            dto.getCodCia(), ingEgr, codPartida));
+                            dto.getCodCia(), ingEgr, codPartida)).isPresent();
 
             if (!existePartida) {
                 throw new ValidationException(
@@ -396,81 +536,6 @@ public class ComprobantePagoService {
         }
     }
 
-    /**
-     * Valida que la suma de detalles coincida con el total de cabecera
-     * Subtask 2.3
-     */
-    private void validarTotales(ComprobantePagoDTO dto) {
-        BigDecimal totalDetalles = dto.getDetalles().stream()
-                .map(ComprobantePagoDetalleDTO::getImpTotalMn)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if (totalDetalles.compareTo(dto.getImpTotalMn()) != 0) {
-            throw new ValidationException(
-                    String.format(
-                            "La suma de los detalles (S/ %.2f) no coincide con el total del comprobante (S/ %.2f)",
-                            totalDetalles, dto.getImpTotalMn()));
-        }
-    }
-
-    /**
-     * Valida que los montos sean positivos y mayores a cero
-     * Subtask 2.3
-     * Requirements: 2.5 - Para recibos por honorarios, validar que total >= 0
-     */
-    private void validarMontos(ComprobantePagoDTO dto) {
-        // Validar total de cabecera
-        // Para recibos por honorarios (REC), permitir total >= 0
-        // Para otros tipos, total debe ser > 0
-        boolean esReciboHonorarios = "REC".equals(dto.getECompPago());
-
-        if (dto.getImpTotalMn() == null) {
-            throw new ValidationException("El importe total no puede ser nulo");
-        }
-
-        if (esReciboHonorarios) {
-            // Para recibos por honorarios, validar que total >= 0
-            if (dto.getImpTotalMn().compareTo(BigDecimal.ZERO) < 0) {
-                throw new ValidationException("El total del recibo por honorarios no puede ser negativo");
-            }
-        } else {
-            // Para facturas y boletas, total debe ser > 0
-            if (dto.getImpTotalMn().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new ValidationException("El importe total debe ser mayor a cero");
-            }
-        }
-
-        // Validar montos de detalles
-        for (ComprobantePagoDetalleDTO detalle : dto.getDetalles()) {
-            if (detalle.getImpTotalMn() == null || detalle.getImpTotalMn().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new ValidationException(
-                        String.format("El importe de la partida %d debe ser mayor a cero",
-                                detalle.getCodPartida()));
-            }
-
-            if (detalle.getImpNetoMn() == null || detalle.getImpNetoMn().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new ValidationException(
-                        String.format("El importe neto de la partida %d debe ser mayor a cero",
-                                detalle.getCodPartida()));
-            }
-        }
-    }
-
-    /**
-     * Valida que las fechas sean válidas
-     * Subtask 2.3
-     */
-    private void validarFechas(ComprobantePagoDTO dto) {
-        if (dto.getFecCp() == null) {
-            throw new ValidationException("La fecha de emisión es obligatoria");
-        }
-
-        // Validar que la fecha no sea futura
-        if (dto.getFecCp().isAfter(LocalDate.now())) {
-            throw new ValidationException("La fecha de emisión no puede ser posterior a la fecha actual");
-        }
-    }
-
     /**
      * Calcula el impuesto según el tipo de comprobante
      */
@@ -562,8 +627,7 @@ public class ComprobantePagoService {
      * Requirements: 7.5
      */
     public boolean validarNumeroComprobanteUnico(Long codCia, Long codProveedor, String nroCp) {
-        return !cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .isPresent();
+        return !indiceDuplicadosService.existe(codCia, codProveedor, nroCp);
     }
 
     // ==================== Métodos de cálculo y estado ====================
@@ -695,7 +759,7 @@ public class ComprobantePagoService {
         return mapper.toDTO(cabecera);
     }
 
-    // ==================== Métodos de imágenes BLOB ====================
+    // ==================== Métodos de imágenes (adjuntos) ====================
     // Feature: empleados-comprobantes-blob
     // Requirements: 3.1, 3.2, 6.1, 6.2
 
@@ -704,89 +768,61 @@ public class ComprobantePagoService {
             "image/jpeg", "image/png", "image/gif", "application/pdf");
 
     /**
-     * Sube la imagen del comprobante (FotoCP) como BLOB
+     * Sube la imagen del comprobante (FotoCP) como adjunto
      */
     public void uploadFotoCp(Long codCia, Long codProveedor, String nroCp,
             org.springframework.web.multipart.MultipartFile file) {
         validateFile(file);
-        ComprobantePagoCab cabecera = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
-
-        try {
-            cabecera.setFotoCp(file.getBytes());
-            cabRepository.save(cabecera);
-            log.info("FotoCp BLOB subida: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
-        } catch (java.io.IOException e) {
-            throw new ValidationException("Error al procesar el archivo: " + e.getMessage());
-        }
+        adjuntoService.reemplazarFoto(codCia, AdjuntoComprobante.TIPO_EGRESO, codProveedor, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE, file);
+        log.info("FotoCp subida: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
     }
 
     /**
-     * Obtiene la imagen del comprobante (FotoCP) desde BLOB
+     * Obtiene la imagen del comprobante (FotoCP) para enviarla como flujo
      */
-    public byte[] getFotoCp(Long codCia, Long codProveedor, String nroCp) {
-        ComprobantePagoCab cabecera = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
-
-        if (cabecera.getFotoCp() == null) {
-            throw new ResourceNotFoundException("El comprobante no tiene imagen de comprobante");
-        }
-        return cabecera.getFotoCp();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AdjuntoDescargaService.Descarga getFotoCp(Long codCia, Long codProveedor, String nroCp) {
+        return adjuntoDescargaService.descargarFoto(codCia, AdjuntoComprobante.TIPO_EGRESO, codProveedor, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE);
     }
 
     /**
      * Elimina la imagen del comprobante (FotoCP)
      */
     public void deleteFotoCp(Long codCia, Long codProveedor, String nroCp) {
-        ComprobantePagoCab cabecera = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
-
-        cabecera.setFotoCp(null);
-        cabRepository.save(cabecera);
-        log.info("FotoCp BLOB eliminada: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
+        adjuntoService.eliminarFoto(codCia, AdjuntoComprobante.TIPO_EGRESO, codProveedor, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE);
+        log.info("FotoCp eliminada: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
     }
 
     /**
-     * Sube la imagen del abono (FotoAbono) como BLOB
+     * Sube la imagen del abono (FotoAbono) como adjunto
      */
     public void uploadFotoAbono(Long codCia, Long codProveedor, String nroCp,
             org.springframework.web.multipart.MultipartFile file) {
         validateFile(file);
-        ComprobantePagoCab cabecera = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
-
-        try {
-            cabecera.setFotoAbono(file.getBytes());
-            cabRepository.save(cabecera);
-            log.info("FotoAbono BLOB subida: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
-        } catch (java.io.IOException e) {
-            throw new ValidationException("Error al procesar el archivo: " + e.getMessage());
-        }
+        adjuntoService.reemplazarFoto(codCia, AdjuntoComprobante.TIPO_EGRESO, codProveedor, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO, file);
+        log.info("FotoAbono subida: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
     }
 
     /**
-     * Obtiene la imagen del abono (FotoAbono) desde BLOB
+     * Obtiene la imagen del abono (FotoAbono) para enviarla como flujo
      */
-    public byte[] getFotoAbono(Long codCia, Long codProveedor, String nroCp) {
-        ComprobantePagoCab cabecera = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
-
-        if (cabecera.getFotoAbono() == null) {
-            throw new ResourceNotFoundException("El comprobante no tiene imagen de abono");
-        }
-        return cabecera.getFotoAbono();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AdjuntoDescargaService.Descarga getFotoAbono(Long codCia, Long codProveedor, String nroCp) {
+        return adjuntoDescargaService.descargarFoto(codCia, AdjuntoComprobante.TIPO_EGRESO, codProveedor, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO);
     }
 
     /**
      * Elimina la imagen del abono (FotoAbono)
      */
     public void deleteFotoAbono(Long codCia, Long codProveedor, String nroCp) {
-        ComprobantePagoCab cabecera = cabRepository.findByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
-
-        cabecera.setFotoAbono(null);
-        cabRepository.save(cabecera);
-        log.info("FotoAbono BLOB eliminada: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
+        adjuntoService.eliminarFoto(codCia, AdjuntoComprobante.TIPO_EGRESO, codProveedor, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO);
+        log.info("FotoAbono eliminada: codCia={}, codProveedor={}, nroCp={}", codCia, codProveedor, nroCp);
     }
 
     private void validateFile(org.springframework.web.multipart.MultipartFile file) {
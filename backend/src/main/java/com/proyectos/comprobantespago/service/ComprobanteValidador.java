@@ -0,0 +1,120 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.proyectos.comprobantespago.dto.ComprobantePagoDTO;
+import com.proyectos.comprobantespago.dto.ComprobantePagoDetalleDTO;
+import com.proyectos.comprobantespago.exception.ValidationException;
+
+/**
+ * Reglas de un comprobante de pago que solo dependen de sus datos (montos,
+ * totales, partidas y fechas). No accede a la base de datos ni es
+ * transaccional, por lo que la importación puede aplicarlas en paralelo sin
+ * abrir una transacción por comprobante.
+ */
+@Component
+public class ComprobanteValidador {
+
+    /**
+     * Valida que no haya partidas duplicadas en los detalles
+     * Requirements: 3.3
+     */
+    public void validarPartidasUnicas(ComprobantePagoDTO dto) {
+        List<Long> partidas = dto.getDetalles().stream()
+                .map(ComprobantePagoDetalleDTO::getCodPartida)
+                .toList();
+
+        long partidasUnicas = partidas.stream().distinct().count();
+
+        if (partidasUnicas < partidas.size()) {
+            // Encontrar la partida duplicada
+            Long partidaDuplicada = partidas.stream()
+                    .filter(p -> partidas.stream().filter(p2 -> p2.equals(p)).count() > 1)
+                    .findFirst()
+                    .orElse(null);
+
+            throw new ValidationException(
+                    String.format("La partida %d está duplicada en los detalles del comprobante. " +
+                            "Cada partida solo puede aparecer una vez.", partidaDuplicada));
+        }
+    }
+
+    /**
+     * Valida que la suma de detalles coincida con el total de cabecera
+     * Subtask 2.3
+     */
+    public void validarTotales(ComprobantePagoDTO dto) {
+        BigDecimal totalDetalles = dto.getDetalles().stream()
+                .map(ComprobantePagoDetalleDTO::getImpTotalMn)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (totalDetalles.compareTo(dto.getImpTotalMn()) != 0) {
+            throw new ValidationException(
+                    String.format(
+                            "La suma de los detalles (S/ %.2f) no coincide con el total del comprobante (S/ %.2f)",
+                            totalDetalles, dto.getImpTotalMn()));
+        }
+    }
+
+    /**
+     * Valida que los montos sean positivos y mayores a cero
+     * Subtask 2.3
+     * Requirements: 2.5 - Para recibos por honorarios, validar que total >= 0
+     */
+    public void validarMontos(ComprobantePagoDTO dto) {
+        // Validar total de cabecera
+        // Para recibos por honorarios (REC), permitir total >= 0
+        // Para otros tipos, total debe ser > 0
+        boolean esReciboHonorarios = "REC".equals(dto.getECompPago());
+
+        if (dto.getImpTotalMn() == null) {
+            throw new ValidationException("El importe total no puede ser nulo");
+        }
+
+        if (esReciboHonorarios) {
+            // Para recibos por honorarios, validar que total >= 0
+            if (dto.getImpTotalMn().compareTo(BigDecimal.ZERO) < 0) {
+                throw new ValidationException("El total del recibo por honorarios no puede ser negativo");
+            }
+        } else {
+            // Para facturas y boletas, total debe ser > 0
+            if (dto.getImpTotalMn().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new ValidationException("El importe total debe ser mayor a cero");
+            }
+        }
+
+        // Validar montos de detalles
+        for (ComprobantePagoDetalleDTO detalle : dto.getDetalles()) {
+            if (detalle.getImpTotalMn() == null || detalle.getImpTotalMn().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new ValidationException(
+                        String.format("El importe de la partida %d debe ser mayor a cero",
+                                detalle.getCodPartida()));
+            }
+
+            if (detalle.getImpNetoMn() == null || detalle.getImpNetoMn().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new ValidationException(
+                        String.format("El importe neto de la partida %d debe ser mayor a cero",
+                                detalle.getCodPartida()));
+            }
+        }
+    }
+
+    /**
+     * Valida que las fechas sean válidas
+     * Subtask 2.3
+     */
+    public void validarFechas(ComprobantePagoDTO dto) {
+        if (dto.getFecCp() == null) {
+            throw new ValidationException("La fecha de emisión es obligatoria");
+        }
+
+        // Validar que la fecha no sea futura
+        if (dto.getFecCp().isAfter(LocalDate.now())) {
+            throw new ValidationException("La fecha de emisión no puede ser posterior a la fecha actual");
+        }
+    }
+}
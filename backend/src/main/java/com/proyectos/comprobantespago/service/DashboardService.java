@@ -12,6 +12,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
+import com.proyectos.comprobantespago.dto.AlertasCompaniaDTO;
 import com.proyectos.comprobantespago.entity.ComprobantePagoCab;
 import com.proyectos.comprobantespago.entity.VtaCompPagoCab;
 import com.proyectos.comprobantespago.entity.Proyecto;
@@ -32,6 +33,7 @@ public class DashboardService {
     private final VtaCompPagoCabRepository vtaComprobanteRepository;
     private final ProveedorRepository proveedorRepository;
     private final ProyectoRepository proyectoRepository;
+    private final PresupuestoService presupuestoService;
 
     public Map<String, Object> getStats(String codCia) {
         log.info("Obteniendo estadísticas del dashboard para codCia: {}", codCia);
@@ -147,39 +149,19 @@ public class DashboardService {
             stats.put("presupuestoTotal", presupuestoTotal);
             stats.put("presupuestoEjecutado", presupuestoEjecutado);
 
-            // NUEVOS CAMPOS: Alertas de presupuesto (simplificado)
-            // Contar proyectos con diferentes niveles de ejecución
+            // NUEVOS CAMPOS: Alertas de presupuesto por partida (barrido agrupado por compañía)
             long alertasCriticas = 0;
             long alertasUrgentes = 0;
             long alertasAtencion = 0;
 
-            for (Proyecto proyecto : proyectos) {
-                List<ComprobantePagoCab> comprobantesProyecto = comprobanteRepository
-                        .findByCodCiaAndCodPyto(proyecto.getCodCia(), proyecto.getCodPyto());
-
-                // Calcular gastado: TODOS los egresos excepto anulados (código 'ANU')
-                BigDecimal gastadoProyecto = comprobantesProyecto.stream()
-                        .filter(c -> !"ANU".equals(c.getCodEstado()))
-                        .map(c -> c.getImpTotalMn() != null ? c.getImpTotalMn() : BigDecimal.ZERO)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                BigDecimal costoTotal = proyecto.getCostoTotal() != null
-                        ? proyecto.getCostoTotal()
-                        : BigDecimal.ZERO;
-
-                if (costoTotal.compareTo(BigDecimal.ZERO) > 0) {
-                    double porcentaje = gastadoProyecto.multiply(BigDecimal.valueOf(100))
-                            .divide(costoTotal, 2, BigDecimal.ROUND_HALF_UP)
-                            .doubleValue();
-
-                    if (porcentaje >= 100) {
-                        alertasCriticas++;
-                    } else if (porcentaje >= 91) {
-                        alertasUrgentes++;
-                    } else if (porcentaje >= 76) {
-                        alertasAtencion++;
-                    }
-                }
+            List<Long> companias = codCiaLong != null
+                    ? List.of(codCiaLong)
+                    : proyectos.stream().map(Proyecto::getCodCia).distinct().collect(Collectors.toList());
+            for (Long cia : companias) {
+                AlertasCompaniaDTO alertas = presupuestoService.generarAlertasCompania(cia, 0);
+                alertasCriticas += alertas.getAlertasCriticas();
+                alertasUrgentes += alertas.getAlertasUrgentes();
+                alertasAtencion += alertas.getAlertasAtencion();
             }
 
             stats.put("alertasCriticas", alertasCriticas);
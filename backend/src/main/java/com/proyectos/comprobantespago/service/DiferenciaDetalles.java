@@ -0,0 +1,175 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import com.proyectos.comprobantespago.exception.ValidationException;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Actualización diferencial de los detalles de un comprobante
+ * Compara por sec los detalles guardados con los recibidos y solo inserta,
+ * modifica o elimina las filas que cambian; Hibernate agrupa las sentencias en
+ * lotes JDBC (hibernate.jdbc.batch_size con order_inserts/order_updates). No
+ * se limpia el contexto de persistencia: solo se separan del contexto las
+ * filas escritas, para que la lectura posterior traiga su partida vigente.
+ *
+ * Además de las filas escritas guarda los importes previos de las modificadas
+ * y eliminadas, de modo que el ledger presupuestal solo se ajusta por lo que
+ * cambió.
+ *
+ * @param <E> Entidad de detalle (ComprobantePagoDet, VtaCompPagoDet, ...)
+ */
+public final class DiferenciaDetalles<E> {
+
+    /** Filas nuevas (sec que no existía) */
+    private final List<E> insertados = new ArrayList<>();
+    /** Filas existentes con algún valor distinto, ya con los valores nuevos */
+    private final List<E> modificados = new ArrayList<>();
+    /** Filas guardadas cuyo sec no vino en la petición */
+    private final List<E> eliminados = new ArrayList<>();
+    /** Valores previos de las filas modificadas y eliminadas */
+    private final List<E> anteriores = new ArrayList<>();
+    /** Todas las filas antes del cambio (las sin cambios se comparten con detalles) */
+    private final List<E> todosAnteriores = new ArrayList<>();
+    /** Todas las filas después del cambio */
+    private final List<E> detalles = new ArrayList<>();
+
+    private DiferenciaDetalles() {
+    }
+
+    /**
+     * Aplica los detalles recibidos sobre los guardados
+     *
+     * @param entityManager Contexto de persistencia de la transacción actual
+     * @param actuales      Detalles guardados (entidades gestionadas)
+     * @param nuevos        Detalles recibidos, con clave y sec asignados
+     * @param sec           Secuencia del detalle
+     * @param contenido     Valores que se comparan (sin la clave)
+     * @param copiar        Copia los valores del detalle recibido (1.º) al guardado (2.º)
+     * @param copia         Crea una copia desconectada con los valores actuales
+     */
+    public static <E> DiferenciaDetalles<E> aplicar(
+            EntityManager entityManager,
+            List<E> actuales,
+            List<E> nuevos,
+            Function<E, Integer> sec,
+            Function<E, List<Object>> contenido,
+            BiConsumer<E, E> copiar,
+            UnaryOperator<E> copia) {
+
+        Set<Integer> secuencias = new HashSet<>();
+        for (E nuevo : nuevos) {
+            if (!secuencias.add(sec.apply(nuevo))) {
+                throw new ValidationException(
+                        String.format("La secuencia %d está repetida en el detalle", sec.apply(nuevo)));
+            }
+        }
+
+        Map<Integer, E> porSec = new LinkedHashMap<>();
+        for (E actual : actuales) {
+            porSec.put(sec.apply(actual), actual);
+        }
+
+        DiferenciaDetalles<E> diferencia = new DiferenciaDetalles<>();
+        for (E nuevo : nuevos) {
+            E actual = porSec.remove(sec.apply(nuevo));
+            if (actual == null) {
+                entityManager.persist(nuevo);
+                diferencia.insertados.add(nuevo);
+                diferencia.detalles.add(nuevo);
+            } else if (iguales(contenido.apply(actual), contenido.apply(nuevo))) {
+                diferencia.todosAnteriores.add(actual);
+                diferencia.detalles.add(actual);
+            } else {
+                E anterior = copia.apply(actual);
+                diferencia.anteriores.add(anterior);
+                diferencia.todosAnteriores.add(anterior);
+                copiar.accept(nuevo, actual);
+                diferencia.modificados.add(actual);
+                diferencia.detalles.add(actual);
+            }
+        }
+        for (E eliminado : porSec.values()) {
+            entityManager.remove(eliminado);
+            diferencia.eliminados.add(eliminado);
+            diferencia.anteriores.add(eliminado);
+            diferencia.todosAnteriores.add(eliminado);
+        }
+
+        if (diferencia.hayCambios()) {
+            entityManager.flush();
+            diferencia.insertados.forEach(entityManager::detach);
+            diferencia.modificados.forEach(entityManager::detach);
+        }
+        return diferencia;
+    }
+
+    public boolean hayCambios() {
+        return !insertados.isEmpty() || !modificados.isEmpty() || !eliminados.isEmpty();
+    }
+
+    /**
+     * Valores previos de las filas modificadas y eliminadas (a revertir del ledger)
+     */
+    public List<E> getAnteriores() {
+        return Collections.unmodifiableList(anteriores);
+    }
+
+    /**
+     * Filas insertadas y modificadas con sus valores nuevos (a registrar en el ledger)
+     */
+    public List<E> getCambiados() {
+        List<E> cambiados = new ArrayList<>(insertados);
+        cambiados.addAll(modificados);
+        return cambiados;
+    }
+
+    public List<E> getTodosAnteriores() {
+        return Collections.unmodifiableList(todosAnteriores);
+    }
+
+    public List<E> getDetalles() {
+        return Collections.unmodifiableList(detalles);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d insertados, %d modificados, %d eliminados", insertados.size(), modificados.size(),
+                eliminados.size());
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * Compara los valores; los importes se comparan por valor numérico (10.5 = 10.50)
+     */
+    private static boolean iguales(List<Object> actual, List<Object> nuevo) {
+        if (actual.size() != nuevo.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            Object a = actual.get(i);
+            Object b = nuevo.get(i);
+            if (a instanceof BigDecimal x && b instanceof BigDecimal y) {
+                if (x.compareTo(y) != 0) {
+                    return false;
+                }
+            } else if (!Objects.equals(a, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.proyectos.comprobantespago.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.proyectos.comprobantespago.dto.VerificacionEjecucionDTO;
+import com.proyectos.comprobantespago.entity.Compania;
+import com.proyectos.comprobantespago.repository.CompaniaRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tarea programada que verifica el ledger de ejecución presupuestal contra las
+ * tablas origen y corrige las diferencias encontradas.
+ * Cada compañía se procesa en su propia transacción.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EjecucionPresupuestoJob {
+
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
+    private final CompaniaRepository companiaRepository;
+
+    @Scheduled(cron = "${presupuesto.ejecucion.verificacion-cron:0 30 2 * * *}")
+    public void verificarLedger() {
+        log.info("Iniciando verificación programada del ledger de ejecución presupuestal");
+
+        for (Compania compania : companiaRepository.findAll()) {
+            try {
+                VerificacionEjecucionDTO resultado = ejecucionPresupuestoService
+                        .verificar(compania.getCodCia(), true);
+                if (resultado.getPartidasConDiferencia() > 0) {
+                    log.warn("Compañía {}: {} partidas con diferencia corregidas en el ledger",
+                            compania.getCodCia(), resultado.getPartidasConDiferencia());
+                }
+            } catch (Exception e) {
+                log.error("Error al verificar el ledger de la compañía {}: {}", compania.getCodCia(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.proyectos.comprobantespago.dto.VerificacionEjecucionDTO;
+import com.proyectos.comprobantespago.entity.ComprobantePagoDet;
+import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleadoDet;
+import com.proyectos.comprobantespago.entity.ProyPartidaEjec;
+import com.proyectos.comprobantespago.entity.VtaCompPagoDet;
+import com.proyectos.comprobantespago.repository.ProyPartidaEjecRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio para el ledger de ejecución presupuestal (PROY_PARTIDA_EJEC)
+ * Mantiene de forma incremental el importe ejecutado por
+ * (compañía, proyecto, tipo, partida) para que la consulta de presupuesto
+ * disponible sea una lectura por clave. Los servicios de comprobantes
+ * registran o revierten sus detalles dentro de su propia transacción.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class EjecucionPresupuestoService {
+
+    private static final String ESTADO_ANULADO = "ANU";
+
+    /**
+     * Orden en que se crean y actualizan las filas del ledger; al bloquearlas
+     * siempre en el mismo orden, dos comprobantes no se esperan mutuamente
+     */
+    private static final Comparator<PartidaKey> ORDEN_FILAS = Comparator.comparing(PartidaKey::ingEgr)
+            .thenComparing(PartidaKey::codPartida);
+
+    private final ProyPartidaEjecRepository ejecRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Obtiene el importe ejecutado de una partida en un proyecto
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal obtenerEjecutado(Long codCia, Long codPyto, String ingEgr, Long codPartida) {
+        BigDecimal ejecutado = ejecRepository.findImporteEjecutado(codCia, codPyto, ingEgr, codPartida);
+        return ejecutado != null ? ejecutado : BigDecimal.ZERO;
+    }
+
+    /**
+     * Obtiene el importe ejecutado de varias partidas de un proyecto en una sola
+     * consulta
+     */
+    @Transactional(readOnly = true)
+    public Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> obtenerEjecutados(
+            Long codCia, Long codPyto, Collection<Long> codPartidas) {
+        Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> ejecutados = new HashMap<>();
+        for (ProyPartidaEjec ejec : ejecRepository.findByCodCiaAndCodPytoAndCodPartidaIn(codCia, codPyto,
+                codPartidas)) {
+            ejecutados.put(new ProyPartidaEjec.ProyPartidaEjecId(
+                    ejec.getCodCia(), ejec.getCodPyto(), ejec.getIngEgr(), ejec.getCodPartida()),
+                    ejec.getImpEjecMn());
+        }
+        return ejecutados;
+    }
+
+    /**
+     * Obtiene el importe ejecutado de todas las partidas de un proyecto y tipo
+     * en una sola consulta
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> obtenerEjecutadosProyecto(Long codCia, Long codPyto, String ingEgr) {
+        Map<Long, BigDecimal> ejecutados = new HashMap<>();
+        for (ProyPartidaEjec ejec : ejecRepository.findByCodCiaAndCodPyto(codCia, codPyto)) {
+            if (ingEgr.equals(ejec.getIngEgr()) && ejec.getImpEjecMn() != null) {
+                ejecutados.merge(ejec.getCodPartida(), ejec.getImpEjecMn(), BigDecimal::add);
+            }
+        }
+        return ejecutados;
+    }
+
+    /**
+     * Obtiene el importe ejecutado de todas las partidas de todos los proyectos
+     * de una compañía en una sola consulta
+     */
+    @Transactional(readOnly = true)
+    public Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> obtenerEjecutadosCompania(Long codCia) {
+        Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> ejecutados = new HashMap<>();
+        for (ProyPartidaEjec ejec : ejecRepository.findByCodCia(codCia)) {
+            ejecutados.put(new ProyPartidaEjec.ProyPartidaEjecId(
+                    ejec.getCodCia(), ejec.getCodPyto(), ejec.getIngEgr(), ejec.getCodPartida()),
+                    ejec.getImpEjecMn());
+        }
+        return ejecutados;
+    }
+
+    /**
+     * Indica si un comprobante en el estado dado suma a la ejecución presupuestal
+     */
+    public static boolean cuentaEnEjecucion(String codEstado) {
+        return !ESTADO_ANULADO.equals(codEstado);
+    }
+
+    // ==================== Movimientos incrementales ====================
+
+    public void registrarEgresos(Long codCia, Long codPyto, Collection<ComprobantePagoDet> detalles) {
+        acumular(codCia, codPyto, detalles, ComprobantePagoDet::getIngEgr, ComprobantePagoDet::getCodPartida,
+                ComprobantePagoDet::getImpTotalMn, false);
+    }
+
+    public void revertirEgresos(Long codCia, Long codPyto, Collection<ComprobantePagoDet> detalles) {
+        acumular(codCia, codPyto, detalles, ComprobantePagoDet::getIngEgr, ComprobantePagoDet::getCodPartida,
+                ComprobantePagoDet::getImpTotalMn, true);
+    }
+
+    public void registrarIngresos(Long codCia, Long codPyto, Collection<VtaCompPagoDet> detalles) {
+        acumular(codCia, codPyto, detalles, VtaCompPagoDet::getIngEgr, VtaCompPagoDet::getCodPartida,
+                VtaCompPagoDet::getImpTotalMn, false);
+    }
+
+    public void revertirIngresos(Long codCia, Long codPyto, Collection<VtaCompPagoDet> detalles) {
+        acumular(codCia, codPyto, detalles, VtaCompPagoDet::getIngEgr, VtaCompPagoDet::getCodPartida,
+                VtaCompPagoDet::getImpTotalMn, true);
+    }
+
+    public void registrarEgresosEmpleado(Long codCia, Long codPyto, Collection<ComprobantePagoEmpleadoDet> detalles) {
+        acumular(codCia, codPyto, detalles, ComprobantePagoEmpleadoDet::getIngEgr,
+                ComprobantePagoEmpleadoDet::getCodPartida, ComprobantePagoEmpleadoDet::getImpTotalMn, false);
+    }
+
+    public void revertirEgresosEmpleado(Long codCia, Long codPyto, Collection<ComprobantePagoEmpleadoDet> detalles) {
+        acumular(codCia, codPyto, detalles, ComprobantePagoEmpleadoDet::getIngEgr,
+                ComprobantePagoEmpleadoDet::getCodPartida, ComprobantePagoEmpleadoDet::getImpTotalMn, true);
+    }
+
+    // ==================== Verificación / reconstrucción ====================
+
+    /**
+     * Recalcula la ejecución de una compañía desde las tablas origen y la compara
+     * con el ledger. Si corregir es true, ajusta los proyectos con diferencia
+     * (ver corregirProyecto); la lectura inicial, sin bloqueos, solo sirve para
+     * el informe y para elegir qué proyectos corregir.
+     *
+     * @param codCia   Código de compañía
+     * @param corregir Si es true, reconstruye el ledger con los importes recalculados
+     * @return VerificacionEjecucionDTO con las diferencias encontradas
+     */
+    public VerificacionEjecucionDTO verificar(Long codCia, boolean corregir) {
+        log.info("Verificando ledger de ejecución de la compañía {} (corregir={})", codCia, corregir);
+
+        Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> origen = new HashMap<>();
+        for (Object[] fila : ejecRepository.calcularEjecutadoDesdeOrigen(codCia, null)) {
+            ProyPartidaEjec.ProyPartidaEjecId id = new ProyPartidaEjec.ProyPartidaEjecId(
+                    codCia,
+                    ((Number) fila[0]).longValue(),
+                    (String) fila[1],
+                    ((Number) fila[2]).longValue());
+            origen.put(id, toBigDecimal(fila[3]));
+        }
+
+        Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> ledger = obtenerEjecutadosCompania(codCia);
+
+        Set<ProyPartidaEjec.ProyPartidaEjecId> claves = new LinkedHashSet<>(origen.keySet());
+        claves.addAll(ledger.keySet());
+
+        List<VerificacionEjecucionDTO.DiferenciaEjecucion> diferencias = new ArrayList<>();
+        Map<Long, Set<PartidaKey>> proyectosConDiferencia = new LinkedHashMap<>();
+        for (ProyPartidaEjec.ProyPartidaEjecId id : claves) {
+            BigDecimal importeOrigen = origen.getOrDefault(id, BigDecimal.ZERO);
+            BigDecimal importeLedger = ledger.getOrDefault(id, BigDecimal.ZERO);
+
+            if (importeOrigen.compareTo(importeLedger) == 0) {
+                continue;
+            }
+
+            diferencias.add(VerificacionEjecucionDTO.DiferenciaEjecucion.builder()
+                    .codPyto(id.getCodPyto())
+                    .ingEgr(id.getIngEgr())
+                    .codPartida(id.getCodPartida())
+                    .importeLedger(importeLedger)
+                    .importeOrigen(importeOrigen)
+                    .diferencia(importeOrigen.subtract(importeLedger))
+                    .build());
+
+            proyectosConDiferencia.computeIfAbsent(id.getCodPyto(), codPyto -> new LinkedHashSet<>())
+                    .add(new PartidaKey(id.getIngEgr(), id.getCodPartida()));
+        }
+
+        if (corregir) {
+            proyectosConDiferencia.forEach((codPyto, partidas) -> corregirProyecto(codCia, codPyto, partidas));
+        }
+
+        if (diferencias.isEmpty()) {
+            log.info("Ledger de ejecución de la compañía {} sin diferencias ({} partidas)", codCia, claves.size());
+        } else {
+            log.warn("Ledger de ejecución de la compañía {} con {} diferencias{}", codCia, diferencias.size(),
+                    corregir ? " (corregidas)" : "");
+        }
+
+        return VerificacionEjecucionDTO.builder()
+                .codCia(codCia)
+                .partidasRevisadas(claves.size())
+                .partidasConDiferencia(diferencias.size())
+                .corregido(corregir && !diferencias.isEmpty())
+                .diferencias(diferencias)
+                .fechaVerificacion(LocalDateTime.now())
+                .build();
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * Ajusta el ledger de un proyecto a los importes de las tablas origen.
+     * Bloquea primero sus filas y recalcula el origen después: un comprobante
+     * confirmado antes del bloqueo ya figura en el origen, y uno en curso espera
+     * en su MERGE y suma su importe sobre el valor corregido. Cada ajuste se
+     * aplica como delta con el mismo MERGE que los movimientos incrementales.
+     */
+    private void corregirProyecto(Long codCia, Long codPyto, Set<PartidaKey> partidas) {
+        asegurarFilas(codCia, codPyto, partidas);
+
+        Map<PartidaKey, BigDecimal> ledger = new LinkedHashMap<>();
+        for (Object[] fila : ejecRepository.bloquearProyecto(codCia, codPyto)) {
+            ledger.put(new PartidaKey((String) fila[0], ((Number) fila[1]).longValue()), toBigDecimal(fila[2]));
+        }
+
+        Map<PartidaKey, BigDecimal> origen = new HashMap<>();
+        for (Object[] fila : ejecRepository.calcularEjecutadoDesdeOrigen(codCia, codPyto)) {
+            origen.put(new PartidaKey((String) fila[1], ((Number) fila[2]).longValue()), toBigDecimal(fila[3]));
+        }
+
+        Set<PartidaKey> claves = new LinkedHashSet<>(ledger.keySet());
+        claves.addAll(origen.keySet());
+        for (PartidaKey key : claves) {
+            BigDecimal delta = origen.getOrDefault(key, BigDecimal.ZERO)
+                    .subtract(ledger.getOrDefault(key, BigDecimal.ZERO));
+            if (delta.signum() != 0) {
+                ejecRepository.acumular(codCia, codPyto, key.ingEgr(), key.codPartida(), delta);
+                log.debug("Ledger {}-{} partida {}-{} corregido: {}", codCia, codPyto, key.ingEgr(),
+                        key.codPartida(), delta);
+            }
+        }
+
+        eventPublisher.publishEvent(new EjecucionActualizadaEvent(codCia, codPyto));
+    }
+
+    /**
+     * Agrupa los detalles por partida y aplica un único MERGE por clave
+     */
+    private <T> void acumular(
+            Long codCia,
+            Long codPyto,
+            Collection<T> detalles,
+            Function<T, String> ingEgr,
+            Function<T, Long> codPartida,
+            Function<T, BigDecimal> importe,
+            boolean revertir) {
+
+        if (detalles == null || detalles.isEmpty()) {
+            return;
+        }
+
+        Map<PartidaKey, BigDecimal> montos = new TreeMap<>(ORDEN_FILAS);
+        for (T detalle : detalles) {
+            BigDecimal monto = importe.apply(detalle);
+            if (monto == null) {
+                continue;
+            }
+            montos.merge(new PartidaKey(ingEgr.apply(detalle), codPartida.apply(detalle)), monto, BigDecimal::add);
+        }
+
+        montos.values().removeIf(monto -> monto.signum() == 0);
+        asegurarFilas(codCia, codPyto, montos.keySet());
+
+        montos.forEach((key, monto) -> {
+            BigDecimal delta = revertir ? monto.negate() : monto;
+            ejecRepository.acumular(codCia, codPyto, key.ingEgr(), key.codPartida(), delta);
+            log.debug("Ledger {}-{} partida {}-{}: {}", codCia, codPyto, key.ingEgr(), key.codPartida(), delta);
+        });
+
+        // Notificar el cambio (los listeners actúan después del commit)
+        eventPublisher.publishEvent(new EjecucionActualizadaEvent(codCia, codPyto));
+    }
+
+    /**
+     * Crea las filas del ledger que aún no existen antes del MERGE, en la misma
+     * transacción. Si dos comprobantes registraran a la vez la primera ejecución
+     * de una partida, ambos MERGE tomarían la rama WHEN NOT MATCHED y uno
+     * fallaría con ORA-00001; crearFila espera a la otra transacción y omite la
+     * fila duplicada, de modo que el MERGE siempre actualiza una fila existente.
+     */
+    private void asegurarFilas(Long codCia, Long codPyto, Set<PartidaKey> claves) {
+        if (claves.isEmpty()) {
+            return;
+        }
+        Set<Long> codPartidas = new LinkedHashSet<>();
+        claves.forEach(key -> codPartidas.add(key.codPartida()));
+
+        Set<PartidaKey> existentes = new HashSet<>();
+        for (Object[] fila : ejecRepository.findClavesByCodCiaAndCodPytoAndCodPartidaIn(codCia, codPyto,
+                codPartidas)) {
+            existentes.add(new PartidaKey((String) fila[0], (Long) fila[1]));
+        }
+
+        claves.stream()
+                .filter(key -> !existentes.contains(key))
+                .sorted(ORDEN_FILAS)
+                .forEach(key -> {
+                    if (ejecRepository.crearFila(codCia, codPyto, key.ingEgr(), key.codPartida()) == 0) {
+                        log.debug("Fila del ledger {}-{} partida {}-{} creada por otra transacción", codCia,
+                                codPyto, key.ingEgr(), key.codPartida());
+                    }
+                });
+    }
+
+    private BigDecimal toBigDecimal(Object valor) {
+        if (valor == null) {
+            return BigDecimal.ZERO;
+        }
+        if (valor instanceof BigDecimal bd) {
+            return bd;
+        }
+        return new BigDecimal(valor.toString());
+    }
+
+    // ==================== Clases internas ====================
+
+    private record PartidaKey(String ingEgr, Long codPartida) {
+    }
+
+    /**
+     * Evento publicado cuando cambia la ejecución presupuestal de un proyecto
+     */
+    public record EjecucionActualizadaEvent(Long codCia, Long codPyto) {
+    }
+}
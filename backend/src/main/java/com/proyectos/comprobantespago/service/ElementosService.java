@@ -3,6 +3,7 @@ package com.proyectos.comprobantespago.service;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +17,8 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Servicio para gestión de Elementos de Catálogos
+ * Las consultas se responden desde CatalogoService (en memoria); los cambios
+ * se escriben en la BD y recargan el catálogo después del commit.
  */
 @Service
 @Transactional
@@ -25,6 +28,8 @@ public class ElementosService {
 
     private final ElementosRepository elementosRepository;
     private final TabsRepository tabsRepository;
+    private final CatalogoService catalogoService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todos los elementos vigentes de una tabla
@@ -32,7 +37,7 @@ public class ElementosService {
     @Transactional(readOnly = true)
     public List<ElementosDTO> obtenerPorTabla(String codTab) {
         log.info("Obteniendo elementos de la tabla: {}", codTab);
-        return elementosRepository.findAllVigentesByCodTabSorted(codTab).stream()
+        return catalogoService.elementosVigentes(codTab).stream()
                 .map(this::convertirADTO)
                 .collect(Collectors.toList());
     }
@@ -44,11 +49,9 @@ public class ElementosService {
     public ElementosDTO obtenerElemento(String codTab, String codElem) {
         log.info("Obteniendo elemento {}-{}", codTab, codElem);
 
-        Elementos.ElementosId id = new Elementos.ElementosId(codTab, codElem);
-        Elementos elementos = elementosRepository.findById(id)
+        return catalogoService.elemento(codTab, codElem)
+                .map(this::convertirADTO)
                 .orElseThrow(() -> new RuntimeException("Elemento no encontrado: " + codTab + "-" + codElem));
-
-        return convertirADTO(elementos);
     }
 
     /**
@@ -57,9 +60,7 @@ public class ElementosService {
     @Transactional(readOnly = true)
     public List<ElementosDTO> obtenerTiposMoneda() {
         log.info("Obteniendo tipos de moneda");
-        return elementosRepository.findTiposMoneda().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return obtenerPorTabla(CatalogoService.TAB_MONEDA);
     }
 
     /**
@@ -68,9 +69,7 @@ public class ElementosService {
     @Transactional(readOnly = true)
     public List<ElementosDTO> obtenerUnidadesMedida() {
         log.info("Obteniendo unidades de medida");
-        return elementosRepository.findUnidadesMedida().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return obtenerPorTabla(CatalogoService.TAB_UNIDAD_MEDIDA);
     }
 
     /**
@@ -79,9 +78,7 @@ public class ElementosService {
     @Transactional(readOnly = true)
     public List<ElementosDTO> obtenerTiposComprobante() {
         log.info("Obteniendo tipos de comprobante");
-        return elementosRepository.findTiposComprobante().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return obtenerPorTabla(CatalogoService.TAB_COMPROBANTE);
     }
 
     /**
@@ -108,6 +105,7 @@ public class ElementosService {
         }
 
         elementos = elementosRepository.save(elementos);
+        eventPublisher.publishEvent(new CatalogoService.CatalogoModificadoEvent(elementos.getCodTab()));
         return convertirADTO(elementos);
     }
 
@@ -126,6 +124,7 @@ public class ElementosService {
         elementos.setVigente(elementosDTO.getVigente());
 
         elementos = elementosRepository.save(elementos);
+        eventPublisher.publishEvent(new CatalogoService.CatalogoModificadoEvent(codTab));
         return convertirADTO(elementos);
     }
 
@@ -141,9 +140,21 @@ public class ElementosService {
 
         elementos.setVigente("N");
         elementosRepository.save(elementos);
+        eventPublisher.publishEvent(new CatalogoService.CatalogoModificadoEvent(codTab));
     }
 
     // Métodos de conversión
+    private ElementosDTO convertirADTO(CatalogoService.Elemento elemento) {
+        return ElementosDTO.builder()
+                .codTab(elemento.codTab())
+                .codElem(elemento.codElem())
+                .denEle(elemento.denEle())
+                .denCorta(elemento.denCorta())
+                .vigente(elemento.vigente())
+                .denTab(elemento.denTab())
+                .build();
+    }
+
     private ElementosDTO convertirADTO(Elementos elementos) {
         String denTab = elementos.getTabs() != null ? elementos.getTabs().getDenTab() : null;
 
@@ -1,5 +1,7 @@
 package com.proyectos.comprobantespago.service;
 
+import java.io.InputStream;
+
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -35,6 +37,18 @@ public interface FileStorageService {
     String storeAbonoFile(MultipartFile file, Integer codCia,
                          Integer year, Integer month);
 
+    /**
+     * Guardar un adjunto de comprobante leyendo el contenido como flujo, sin
+     * cargarlo completo en memoria
+     *
+     * @param contenido Flujo con el contenido del archivo
+     * @param codCia Código de compañía
+     * @param tipo Tipo de comprobante (EGR/ING/EMP)
+     * @param extension Extensión del archivo (ej: ".pdf"), puede ser vacía
+     * @return Ruta relativa del archivo guardado
+     */
+    String storeAdjunto(InputStream contenido, Long codCia, String tipo, String extension);
+
     /**
      * Cargar archivo como recurso
      *
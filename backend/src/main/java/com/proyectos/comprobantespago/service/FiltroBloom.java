@@ -0,0 +1,104 @@
+package com.proyectos.comprobantespago.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para cadenas, seguro para hilos
+ * Responde "seguro que no está" o "podría estar". Se dimensiona para una
+ * capacidad y una tasa de falsos positivos; pasada la capacidad la tasa real
+ * sube y conviene reconstruirlo (ver {@link #saturado()}).
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+    private final int capacidad;
+    private final AtomicInteger elementos = new AtomicInteger();
+
+    /**
+     * @param capacidad            Elementos esperados
+     * @param tasaFalsosPositivos  Tasa objetivo con esa capacidad (0..1)
+     */
+    FiltroBloom(int capacidad, double tasaFalsosPositivos) {
+        this.capacidad = Math.max(capacidad, 1);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-this.capacidad * Math.log(tasaFalsosPositivos) / (ln2 * ln2));
+        int palabras = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(palabras);
+        this.numBits = (long) palabras * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.capacidad * ln2));
+    }
+
+    void agregar(String valor) {
+        long h = hash(valor);
+        long h1 = h;
+        long h2 = mezclar(h ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << (bit & 63);
+            long actual;
+            do {
+                actual = bits.get(palabra);
+                if ((actual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palabra, actual, actual | mascara));
+        }
+        elementos.incrementAndGet();
+    }
+
+    boolean podriaContener(String valor) {
+        long h = hash(valor);
+        long h1 = h;
+        long h2 = mezclar(h ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica si ya se agregaron más elementos que la capacidad con la que se
+     * dimensionó
+     */
+    boolean saturado() {
+        return elementos.get() > capacidad;
+    }
+
+    int elementos() {
+        return elementos.get();
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * FNV-1a de 64 bits sobre los bytes UTF-8, con mezcla final
+     */
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    /**
+     * Mezcla final de MurmurHash3 (fmix64)
+     */
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53e4b27L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
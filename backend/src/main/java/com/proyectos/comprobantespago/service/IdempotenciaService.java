@@ -0,0 +1,157 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Almacén en memoria de peticiones con Idempotency-Key
+ * Guarda por clave la huella de la petición y, cuando termina, su respuesta.
+ * Un reintento con la misma clave recibe la respuesta guardada sin volver a
+ * ejecutar la operación; si la primera petición aún está en curso, el
+ * reintento espera su resultado en lugar de ejecutarse en paralelo.
+ *
+ * Las entradas vencen a los comprobantes.idempotencia.ttl-minutos de
+ * completarse y el almacén está acotado a
+ * comprobantes.idempotencia.max-entradas: al llenarse se descartan primero las
+ * vencidas y luego las completadas más antiguas (nunca las que están en curso).
+ */
+@Service
+@Slf4j
+public class IdempotenciaService {
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long ttlMs;
+    private final int maxEntradas;
+
+    public IdempotenciaService(
+            MeterRegistry meterRegistry,
+            @Value("${comprobantes.idempotencia.ttl-minutos:60}") long ttlMinutos,
+            @Value("${comprobantes.idempotencia.max-entradas:10000}") int maxEntradas) {
+        this.meterRegistry = meterRegistry;
+        this.ttlMs = ttlMinutos * 60_000;
+        this.maxEntradas = maxEntradas;
+    }
+
+    /**
+     * Registra la petición o devuelve la que ya se registró con la misma clave
+     *
+     * @param clave  Idempotency-Key con su ámbito (usuario y ruta)
+     * @param huella Hash del método, la ruta y el cuerpo
+     * @return Reserva propia (primera = true) o la entrada existente
+     */
+    public Reserva reservar(String clave, String huella) {
+        if (entradas.size() >= maxEntradas) {
+            liberarEspacio();
+        }
+        Entrada nueva = new Entrada(huella);
+        while (true) {
+            Entrada existente = entradas.putIfAbsent(clave, nueva);
+            if (existente == null) {
+                contar("nueva");
+                return new Reserva(nueva, true);
+            }
+            if (!existente.vencida()) {
+                contar(existente.huella.equals(huella) ? "repetida" : "conflicto");
+                return new Reserva(existente, false);
+            }
+            entradas.remove(clave, existente);
+        }
+    }
+
+    /**
+     * Guarda la respuesta de la primera petición y libera a las que esperan
+     */
+    public void completar(Entrada entrada, RespuestaGuardada respuesta) {
+        entrada.venceEn = System.currentTimeMillis() + ttlMs;
+        entrada.respuesta.complete(respuesta);
+    }
+
+    /**
+     * Descarta la petición (falló sin una respuesta reutilizable): las que
+     * esperan reciben null y pueden reintentar
+     */
+    public void descartar(String clave, Entrada entrada) {
+        entradas.remove(clave, entrada);
+        entrada.respuesta.complete(null);
+    }
+
+    /**
+     * Elimina las entradas vencidas
+     */
+    @Scheduled(fixedDelayString = "${comprobantes.idempotencia.purga-ms:60000}")
+    public void purgarVencidas() {
+        int antes = entradas.size();
+        entradas.values().removeIf(Entrada::vencida);
+        if (antes != entradas.size()) {
+            log.debug("Idempotencia: {} entradas vencidas eliminadas", antes - entradas.size());
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private void liberarEspacio() {
+        purgarVencidas();
+        int exceso = entradas.size() - maxEntradas + 1;
+        if (exceso <= 0) {
+            return;
+        }
+        entradas.entrySet().stream()
+                .filter(e -> e.getValue().respuesta.isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().venceEn))
+                .limit(exceso)
+                .toList()
+                .forEach(e -> entradas.remove(e.getKey(), e.getValue()));
+        log.debug("Idempotencia: almacén lleno, se descartaron hasta {} entradas completadas", exceso);
+    }
+
+    private void contar(String resultado) {
+        meterRegistry.counter("comprobantes.idempotencia.peticiones", "resultado", resultado).increment();
+    }
+
+    // ==================== Clases internas ====================
+
+    public static final class Entrada {
+        private final String huella;
+        private final CompletableFuture<RespuestaGuardada> respuesta = new CompletableFuture<>();
+        /** Solo se fija al completar; las entradas en curso no vencen */
+        private volatile long venceEn = Long.MAX_VALUE;
+
+        private Entrada(String huella) {
+            this.huella = huella;
+        }
+
+        public boolean mismaPeticion(String otraHuella) {
+            return huella.equals(otraHuella);
+        }
+
+        /**
+         * Respuesta de la primera petición; se completa con null si se descartó
+         */
+        public CompletableFuture<RespuestaGuardada> getRespuesta() {
+            return respuesta;
+        }
+
+        private boolean vencida() {
+            return System.currentTimeMillis() > venceEn;
+        }
+    }
+
+    /**
+     * @param primera true si esta petición es la que debe ejecutarse
+     */
+    public record Reserva(Entrada entrada, boolean primera) {
+    }
+
+    public record RespuestaGuardada(int status, String contentType, byte[] cuerpo) {
+    }
+}
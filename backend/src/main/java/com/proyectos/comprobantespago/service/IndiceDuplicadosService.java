@@ -0,0 +1,270 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyectos.comprobantespago.repository.ComprobantePagoCabRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice en memoria para saber si ya existe un comprobante de egreso
+ * (codCia, codProveedor, nroCp) sin ir a la BD en cada consulta
+ *
+ * Por compañía guarda un filtro de Bloom con todas las claves y un conjunto
+ * de claves confirmadas. Si el filtro dice que la clave no está, el número
+ * está libre sin consultar la BD (el caso de la validación mientras se
+ * escribe); si dice que podría estar, se responde con el conjunto confirmado
+ * o con un EXISTS en la BD. Los índices se cargan al iniciar, se actualizan
+ * después del commit de cada alta y se reconstruyen en segundo plano cuando
+ * el filtro supera su capacidad o cumple su vigencia. Mientras una compañía no tiene índice listo,
+ * la consulta va directo a la BD.
+ *
+ * El filtro solo conoce las altas hechas por esta instancia con JPA o la
+ * importación; las de otras instancias o del procedimiento
+ * INSERTAR_COMPROBANTE_PROVEEDOR aparecen recién al reconstruirlo. Por eso solo
+ * sirve como respuesta rápida para /numero-disponible: el alta de un
+ * comprobante valida siempre contra la BD.
+ *
+ * Anular un comprobante no libera su número (la fila sigue existiendo), así
+ * que la anulación no modifica el índice.
+ */
+@Service
+@Slf4j
+public class IndiceDuplicadosService {
+
+    private final ComprobantePagoCabRepository cabRepository;
+    private final MeterRegistry meterRegistry;
+    private final boolean habilitado;
+    private final double tasaObjetivo;
+    private final int capacidadMinima;
+    private final int maxConfirmados;
+    private final long vigenciaMs;
+
+    private final Map<Long, IndiceCompania> indices = new ConcurrentHashMap<>();
+
+    private Counter descartados;
+    private Counter confirmados;
+    private Counter existentes;
+    private Counter falsosPositivos;
+    private Counter sinIndice;
+
+    public IndiceDuplicadosService(
+            ComprobantePagoCabRepository cabRepository,
+            MeterRegistry meterRegistry,
+            @Value("${comprobantes.duplicados.indice.habilitado:true}") boolean habilitado,
+            @Value("${comprobantes.duplicados.indice.tasa-falsos-positivos:0.01}") double tasaObjetivo,
+            @Value("${comprobantes.duplicados.indice.capacidad-minima:10000}") int capacidadMinima,
+            @Value("${comprobantes.duplicados.indice.max-confirmados:50000}") int maxConfirmados,
+            @Value("${comprobantes.duplicados.indice.vigencia-minutos:60}") long vigenciaMinutos) {
+        this.cabRepository = cabRepository;
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado;
+        this.tasaObjetivo = tasaObjetivo;
+        this.capacidadMinima = capacidadMinima;
+        this.maxConfirmados = maxConfirmados;
+        this.vigenciaMs = vigenciaMinutos * 60_000;
+    }
+
+    @PostConstruct
+    void registrarMetricas() {
+        descartados = meterRegistry.counter("comprobantes.duplicados.consultas", "resultado", "descartado");
+        confirmados = meterRegistry.counter("comprobantes.duplicados.consultas", "resultado", "confirmado");
+        existentes = meterRegistry.counter("comprobantes.duplicados.consultas", "resultado", "existe");
+        falsosPositivos = meterRegistry.counter("comprobantes.duplicados.consultas", "resultado", "falso_positivo");
+        sinIndice = meterRegistry.counter("comprobantes.duplicados.consultas", "resultado", "sin_indice");
+        Gauge.builder("comprobantes.duplicados.tasa_falsos_positivos", this, IndiceDuplicadosService::tasaFalsosPositivos)
+                .description("Fracción de claves inexistentes que el filtro de Bloom no descartó")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indica si ya existe el comprobante. Una respuesta negativa puede estar
+     * desactualizada; no usar para decidir un alta.
+     */
+    public boolean existe(Long codCia, Long codProveedor, String nroCp) {
+        IndiceCompania indice = habilitado ? indices.get(codCia) : null;
+        FiltroBloom filtro = indice != null ? indice.filtro : null;
+        if (filtro == null) {
+            sinIndice.increment();
+            return cabRepository.existsByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp);
+        }
+
+        String clave = clave(codProveedor, nroCp);
+        if (!filtro.podriaContener(clave)) {
+            descartados.increment();
+            return false;
+        }
+        if (indice.confirmados.contains(clave)) {
+            confirmados.increment();
+            return true;
+        }
+
+        boolean existe = cabRepository.existsByCodCiaAndCodProveedorAndNroCp(codCia, codProveedor, nroCp);
+        if (existe) {
+            existentes.increment();
+            confirmar(indice, clave);
+        } else {
+            falsosPositivos.increment();
+        }
+        return existe;
+    }
+
+    /**
+     * Agrega las claves registradas después del commit (o de inmediato si no
+     * hay transacción activa)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onComprobantesRegistrados(ComprobantesRegistradosEvent event) {
+        IndiceCompania indice = indices.get(event.codCia());
+        if (indice == null) {
+            return;
+        }
+        for (Clave clave : event.claves()) {
+            indice.agregar(clave(clave.codProveedor(), clave.nroCp()));
+        }
+    }
+
+    /**
+     * Carga los índices de todas las compañías al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        if (!habilitado) {
+            return;
+        }
+        mantener();
+    }
+
+    /**
+     * Crea los índices de compañías nuevas y reconstruye los saturados o
+     * vencidos (para incorporar las altas hechas fuera de esta instancia)
+     */
+    @Scheduled(initialDelayString = "${comprobantes.duplicados.indice.mantenimiento-ms:300000}",
+            fixedDelayString = "${comprobantes.duplicados.indice.mantenimiento-ms:300000}")
+    public void mantener() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            for (Long codCia : cabRepository.findCodCias()) {
+                IndiceCompania indice = indices.get(codCia);
+                if (indice == null || (indice.filtro != null
+                        && (indice.filtro.saturado() || indice.vencido(vigenciaMs)))) {
+                    cargar(codCia);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo cargar el índice de duplicados: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Carga (o reconstruye) el índice de una compañía desde la BD
+     *
+     * @return Número de claves cargadas
+     */
+    public int cargar(Long codCia) {
+        // El índice nuevo se publica antes de la consulta para no perder las
+        // altas que se confirmen mientras se lee; las acumula hasta estar listo
+        IndiceCompania nuevo = new IndiceCompania();
+        IndiceCompania anterior = indices.put(codCia, nuevo);
+        try {
+            List<Object[]> claves = cabRepository.findClavesByCodCia(codCia);
+            int capacidad = Math.max(capacidadMinima, claves.size() * 2);
+            FiltroBloom filtro = new FiltroBloom(capacidad, tasaObjetivo);
+            for (Object[] fila : claves) {
+                filtro.agregar(clave(((Number) fila[0]).longValue(), (String) fila[1]));
+            }
+            nuevo.activar(filtro);
+            log.info("Índice de duplicados de la compañía {} cargado: {} comprobantes (capacidad {})", codCia,
+                    claves.size(), capacidad);
+            return claves.size();
+        } catch (RuntimeException e) {
+            // Sin índice nuevo las consultas siguen usando el anterior o la BD
+            if (anterior != null) {
+                indices.replace(codCia, nuevo, anterior);
+            } else {
+                indices.remove(codCia, nuevo);
+            }
+            throw e;
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private void confirmar(IndiceCompania indice, String clave) {
+        if (indice.confirmados.size() >= maxConfirmados) {
+            indice.confirmados.clear();
+        }
+        indice.confirmados.add(clave);
+    }
+
+    private double tasaFalsosPositivos() {
+        double falsos = falsosPositivos.count();
+        double negativos = falsos + descartados.count();
+        return negativos > 0 ? falsos / negativos : 0;
+    }
+
+    private static String clave(Long codProveedor, String nroCp) {
+        return codProveedor + "|" + nroCp;
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Índice de una compañía. Mientras se carga (filtro == null) las altas se
+     * acumulan en pendientes y se pasan al filtro al activarlo.
+     */
+    private final class IndiceCompania {
+        private volatile FiltroBloom filtro;
+        private final Set<String> pendientes = new HashSet<>();
+        private final Set<String> confirmados = ConcurrentHashMap.newKeySet();
+        private final long creado = System.currentTimeMillis();
+
+        private void agregar(String clave) {
+            synchronized (this) {
+                if (filtro == null) {
+                    pendientes.add(clave);
+                } else {
+                    filtro.agregar(clave);
+                }
+            }
+            confirmar(this, clave);
+        }
+
+        private boolean vencido(long vigenciaMs) {
+            return vigenciaMs > 0 && System.currentTimeMillis() - creado >= vigenciaMs;
+        }
+
+        private synchronized void activar(FiltroBloom cargado) {
+            pendientes.forEach(cargado::agregar);
+            pendientes.clear();
+            filtro = cargado;
+        }
+    }
+
+    public record Clave(Long codProveedor, String nroCp) {
+    }
+
+    /**
+     * Evento publicado al registrar comprobantes de egreso (alta individual o
+     * importación)
+     */
+    public record ComprobantesRegistradosEvent(Long codCia, List<Clave> claves) {
+    }
+}
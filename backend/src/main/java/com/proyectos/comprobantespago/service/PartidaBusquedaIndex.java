@@ -0,0 +1,225 @@
+package com.proyectos.comprobantespago.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+import com.proyectos.comprobantespago.entity.Partida;
+
+/**
+ * Índice inmutable de búsqueda por prefijo de las partidas vigentes de una
+ * compañía y tipo (I/E)
+ * Cada partida se divide en términos normalizados (minúsculas, sin tildes)
+ * tomados de su descripción y sus códigos. Los términos se guardan ordenados
+ * junto con las posiciones de las partidas que los contienen, de modo que
+ * todos los términos que empiezan con un prefijo quedan en un rango contiguo
+ * que se ubica con búsqueda binaria.
+ */
+final class PartidaBusquedaIndex {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private static final int PUNTAJE_PREFIJO = 1;
+    private static final int PUNTAJE_EXACTO = 2;
+    private static final int PUNTAJE_INICIO = 3;
+
+    private final long version;
+    private final Partida[] partidas;
+    private final String[] descripciones;
+    private final String[] codigos;
+    private final String[] terminos;
+    private final int[][] posiciones;
+
+    private PartidaBusquedaIndex(long version, Partida[] partidas, String[] descripciones, String[] codigos,
+            String[] terminos, int[][] posiciones) {
+        this.version = version;
+        this.partidas = partidas;
+        this.descripciones = descripciones;
+        this.codigos = codigos;
+        this.terminos = terminos;
+        this.posiciones = posiciones;
+    }
+
+    /**
+     * Construye el índice con las partidas vigentes
+     *
+     * @param version  Versión del índice (mayor = más reciente)
+     * @param partidas Todas las partidas de la compañía y tipo
+     */
+    static PartidaBusquedaIndex construir(long version, Collection<Partida> partidas) {
+        List<Partida> vigentes = new ArrayList<>();
+        for (Partida partida : partidas) {
+            if ("1".equals(partida.getVigente())) {
+                vigentes.add(partida);
+            }
+        }
+
+        Partida[] arreglo = vigentes.toArray(new Partida[0]);
+        String[] descripciones = new String[arreglo.length];
+        String[] codigos = new String[arreglo.length];
+        TreeMap<String, List<Integer>> porTermino = new TreeMap<>();
+        for (int i = 0; i < arreglo.length; i++) {
+            Partida partida = arreglo[i];
+            descripciones[i] = normalizar(partida.getDesPartida());
+
+            Set<String> propios = new LinkedHashSet<>(tokenizar(descripciones[i]));
+            String codigo = normalizar(partida.getCodPartidas());
+            codigos[i] = compactar(codigo);
+            if (!codigo.isEmpty()) {
+                propios.add(codigos[i]);
+                propios.addAll(tokenizar(codigo));
+            }
+            propios.add(String.valueOf(partida.getCodPartida()));
+
+            for (String termino : propios) {
+                if (!termino.isEmpty()) {
+                    porTermino.computeIfAbsent(termino, k -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        String[] terminos = porTermino.keySet().toArray(new String[0]);
+        int[][] posiciones = new int[terminos.length][];
+        int t = 0;
+        for (List<Integer> lista : porTermino.values()) {
+            posiciones[t++] = lista.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new PartidaBusquedaIndex(version, arreglo, descripciones, codigos, terminos, posiciones);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int size() {
+        return partidas.length;
+    }
+
+    /**
+     * Busca las partidas que contienen todos los términos de la consulta (cada
+     * uno como prefijo de algún término de la partida) y devuelve las mejores.
+     * Orden: coincidencias exactas y descripciones o códigos que empiezan con la
+     * consulta primero; a igual puntaje, la descripción más corta.
+     *
+     * @param consulta Texto ingresado por el usuario
+     * @param filtro   Restringe las posiciones candidatas (proyecto, nivel)
+     * @param limite   Número máximo de resultados
+     */
+    List<Partida> buscar(String consulta, IntPredicate filtro, int limite) {
+        String normalizada = normalizar(consulta);
+        List<String> prefijos = tokenizar(normalizada);
+        if (prefijos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        int n = partidas.length;
+        int[] puntajes = new int[n];
+        int[] coincidencias = new int[n];
+        // Partidas que coincidieron con el primer prefijo: las únicas que se revisan al final
+        int[] candidatas = new int[16];
+        int totalCandidatas = 0;
+        for (int k = 0; k < prefijos.size(); k++) {
+            String prefijo = prefijos.get(k);
+            int desde = Arrays.binarySearch(terminos, prefijo);
+            boolean exacto = desde >= 0;
+            if (!exacto) {
+                desde = -desde - 1;
+            }
+            for (int t = desde; t < terminos.length && terminos[t].startsWith(prefijo); t++) {
+                int puntaje = exacto && t == desde ? PUNTAJE_EXACTO : PUNTAJE_PREFIJO;
+                for (int posicion : posiciones[t]) {
+                    // Solo cuentan las partidas que coincidieron con los prefijos anteriores;
+                    // el término exacto va primero en el rango y aporta el mejor puntaje
+                    if (coincidencias[posicion] == k) {
+                        coincidencias[posicion] = k + 1;
+                        puntajes[posicion] += puntaje;
+                        if (k == 0) {
+                            if (totalCandidatas == candidatas.length) {
+                                candidatas = Arrays.copyOf(candidatas, totalCandidatas * 2);
+                            }
+                            candidatas[totalCandidatas++] = posicion;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Top-K con un montículo de tamaño limite (el peor resultado en la cima)
+        String compacta = compactar(normalizada);
+        PriorityQueue<Integer> mejores = new PriorityQueue<>(limite + 1, (a, b) -> comparar(b, a, puntajes));
+        for (int c = 0; c < totalCandidatas; c++) {
+            int posicion = candidatas[c];
+            if (coincidencias[posicion] != prefijos.size() || !filtro.test(posicion)) {
+                continue;
+            }
+            if (descripciones[posicion].startsWith(normalizada)
+                    || (!codigos[posicion].isEmpty() && codigos[posicion].startsWith(compacta))) {
+                puntajes[posicion] += PUNTAJE_INICIO;
+            }
+            mejores.add(posicion);
+            if (mejores.size() > limite) {
+                mejores.poll();
+            }
+        }
+
+        List<Integer> ordenadas = new ArrayList<>(mejores);
+        ordenadas.sort((a, b) -> comparar(a, b, puntajes));
+        List<Partida> resultado = new ArrayList<>(ordenadas.size());
+        for (int posicion : ordenadas) {
+            resultado.add(partidas[posicion]);
+        }
+        return resultado;
+    }
+
+    Partida partida(int posicion) {
+        return partidas[posicion];
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * Orden de relevancia: mayor puntaje, descripción más corta, menor código
+     */
+    private int comparar(int a, int b, int[] puntajes) {
+        int porPuntaje = Integer.compare(puntajes[b], puntajes[a]);
+        if (porPuntaje != 0) {
+            return porPuntaje;
+        }
+        int porLargo = Integer.compare(descripciones[a].length(), descripciones[b].length());
+        if (porLargo != 0) {
+            return porLargo;
+        }
+        return Long.compare(partidas[a].getCodPartida(), partidas[b].getCodPartida());
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase().trim();
+    }
+
+    static String compactar(String normalizado) {
+        return SEPARADORES.matcher(normalizado).replaceAll("");
+    }
+
+    static List<String> tokenizar(String normalizado) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizado)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,167 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyectos.comprobantespago.dto.PartidaDTO;
+import com.proyectos.comprobantespago.entity.Partida;
+import com.proyectos.comprobantespago.exception.ResourceNotFoundException;
+import com.proyectos.comprobantespago.repository.PartidaRepository;
+import com.proyectos.comprobantespago.repository.ProyPartidaMezclaRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de búsqueda incremental (typeahead) de partidas
+ * Mantiene en memoria un índice por prefijo de las partidas vigentes de cada
+ * (compañía, tipo) y el conjunto de partidas asignadas a cada proyecto, para
+ * que el formulario de comprobantes pida solo las mejores coincidencias en
+ * lugar de descargar el catálogo completo. Los índices se reconstruyen
+ * después del commit cuando cambia el catálogo o el presupuesto del proyecto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartidaBusquedaService {
+
+    public static final int LIMITE_MAXIMO = 50;
+
+    private final PartidaRepository partidaRepository;
+    private final ProyPartidaMezclaRepository proyPartidaMezclaRepository;
+    private final PartidaHierarchyService partidaHierarchyService;
+    private final MeterRegistry meterRegistry;
+
+    /** Índices de búsqueda vigentes por (compañía, tipo); se reemplazan completos */
+    private final Map<CatalogoKey, PartidaBusquedaIndex> indices = new ConcurrentHashMap<>();
+    private final AtomicLong versiones = new AtomicLong();
+
+    /** Partidas asignadas a cada proyecto (PROY_PARTIDA_MEZCLA) */
+    private final Map<ProyectoKey, Set<Long>> partidasProyecto = new ConcurrentHashMap<>();
+
+    private Timer busquedaTimer;
+
+    @PostConstruct
+    void registrarMetricas() {
+        busquedaTimer = meterRegistry.timer("partidas.busqueda.tiempo");
+    }
+
+    /**
+     * Busca partidas vigentes por descripción o código
+     *
+     * @param codCia   Código de compañía
+     * @param ingEgr   Tipo: I=Ingreso, E=Egreso
+     * @param consulta Texto a buscar (cada palabra se trata como prefijo)
+     * @param codPyto  Si se indica, solo partidas asignadas al proyecto
+     * @param nivel    Si se indica, solo partidas de ese nivel
+     * @param limite   Número máximo de resultados (1..50)
+     * @return Las mejores coincidencias, de mayor a menor relevancia
+     */
+    public List<PartidaDTO> buscar(Long codCia, String ingEgr, String consulta, Long codPyto, Integer nivel,
+            int limite) {
+        return busquedaTimer.record(() -> {
+            PartidaBusquedaIndex indice = indice(codCia, ingEgr);
+            Set<Long> asignadas = codPyto != null ? partidasProyecto(codCia, codPyto, ingEgr) : null;
+
+            IntPredicate filtro = posicion -> {
+                Partida partida = indice.partida(posicion);
+                return (nivel == null || nivel.equals(partida.getNivel()))
+                        && (asignadas == null || asignadas.contains(partida.getCodPartida()));
+            };
+
+            List<PartidaDTO> resultado = new ArrayList<>();
+            for (Partida partida : indice.buscar(consulta, filtro, Math.min(Math.max(limite, 1), LIMITE_MAXIMO))) {
+                resultado.add(PartidaDTO.builder()
+                        .codCia(partida.getCodCia())
+                        .ingEgr(partida.getIngEgr())
+                        .codPartida(partida.getCodPartida())
+                        .codPartidas(partida.getCodPartidas())
+                        .desPartida(partida.getDesPartida())
+                        .nivel(partida.getNivel())
+                        .tUniMed(partida.getTUniMed())
+                        .eUniMed(partida.getEUniMed())
+                        .vigente(partida.getVigente())
+                        .jerarquiaCompleta(ruta(codCia, ingEgr, partida.getCodPartida()))
+                        .build());
+            }
+            return resultado;
+        });
+    }
+
+    /**
+     * Reconstruye el índice de la compañía y tipo cuando cambia el catálogo.
+     * Se ejecuta después del commit (o de inmediato si no hay transacción activa).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoModificado(PartidaHierarchyService.CatalogoPartidasModificadoEvent event) {
+        PartidaBusquedaIndex indice = reconstruir(new CatalogoKey(event.codCia(), event.ingEgr()));
+        log.debug("Índice de búsqueda de partidas {}-{} reconstruido (versión {}, {} partidas)",
+                event.codCia(), event.ingEgr(), indice.getVersion(), indice.size());
+    }
+
+    /**
+     * Descarta las partidas asignadas del proyecto cuando cambia su presupuesto
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPartidasProyectoModificadas(ProyPartidaMezclaService.PartidasProyectoModificadasEvent event) {
+        partidasProyecto.keySet().removeIf(
+                key -> key.codCia().equals(event.codCia()) && key.codPyto().equals(event.codPyto()));
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private PartidaBusquedaIndex indice(Long codCia, String ingEgr) {
+        CatalogoKey key = new CatalogoKey(codCia, ingEgr);
+        PartidaBusquedaIndex indice = indices.get(key);
+        return indice != null ? indice : reconstruir(key);
+    }
+
+    /**
+     * Construye un índice nuevo y lo publica solo si es más reciente que el
+     * actual (la versión se asigna antes de leer la BD)
+     */
+    private PartidaBusquedaIndex reconstruir(CatalogoKey key) {
+        long version = versiones.incrementAndGet();
+        PartidaBusquedaIndex nuevo = PartidaBusquedaIndex.construir(version,
+                partidaRepository.findByCodCiaAndIngEgr(key.codCia(), key.ingEgr()));
+        return indices.merge(key, nuevo,
+                (actual, candidato) -> candidato.getVersion() > actual.getVersion() ? candidato : actual);
+    }
+
+    /**
+     * Ruta de la partida; puede faltar si el índice de jerarquía aún no recoge
+     * una partida recién creada
+     */
+    private String ruta(Long codCia, String ingEgr, Long codPartida) {
+        try {
+            return partidaHierarchyService.getFullPath(codCia, ingEgr, codPartida);
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    private Set<Long> partidasProyecto(Long codCia, Long codPyto, String ingEgr) {
+        return partidasProyecto.computeIfAbsent(new ProyectoKey(codCia, codPyto, ingEgr),
+                key -> Set.copyOf(proyPartidaMezclaRepository.findCodPartidasByProyectoAndTipo(codCia, codPyto,
+                        ingEgr)));
+    }
+
+    // ==================== Clases internas ====================
+
+    private record CatalogoKey(Long codCia, String ingEgr) {
+    }
+
+    private record ProyectoKey(Long codCia, Long codPyto, String ingEgr) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.proyectos.comprobantespago.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.proyectos.comprobantespago.repository.PartidaRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio para la tabla de cierre de la jerarquía de partidas (PARTIDA_CLOSURE)
+ * Mantiene un par (ancestro, descendiente) por cada relación de la jerarquía
+ * para que las consultas por subárbol se resuelvan en una sola sentencia SQL.
+ * Se reconstruye dentro de la misma transacción que modifica PARTIDA o
+ * PARTIDA_MEZCLA, de modo que nunca queda desfasada respecto al catálogo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class PartidaClosureService {
+
+    private final PartidaRepository partidaRepository;
+
+    /**
+     * Reconstruye la tabla de cierre cuando cambia el catálogo de partidas.
+     * Se ejecuta de forma síncrona, dentro de la transacción del cambio.
+     */
+    @EventListener
+    public void onCatalogoModificado(PartidaHierarchyService.CatalogoPartidasModificadoEvent event) {
+        reconstruir(event.codCia(), event.ingEgr());
+    }
+
+    /**
+     * Regenera la tabla de cierre de una compañía y tipo desde PARTIDA y
+     * PARTIDA_MEZCLA
+     *
+     * @return Número de pares (ancestro, descendiente) generados
+     */
+    public int reconstruir(Long codCia, String ingEgr) {
+        partidaRepository.eliminarClosure(codCia, ingEgr);
+        int filas = partidaRepository.insertarClosure(codCia, ingEgr);
+        log.debug("Tabla de cierre de partidas {}-{} reconstruida ({} pares)", codCia, ingEgr, filas);
+        return filas;
+    }
+}
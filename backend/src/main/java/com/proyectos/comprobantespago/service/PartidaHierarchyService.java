@@ -2,6 +2,7 @@ package com.proyectos.comprobantespago.service;
 
 import java.util.List;
 
+import com.proyectos.comprobantespago.dto.ArbolPresupuestoDTO;
 import com.proyectos.comprobantespago.dto.PartidaDTO;
 import com.proyectos.comprobantespago.dto.PartidaTreeNode;
 
@@ -80,7 +81,20 @@ public interface PartidaHierarchyService {
     List<PartidaTreeNode> obtenerArbolPartidas(Integer codCia, Integer codPyto, String ingEgr);
 
     /**
-     * Calcular total del padre
+     * Calcular total presupuestado de una partida incluyendo sus subpartidas
      */
     java.math.BigDecimal calculateParentTotal(Long codCia, String ingEgr, Long codPartida);
+
+    /**
+     * Obtener el árbol de partidas de un proyecto con presupuesto, ejecutado y
+     * disponible acumulados en cada nivel
+     */
+    ArbolPresupuestoDTO calcularArbolPresupuesto(Long codCia, Long codPyto, String ingEgr);
+
+    /**
+     * Evento publicado cuando cambian PARTIDA o PARTIDA_MEZCLA de una compañía y
+     * tipo; invalida el índice de jerarquía correspondiente
+     */
+    record CatalogoPartidasModificadoEvent(Long codCia, String ingEgr) {
+    }
 }
@@ -3,6 +3,7 @@ package com.proyectos.comprobantespago.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 public class PartidaMezclaService {
 
     private final PartidaMezclaRepository partidaMezclaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todas las mezclas
@@ -61,7 +63,9 @@ public class PartidaMezclaService {
      * Crear nueva mezcla
      */
     public PartidaMezcla save(PartidaMezcla partidaMezcla) {
-        return partidaMezclaRepository.save(partidaMezcla);
+        PartidaMezcla guardada = partidaMezclaRepository.save(partidaMezcla);
+        eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(guardada.getCodCia(), guardada.getIngEgr()));
+        return guardada;
     }
 
     /**
@@ -79,7 +83,9 @@ public class PartidaMezclaService {
                     mezcla.setNivel(mezclaActualizada.getNivel());
                     mezcla.setOrden(mezclaActualizada.getOrden());
                     mezcla.setVigente(mezclaActualizada.getVigente());
-                    return partidaMezclaRepository.save(mezcla);
+                    PartidaMezcla guardada = partidaMezclaRepository.save(mezcla);
+                    eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(codCia, ingEgr));
+                    return guardada;
                 })
                 .orElseThrow(() -> new RuntimeException("Partida Mezcla no encontrada"));
     }
@@ -90,5 +96,6 @@ public class PartidaMezclaService {
     public void delete(Long codCia, String ingEgr, Long codPartida, Long corr) {
         PartidaMezcla.PartidaMezclaId id = new PartidaMezcla.PartidaMezclaId(codCia, ingEgr, codPartida, corr);
         partidaMezclaRepository.deleteById(id);
+        eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(codCia, ingEgr));
     }
 }
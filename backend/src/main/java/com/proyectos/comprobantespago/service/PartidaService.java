@@ -3,6 +3,7 @@ package com.proyectos.comprobantespago.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 public class PartidaService {
 
     private final PartidaRepository partidaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todas las partidas
@@ -75,7 +77,9 @@ public class PartidaService {
      * Crear nueva partida
      */
     public Partida save(Partida partida) {
-        return partidaRepository.save(partida);
+        Partida guardada = partidaRepository.save(partida);
+        eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(guardada.getCodCia(), guardada.getIngEgr()));
+        return guardada;
     }
 
     /**
@@ -93,7 +97,9 @@ public class PartidaService {
                     partida.setEUniMed(partidaActualizada.getEUniMed());
                     partida.setSemilla(partidaActualizada.getSemilla());
                     partida.setVigente(partidaActualizada.getVigente());
-                    return partidaRepository.save(partida);
+                    Partida guardada = partidaRepository.save(partida);
+                    eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(codCia, ingEgr));
+                    return guardada;
                 })
                 .orElseThrow(() -> new RuntimeException("Partida no encontrada"));
     }
@@ -104,6 +110,7 @@ public class PartidaService {
     public void delete(Long codCia, String ingEgr, Long codPartida) {
         Partida.PartidaId id = new Partida.PartidaId(codCia, ingEgr, codPartida);
         partidaRepository.deleteById(id);
+        eventPublisher.publishEvent(new PartidaHierarchyService.CatalogoPartidasModificadoEvent(codCia, ingEgr));
     }
 
     /**
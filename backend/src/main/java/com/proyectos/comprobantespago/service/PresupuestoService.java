@@ -4,31 +4,41 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.proyectos.comprobantespago.dto.AlertaPresupuestoDTO;
+import com.proyectos.comprobantespago.dto.AlertasCompaniaDTO;
+import com.proyectos.comprobantespago.dto.BorradorEgresoDTO;
 import com.proyectos.comprobantespago.dto.ComprobantePagoDetalleDTO;
 import com.proyectos.comprobantespago.dto.DetalleValidacionDTO;
 import com.proyectos.comprobantespago.dto.PresupuestoDisponibleDTO;
 import com.proyectos.comprobantespago.dto.PresupuestoPartidaDTO;
 import com.proyectos.comprobantespago.dto.ResumenPresupuestoProyectoDTO;
+import com.proyectos.comprobantespago.dto.SimulacionPresupuestoDTO;
 import com.proyectos.comprobantespago.dto.ValidacionPresupuestoDTO;
-import com.proyectos.comprobantespago.entity.ComprobantePagoDet;
 import com.proyectos.comprobantespago.entity.Partida;
+import com.proyectos.comprobantespago.entity.ProyPartidaEjec;
 import com.proyectos.comprobantespago.entity.ProyPartidaMezcla;
 import com.proyectos.comprobantespago.entity.Proyecto;
-import com.proyectos.comprobantespago.entity.VtaCompPagoDet;
 import com.proyectos.comprobantespago.exception.PresupuestoInsuficienteException;
-import com.proyectos.comprobantespago.repository.ComprobantePagoDetRepository;
 import com.proyectos.comprobantespago.repository.PartidaRepository;
 import com.proyectos.comprobantespago.repository.ProyPartidaMezclaRepository;
 import com.proyectos.comprobantespago.repository.ProyectoRepository;
-import com.proyectos.comprobantespago.repository.VtaCompPagoDetRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -43,10 +53,11 @@ import lombok.extern.slf4j.Slf4j;
 public class PresupuestoService {
 
     private final ProyPartidaMezclaRepository proyPartidaMezclaRepository;
-    private final ComprobantePagoDetRepository comprobantePagoDetRepository;
-    private final VtaCompPagoDetRepository vtaCompPagoDetRepository;
     private final ProyectoRepository proyectoRepository;
     private final PartidaRepository partidaRepository;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
+    private final ReservaPresupuestoService reservaPresupuestoService;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Valida que un egreso no supere el presupuesto disponible
@@ -55,7 +66,8 @@ public class PresupuestoService {
      * @param codPyto  Código de proyecto
      * @param detalles Lista de detalles del comprobante a validar
      * @return ValidacionPresupuestoDTO con resultado de validación
-     * @throws PresupuestoInsuficienteException si no hay presupuesto suficiente
+     * @throws PresupuestoInsuficienteException si no hay presupuesto suficiente y
+     *                                          la reserva rechaza sobregiros
      */
     public ValidacionPresupuestoDTO validarEgreso(
             Long codCia,
@@ -64,6 +76,19 @@ public class PresupuestoService {
 
         log.info("Validando egreso para proyecto {}-{} con {} detalles", codCia, codPyto, detalles.size());
 
+        Timer.Sample muestra = Timer.start(meterRegistry);
+
+        // Versiones de las reservas antes de leer el ejecutado en BD
+        Map<Long, Long> versiones = new HashMap<>();
+        for (ComprobantePagoDetalleDTO detalle : detalles) {
+            versiones.put(detalle.getCodPartida(), reservaPresupuestoService.version(
+                    new ReservaPresupuestoService.ClavePartida(codCia, codPyto, detalle.getCodPartida())));
+        }
+
+        // Resolver todas las partidas del comprobante con consultas agrupadas
+        LotePresupuesto lote = cargarPresupuestos(codCia, codPyto,
+                detalles.stream().map(ComprobantePagoDetalleDTO::getCodPartida).toList());
+
         List<DetalleValidacionDTO> detallesValidacion = new ArrayList<>();
         List<AlertaPresupuestoDTO> alertas = new ArrayList<>();
         boolean todosValidos = true;
@@ -71,12 +96,22 @@ public class PresupuestoService {
 
         for (ComprobantePagoDetalleDTO detalle : detalles) {
             // Obtener presupuesto disponible de la partida
-            PresupuestoDisponibleDTO presupuesto = getPresupuestoDisponible(
-                    codCia, codPyto, detalle.getCodPartida());
+            PresupuestoDisponibleDTO presupuesto = lote.presupuestos().get(detalle.getCodPartida());
+
+            // Reservar el monto hasta que termine la transacción; lo reservado por
+            // otras transacciones en curso cuenta como ejecutado
+            ReservaPresupuestoService.Reserva reserva = reservaPresupuestoService.reservarEnTransaccion(
+                    new ReservaPresupuestoService.ClavePartida(codCia, codPyto, detalle.getCodPartida()),
+                    presupuesto.getPresupuestoOriginal(),
+                    presupuesto.getPresupuestoEjecutado(),
+                    versiones.get(detalle.getCodPartida()),
+                    () -> ejecucionPresupuestoService.obtenerEjecutado(
+                            codCia, codPyto, presupuesto.getIngEgr(), detalle.getCodPartida()),
+                    detalle.getImpTotalMn());
+            BigDecimal comprometido = reserva.ejecutado().add(reserva.reservadoPrevio());
 
             // Calcular nuevo ejecutado y porcentaje
-            BigDecimal nuevoEjecutado = presupuesto.getPresupuestoEjecutado()
-                    .add(detalle.getImpTotalMn());
+            BigDecimal nuevoEjecutado = comprometido.add(detalle.getImpTotalMn());
             BigDecimal nuevoPorcentaje = calcularPorcentaje(
                     nuevoEjecutado, presupuesto.getPresupuestoOriginal());
             BigDecimal nuevoDisponible = presupuesto.getPresupuestoOriginal()
@@ -91,8 +126,8 @@ public class PresupuestoService {
                     .codPartida(detalle.getCodPartida())
                     .nombrePartida(presupuesto.getNombrePartida())
                     .presupuestoOriginal(presupuesto.getPresupuestoOriginal())
-                    .presupuestoEjecutado(presupuesto.getPresupuestoEjecutado())
-                    .presupuestoDisponible(presupuesto.getPresupuestoDisponible())
+                    .presupuestoEjecutado(comprometido)
+                    .presupuestoDisponible(presupuesto.getPresupuestoOriginal().subtract(comprometido))
                     .montoSolicitado(detalle.getImpTotalMn())
                     .porcentajeEjecucion(nuevoPorcentaje)
                     .nivelAlerta(nivelAlerta)
@@ -110,7 +145,7 @@ public class PresupuestoService {
                 mensajeError.append(String.format(
                         "Partida %s: Presupuesto insuficiente. Disponible: S/ %.2f, Solicitado: S/ %.2f",
                         presupuesto.getNombrePartida(),
-                        presupuesto.getPresupuestoDisponible(),
+                        presupuesto.getPresupuestoOriginal().subtract(comprometido),
                         detalle.getImpTotalMn()));
             }
 
@@ -141,6 +176,13 @@ public class PresupuestoService {
             log.info("Validación de egreso aprobada con {} alertas", alertas.size());
         }
 
+        // Métricas por solicitud: consultas a BD, partidas resueltas y tiempo
+        meterRegistry.summary("presupuesto.validacion.consultas").record(lote.consultas());
+        meterRegistry.summary("presupuesto.validacion.partidas").record(lote.presupuestos().size());
+        muestra.stop(meterRegistry.timer("presupuesto.validacion.tiempo"));
+        log.debug("Validación de egreso resuelta con {} consultas para {} partidas",
+                lote.consultas(), lote.presupuestos().size());
+
         return resultado;
     }
 
@@ -157,60 +199,24 @@ public class PresupuestoService {
             Long codPyto,
             Long codPartida) {
 
-        // Determinar tipo de partida (I o E)
-        String ingEgr = determinarTipoPartida(codCia, codPartida);
-
-        // 1. Obtener presupuesto total de la partida
-        BigDecimal presupuestoTotal = proyPartidaMezclaRepository
-                .findByCodCiaAndCodPytoAndIngEgrAndCodPartida(codCia, codPyto, ingEgr, codPartida)
-                .stream()
-                .map(ProyPartidaMezcla::getCostoTot)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // 2. Obtener total ejecutado (gastado)
-        BigDecimal ejecutado = BigDecimal.ZERO;
-
-        if ("E".equals(ingEgr)) {
-            // Para egresos: sumar comprobantes de pago
-            ejecutado = comprobantePagoDetRepository
-                    .findByCodCiaAndIngEgrAndCodPartida(codCia, ingEgr, codPartida)
-                    .stream()
-                    .map(ComprobantePagoDet::getTotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        } else if ("I".equals(ingEgr)) {
-            // Para ingresos: sumar comprobantes de venta
-            ejecutado = vtaCompPagoDetRepository
-                    .findByCodCiaAndIngEgrAndCodPartida(codCia, ingEgr, codPartida)
-                    .stream()
-                    .map(VtaCompPagoDet::getImpTotalMn)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-
-        // 3. Calcular disponible
-        BigDecimal disponible = presupuestoTotal.subtract(ejecutado);
-
-        // 4. Calcular porcentaje de ejecución
-        BigDecimal porcentajeEjecutado = calcularPorcentaje(ejecutado, presupuestoTotal);
-
-        // 5. Determinar nivel de alerta
-        String nivelAlerta = determinarNivelAlerta(porcentajeEjecutado);
+        return getPresupuestosDisponibles(codCia, codPyto, List.of(codPartida)).get(codPartida);
+    }
 
-        // 6. Obtener nombre de la partida
-        String nombrePartida = obtenerNombrePartida(codCia, ingEgr, codPartida);
+    /**
+     * Obtiene el presupuesto disponible de varias partidas de un proyecto con un
+     * número constante de consultas (tipo y nombre, presupuesto y ejecutado)
+     *
+     * @param codCia      Código de compañía
+     * @param codPyto     Código de proyecto
+     * @param codPartidas Códigos de partida
+     * @return Mapa codPartida -> PresupuestoDisponibleDTO
+     */
+    public Map<Long, PresupuestoDisponibleDTO> getPresupuestosDisponibles(
+            Long codCia,
+            Long codPyto,
+            Collection<Long> codPartidas) {
 
-        return PresupuestoDisponibleDTO.builder()
-                .codCia(codCia)
-                .codPyto(codPyto)
-                .ingEgr(ingEgr)
-                .codPartida(codPartida)
-                .nombrePartida(nombrePartida)
-                .presupuestoOriginal(presupuestoTotal)
-                .presupuestoEjecutado(ejecutado)
-                .presupuestoDisponible(disponible)
-                .porcentajeEjecucion(porcentajeEjecutado)
-                .nivelAlerta(nivelAlerta)
-                .disponible(disponible.compareTo(BigDecimal.ZERO) > 0)
-                .build();
+        return cargarPresupuestos(codCia, codPyto, codPartidas).presupuestos();
     }
 
     /**
@@ -246,44 +252,256 @@ public class PresupuestoService {
         List<ProyPartidaMezcla> partidas = proyPartidaMezclaRepository
                 .findByCodCiaAndCodPyto(codCia, codPyto);
 
-        // Agrupar por partida única
-        partidas.stream()
+        // Agrupar por partida única y cargar el presupuesto de todas en un solo lote
+        List<PartidaKey> claves = partidas.stream()
                 .map(p -> new PartidaKey(p.getCodCia(), p.getCodPyto(), p.getIngEgr(), p.getCodPartida()))
                 .distinct()
-                .forEach(key -> {
-                    PresupuestoDisponibleDTO presupuesto = getPresupuestoDisponible(
-                            key.codCia, key.codPyto, key.codPartida);
-
-                    BigDecimal porcentaje = presupuesto.getPorcentajeEjecucion();
-                    String nivelAlerta = presupuesto.getNivelAlerta();
-
-                    // Solo generar alertas para niveles amarillo, naranja y rojo
-                    if (!"verde".equals(nivelAlerta)) {
-                        AlertaPresupuestoDTO alerta = crearAlerta(
-                                key.codPartida,
-                                presupuesto.getNombrePartida(),
-                                porcentaje,
-                                presupuesto.getPresupuestoOriginal(),
-                                presupuesto.getPresupuestoEjecutado(),
-                                presupuesto.getPresupuestoDisponible(),
-                                nivelAlerta);
-                        alertas.add(alerta);
-                    }
-                });
+                .toList();
+        Map<Long, PresupuestoDisponibleDTO> presupuestos = cargarPresupuestos(codCia, codPyto,
+                claves.stream().map(PartidaKey::codPartida).toList()).presupuestos();
 
-        // Ordenar por criticidad (rojo > naranja > amarillo) y luego por porcentaje
-        alertas.sort((a1, a2) -> {
-            int nivelCompare = getNivelPrioridad(a2.getNivel()) - getNivelPrioridad(a1.getNivel());
-            if (nivelCompare != 0) {
-                return nivelCompare;
+        claves.forEach(key -> {
+            PresupuestoDisponibleDTO presupuesto = presupuestos.get(key.codPartida);
+
+            BigDecimal porcentaje = presupuesto.getPorcentajeEjecucion();
+            String nivelAlerta = presupuesto.getNivelAlerta();
+
+            // Solo generar alertas para niveles amarillo, naranja y rojo
+            if (!"verde".equals(nivelAlerta)) {
+                AlertaPresupuestoDTO alerta = crearAlerta(
+                        key.codPartida,
+                        presupuesto.getNombrePartida(),
+                        porcentaje,
+                        presupuesto.getPresupuestoOriginal(),
+                        presupuesto.getPresupuestoEjecutado(),
+                        presupuesto.getPresupuestoDisponible(),
+                        nivelAlerta);
+                alerta.setCodPyto(codPyto);
+                alertas.add(alerta);
             }
-            return a2.getPorcentajeEjecucion().compareTo(a1.getPorcentajeEjecucion());
         });
 
+        // Ordenar por criticidad (rojo > naranja > amarillo) y luego por porcentaje
+        ordenarPorCriticidad(alertas);
+
         log.info("Se generaron {} alertas para el proyecto", alertas.size());
         return alertas;
     }
 
+    /**
+     * Genera las alertas de sobrecosto de todos los proyectos de una compañía a
+     * partir de consultas agrupadas (presupuesto por proyecto y partida, ledger de
+     * ejecución, catálogo de partidas y proyectos), sin consultas por proyecto.
+     * La transacción tiene un tiempo máximo configurable para acotar la latencia.
+     *
+     * @param codCia Código de compañía
+     * @param limite Número máximo de alertas a retornar (0 = todas)
+     * @return AlertasCompaniaDTO con los totales por nivel y las alertas más críticas
+     */
+    @Transactional(readOnly = true, timeoutString = "${presupuesto.alertas.compania.timeout-segundos:10}")
+    public AlertasCompaniaDTO generarAlertasCompania(Long codCia, int limite) {
+        log.info("Generando alertas de presupuesto de la compañía {}", codCia);
+
+        long inicio = System.nanoTime();
+
+        // 1. Presupuesto total agrupado por (proyecto, tipo, partida)
+        Map<PartidaKey, BigDecimal> presupuestoTotal = new LinkedHashMap<>();
+        for (Object[] fila : proyPartidaMezclaRepository.sumarCostoTotalPorCompania(codCia)) {
+            presupuestoTotal.put(
+                    new PartidaKey(codCia, ((Number) fila[0]).longValue(), (String) fila[1],
+                            ((Number) fila[2]).longValue()),
+                    fila[3] != null ? (BigDecimal) fila[3] : BigDecimal.ZERO);
+        }
+
+        // 2. Ejecutado desde el ledger
+        Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> ejecutados = ejecucionPresupuestoService
+                .obtenerEjecutadosCompania(codCia);
+
+        // 3. Nombres de partidas (por tipo) y de proyectos
+        Map<Long, String> partidasEgreso = new HashMap<>();
+        Map<Long, String> partidasIngreso = new HashMap<>();
+        for (Partida partida : partidaRepository.findByCodCia(codCia)) {
+            if ("E".equals(partida.getIngEgr())) {
+                partidasEgreso.put(partida.getCodPartida(), partida.getDesPartida());
+            } else if ("I".equals(partida.getIngEgr())) {
+                partidasIngreso.put(partida.getCodPartida(), partida.getDesPartida());
+            }
+        }
+        Map<Long, String> proyectos = new HashMap<>();
+        for (Proyecto proyecto : proyectoRepository.findByCodCia(codCia)) {
+            proyectos.put(proyecto.getCodPyto(), proyecto.getNombPyto());
+        }
+
+        List<AlertaPresupuestoDTO> alertas = new ArrayList<>();
+        Set<Long> proyectosEvaluados = new HashSet<>();
+        for (Map.Entry<PartidaKey, BigDecimal> entry : presupuestoTotal.entrySet()) {
+            PartidaKey key = entry.getKey();
+            proyectosEvaluados.add(key.codPyto());
+
+            String nombrePartida = ("E".equals(key.ingEgr()) ? partidasEgreso : partidasIngreso)
+                    .get(key.codPartida());
+            if (nombrePartida == null) {
+                nombrePartida = String.format("Partida %s-%d", key.ingEgr(), key.codPartida());
+            }
+            BigDecimal ejecutado = ejecutados.getOrDefault(
+                    new ProyPartidaEjec.ProyPartidaEjecId(codCia, key.codPyto(), key.ingEgr(), key.codPartida()),
+                    BigDecimal.ZERO);
+
+            PresupuestoDisponibleDTO presupuesto = construirPresupuesto(codCia, key.codPyto(), key.ingEgr(),
+                    key.codPartida(), nombrePartida, entry.getValue(), ejecutado);
+
+            if ("verde".equals(presupuesto.getNivelAlerta())) {
+                continue;
+            }
+
+            AlertaPresupuestoDTO alerta = crearAlerta(
+                    key.codPartida(),
+                    nombrePartida,
+                    presupuesto.getPorcentajeEjecucion(),
+                    presupuesto.getPresupuestoOriginal(),
+                    presupuesto.getPresupuestoEjecutado(),
+                    presupuesto.getPresupuestoDisponible(),
+                    presupuesto.getNivelAlerta());
+            alerta.setCodPyto(key.codPyto());
+            alerta.setNombPyto(proyectos.get(key.codPyto()));
+            alertas.add(alerta);
+        }
+
+        ordenarPorCriticidad(alertas);
+
+        long criticas = alertas.stream().filter(a -> "rojo".equals(a.getNivel())).count();
+        long urgentes = alertas.stream().filter(a -> "naranja".equals(a.getNivel())).count();
+        long atencion = alertas.stream().filter(a -> "amarillo".equals(a.getNivel())).count();
+
+        long tiempo = System.nanoTime() - inicio;
+        meterRegistry.timer("presupuesto.alertas.compania.tiempo").record(tiempo, TimeUnit.NANOSECONDS);
+        log.info("Compañía {}: {} alertas en {} partidas de {} proyectos ({} ms)", codCia, alertas.size(),
+                presupuestoTotal.size(), proyectosEvaluados.size(), TimeUnit.NANOSECONDS.toMillis(tiempo));
+
+        return AlertasCompaniaDTO.builder()
+                .codCia(codCia)
+                .proyectosEvaluados(proyectosEvaluados.size())
+                .partidasEvaluadas(presupuestoTotal.size())
+                .alertasCriticas(criticas)
+                .alertasUrgentes(urgentes)
+                .alertasAtencion(atencion)
+                .alertas(limite > 0 && alertas.size() > limite ? List.copyOf(alertas.subList(0, limite)) : alertas)
+                .tiempoMs(TimeUnit.NANOSECONDS.toMillis(tiempo))
+                .fechaCalculo(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Simula una serie de egresos hipotéticos (borradores) sobre el presupuesto de
+     * un proyecto. Carga una sola vez el presupuesto y lo ejecutado de las
+     * partidas involucradas y aplica los borradores en orden en memoria, sin
+     * volver a consultar la BD.
+     *
+     * @param codCia      Código de compañía
+     * @param codPyto     Código de proyecto
+     * @param borradores  Borradores de comprobantes en el orden en que se aplicarían
+     * @return SimulacionPresupuestoDTO con la ejecución proyectada por partida y
+     *         el resultado acumulado de cada borrador
+     */
+    public SimulacionPresupuestoDTO simularEgresos(Long codCia, Long codPyto, List<BorradorEgresoDTO> borradores) {
+        log.info("Simulando {} borradores de egreso para proyecto {}-{}", borradores.size(), codCia, codPyto);
+
+        // 1. Snapshot: presupuesto y ejecutado de las partidas de todos los borradores
+        Set<Long> codPartidas = new LinkedHashSet<>();
+        for (BorradorEgresoDTO borrador : borradores) {
+            if (borrador.getDetalles() != null) {
+                borrador.getDetalles().forEach(d -> codPartidas.add(d.getCodPartida()));
+            }
+        }
+        LotePresupuesto lote = cargarPresupuestos(codCia, codPyto, codPartidas);
+
+        Map<Long, PartidaSimulacion> estado = new LinkedHashMap<>();
+        lote.presupuestos().forEach((codPartida, presupuesto) -> estado.put(codPartida,
+                new PartidaSimulacion(presupuesto)));
+
+        // 2. Aplicar los borradores en orden sobre el snapshot
+        List<SimulacionPresupuestoDTO.ResultadoBorrador> resultados = new ArrayList<>();
+        for (int i = 0; i < borradores.size(); i++) {
+            BorradorEgresoDTO borrador = borradores.get(i);
+
+            Map<Long, BigDecimal> montos = new LinkedHashMap<>();
+            if (borrador.getDetalles() != null) {
+                for (ComprobantePagoDetalleDTO detalle : borrador.getDetalles()) {
+                    BigDecimal monto = detalle.getImpTotalMn() != null ? detalle.getImpTotalMn() : BigDecimal.ZERO;
+                    montos.merge(detalle.getCodPartida(), monto, BigDecimal::add);
+                }
+            }
+
+            BigDecimal montoTotal = BigDecimal.ZERO;
+            List<Long> excedidas = new ArrayList<>();
+            String nivelMaximo = "verde";
+            for (Map.Entry<Long, BigDecimal> entry : montos.entrySet()) {
+                PartidaSimulacion partida = estado.get(entry.getKey());
+                partida.montoSimulado = partida.montoSimulado.add(entry.getValue());
+                montoTotal = montoTotal.add(entry.getValue());
+
+                BigDecimal porcentaje = calcularPorcentaje(partida.ejecutadoProyectado(),
+                        partida.presupuesto.getPresupuestoOriginal());
+                String nivel = determinarNivelAlerta(porcentaje);
+                if (getNivelPrioridad(nivel) > getNivelPrioridad(nivelMaximo)) {
+                    nivelMaximo = nivel;
+                }
+
+                if (partida.disponibleProyectado().compareTo(BigDecimal.ZERO) < 0) {
+                    excedidas.add(entry.getKey());
+                    if (partida.primerBorradorExcedido == null) {
+                        partida.primerBorradorExcedido = i;
+                        partida.referenciaPrimerExceso = borrador.getReferencia();
+                    }
+                }
+            }
+
+            resultados.add(SimulacionPresupuestoDTO.ResultadoBorrador.builder()
+                    .indice(i)
+                    .referencia(borrador.getReferencia())
+                    .montoTotal(montoTotal)
+                    .excede(!excedidas.isEmpty())
+                    .partidasExcedidas(excedidas)
+                    .nivelAlertaMaximo(nivelMaximo)
+                    .build());
+        }
+
+        // 3. Proyección final por partida
+        List<SimulacionPresupuestoDTO.PartidaSimulada> partidas = new ArrayList<>();
+        for (Map.Entry<Long, PartidaSimulacion> entry : estado.entrySet()) {
+            PartidaSimulacion partida = entry.getValue();
+            BigDecimal porcentaje = calcularPorcentaje(partida.ejecutadoProyectado(),
+                    partida.presupuesto.getPresupuestoOriginal());
+            partidas.add(SimulacionPresupuestoDTO.PartidaSimulada.builder()
+                    .codPartida(entry.getKey())
+                    .ingEgr(partida.presupuesto.getIngEgr())
+                    .nombrePartida(partida.presupuesto.getNombrePartida())
+                    .presupuestoOriginal(partida.presupuesto.getPresupuestoOriginal())
+                    .ejecutadoActual(partida.presupuesto.getPresupuestoEjecutado())
+                    .montoSimulado(partida.montoSimulado)
+                    .ejecutadoProyectado(partida.ejecutadoProyectado())
+                    .disponibleProyectado(partida.disponibleProyectado())
+                    .porcentajeProyectado(porcentaje)
+                    .nivelAlerta(determinarNivelAlerta(porcentaje))
+                    .primerBorradorExcedido(partida.primerBorradorExcedido)
+                    .referenciaPrimerExceso(partida.referenciaPrimerExceso)
+                    .build());
+        }
+
+        int conExceso = (int) resultados.stream().filter(SimulacionPresupuestoDTO.ResultadoBorrador::isExcede).count();
+        log.info("Simulación de {} borradores: {} con exceso, {} consultas a BD", borradores.size(), conExceso,
+                lote.consultas());
+
+        return SimulacionPresupuestoDTO.builder()
+                .codCia(codCia)
+                .codPyto(codPyto)
+                .borradoresSimulados(borradores.size())
+                .borradoresConExceso(conExceso)
+                .partidas(partidas)
+                .borradores(resultados)
+                .build();
+    }
+
     /**
      * Obtiene el presupuesto de todas las partidas de un proyecto
      */
@@ -294,25 +512,28 @@ public class PresupuestoService {
         List<ProyPartidaMezcla> partidas = proyPartidaMezclaRepository
                 .findByCodCiaAndCodPyto(codCia, codPyto);
 
-        // Agrupar por partida
-        partidas.stream()
+        // Agrupar por partida y cargar el presupuesto de todas en un solo lote
+        List<PartidaKey> claves = partidas.stream()
                 .map(p -> new PartidaKey(p.getCodCia(), p.getCodPyto(), p.getIngEgr(), p.getCodPartida()))
                 .distinct()
-                .forEach(key -> {
-                    PresupuestoDisponibleDTO presupuesto = getPresupuestoDisponible(
-                            key.codCia, key.codPyto, key.codPartida);
-
-                    resultado.add(PresupuestoPartidaDTO.builder()
-                            .codPartida(key.codPartida)
-                            .ingEgr(key.ingEgr)
-                            .nombrePartida(presupuesto.getNombrePartida())
-                            .presupuestoTotal(presupuesto.getPresupuestoOriginal())
-                            .ejecutado(presupuesto.getPresupuestoEjecutado())
-                            .disponible(presupuesto.getPresupuestoDisponible())
-                            .porcentajeEjecutado(presupuesto.getPorcentajeEjecucion())
-                            .estado(presupuesto.getNivelAlerta())
-                            .build());
-                });
+                .toList();
+        Map<Long, PresupuestoDisponibleDTO> presupuestos = cargarPresupuestos(codCia, codPyto,
+                claves.stream().map(PartidaKey::codPartida).toList()).presupuestos();
+
+        claves.forEach(key -> {
+            PresupuestoDisponibleDTO presupuesto = presupuestos.get(key.codPartida);
+
+            resultado.add(PresupuestoPartidaDTO.builder()
+                    .codPartida(key.codPartida)
+                    .ingEgr(key.ingEgr)
+                    .nombrePartida(presupuesto.getNombrePartida())
+                    .presupuestoTotal(presupuesto.getPresupuestoOriginal())
+                    .ejecutado(presupuesto.getPresupuestoEjecutado())
+                    .disponible(presupuesto.getPresupuestoDisponible())
+                    .porcentajeEjecutado(presupuesto.getPorcentajeEjecucion())
+                    .estado(presupuesto.getNivelAlerta())
+                    .build());
+        });
 
         return resultado;
     }
@@ -369,10 +590,108 @@ public class PresupuestoService {
 
     // ==================== Métodos auxiliares ====================
 
+    /**
+     * Carga el presupuesto de un conjunto de partidas con consultas agrupadas:
+     * 1) catálogo de partidas (tipo I/E y nombre) con un IN,
+     * 2) presupuesto agrupado por partida,
+     * 3) ejecutado desde el ledger.
+     */
+    private LotePresupuesto cargarPresupuestos(Long codCia, Long codPyto, Collection<Long> codPartidas) {
+        Set<Long> codigos = new LinkedHashSet<>(codPartidas);
+        Map<Long, PresupuestoDisponibleDTO> presupuestos = new LinkedHashMap<>();
+        if (codigos.isEmpty()) {
+            return new LotePresupuesto(presupuestos, 0);
+        }
+        int consultas = 0;
+
+        // 1. Tipo de partida (si existe como egreso es E, si no I) y nombre
+        Map<Long, Partida> egresos = new HashMap<>();
+        Map<Long, Partida> ingresos = new HashMap<>();
+        List<Partida> catalogo = partidaRepository.findByCodCiaAndCodPartidaIn(codCia, codigos);
+        consultas++;
+        for (Partida partida : catalogo) {
+            if ("E".equals(partida.getIngEgr())) {
+                egresos.put(partida.getCodPartida(), partida);
+            } else if ("I".equals(partida.getIngEgr())) {
+                ingresos.put(partida.getCodPartida(), partida);
+            }
+        }
+
+        // 2. Presupuesto total agrupado por (tipo, partida)
+        Map<PartidaKey, BigDecimal> presupuestoTotal = new HashMap<>();
+        List<Object[]> filasPresupuesto = proyPartidaMezclaRepository
+                .sumarCostoTotalPorPartidas(codCia, codPyto, codigos);
+        consultas++;
+        for (Object[] fila : filasPresupuesto) {
+            presupuestoTotal.put(
+                    new PartidaKey(codCia, codPyto, (String) fila[0], ((Number) fila[1]).longValue()),
+                    (BigDecimal) fila[2]);
+        }
+
+        // 3. Ejecutado desde el ledger
+        Map<ProyPartidaEjec.ProyPartidaEjecId, BigDecimal> ejecutados = ejecucionPresupuestoService
+                .obtenerEjecutados(codCia, codPyto, codigos);
+        consultas++;
+
+        for (Long codPartida : codigos) {
+            String ingEgr = egresos.containsKey(codPartida) ? "E" : "I";
+            Partida partida = "E".equals(ingEgr) ? egresos.get(codPartida) : ingresos.get(codPartida);
+            String nombrePartida = partida != null
+                    ? partida.getDesPartida()
+                    : String.format("Partida %s-%d", ingEgr, codPartida);
+
+            BigDecimal total = presupuestoTotal.getOrDefault(
+                    new PartidaKey(codCia, codPyto, ingEgr, codPartida), BigDecimal.ZERO);
+            BigDecimal ejecutado = ejecutados.getOrDefault(
+                    new ProyPartidaEjec.ProyPartidaEjecId(codCia, codPyto, ingEgr, codPartida), BigDecimal.ZERO);
+
+            presupuestos.put(codPartida,
+                    construirPresupuesto(codCia, codPyto, ingEgr, codPartida, nombrePartida, total, ejecutado));
+        }
+
+        return new LotePresupuesto(presupuestos, consultas);
+    }
+
+    /**
+     * Arma el DTO de presupuesto disponible a partir del presupuesto y lo ejecutado
+     */
+    private PresupuestoDisponibleDTO construirPresupuesto(
+            Long codCia,
+            Long codPyto,
+            String ingEgr,
+            Long codPartida,
+            String nombrePartida,
+            BigDecimal presupuestoTotal,
+            BigDecimal ejecutado) {
+
+        // Calcular disponible
+        BigDecimal disponible = presupuestoTotal.subtract(ejecutado);
+
+        // Calcular porcentaje de ejecución
+        BigDecimal porcentajeEjecutado = calcularPorcentaje(ejecutado, presupuestoTotal);
+
+        // Determinar nivel de alerta
+        String nivelAlerta = determinarNivelAlerta(porcentajeEjecutado);
+
+        return PresupuestoDisponibleDTO.builder()
+                .codCia(codCia)
+                .codPyto(codPyto)
+                .ingEgr(ingEgr)
+                .codPartida(codPartida)
+                .nombrePartida(nombrePartida)
+                .presupuestoOriginal(presupuestoTotal)
+                .presupuestoEjecutado(ejecutado)
+                .presupuestoDisponible(disponible)
+                .porcentajeEjecucion(porcentajeEjecutado)
+                .nivelAlerta(nivelAlerta)
+                .disponible(disponible.compareTo(BigDecimal.ZERO) > 0)
+                .build();
+    }
+
     /**
      * Calcula el porcentaje de un valor sobre un total
      */
-    private BigDecimal calcularPorcentaje(BigDecimal valor, BigDecimal total) {
+    public static BigDecimal calcularPorcentaje(BigDecimal valor, BigDecimal total) {
         if (total.compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.ZERO;
         }
@@ -389,7 +708,7 @@ public class PresupuestoService {
      * - Naranja: 91-99%
      * - Rojo: 100%+
      */
-    private String determinarNivelAlerta(BigDecimal porcentaje) {
+    public static String determinarNivelAlerta(BigDecimal porcentaje) {
         if (porcentaje.compareTo(BigDecimal.valueOf(100)) >= 0) {
             return "rojo";
         } else if (porcentaje.compareTo(BigDecimal.valueOf(91)) >= 0) {
@@ -458,25 +777,17 @@ public class PresupuestoService {
     }
 
     /**
-     * Obtiene el nombre de una partida
-     */
-    private String obtenerNombrePartida(Long codCia, String ingEgr, Long codPartida) {
-        return partidaRepository
-                .findById(new Partida.PartidaId(codCia, ingEgr, codPartida))
-                .map(Partida::getDesPartida)
-                .orElse(String.format("Partida %s-%d", ingEgr, codPartida));
-    }
-
-    /**
-     * Determina el tipo de partida (I o E) buscando en el catálogo
+     * Ordena alertas por criticidad (rojo > naranja > amarillo) y luego por
+     * porcentaje de ejecución descendente
      */
-    private String determinarTipoPartida(Long codCia, Long codPartida) {
-        // Buscar primero en tipo E (Egreso)
-        if (partidaRepository.findById(new Partida.PartidaId(codCia, "E", codPartida)).isPresent()) {
-            return "E";
-        }
-        // Si no existe, asumir tipo I (Ingreso)
-        return "I";
+    private void ordenarPorCriticidad(List<AlertaPresupuestoDTO> alertas) {
+        alertas.sort((a1, a2) -> {
+            int nivelCompare = getNivelPrioridad(a2.getNivel()) - getNivelPrioridad(a1.getNivel());
+            if (nivelCompare != 0) {
+                return nivelCompare;
+            }
+            return a2.getPorcentajeEjecucion().compareTo(a1.getPorcentajeEjecucion());
+        });
     }
 
     /**
@@ -502,4 +813,32 @@ public class PresupuestoService {
      */
     private record PartidaKey(Long codCia, Long codPyto, String ingEgr, Long codPartida) {
     }
+
+    /**
+     * Estado en memoria de una partida durante la simulación de borradores
+     */
+    private static class PartidaSimulacion {
+        private final PresupuestoDisponibleDTO presupuesto;
+        private BigDecimal montoSimulado = BigDecimal.ZERO;
+        private Integer primerBorradorExcedido;
+        private String referenciaPrimerExceso;
+
+        PartidaSimulacion(PresupuestoDisponibleDTO presupuesto) {
+            this.presupuesto = presupuesto;
+        }
+
+        BigDecimal ejecutadoProyectado() {
+            return presupuesto.getPresupuestoEjecutado().add(montoSimulado);
+        }
+
+        BigDecimal disponibleProyectado() {
+            return presupuesto.getPresupuestoOriginal().subtract(ejecutadoProyectado());
+        }
+    }
+
+    /**
+     * Presupuestos resueltos en lote y número de consultas ejecutadas
+     */
+    private record LotePresupuesto(Map<Long, PresupuestoDisponibleDTO> presupuestos, int consultas) {
+    }
 }
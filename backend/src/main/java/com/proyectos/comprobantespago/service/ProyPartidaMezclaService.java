@@ -3,6 +3,7 @@ package com.proyectos.comprobantespago.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +24,7 @@ public class ProyPartidaMezclaService {
 
     private final ProyPartidaMezclaRepository proyPartidaMezclaRepository;
     private final PartidaMezclaRepository partidaMezclaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todas las mezclas de proyecto
@@ -68,7 +70,9 @@ public class ProyPartidaMezclaService {
      * Crear nueva mezcla de proyecto
      */
     public ProyPartidaMezcla save(ProyPartidaMezcla proyPartidaMezcla) {
-        return proyPartidaMezclaRepository.save(proyPartidaMezcla);
+        ProyPartidaMezcla guardada = proyPartidaMezclaRepository.save(proyPartidaMezcla);
+        eventPublisher.publishEvent(new PartidasProyectoModificadasEvent(guardada.getCodCia(), guardada.getCodPyto()));
+        return guardada;
     }
 
     /**
@@ -105,7 +109,9 @@ public class ProyPartidaMezclaService {
                     if (actualizada.getCostoTot() != null) {
                         mezcla.setCostoTot(actualizada.getCostoTot());
                     }
-                    return proyPartidaMezclaRepository.save(mezcla);
+                    ProyPartidaMezcla guardada = proyPartidaMezclaRepository.save(mezcla);
+                    eventPublisher.publishEvent(new PartidasProyectoModificadasEvent(codCia, codPyto));
+                    return guardada;
                 })
                 .orElseThrow(() -> new RuntimeException("Mezcla de Proyecto no encontrada"));
     }
@@ -117,5 +123,13 @@ public class ProyPartidaMezclaService {
         ProyPartidaMezcla.ProyPartidaMezclaId id = new ProyPartidaMezcla.ProyPartidaMezclaId(codCia, codPyto, ingEgr,
                 nroVersion, codPartida, corr);
         proyPartidaMezclaRepository.deleteById(id);
+        eventPublisher.publishEvent(new PartidasProyectoModificadasEvent(codCia, codPyto));
+    }
+
+    /**
+     * Evento publicado cuando cambian las partidas asignadas al presupuesto de
+     * un proyecto
+     */
+    public record PartidasProyectoModificadasEvent(Long codCia, Long codPyto) {
     }
 }
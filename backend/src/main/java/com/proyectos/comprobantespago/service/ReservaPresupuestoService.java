@@ -0,0 +1,245 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.proyectos.comprobantespago.exception.PresupuestoInsuficienteException;
+import com.proyectos.comprobantespago.exception.ValidationException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de reservas de presupuesto en memoria por partida
+ * Cubre la ventana entre la validación de un egreso y el commit de su
+ * transacción: mientras el comprobante no se confirma, su importe queda
+ * reservado y las validaciones concurrentes sobre la misma partida lo ven.
+ *
+ * Cada partida con reservas en curso tiene su propio saldo (sin bloqueos
+ * entre partidas distintas) que se actualiza con compare-and-set. El saldo
+ * lleva una versión que cambia con cada liberación: si cambió desde que se
+ * leyó el ejecutado en BD, otra transacción confirmó en el intermedio y el
+ * ejecutado se vuelve a leer antes de reintentar.
+ *
+ * El saldo de una partida se descarta cuando se liberan todas sus reservas,
+ * así el mapa solo guarda las partidas con reservas en curso. Las versiones
+ * se toman de un contador común a todas las partidas para que una partida
+ * descartada y vuelta a crear nunca repita una versión ya leída; una partida
+ * sin saldo tiene como versión el valor actual del contador.
+ *
+ * Por defecto (presupuesto.reserva.rechazar-sobregiro=false) nunca rechaza
+ * una reserva: el presupuesto excedido solo genera advertencias, como en el
+ * alta de comprobantes, y las reservas sirven para que esas advertencias
+ * cuenten lo reservado por otras transacciones. Con true, la reserva que
+ * excede el disponible lanza PresupuestoInsuficienteException.
+ */
+@Service
+@Slf4j
+public class ReservaPresupuestoService {
+
+    private final Map<ClavePartida, Saldo> saldos = new ConcurrentHashMap<>();
+    private final AtomicLong versiones = new AtomicLong();
+    private final AtomicInteger reservasActivas = new AtomicInteger();
+
+    private final int maxIntentos;
+    private final boolean rechazarSobregiro;
+
+    private final Counter reintentos;
+    private final Counter conflictos;
+    private final Counter rechazos;
+
+    public ReservaPresupuestoService(
+            MeterRegistry meterRegistry,
+            @Value("${presupuesto.reserva.max-intentos:5}") int maxIntentos,
+            @Value("${presupuesto.reserva.rechazar-sobregiro:false}") boolean rechazarSobregiro) {
+        this.maxIntentos = maxIntentos;
+        this.rechazarSobregiro = rechazarSobregiro;
+        this.reintentos = meterRegistry.counter("presupuesto.reserva.reintentos");
+        this.conflictos = meterRegistry.counter("presupuesto.reserva.conflictos");
+        this.rechazos = meterRegistry.counter("presupuesto.reserva.rechazos");
+        meterRegistry.gauge("presupuesto.reserva.activas", reservasActivas);
+        meterRegistry.gauge("presupuesto.reserva.partidas", saldos, Map::size);
+    }
+
+    /**
+     * Versión actual del saldo de la partida. Debe leerse ANTES de consultar el
+     * ejecutado en BD que luego se pasa a {@link #reservar}.
+     */
+    public long version(ClavePartida clave) {
+        return saldo(clave).version();
+    }
+
+    /**
+     * Importe reservado en este momento para la partida
+     */
+    public BigDecimal reservado(ClavePartida clave) {
+        Saldo saldo = saldos.get(clave);
+        return saldo != null ? saldo.reservado() : BigDecimal.ZERO;
+    }
+
+    /**
+     * Reserva un importe sobre una partida y lo libera automáticamente al
+     * terminar la transacción actual (commit o rollback). Tras el commit el
+     * importe ya figura en el ledger de ejecución.
+     */
+    public Reserva reservarEnTransaccion(
+            ClavePartida clave,
+            BigDecimal presupuesto,
+            BigDecimal ejecutado,
+            long versionLeida,
+            Supplier<BigDecimal> releerEjecutado,
+            BigDecimal monto) {
+
+        Reserva reserva = reservar(clave, presupuesto, ejecutado, versionLeida, releerEjecutado, monto);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    liberar(reserva);
+                }
+            });
+        } else {
+            // Sin transacción no hay a quién asociar la reserva: actúa solo como validación
+            liberar(reserva);
+        }
+        return reserva;
+    }
+
+    /**
+     * Reserva un importe sobre una partida. El llamador es responsable de
+     * liberarla con {@link #liberar}.
+     *
+     * @param clave           Partida a reservar
+     * @param presupuesto     Presupuesto total de la partida
+     * @param ejecutado       Ejecutado leído de BD después de obtener versionLeida
+     * @param versionLeida    Versión del saldo leída antes de consultar el ejecutado
+     * @param releerEjecutado Vuelve a consultar el ejecutado si hubo liberaciones
+     * @param monto           Importe a reservar
+     * @return Reserva realizada con el ejecutado y lo reservado por otros
+     * @throws PresupuestoInsuficienteException si se rechazan sobregiros y no alcanza
+     */
+    public Reserva reservar(
+            ClavePartida clave,
+            BigDecimal presupuesto,
+            BigDecimal ejecutado,
+            long versionLeida,
+            Supplier<BigDecimal> releerEjecutado,
+            BigDecimal monto) {
+
+        long version = versionLeida;
+        int lecturas = 0;
+
+        while (true) {
+            Saldo actual = saldo(clave);
+
+            if (actual.version() != version) {
+                // Otra transacción confirmó (y liberó) después de leer el ejecutado
+                if (++lecturas > maxIntentos) {
+                    descartarSiVacio(clave);
+                    throw new ValidationException(String.format(
+                            "La partida %d tiene demasiados movimientos concurrentes, intente nuevamente",
+                            clave.codPartida()));
+                }
+                reintentos.increment();
+                // Se registra el saldo para que su versión no cambie con liberaciones de otras partidas.
+                // Si no existe se registra vacío: el leído pudo descartarse con la liberación de sus reservas
+                version = saldos.computeIfAbsent(clave, k -> new Saldo(BigDecimal.ZERO, versiones.get())).version();
+                ejecutado = releerEjecutado.get();
+                continue;
+            }
+
+            BigDecimal disponible = presupuesto.subtract(ejecutado).subtract(actual.reservado());
+            if (rechazarSobregiro && monto.compareTo(disponible) > 0) {
+                rechazos.increment();
+                descartarSiVacio(clave);
+                throw new PresupuestoInsuficienteException(String.format(
+                        "Partida %d: Presupuesto insuficiente. Disponible: S/ %.2f, Solicitado: S/ %.2f",
+                        clave.codPartida(), disponible, monto));
+            }
+
+            Saldo nuevo = new Saldo(actual.reservado().add(monto), actual.version());
+            boolean reservado = saldos.containsKey(clave)
+                    ? saldos.replace(clave, actual, nuevo)
+                    : registrarNuevo(clave, actual, nuevo);
+            if (reservado) {
+                reservasActivas.incrementAndGet();
+                log.debug("Reserva {} partida {}: {} (reservado previo {})",
+                        clave.codPyto(), clave.codPartida(), monto, actual.reservado());
+                return new Reserva(clave, monto, ejecutado, actual.reservado());
+            }
+
+            // Otra reserva concurrente sobre la misma partida: reintentar con el saldo nuevo
+            conflictos.increment();
+        }
+    }
+
+    /**
+     * Libera una reserva e incrementa la versión del saldo de la partida
+     */
+    public void liberar(Reserva reserva) {
+        saldos.compute(reserva.clave(), (clave, s) -> {
+            BigDecimal reservado = (s != null ? s.reservado() : BigDecimal.ZERO).subtract(reserva.monto());
+            long version = versiones.incrementAndGet();
+            // Sin reservas en curso la partida se descarta; su versión pasa a ser la del contador
+            return reservado.signum() == 0 ? null : new Saldo(reservado, version);
+        });
+        reservasActivas.decrementAndGet();
+    }
+
+    /**
+     * Número de partidas con saldo registrado (con reservas en curso)
+     */
+    int partidasRegistradas() {
+        return saldos.size();
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private Saldo saldo(ClavePartida clave) {
+        Saldo saldo = saldos.get(clave);
+        return saldo != null ? saldo : new Saldo(BigDecimal.ZERO, versiones.get());
+    }
+
+    /**
+     * Registra el saldo de una partida que no tenía reservas. Solo procede si
+     * ninguna liberación movió el contador desde que se leyó: una liberación de
+     * esta misma partida pudo descartar su saldo después de leerlo
+     */
+    private boolean registrarNuevo(ClavePartida clave, Saldo leido, Saldo nuevo) {
+        return saldos.compute(clave,
+                (k, s) -> s == null && versiones.get() == leido.version() ? nuevo : s) == nuevo;
+    }
+
+    private void descartarSiVacio(ClavePartida clave) {
+        saldos.computeIfPresent(clave, (k, s) -> s.reservado().signum() == 0 ? null : s);
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * Clave de reserva: partida de un proyecto
+     */
+    public record ClavePartida(Long codCia, Long codPyto, Long codPartida) {
+    }
+
+    /**
+     * Reserva realizada: ejecutado considerado y lo reservado por otras
+     * transacciones en el momento de reservar
+     */
+    public record Reserva(ClavePartida clave, BigDecimal monto, BigDecimal ejecutado, BigDecimal reservadoPrevio) {
+    }
+
+    private record Saldo(BigDecimal reservado, long version) {
+    }
+}
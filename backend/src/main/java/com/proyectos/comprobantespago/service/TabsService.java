@@ -3,6 +3,7 @@ package com.proyectos.comprobantespago.service;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +16,8 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Servicio para gestión de Catálogos Maestros (TABS)
+ * Las consultas se responden desde CatalogoService (en memoria); los cambios
+ * se escriben en la BD y recargan el catálogo después del commit.
  */
 @Service
 @Transactional
@@ -23,6 +26,8 @@ import lombok.extern.slf4j.Slf4j;
 public class TabsService {
 
     private final TabsRepository tabsRepository;
+    private final CatalogoService catalogoService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todas las tablas vigentes
@@ -30,7 +35,7 @@ public class TabsService {
     @Transactional(readOnly = true)
     public List<TabsDTO> obtenerTodasVigentes() {
         log.info("Obteniendo todas las tablas vigentes");
-        return tabsRepository.findAllVigentesSorted().stream()
+        return catalogoService.tablasVigentes().stream()
                 .map(this::convertirADTO)
                 .collect(Collectors.toList());
     }
@@ -41,9 +46,9 @@ public class TabsService {
     @Transactional(readOnly = true)
     public TabsDTO obtenerPorCodigo(String codTab) {
         log.info("Obteniendo tabla con código: {}", codTab);
-        Tabs tabs = tabsRepository.findById(codTab)
+        return catalogoService.tabla(codTab)
+                .map(this::convertirADTO)
                 .orElseThrow(() -> new RuntimeException("Tabla no encontrada con código: " + codTab));
-        return convertirADTO(tabs);
     }
 
     /**
@@ -62,6 +67,7 @@ public class TabsService {
         }
 
         tabs = tabsRepository.save(tabs);
+        eventPublisher.publishEvent(new CatalogoService.CatalogoModificadoEvent(tabs.getCodTab()));
         return convertirADTO(tabs);
     }
 
@@ -79,6 +85,7 @@ public class TabsService {
         tabs.setVigente(tabsDTO.getVigente());
 
         tabs = tabsRepository.save(tabs);
+        eventPublisher.publishEvent(new CatalogoService.CatalogoModificadoEvent(codTab));
         return convertirADTO(tabs);
     }
 
@@ -93,9 +100,19 @@ public class TabsService {
 
         tabs.setVigente("N");
         tabsRepository.save(tabs);
+        eventPublisher.publishEvent(new CatalogoService.CatalogoModificadoEvent(codTab));
     }
 
     // Métodos de conversión
+    private TabsDTO convertirADTO(CatalogoService.Tabla tabla) {
+        return TabsDTO.builder()
+                .codTab(tabla.codTab())
+                .denTab(tabla.denTab())
+                .denCorta(tabla.denCorta())
+                .vigente(tabla.vigente())
+                .build();
+    }
+
     private TabsDTO convertirADTO(Tabs tabs) {
         return TabsDTO.builder()
                 .codTab(tabs.getCodTab())
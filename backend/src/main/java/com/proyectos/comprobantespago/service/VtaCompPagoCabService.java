@@ -2,25 +2,29 @@ package com.proyectos.comprobantespago.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.proyectos.comprobantespago.dto.VtaCompPagoCabDTO;
 import com.proyectos.comprobantespago.dto.VtaCompPagoDetDTO;
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
 import com.proyectos.comprobantespago.entity.VtaCompPagoCab;
 import com.proyectos.comprobantespago.entity.VtaCompPagoDet;
 import com.proyectos.comprobantespago.exception.ResourceNotFoundException;
 import com.proyectos.comprobantespago.repository.ClienteRepository;
-import com.proyectos.comprobantespago.repository.ElementosRepository;
-import com.proyectos.comprobantespago.repository.PartidaRepository;
 import com.proyectos.comprobantespago.repository.ProyectoRepository;
 import com.proyectos.comprobantespago.repository.VtaCompPagoCabRepository;
 import com.proyectos.comprobantespago.repository.VtaCompPagoDetRepository;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,12 +44,15 @@ public class VtaCompPagoCabService {
     private final VtaCompPagoDetRepository vtaCompPagoDetRepository;
     private final ClienteRepository clienteRepository;
     private final ProyectoRepository proyectoRepository;
-    private final PartidaRepository partidaRepository;
-    private final ElementosRepository elementosRepository;
+    private final VtaCompPagoReferenciasCargador referenciasCargador;
     private final PresupuestoService presupuestoService;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
     private final PartidaHierarchyService partidaHierarchyService;
     private final TaxCalculationService taxCalculationService;
     private final FileStorageService fileStorageService;
+    private final AdjuntoService adjuntoService;
+    private final AdjuntoDescargaService adjuntoDescargaService;
+    private final EntityManager entityManager;
 
     /**
      * Crear nuevo comprobante de venta/ingreso con detalles
@@ -65,9 +72,10 @@ public class VtaCompPagoCabService {
         // 5.3)
         validarNivelesPartidas(dto);
 
-        // Validar que exista el cliente
-        if (!clienteRepository.existsById(
-                new com.proyectos.comprobantespago.entity.Cliente.ClienteId(dto.getCodCia(), dto.getCodCliente()))) {
+        // Validar que exista el cliente (findById usa la caché de segundo nivel)
+        if (clienteRepository.findById(
+                new com.proyectos.comprobantespago.entity.Cliente.ClienteId(dto.getCodCia(), dto.getCodCliente()))
+                .isEmpty()) {
             throw new RuntimeException("No existe el cliente: " + dto.getCodCliente());
         }
 
@@ -102,6 +110,7 @@ public class VtaCompPagoCabService {
         cabecera = vtaCompPagoCabRepository.save(cabecera);
 
         // Crear detalles si existen
+        List<VtaCompPagoDet> detallesGuardados = new ArrayList<>();
         if (dto.getDetalles() != null && !dto.getDetalles().isEmpty()) {
             int sec = 1;
             for (VtaCompPagoDetDTO detalleDTO : dto.getDetalles()) {
@@ -110,10 +119,13 @@ public class VtaCompPagoCabService {
                 detalle.setNroCp(dto.getNroCp());
                 detalle.setSec(sec++);
 
-                vtaCompPagoDetRepository.save(detalle);
+                detallesGuardados.add(vtaCompPagoDetRepository.save(detalle));
             }
         }
 
+        // Registrar la ejecución en el ledger presupuestal
+        ejecucionPresupuestoService.registrarIngresos(cabecera.getCodCia(), cabecera.getCodPyto(), detallesGuardados);
+
         // Verificar si los ingresos superan el valor contractual (Requirement 2.5)
         verificarIngresosSuperanValorContractual(dto.getCodCia(), dto.getCodPyto(), proyecto);
 
@@ -143,13 +155,7 @@ public class VtaCompPagoCabService {
     public List<VtaCompPagoCabDTO> obtenerPorCompania(Long codCia) {
         log.info("Obteniendo comprobantes de venta/ingreso de la compañía: {}", codCia);
 
-        return vtaCompPagoCabRepository.findByCodCia(codCia).stream()
-                .map(cab -> {
-                    List<VtaCompPagoDet> detalles = vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia,
-                            cab.getNroCp());
-                    return convertirCabeceraADTO(cab, detalles);
-                })
-                .collect(Collectors.toList());
+        return convertirCabecerasADTO(codCia, vtaCompPagoCabRepository.findByCodCia(codCia));
     }
 
     /**
@@ -159,13 +165,7 @@ public class VtaCompPagoCabService {
     public List<VtaCompPagoCabDTO> obtenerPorProyecto(Long codCia, Long codPyto) {
         log.info("Obteniendo comprobantes del proyecto: {}-{}", codCia, codPyto);
 
-        return vtaCompPagoCabRepository.findByCodCiaAndCodPyto(codCia, codPyto).stream()
-                .map(cab -> {
-                    List<VtaCompPagoDet> detalles = vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia,
-                            cab.getNroCp());
-                    return convertirCabeceraADTO(cab, detalles);
-                })
-                .collect(Collectors.toList());
+        return convertirCabecerasADTO(codCia, vtaCompPagoCabRepository.findByCodCiaAndCodPyto(codCia, codPyto));
     }
 
     /**
@@ -175,13 +175,7 @@ public class VtaCompPagoCabService {
     public List<VtaCompPagoCabDTO> obtenerPorCliente(Long codCia, Long codCliente) {
         log.info("Obteniendo comprobantes del cliente: {}-{}", codCia, codCliente);
 
-        return vtaCompPagoCabRepository.findByCodCiaAndCodCliente(codCia, codCliente).stream()
-                .map(cab -> {
-                    List<VtaCompPagoDet> detalles = vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia,
-                            cab.getNroCp());
-                    return convertirCabeceraADTO(cab, detalles);
-                })
-                .collect(Collectors.toList());
+        return convertirCabecerasADTO(codCia, vtaCompPagoCabRepository.findByCodCiaAndCodCliente(codCia, codCliente));
     }
 
     /**
@@ -191,17 +185,13 @@ public class VtaCompPagoCabService {
     public List<VtaCompPagoCabDTO> obtenerPorRangoFechas(Long codCia, LocalDate fechaInicio, LocalDate fechaFin) {
         log.info("Obteniendo comprobantes entre {} y {}", fechaInicio, fechaFin);
 
-        return vtaCompPagoCabRepository.findByFechaRange(codCia, fechaInicio, fechaFin).stream()
-                .map(cab -> {
-                    List<VtaCompPagoDet> detalles = vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia,
-                            cab.getNroCp());
-                    return convertirCabeceraADTO(cab, detalles);
-                })
-                .collect(Collectors.toList());
+        return convertirCabecerasADTO(codCia, vtaCompPagoCabRepository.findByFechaRange(codCia, fechaInicio, fechaFin));
     }
 
     /**
      * Actualizar comprobante de venta
+     * Si se envían detalles, solo se escriben las filas que cambian (por sec);
+     * sin detalles, el detalle guardado no se modifica.
      */
     public VtaCompPagoCabDTO actualizar(Long codCia, String nroCp, VtaCompPagoCabDTO dto) {
         log.info("Actualizando comprobante de venta/ingreso: {}", nroCp);
@@ -216,6 +206,10 @@ public class VtaCompPagoCabService {
         // 5.3)
         validarNivelesPartidas(dto);
 
+        // Proyecto y estado previos para ajustar el ledger presupuestal
+        Long codPytoAnterior = cabecera.getCodPyto();
+        boolean contabaEnEjecucion = EjecucionPresupuestoService.cuentaEnEjecucion(cabecera.getCodEstado());
+
         // Actualizar datos de cabecera
         cabecera.setCodCliente(dto.getCodCliente());
         cabecera.setCodPyto(dto.getCodPyto());
@@ -238,6 +232,28 @@ public class VtaCompPagoCabService {
 
         cabecera = vtaCompPagoCabRepository.save(cabecera);
 
+        DiferenciaDetalles<VtaCompPagoDet> diferencia = dto.getDetalles() != null
+                ? actualizarDetalles(codCia, nroCp, dto.getDetalles())
+                : null;
+
+        // Si cambió el proyecto o el comprobante entró/salió de anulado, mover toda
+        // su ejecución; si no, solo lo que cambió en el detalle
+        boolean cuentaEnEjecucion = EjecucionPresupuestoService.cuentaEnEjecucion(cabecera.getCodEstado());
+        if (!codPytoAnterior.equals(cabecera.getCodPyto()) || contabaEnEjecucion != cuentaEnEjecucion) {
+            List<VtaCompPagoDet> anteriores = diferencia != null ? diferencia.getTodosAnteriores()
+                    : vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia, nroCp);
+            List<VtaCompPagoDet> detalles = diferencia != null ? diferencia.getDetalles() : anteriores;
+            if (contabaEnEjecucion) {
+                ejecucionPresupuestoService.revertirIngresos(codCia, codPytoAnterior, anteriores);
+            }
+            if (cuentaEnEjecucion) {
+                ejecucionPresupuestoService.registrarIngresos(codCia, cabecera.getCodPyto(), detalles);
+            }
+        } else if (cuentaEnEjecucion && diferencia != null) {
+            ejecucionPresupuestoService.revertirIngresos(codCia, codPytoAnterior, diferencia.getAnteriores());
+            ejecucionPresupuestoService.registrarIngresos(codCia, codPytoAnterior, diferencia.getCambiados());
+        }
+
         log.info("Comprobante actualizado exitosamente: {}", nroCp);
         return obtenerPorId(codCia, nroCp);
     }
@@ -262,6 +278,12 @@ public class VtaCompPagoCabService {
         VtaCompPagoCab cabecera = vtaCompPagoCabRepository.findByCodCiaAndNroCp(codCia, nroCp)
                 .orElseThrow(() -> new RuntimeException("Comprobante no encontrado: " + nroCp));
 
+        // Liberar la ejecución en el ledger si aún contaba
+        if (EjecucionPresupuestoService.cuentaEnEjecucion(cabecera.getCodEstado())) {
+            ejecucionPresupuestoService.revertirIngresos(codCia, cabecera.getCodPyto(),
+                    vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia, nroCp));
+        }
+
         // Cambiar estado a anulado (ANU)
         cabecera.setTabEstado("014"); // Tabla de estados de comprobante
         cabecera.setCodEstado("ANU"); // Código de anulado
@@ -285,6 +307,10 @@ public class VtaCompPagoCabService {
             throw new RuntimeException("El comprobante ya está anulado");
         }
 
+        // Liberar la ejecución en el ledger presupuestal
+        ejecucionPresupuestoService.revertirIngresos(codCia, cabecera.getCodPyto(),
+                vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia, nroCp));
+
         // Cambiar estado a ANU (Anulado)
         cabecera.setTabEstado("014"); // Tabla de estados de comprobante
         cabecera.setCodEstado("ANU"); // Código de anulado
@@ -482,76 +508,31 @@ public class VtaCompPagoCabService {
     }
 
     // Métodos de conversión
-    private VtaCompPagoCabDTO convertirCabeceraADTO(VtaCompPagoCab cabecera, List<VtaCompPagoDet> detalles) {
-        List<VtaCompPagoDetDTO> detallesDTO = detalles.stream()
-                .map(this::convertirDetalleADTO)
-                .collect(Collectors.toList());
 
-        // Obtener nombres descriptivos de entidades relacionadas
-        String nomProyecto = null;
-        String nomCliente = null;
-        String descMoneda = null;
-        String descTipoComprobante = null;
-        String descEstado = null;
-
-        // Obtener nombre del proyecto
-        try {
-            proyectoRepository.findById(
-                    new com.proyectos.comprobantespago.entity.Proyecto.ProyectoId(cabecera.getCodCia(),
-                            cabecera.getCodPyto()))
-                    .ifPresent(p -> {
-                    });
-            var proyectoOpt = proyectoRepository.findById(
-                    new com.proyectos.comprobantespago.entity.Proyecto.ProyectoId(cabecera.getCodCia(),
-                            cabecera.getCodPyto()));
-            if (proyectoOpt.isPresent()) {
-                nomProyecto = proyectoOpt.get().getNombPyto();
-            }
-        } catch (Exception e) {
-            log.warn("No se pudo obtener el nombre del proyecto: {}", e.getMessage());
-        }
-
-        // Obtener nombre del cliente (a través de Persona)
-        try {
-            var clienteOpt = clienteRepository.findById(
-                    new com.proyectos.comprobantespago.entity.Cliente.ClienteId(cabecera.getCodCia(),
-                            cabecera.getCodCliente()));
-            if (clienteOpt.isPresent() && clienteOpt.get().getPersona() != null) {
-                nomCliente = clienteOpt.get().getPersona().getDesPersona();
-            }
-        } catch (Exception e) {
-            log.warn("No se pudo obtener el nombre del cliente: {}", e.getMessage());
-        }
-
-        // Obtener descripción de la moneda (codTab='003')
-        try {
-            var monedaOpt = elementosRepository.findByCodTabAndCodElemAndVigente("003", cabecera.getEMoneda(), "1");
-            if (monedaOpt.isPresent()) {
-                descMoneda = monedaOpt.get().getDenEle();
-            }
-        } catch (Exception e) {
-            log.warn("No se pudo obtener la descripción de la moneda: {}", e.getMessage());
-        }
+    /**
+     * Convierte un listado: los detalles de todos los comprobantes se leen en
+     * una consulta y las referencias (proyectos, clientes, catálogos,
+     * partidas) en una consulta por tipo
+     */
+    private List<VtaCompPagoCabDTO> convertirCabecerasADTO(Long codCia, List<VtaCompPagoCab> cabeceras) {
+        Map<String, List<VtaCompPagoDet>> detalles = referenciasCargador.detalles(codCia, cabeceras);
+        VtaCompPagoReferenciasCargador.Referencias referencias = referenciasCargador.cargar(codCia, cabeceras,
+                detalles.values().stream().flatMap(List::stream).toList());
+        return cabeceras.stream()
+                .map(cab -> convertirCabeceraADTO(cab, detalles.getOrDefault(cab.getNroCp(), List.of()), referencias))
+                .collect(Collectors.toList());
+    }
 
-        // Obtener descripción del tipo de comprobante (codTab='004')
-        try {
-            var tipoCompOpt = elementosRepository.findByCodTabAndCodElemAndVigente("004", cabecera.getECompPago(), "1");
-            if (tipoCompOpt.isPresent()) {
-                descTipoComprobante = tipoCompOpt.get().getDenEle();
-            }
-        } catch (Exception e) {
-            log.warn("No se pudo obtener la descripción del tipo de comprobante: {}", e.getMessage());
-        }
+    private VtaCompPagoCabDTO convertirCabeceraADTO(VtaCompPagoCab cabecera, List<VtaCompPagoDet> detalles) {
+        return convertirCabeceraADTO(cabecera, detalles,
+                referenciasCargador.cargar(cabecera.getCodCia(), List.of(cabecera), detalles));
+    }
 
-        // Obtener descripción del estado (codTab='014')
-        try {
-            var estadoOpt = elementosRepository.findByCodTabAndCodElemAndVigente("014", cabecera.getCodEstado(), "1");
-            if (estadoOpt.isPresent()) {
-                descEstado = estadoOpt.get().getDenEle();
-            }
-        } catch (Exception e) {
-            log.warn("No se pudo obtener la descripción del estado: {}", e.getMessage());
-        }
+    private VtaCompPagoCabDTO convertirCabeceraADTO(VtaCompPagoCab cabecera, List<VtaCompPagoDet> detalles,
+            VtaCompPagoReferenciasCargador.Referencias referencias) {
+        List<VtaCompPagoDetDTO> detallesDTO = detalles.stream()
+                .map(detalle -> convertirDetalleADTO(detalle, referencias))
+                .collect(Collectors.toList());
 
         return VtaCompPagoCabDTO.builder()
                 .codCia(cabecera.getCodCia())
@@ -573,39 +554,25 @@ public class VtaCompPagoCabService {
                 // existen
                 .fotoCp(null) // BLOB se maneja por endpoint separado
                 .fotoAbono(null) // BLOB se maneja por endpoint separado
-                .tieneFotoCp(cabecera.getFotoCp() != null && cabecera.getFotoCp().length > 0)
-                .tieneFotoAbono(cabecera.getFotoAbono() != null && cabecera.getFotoAbono().length > 0)
+                .tieneFotoCp(Boolean.TRUE.equals(cabecera.getTieneFotoCp()))
+                .tieneFotoAbono(Boolean.TRUE.equals(cabecera.getTieneFotoAbono()))
                 .fecAbono(cabecera.getFecAbono())
                 .desAbono(cabecera.getDesAbono())
                 .semilla(cabecera.getSemilla())
                 .tabEstado(cabecera.getTabEstado())
                 .codEstado(cabecera.getCodEstado())
                 // Campos descriptivos
-                .nomProyecto(nomProyecto)
-                .nomCliente(nomCliente)
-                .descMoneda(descMoneda)
-                .descTipoComprobante(descTipoComprobante)
-                .descEstado(descEstado)
+                .nomProyecto(referencias.nomProyecto(cabecera))
+                .nomCliente(referencias.nomCliente(cabecera))
+                .descMoneda(referencias.descMoneda(cabecera))
+                .descTipoComprobante(referencias.descTipoComprobante(cabecera))
+                .descEstado(referencias.descEstado(cabecera))
                 .detalles(detallesDTO)
                 .build();
     }
 
-    private VtaCompPagoDetDTO convertirDetalleADTO(VtaCompPagoDet detalle) {
-        // Obtener nombre de la partida
-        String desPartida = null;
-        try {
-            var partidaOpt = partidaRepository.findById(
-                    new com.proyectos.comprobantespago.entity.Partida.PartidaId(
-                            detalle.getCodCia(),
-                            detalle.getIngEgr(),
-                            detalle.getCodPartida()));
-            if (partidaOpt.isPresent()) {
-                desPartida = partidaOpt.get().getDesPartida();
-            }
-        } catch (Exception e) {
-            log.warn("No se pudo obtener el nombre de la partida {}: {}", detalle.getCodPartida(), e.getMessage());
-        }
-
+    private VtaCompPagoDetDTO convertirDetalleADTO(VtaCompPagoDet detalle,
+            VtaCompPagoReferenciasCargador.Referencias referencias) {
         return VtaCompPagoDetDTO.builder()
                 .codCia(detalle.getCodCia())
                 .nroCp(detalle.getNroCp())
@@ -616,7 +583,7 @@ public class VtaCompPagoCabService {
                 .impIgvMn(detalle.getImpIgvMn())
                 .impTotalMn(detalle.getImpTotalMn())
                 .semilla(detalle.getSemilla())
-                .desPartida(desPartida)
+                .desPartida(referencias.desPartida(detalle))
                 .build();
     }
 
@@ -646,6 +613,48 @@ public class VtaCompPagoCabService {
                 .build();
     }
 
+    /**
+     * Aplica el detalle recibido sobre el guardado, comparando por sec
+     * (si no viene sec se usa la posición)
+     */
+    private DiferenciaDetalles<VtaCompPagoDet> actualizarDetalles(Long codCia, String nroCp,
+            List<VtaCompPagoDetDTO> detallesDTO) {
+        List<VtaCompPagoDet> nuevos = new ArrayList<>();
+        for (int i = 0; i < detallesDTO.size(); i++) {
+            VtaCompPagoDet detalle = convertirDetalleAEntidad(detallesDTO.get(i));
+            detalle.setCodCia(codCia);
+            detalle.setNroCp(nroCp);
+            if (detalle.getSec() == null) {
+                detalle.setSec(i + 1);
+            }
+            if (detalle.getSemilla() == null) {
+                detalle.setSemilla(detalle.getSec());
+            }
+            nuevos.add(detalle);
+        }
+
+        DiferenciaDetalles<VtaCompPagoDet> diferencia = DiferenciaDetalles.aplicar(entityManager,
+                vtaCompPagoDetRepository.findByCodCiaAndNroCpOrderBySec(codCia, nroCp), nuevos,
+                VtaCompPagoDet::getSec,
+                d -> Arrays.asList(d.getIngEgr(), d.getCodPartida(), d.getImpNetoMn(), d.getImpIgvMn(),
+                        d.getImpTotalMn(), d.getSemilla()),
+                (origen, destino) -> {
+                    destino.setIngEgr(origen.getIngEgr());
+                    destino.setCodPartida(origen.getCodPartida());
+                    destino.setImpNetoMn(origen.getImpNetoMn());
+                    destino.setImpIgvMn(origen.getImpIgvMn());
+                    destino.setImpTotalMn(origen.getImpTotalMn());
+                    destino.setSemilla(origen.getSemilla());
+                },
+                d -> VtaCompPagoDet.builder()
+                        .codCia(d.getCodCia()).nroCp(d.getNroCp()).sec(d.getSec())
+                        .ingEgr(d.getIngEgr()).codPartida(d.getCodPartida()).impNetoMn(d.getImpNetoMn())
+                        .impIgvMn(d.getImpIgvMn()).impTotalMn(d.getImpTotalMn()).semilla(d.getSemilla())
+                        .build());
+        log.debug("Detalle del comprobante {}: {}", nroCp, diferencia);
+        return diferencia;
+    }
+
     private VtaCompPagoDet convertirDetalleAEntidad(VtaCompPagoDetDTO dto) {
         return VtaCompPagoDet.builder()
                 .codCia(dto.getCodCia())
@@ -670,86 +679,58 @@ public class VtaCompPagoCabService {
             "image/jpeg", "image/png", "image/gif", "application/pdf");
 
     /**
-     * Sube la imagen del comprobante (FotoCP) como BLOB
+     * Sube la imagen del comprobante (FotoCP) como adjunto
      */
     public void uploadFotoCp(Long codCia, String nroCp, MultipartFile file) {
         validateFile(file);
-        VtaCompPagoCab cabecera = vtaCompPagoCabRepository.findByCodCiaAndNroCp(codCia, nroCp)
-                .orElseThrow(() -> new RuntimeException("Comprobante no encontrado: " + nroCp));
-
-        try {
-            cabecera.setFotoCp(file.getBytes());
-            vtaCompPagoCabRepository.save(cabecera);
-            log.info("FotoCp guardada como BLOB para ingreso: codCia={}, nroCp={}", codCia, nroCp);
-        } catch (java.io.IOException e) {
-            throw new RuntimeException("Error al leer el archivo: " + e.getMessage(), e);
-        }
+        adjuntoService.reemplazarFoto(codCia, AdjuntoComprobante.TIPO_INGRESO, 0L, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE, file);
+        log.info("FotoCp guardada como adjunto para ingreso: codCia={}, nroCp={}", codCia, nroCp);
     }
 
     /**
-     * Obtiene la imagen del comprobante (FotoCP) como bytes
+     * Obtiene la imagen del comprobante (FotoCP) para enviarla como flujo
      */
-    public byte[] getFotoCp(Long codCia, String nroCp) {
-        VtaCompPagoCab cabecera = vtaCompPagoCabRepository.findByCodCiaAndNroCp(codCia, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado: " + nroCp));
-
-        if (cabecera.getFotoCp() == null || cabecera.getFotoCp().length == 0) {
-            throw new ResourceNotFoundException("El comprobante no tiene imagen de comprobante");
-        }
-        return cabecera.getFotoCp();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AdjuntoDescargaService.Descarga getFotoCp(Long codCia, String nroCp) {
+        return adjuntoDescargaService.descargarFoto(codCia, AdjuntoComprobante.TIPO_INGRESO, 0L, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE);
     }
 
     /**
      * Elimina la imagen del comprobante (FotoCP)
      */
     public void deleteFotoCp(Long codCia, String nroCp) {
-        VtaCompPagoCab cabecera = vtaCompPagoCabRepository.findByCodCiaAndNroCp(codCia, nroCp)
-                .orElseThrow(() -> new RuntimeException("Comprobante no encontrado: " + nroCp));
-
-        cabecera.setFotoCp(null);
-        vtaCompPagoCabRepository.save(cabecera);
+        adjuntoService.eliminarFoto(codCia, AdjuntoComprobante.TIPO_INGRESO, 0L, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE);
         log.info("FotoCp eliminada para ingreso: codCia={}, nroCp={}", codCia, nroCp);
     }
 
     /**
-     * Sube la imagen del abono (FotoAbono) como BLOB
+     * Sube la imagen del abono (FotoAbono) como adjunto
      */
     public void uploadFotoAbono(Long codCia, String nroCp, MultipartFile file) {
         validateFile(file);
-        VtaCompPagoCab cabecera = vtaCompPagoCabRepository.findByCodCiaAndNroCp(codCia, nroCp)
-                .orElseThrow(() -> new RuntimeException("Comprobante no encontrado: " + nroCp));
-
-        try {
-            cabecera.setFotoAbono(file.getBytes());
-            vtaCompPagoCabRepository.save(cabecera);
-            log.info("FotoAbono guardada como BLOB para ingreso: codCia={}, nroCp={}", codCia, nroCp);
-        } catch (java.io.IOException e) {
-            throw new RuntimeException("Error al leer el archivo: " + e.getMessage(), e);
-        }
+        adjuntoService.reemplazarFoto(codCia, AdjuntoComprobante.TIPO_INGRESO, 0L, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO, file);
+        log.info("FotoAbono guardada como adjunto para ingreso: codCia={}, nroCp={}", codCia, nroCp);
     }
 
     /**
-     * Obtiene la imagen del abono (FotoAbono) como bytes
+     * Obtiene la imagen del abono (FotoAbono) para enviarla como flujo
      */
-    public byte[] getFotoAbono(Long codCia, String nroCp) {
-        VtaCompPagoCab cabecera = vtaCompPagoCabRepository.findByCodCiaAndNroCp(codCia, nroCp)
-                .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado: " + nroCp));
-
-        if (cabecera.getFotoAbono() == null || cabecera.getFotoAbono().length == 0) {
-            throw new ResourceNotFoundException("El comprobante no tiene imagen de abono");
-        }
-        return cabecera.getFotoAbono();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AdjuntoDescargaService.Descarga getFotoAbono(Long codCia, String nroCp) {
+        return adjuntoDescargaService.descargarFoto(codCia, AdjuntoComprobante.TIPO_INGRESO, 0L, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO);
     }
 
     /**
      * Elimina la imagen del abono (FotoAbono)
      */
     public void deleteFotoAbono(Long codCia, String nroCp) {
-        VtaCompPagoCab cabecera = vtaCompPagoCabRepository.findByCodCiaAndNroCp(codCia, nroCp)
-                .orElseThrow(() -> new RuntimeException("Comprobante no encontrado: " + nroCp));
-
-        cabecera.setFotoAbono(null);
-        vtaCompPagoCabRepository.save(cabecera);
+        adjuntoService.eliminarFoto(codCia, AdjuntoComprobante.TIPO_INGRESO, 0L, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO);
         log.info("FotoAbono eliminada para ingreso: codCia={}, nroCp={}", codCia, nroCp);
     }
 
@@ -0,0 +1,182 @@
+package com.proyectos.comprobantespago.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.proyectos.comprobantespago.entity.Partida;
+import com.proyectos.comprobantespago.entity.VtaCompPagoCab;
+import com.proyectos.comprobantespago.entity.VtaCompPagoDet;
+import com.proyectos.comprobantespago.repository.ClienteRepository;
+import com.proyectos.comprobantespago.repository.PartidaRepository;
+import com.proyectos.comprobantespago.repository.ProyectoRepository;
+import com.proyectos.comprobantespago.repository.VtaCompPagoDetRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Carga por lotes los detalles y los datos de referencia de los comprobantes
+ * de venta/ingreso que se convierten a DTO: nombre del proyecto y del
+ * cliente y la descripción de la partida de cada detalle. Las descripciones
+ * de moneda, tipo de comprobante y estado se toman de CatalogoService.
+ *
+ * Al estilo DataLoader: se reúnen las claves de todos los comprobantes de la
+ * respuesta y cada tipo de referencia se resuelve con una consulta IN (en
+ * bloques de 1000, el máximo de Oracle), en lugar de varias consultas por
+ * comprobante y una por detalle. Las referencias obtenidas solo valen para la
+ * conversión en curso.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VtaCompPagoReferenciasCargador {
+
+    /** Oracle admite hasta 1000 elementos en la lista IN */
+    private static final int MAX_IN = 1000;
+
+    private final VtaCompPagoDetRepository vtaCompPagoDetRepository;
+    private final ProyectoRepository proyectoRepository;
+    private final ClienteRepository clienteRepository;
+    private final CatalogoService catalogoService;
+    private final PartidaRepository partidaRepository;
+
+    /**
+     * Detalles de todos los comprobantes, agrupados por nroCp y ordenados por sec
+     */
+    public Map<String, List<VtaCompPagoDet>> detalles(Long codCia, Collection<VtaCompPagoCab> cabeceras) {
+        Map<String, List<VtaCompPagoDet>> porComprobante = new HashMap<>();
+        Set<String> nroCps = claves(cabeceras, VtaCompPagoCab::getNroCp);
+        for (List<String> bloque : bloques(nroCps)) {
+            for (VtaCompPagoDet detalle : vtaCompPagoDetRepository.findByCodCiaAndNroCpInOrderByNroCpAscSecAsc(codCia,
+                    bloque)) {
+                porComprobante.computeIfAbsent(detalle.getNroCp(), k -> new ArrayList<>()).add(detalle);
+            }
+        }
+        return porComprobante;
+    }
+
+    /**
+     * Resuelve las referencias de las cabeceras y detalles indicados
+     *
+     * @param codCia     Código de compañía
+     * @param cabeceras  Comprobantes a convertir
+     * @param detalles   Detalles de esos comprobantes
+     * @return Descripciones listas para consultar al armar cada DTO
+     */
+    public Referencias cargar(Long codCia, Collection<VtaCompPagoCab> cabeceras, Collection<VtaCompPagoDet> detalles) {
+        Map<Long, String> proyectos = new HashMap<>();
+        Map<Long, String> clientes = new HashMap<>();
+        Map<ClavePartida, String> partidas = new HashMap<>();
+
+        try {
+            for (List<Long> bloque : bloques(claves(cabeceras, VtaCompPagoCab::getCodPyto))) {
+                for (Object[] fila : proyectoRepository.findNombresByCodCiaAndCodPytoIn(codCia, bloque)) {
+                    proyectos.put((Long) fila[0], (String) fila[1]);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron obtener los nombres de los proyectos: {}", e.getMessage());
+        }
+
+        try {
+            for (List<Long> bloque : bloques(claves(cabeceras, VtaCompPagoCab::getCodCliente))) {
+                for (Object[] fila : clienteRepository.findNombresByCodCiaAndCodClienteIn(codCia, bloque)) {
+                    clientes.put((Long) fila[0], (String) fila[1]);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron obtener los nombres de los clientes: {}", e.getMessage());
+        }
+
+        try {
+            for (List<Long> bloque : bloques(claves(detalles, VtaCompPagoDet::getCodPartida))) {
+                for (Partida partida : partidaRepository.findByCodCiaAndCodPartidaIn(codCia, bloque)) {
+                    partidas.put(new ClavePartida(partida.getIngEgr(), partida.getCodPartida()),
+                            partida.getDesPartida());
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron obtener los nombres de las partidas: {}", e.getMessage());
+        }
+
+        return new Referencias(catalogoService, proyectos, clientes, partidas);
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private static <T, K> Set<K> claves(Collection<T> elementos, Function<T, K> clave) {
+        Set<K> claves = new LinkedHashSet<>();
+        for (T elemento : elementos) {
+            K valor = clave.apply(elemento);
+            if (valor != null) {
+                claves.add(valor);
+            }
+        }
+        return claves;
+    }
+
+    private static <K> List<List<K>> bloques(Set<K> claves) {
+        List<K> todas = new ArrayList<>(claves);
+        List<List<K>> bloques = new ArrayList<>();
+        for (int i = 0; i < todas.size(); i += MAX_IN) {
+            bloques.add(todas.subList(i, Math.min(i + MAX_IN, todas.size())));
+        }
+        return bloques;
+    }
+
+    // ==================== Clases internas ====================
+
+    private record ClavePartida(String ingEgr, Long codPartida) {
+    }
+
+    /**
+     * Descripciones cargadas para una conversión; null si la referencia no existe
+     */
+    public static final class Referencias {
+        private final Map<Long, String> proyectos;
+        private final Map<Long, String> clientes;
+        private final CatalogoService catalogo;
+        private final Map<ClavePartida, String> partidas;
+
+        private Referencias(CatalogoService catalogo, Map<Long, String> proyectos, Map<Long, String> clientes,
+                Map<ClavePartida, String> partidas) {
+            this.catalogo = catalogo;
+            this.proyectos = proyectos;
+            this.clientes = clientes;
+            this.partidas = partidas;
+        }
+
+        public String nomProyecto(VtaCompPagoCab cabecera) {
+            return proyectos.get(cabecera.getCodPyto());
+        }
+
+        public String nomCliente(VtaCompPagoCab cabecera) {
+            return clientes.get(cabecera.getCodCliente());
+        }
+
+        public String descMoneda(VtaCompPagoCab cabecera) {
+            return catalogo.denominacion(CatalogoService.TAB_MONEDA, cabecera.getEMoneda());
+        }
+
+        public String descTipoComprobante(VtaCompPagoCab cabecera) {
+            return catalogo.denominacion(CatalogoService.TAB_COMPROBANTE, cabecera.getECompPago());
+        }
+
+        public String descEstado(VtaCompPagoCab cabecera) {
+            return catalogo.denominacion(CatalogoService.TAB_ESTADO, cabecera.getCodEstado());
+        }
+
+        public String desPartida(VtaCompPagoDet detalle) {
+            return partidas.get(new ClavePartida(detalle.getIngEgr(), detalle.getCodPartida()));
+        }
+    }
+}
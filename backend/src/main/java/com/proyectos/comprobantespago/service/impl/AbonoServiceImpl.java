@@ -145,8 +145,7 @@ public class AbonoServiceImpl implements AbonoService {
                 return AbonoDTO.builder()
                                 .fechaAbono(comprobante.getFecAbono())
                                 .descripcionMedioPago(comprobante.getDesAbono())
-                                .tieneFotoAbono(comprobante.getFotoAbono() != null
-                                                && comprobante.getFotoAbono().length > 0)
+                                .tieneFotoAbono(Boolean.TRUE.equals(comprobante.getTieneFotoAbono()))
                                 .build();
         }
 
@@ -165,8 +164,7 @@ public class AbonoServiceImpl implements AbonoService {
                 return AbonoDTO.builder()
                                 .fechaAbono(comprobante.getFecAbono())
                                 .descripcionMedioPago(comprobante.getDesAbono())
-                                .tieneFotoAbono(comprobante.getFotoAbono() != null
-                                                && comprobante.getFotoAbono().length > 0)
+                                .tieneFotoAbono(Boolean.TRUE.equals(comprobante.getTieneFotoAbono()))
                                 .build();
         }
 
@@ -237,8 +235,7 @@ public class AbonoServiceImpl implements AbonoService {
                 return AbonoDTO.builder()
                                 .fechaAbono(comprobante.getFecAbono())
                                 .descripcionMedioPago(comprobante.getDesAbono())
-                                .tieneFotoAbono(comprobante.getFotoAbono() != null
-                                                && comprobante.getFotoAbono().length > 0)
+                                .tieneFotoAbono(Boolean.TRUE.equals(comprobante.getTieneFotoAbono()))
                                 .build();
         }
 
@@ -1,16 +1,19 @@
 package com.proyectos.comprobantespago.service.impl;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.proyectos.comprobantespago.dto.ComprobantePagoEmpleadoDTO;
 import com.proyectos.comprobantespago.dto.ComprobantePagoEmpleadoDetDTO;
+import com.proyectos.comprobantespago.entity.AdjuntoComprobante;
 import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleado;
 import com.proyectos.comprobantespago.entity.ComprobantePagoEmpleadoDet;
 import com.proyectos.comprobantespago.entity.Empleado;
@@ -20,12 +23,18 @@ import com.proyectos.comprobantespago.exception.ResourceNotFoundException;
 import com.proyectos.comprobantespago.exception.ValidationException;
 import com.proyectos.comprobantespago.repository.ComprobantePagoEmpleadoDetRepository;
 import com.proyectos.comprobantespago.repository.ComprobantePagoEmpleadoRepository;
-import com.proyectos.comprobantespago.repository.ElementosRepository;
 import com.proyectos.comprobantespago.repository.EmpleadoRepository;
 import com.proyectos.comprobantespago.repository.PartidaRepository;
 import com.proyectos.comprobantespago.repository.ProyectoRepository;
+import com.proyectos.comprobantespago.service.AdjuntoDescargaService;
+import com.proyectos.comprobantespago.service.AdjuntoService;
+import com.proyectos.comprobantespago.service.CatalogoService;
+import com.proyectos.comprobantespago.service.ComprobanteBusquedaService;
 import com.proyectos.comprobantespago.service.ComprobantePagoEmpleadoService;
+import com.proyectos.comprobantespago.service.DiferenciaDetalles;
+import com.proyectos.comprobantespago.service.EjecucionPresupuestoService;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,7 +48,12 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
     private final EmpleadoRepository empleadoRepository;
     private final ProyectoRepository proyectoRepository;
     private final PartidaRepository partidaRepository;
-    private final ElementosRepository elementosRepository;
+    private final CatalogoService catalogoService;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
+    private final AdjuntoService adjuntoService;
+    private final AdjuntoDescargaService adjuntoDescargaService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
     private static final List<String> ALLOWED_CONTENT_TYPES = List.of(
@@ -146,6 +160,9 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
             throw new ValidationException("No se puede editar un comprobante anulado");
         }
 
+        // Proyecto previo para ajustar el ledger presupuestal
+        Long codPytoAnterior = entity.getCodPyto();
+
         // Actualizar campos
         entity.setCodPyto(dto.getCodPyto());
         entity.setNroPago(dto.getNroPago());
@@ -167,6 +184,28 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
         }
 
         entity = repository.save(entity);
+
+        // Si vienen detalles, solo se escriben las filas que cambian (por sec)
+        DiferenciaDetalles<ComprobantePagoEmpleadoDet> diferencia = dto.getDetalles() != null
+                ? actualizarDetalles(codCia, codEmpleado, nroCp, dto.getDetalles())
+                : null;
+
+        // Mover toda la ejecución si cambió el proyecto o el comprobante pasó a
+        // anulado; si no, solo lo que cambió en el detalle
+        boolean cuentaEnEjecucion = EjecucionPresupuestoService.cuentaEnEjecucion(entity.getCodEstado());
+        if (!codPytoAnterior.equals(entity.getCodPyto()) || !cuentaEnEjecucion) {
+            List<ComprobantePagoEmpleadoDet> anteriores = diferencia != null ? diferencia.getTodosAnteriores()
+                    : detalleRepository.findByCodCiaAndCodEmpleadoAndNroCp(codCia, codEmpleado, nroCp);
+            List<ComprobantePagoEmpleadoDet> detalles = diferencia != null ? diferencia.getDetalles() : anteriores;
+            ejecucionPresupuestoService.revertirEgresosEmpleado(codCia, codPytoAnterior, anteriores);
+            if (cuentaEnEjecucion) {
+                ejecucionPresupuestoService.registrarEgresosEmpleado(codCia, entity.getCodPyto(), detalles);
+            }
+        } else if (diferencia != null) {
+            ejecucionPresupuestoService.revertirEgresosEmpleado(codCia, codPytoAnterior, diferencia.getAnteriores());
+            ejecucionPresupuestoService.registrarEgresosEmpleado(codCia, codPytoAnterior, diferencia.getCambiados());
+        }
+
         log.info("Comprobante empleado actualizado: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
 
         return toDTO(entity);
@@ -178,6 +217,12 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
         ComprobantePagoEmpleado entity = repository.findByCodCiaAndCodEmpleadoAndNroCp(codCia, codEmpleado, nroCp)
                 .orElseThrow(() -> new ResourceNotFoundException("Comprobante no encontrado"));
 
+        // Liberar la ejecución en el ledger presupuestal si aún contaba
+        if (EjecucionPresupuestoService.cuentaEnEjecucion(entity.getCodEstado())) {
+            ejecucionPresupuestoService.revertirEgresosEmpleado(codCia, entity.getCodPyto(),
+                    detalleRepository.findByCodCiaAndCodEmpleadoAndNroCp(codCia, codEmpleado, nroCp));
+        }
+
         entity.setCodEstado("ANU");
         repository.save(entity);
         log.info("Comprobante empleado anulado: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
@@ -189,32 +234,22 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
     @Transactional
     public void uploadFotoCp(Long codCia, Long codEmpleado, String nroCp, MultipartFile file) {
         validateFile(file);
-        ComprobantePagoEmpleado entity = getEntity(codCia, codEmpleado, nroCp);
-
-        try {
-            entity.setFotoCp(file.getBytes());
-            repository.save(entity);
-            log.info("FotoCp subida: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
-        } catch (IOException e) {
-            throw new ValidationException("Error al procesar el archivo: " + e.getMessage());
-        }
+        adjuntoService.reemplazarFoto(codCia, AdjuntoComprobante.TIPO_EMPLEADO, codEmpleado, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE, file);
+        log.info("FotoCp subida: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
     }
 
     @Override
-    public byte[] getFotoCp(Long codCia, Long codEmpleado, String nroCp) {
-        ComprobantePagoEmpleado entity = getEntity(codCia, codEmpleado, nroCp);
-        if (entity.getFotoCp() == null) {
-            throw new ResourceNotFoundException("El comprobante no tiene imagen de comprobante");
-        }
-        return entity.getFotoCp();
+    public AdjuntoDescargaService.Descarga getFotoCp(Long codCia, Long codEmpleado, String nroCp) {
+        return adjuntoDescargaService.descargarFoto(codCia, AdjuntoComprobante.TIPO_EMPLEADO, codEmpleado, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE);
     }
 
     @Override
     @Transactional
     public void deleteFotoCp(Long codCia, Long codEmpleado, String nroCp) {
-        ComprobantePagoEmpleado entity = getEntity(codCia, codEmpleado, nroCp);
-        entity.setFotoCp(null);
-        repository.save(entity);
+        adjuntoService.eliminarFoto(codCia, AdjuntoComprobante.TIPO_EMPLEADO, codEmpleado, nroCp,
+                AdjuntoComprobante.CATEGORIA_COMPROBANTE);
         log.info("FotoCp eliminada: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
     }
 
@@ -222,32 +257,22 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
     @Transactional
     public void uploadFotoAbono(Long codCia, Long codEmpleado, String nroCp, MultipartFile file) {
         validateFile(file);
-        ComprobantePagoEmpleado entity = getEntity(codCia, codEmpleado, nroCp);
-
-        try {
-            entity.setFotoAbono(file.getBytes());
-            repository.save(entity);
-            log.info("FotoAbono subida: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
-        } catch (IOException e) {
-            throw new ValidationException("Error al procesar el archivo: " + e.getMessage());
-        }
+        adjuntoService.reemplazarFoto(codCia, AdjuntoComprobante.TIPO_EMPLEADO, codEmpleado, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO, file);
+        log.info("FotoAbono subida: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
     }
 
     @Override
-    public byte[] getFotoAbono(Long codCia, Long codEmpleado, String nroCp) {
-        ComprobantePagoEmpleado entity = getEntity(codCia, codEmpleado, nroCp);
-        if (entity.getFotoAbono() == null) {
-            throw new ResourceNotFoundException("El comprobante no tiene imagen de abono");
-        }
-        return entity.getFotoAbono();
+    public AdjuntoDescargaService.Descarga getFotoAbono(Long codCia, Long codEmpleado, String nroCp) {
+        return adjuntoDescargaService.descargarFoto(codCia, AdjuntoComprobante.TIPO_EMPLEADO, codEmpleado, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO);
     }
 
     @Override
     @Transactional
     public void deleteFotoAbono(Long codCia, Long codEmpleado, String nroCp) {
-        ComprobantePagoEmpleado entity = getEntity(codCia, codEmpleado, nroCp);
-        entity.setFotoAbono(null);
-        repository.save(entity);
+        adjuntoService.eliminarFoto(codCia, AdjuntoComprobante.TIPO_EMPLEADO, codEmpleado, nroCp,
+                AdjuntoComprobante.CATEGORIA_ABONO);
         log.info("FotoAbono eliminada: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
     }
 
@@ -293,8 +318,8 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
                 .semilla(entity.getSemilla())
                 .tabEstado(entity.getTabEstado())
                 .codEstado(entity.getCodEstado())
-                .tieneFotoCp(entity.getFotoCp() != null && entity.getFotoCp().length > 0)
-                .tieneFotoAbono(entity.getFotoAbono() != null && entity.getFotoAbono().length > 0)
+                .tieneFotoCp(Boolean.TRUE.equals(entity.getTieneFotoCp()))
+                .tieneFotoAbono(Boolean.TRUE.equals(entity.getTieneFotoAbono()))
                 .build();
 
         // Agregar datos relacionados
@@ -308,27 +333,11 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
             dto.setNombreProyecto(proyecto.getNombPyto());
         }
 
-        // Obtener descripciones de elementos (moneda, tipo comprobante, estado)
-        try {
-            elementosRepository.findByCodTabAndCodElemAndVigente("003", entity.getEMoneda(), "1")
-                    .ifPresent(e -> dto.setMonedaDesc(e.getDenEle()));
-        } catch (Exception e) {
-            log.warn("No se pudo obtener descripción de moneda: {}", e.getMessage());
-        }
-
-        try {
-            elementosRepository.findByCodTabAndCodElemAndVigente("004", entity.getECompPago(), "1")
-                    .ifPresent(e -> dto.setTipoComprobanteDesc(e.getDenEle()));
-        } catch (Exception e) {
-            log.warn("No se pudo obtener descripción de tipo comprobante: {}", e.getMessage());
-        }
-
-        try {
-            elementosRepository.findByCodTabAndCodElemAndVigente("014", entity.getCodEstado(), "1")
-                    .ifPresent(e -> dto.setEstadoDesc(e.getDenEle()));
-        } catch (Exception e) {
-            log.warn("No se pudo obtener descripción de estado: {}", e.getMessage());
-        }
+        // Descripciones de elementos (moneda, tipo comprobante, estado) desde el catálogo en memoria
+        dto.setMonedaDesc(catalogoService.denominacion(CatalogoService.TAB_MONEDA, entity.getEMoneda()));
+        dto.setTipoComprobanteDesc(
+                catalogoService.denominacion(CatalogoService.TAB_COMPROBANTE, entity.getECompPago()));
+        dto.setEstadoDesc(catalogoService.denominacion(CatalogoService.TAB_ESTADO, entity.getCodEstado()));
 
         return dto;
     }
@@ -400,6 +409,7 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
         entity.setSemilla((int) (System.currentTimeMillis() % 99999) + 1);
 
         entity = detalleRepository.save(entity);
+        ejecucionPresupuestoService.registrarEgresosEmpleado(codCia, comprobante.getCodPyto(), List.of(entity));
         log.info("Detalle agregado: codCia={}, codEmpleado={}, nroCp={}, sec={}", codCia, codEmpleado, nroCp, nextSec);
 
         return toDetalleDTO(entity);
@@ -436,6 +446,13 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
             }
         }
 
+        // Importes previos para revertirlos del ledger presupuestal
+        ComprobantePagoEmpleadoDet anterior = ComprobantePagoEmpleadoDet.builder()
+                .ingEgr(entity.getIngEgr())
+                .codPartida(entity.getCodPartida())
+                .impTotalMn(entity.getImpTotalMn())
+                .build();
+
         // Actualizar campos
         if (dto.getIngEgr() != null)
             entity.setIngEgr(dto.getIngEgr());
@@ -449,6 +466,8 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
             entity.setImpTotalMn(dto.getImpTotalMn());
 
         entity = detalleRepository.save(entity);
+        ejecucionPresupuestoService.revertirEgresosEmpleado(codCia, comprobante.getCodPyto(), List.of(anterior));
+        ejecucionPresupuestoService.registrarEgresosEmpleado(codCia, comprobante.getCodPyto(), List.of(entity));
         log.info("Detalle actualizado: codCia={}, codEmpleado={}, nroCp={}, sec={}", codCia, codEmpleado, nroCp, sec);
 
         return toDetalleDTO(entity);
@@ -471,11 +490,11 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
         id.setNroCp(nroCp);
         id.setSec(sec);
 
-        if (!detalleRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Detalle no encontrado");
-        }
+        ComprobantePagoEmpleadoDet detalle = detalleRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Detalle no encontrado"));
 
-        detalleRepository.deleteById(id);
+        detalleRepository.delete(detalle);
+        ejecucionPresupuestoService.revertirEgresosEmpleado(codCia, comprobante.getCodPyto(), List.of(detalle));
         log.info("Detalle eliminado: codCia={}, codEmpleado={}, nroCp={}, sec={}", codCia, codEmpleado, nroCp, sec);
     }
 
@@ -490,7 +509,13 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
             throw new ValidationException("No se pueden eliminar detalles de un comprobante anulado");
         }
 
+        ejecucionPresupuestoService.revertirEgresosEmpleado(codCia, comprobante.getCodPyto(),
+                detalleRepository.findByCodCiaAndCodEmpleadoAndNroCp(codCia, codEmpleado, nroCp));
         detalleRepository.deleteByComprobante(codCia, codEmpleado, nroCp);
+        // El DELETE masivo no pasa por el listener JPA del índice de búsqueda
+        eventPublisher.publishEvent(new ComprobanteBusquedaService.ComprobantesModificadosEvent(
+                ComprobanteBusquedaService.Origen.EMPLEADO, codCia,
+                List.of(new ComprobanteBusquedaService.Clave(codEmpleado, nroCp))));
         log.info("Todos los detalles eliminados: codCia={}, codEmpleado={}, nroCp={}", codCia, codEmpleado, nroCp);
     }
 
@@ -519,6 +544,60 @@ public class ComprobantePagoEmpleadoServiceImpl implements ComprobantePagoEmplea
         return dto;
     }
 
+    /**
+     * Aplica el detalle recibido en update() sobre el guardado, comparando por
+     * sec (si no viene sec se usa la posición)
+     */
+    private DiferenciaDetalles<ComprobantePagoEmpleadoDet> actualizarDetalles(Long codCia, Long codEmpleado,
+            String nroCp, List<ComprobantePagoEmpleadoDetDTO> detallesDTO) {
+        List<ComprobantePagoEmpleadoDet> actuales = detalleRepository.findByCodCiaAndCodEmpleadoAndNroCp(codCia,
+                codEmpleado, nroCp);
+
+        List<ComprobantePagoEmpleadoDet> nuevos = new ArrayList<>();
+        for (int i = 0; i < detallesDTO.size(); i++) {
+            ComprobantePagoEmpleadoDet detalle = toDetalleEntity(detallesDTO.get(i));
+            detalle.setCodCia(codCia);
+            detalle.setCodEmpleado(codEmpleado);
+            detalle.setNroCp(nroCp);
+            if (detalle.getSec() == null) {
+                detalle.setSec(i + 1);
+            }
+            if (detalle.getSemilla() == null) {
+                detalle.setSemilla(detalle.getSec());
+            }
+
+            // Solo se consultan las partidas que no estaban en el detalle guardado
+            boolean partidaConocida = actuales.stream()
+                    .anyMatch(a -> a.getCodPartida().equals(detalle.getCodPartida())
+                            && a.getIngEgr().equals(detalle.getIngEgr()));
+            if (!partidaConocida && partidaRepository.findByCodCiaAndIngEgrAndCodPartida(codCia,
+                    detalle.getIngEgr(), detalle.getCodPartida()) == null) {
+                throw new ValidationException("Partida no encontrada: " + detalle.getCodPartida());
+            }
+            nuevos.add(detalle);
+        }
+
+        DiferenciaDetalles<ComprobantePagoEmpleadoDet> diferencia = DiferenciaDetalles.aplicar(entityManager,
+                actuales, nuevos, ComprobantePagoEmpleadoDet::getSec,
+                d -> Arrays.asList(d.getIngEgr(), d.getCodPartida(), d.getImpNetoMn(), d.getImpIgvMn(),
+                        d.getImpTotalMn(), d.getSemilla()),
+                (origen, destino) -> {
+                    destino.setIngEgr(origen.getIngEgr());
+                    destino.setCodPartida(origen.getCodPartida());
+                    destino.setImpNetoMn(origen.getImpNetoMn());
+                    destino.setImpIgvMn(origen.getImpIgvMn());
+                    destino.setImpTotalMn(origen.getImpTotalMn());
+                    destino.setSemilla(origen.getSemilla());
+                },
+                d -> ComprobantePagoEmpleadoDet.builder()
+                        .codCia(d.getCodCia()).codEmpleado(d.getCodEmpleado()).nroCp(d.getNroCp()).sec(d.getSec())
+                        .ingEgr(d.getIngEgr()).codPartida(d.getCodPartida()).impNetoMn(d.getImpNetoMn())
+                        .impIgvMn(d.getImpIgvMn()).impTotalMn(d.getImpTotalMn()).semilla(d.getSemilla())
+                        .build());
+        log.debug("Detalle del comprobante empleado {}: {}", nroCp, diferencia);
+        return diferencia;
+    }
+
     private ComprobantePagoEmpleadoDet toDetalleEntity(ComprobantePagoEmpleadoDetDTO dto) {
         return ComprobantePagoEmpleadoDet.builder()
                 .codCia(dto.getCodCia())
@@ -1,11 +1,13 @@
 package com.proyectos.comprobantespago.service.impl;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.UUID;
 
@@ -80,6 +82,27 @@ public class FileStorageServiceImpl implements FileStorageService {
         return storeFile(file, targetLocation);
     }
 
+    @Override
+    public String storeAdjunto(InputStream contenido, Long codCia, String tipo, String extension) {
+        // Estructura de directorios: uploads/adjuntos/{codCia}/{tipo}/{year}/{month}/
+        LocalDate hoy = LocalDate.now();
+        Path targetLocation = fileStorageLocation
+                .resolve("adjuntos")
+                .resolve(String.valueOf(codCia))
+                .resolve(tipo.toLowerCase())
+                .resolve(String.valueOf(hoy.getYear()))
+                .resolve(String.valueOf(hoy.getMonthValue()));
+
+        try {
+            Files.createDirectories(targetLocation);
+            Path destinationFile = targetLocation.resolve(UUID.randomUUID() + (extension != null ? extension : ""));
+            Files.copy(contenido, destinationFile);
+            return fileStorageLocation.relativize(destinationFile).toString();
+        } catch (IOException ex) {
+            throw new FileStorageException("No se pudo almacenar el adjunto", ex);
+        }
+    }
+
     @Override
     public Resource loadFileAsResource(String filePath) {
         try {
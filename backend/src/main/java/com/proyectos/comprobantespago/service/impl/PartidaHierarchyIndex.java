@@ -0,0 +1,245 @@
+package com.proyectos.comprobantespago.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.proyectos.comprobantespago.entity.Partida;
+import com.proyectos.comprobantespago.entity.PartidaMezcla;
+
+/**
+ * Índice inmutable de la jerarquía de partidas de una compañía y tipo (I/E)
+ * Se construye una sola vez a partir de PARTIDA y PARTIDA_MEZCLA (vigentes) y
+ * guarda por posición: padre, hijos ordenados, nivel, orden y ruta completa.
+ * Las consultas de jerarquía se resuelven en memoria sin acceder a la BD.
+ * También guarda un recorrido en post-orden (hijos antes que el padre) para
+ * acumular importes de abajo hacia arriba en una sola pasada.
+ */
+final class PartidaHierarchyIndex {
+
+    private static final int SIN_PADRE = -1;
+    private static final int ORDEN_POR_DEFECTO = 999;
+
+    private final long version;
+    private final Map<Long, Integer> posiciones;
+    private final Partida[] partidas;
+    private final int[] padres;
+    private final int[][] hijos;
+    private final int[] ordenes;
+    private final boolean[] conHijos;
+    private final String[] rutas;
+    private final int[] raices;
+    private final int[] postOrden;
+
+    private PartidaHierarchyIndex(long version, Map<Long, Integer> posiciones, Partida[] partidas, int[] padres,
+            int[][] hijos, int[] ordenes, boolean[] conHijos, String[] rutas, int[] raices, int[] postOrden) {
+        this.version = version;
+        this.posiciones = posiciones;
+        this.partidas = partidas;
+        this.padres = padres;
+        this.hijos = hijos;
+        this.ordenes = ordenes;
+        this.conHijos = conHijos;
+        this.rutas = rutas;
+        this.raices = raices;
+        this.postOrden = postOrden;
+    }
+
+    /**
+     * Construye el índice
+     *
+     * @param version  Versión del índice (mayor = más reciente)
+     * @param partidas Todas las partidas de la compañía y tipo
+     * @param mezclas  Relaciones vigentes de PARTIDA_MEZCLA de la compañía y tipo
+     */
+    static PartidaHierarchyIndex construir(long version, List<Partida> partidas, List<PartidaMezcla> mezclas) {
+        int n = partidas.size();
+        Partida[] arreglo = partidas.toArray(new Partida[0]);
+        Map<Long, Integer> posiciones = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            posiciones.put(arreglo[i].getCodPartida(), i);
+        }
+
+        // Primera mezcla (menor corr) de cada partida: define padre y orden
+        Map<Long, PartidaMezcla> mezclaPorPartida = new HashMap<>();
+        for (PartidaMezcla mezcla : mezclas) {
+            mezclaPorPartida.merge(mezcla.getCodPartida(), mezcla,
+                    (a, b) -> a.getCorr() <= b.getCorr() ? a : b);
+        }
+
+        int[] padres = new int[n];
+        int[] ordenes = new int[n];
+        boolean[] conHijos = new boolean[n];
+        Arrays.fill(padres, SIN_PADRE);
+        Arrays.fill(ordenes, ORDEN_POR_DEFECTO);
+        for (int i = 0; i < n; i++) {
+            PartidaMezcla mezcla = mezclaPorPartida.get(arreglo[i].getCodPartida());
+            if (mezcla == null) {
+                continue;
+            }
+            if (mezcla.getOrden() != null) {
+                ordenes[i] = mezcla.getOrden();
+            }
+            Long codPadre = mezcla.getPadCodPartida();
+            // Si el padre es igual al hijo, es raíz
+            if (codPadre != null && !codPadre.equals(arreglo[i].getCodPartida())) {
+                Integer padre = posiciones.get(codPadre);
+                if (padre != null) {
+                    padres[i] = padre;
+                }
+            }
+        }
+        for (PartidaMezcla mezcla : mezclas) {
+            Long codPadre = mezcla.getPadCodPartida();
+            if (codPadre != null && !codPadre.equals(mezcla.getCodPartida())) {
+                Integer padre = posiciones.get(codPadre);
+                if (padre != null) {
+                    conHijos[padre] = true;
+                }
+            }
+        }
+
+        // Hijos (solo vigentes) ordenados por orden
+        Comparator<Integer> porOrden = Comparator.comparingInt(i -> ordenes[i]);
+        List<List<Integer>> listaHijos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            listaHijos.add(new ArrayList<>());
+        }
+        List<Integer> listaRaices = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (!esVigente(arreglo[i])) {
+                continue;
+            }
+            int padre = padres[i];
+            if (padre != SIN_PADRE && esVigente(arreglo[padre])) {
+                listaHijos.get(padre).add(i);
+            }
+            if (Integer.valueOf(1).equals(arreglo[i].getNivel()) || padre == SIN_PADRE
+                    || !esVigente(arreglo[padre])) {
+                listaRaices.add(i);
+            }
+        }
+        int[][] hijos = new int[n][];
+        for (int i = 0; i < n; i++) {
+            List<Integer> lista = listaHijos.get(i);
+            lista.sort(porOrden);
+            hijos[i] = lista.stream().mapToInt(Integer::intValue).toArray();
+        }
+        listaRaices.sort(porOrden);
+
+        // Rutas completas (ej: "INGRESOS > Venta > Producto A")
+        String[] rutas = new String[n];
+        for (int i = 0; i < n; i++) {
+            rutas[i] = construirRuta(i, arreglo, padres);
+        }
+
+        return new PartidaHierarchyIndex(version, posiciones, arreglo, padres, hijos, ordenes, conHijos, rutas,
+                listaRaices.stream().mapToInt(Integer::intValue).toArray(), construirPostOrden(padres));
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int size() {
+        return partidas.length;
+    }
+
+    /**
+     * Posición de una partida en el índice o -1 si no existe
+     */
+    int posicion(Long codPartida) {
+        Integer posicion = posiciones.get(codPartida);
+        return posicion != null ? posicion : SIN_PADRE;
+    }
+
+    Partida partida(int posicion) {
+        return partidas[posicion];
+    }
+
+    /**
+     * Posición del padre o -1 si es raíz
+     */
+    int padre(int posicion) {
+        return padres[posicion];
+    }
+
+    int[] hijos(int posicion) {
+        return hijos[posicion];
+    }
+
+    int[] raices() {
+        return raices;
+    }
+
+    int orden(int posicion) {
+        return ordenes[posicion];
+    }
+
+    /**
+     * Indica si la partida tiene subpartidas vigentes en PARTIDA_MEZCLA
+     */
+    boolean tieneHijos(int posicion) {
+        return conHijos[posicion];
+    }
+
+    String ruta(int posicion) {
+        return rutas[posicion];
+    }
+
+    /**
+     * Posiciones en post-orden sobre todas las partidas (vigentes o no): cada
+     * partida aparece después de todos sus descendientes. Las partidas que
+     * forman un ciclo en los datos no se incluyen.
+     */
+    int[] postOrden() {
+        return postOrden;
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private static boolean esVigente(Partida partida) {
+        return "1".equals(partida.getVigente());
+    }
+
+    private static int[] construirPostOrden(int[] padres) {
+        int n = padres.length;
+        // Cantidad de hijos pendientes de cada partida
+        int[] pendientes = new int[n];
+        for (int padre : padres) {
+            if (padre != SIN_PADRE) {
+                pendientes[padre]++;
+            }
+        }
+        // Se parte de las hojas; un padre entra cuando ya salieron todos sus hijos
+        int[] orden = new int[n];
+        int fin = 0;
+        for (int i = 0; i < n; i++) {
+            if (pendientes[i] == 0) {
+                orden[fin++] = i;
+            }
+        }
+        for (int actual = 0; actual < fin; actual++) {
+            int padre = padres[orden[actual]];
+            if (padre != SIN_PADRE && --pendientes[padre] == 0) {
+                orden[fin++] = padre;
+            }
+        }
+        return Arrays.copyOf(orden, fin);
+    }
+
+    private static String construirRuta(int posicion, Partida[] partidas, int[] padres) {
+        List<String> partes = new ArrayList<>();
+        partes.add(partidas[posicion].getDesPartida());
+        int actual = padres[posicion];
+        // El límite de pasos protege contra ciclos en los datos
+        for (int pasos = 0; actual != SIN_PADRE && pasos < partidas.length; pasos++) {
+            partes.add(0, partidas[actual].getDesPartida());
+            actual = padres[actual];
+        }
+        return String.join(" > ", partes);
+    }
+}
@@ -1,15 +1,23 @@
 package com.proyectos.comprobantespago.service.impl;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.proyectos.comprobantespago.dto.ArbolPresupuestoDTO;
 import com.proyectos.comprobantespago.dto.PartidaDTO;
 import com.proyectos.comprobantespago.dto.PartidaTreeNode;
 import com.proyectos.comprobantespago.entity.Partida;
@@ -20,15 +28,23 @@ import com.proyectos.comprobantespago.repository.PartidaMezclaRepository;
 import com.proyectos.comprobantespago.repository.PartidaRepository;
 import com.proyectos.comprobantespago.repository.ProyPartidaMezclaRepository;
 import com.proyectos.comprobantespago.repository.ProyPartidaRepository;
+import com.proyectos.comprobantespago.service.EjecucionPresupuestoService;
 import com.proyectos.comprobantespago.service.PartidaHierarchyService;
+import com.proyectos.comprobantespago.service.PresupuestoService;
+import com.proyectos.comprobantespago.service.PartidaHierarchyService.CatalogoPartidasModificadoEvent;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Implementación del servicio de jerarquía de partidas
+ * Las consultas de jerarquía se resuelven sobre un índice inmutable en memoria
+ * por (compañía, tipo) que se reconstruye y reemplaza cuando cambia el
+ * catálogo de partidas o PARTIDA_MEZCLA.
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional(readOnly = true)
 public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
 
@@ -36,6 +52,11 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
     private final PartidaMezclaRepository partidaMezclaRepository;
     private final ProyPartidaRepository proyPartidaRepository;
     private final ProyPartidaMezclaRepository proyPartidaMezclaRepository;
+    private final EjecucionPresupuestoService ejecucionPresupuestoService;
+
+    /** Índices de jerarquía vigentes por (compañía, tipo); se reemplazan completos */
+    private final Map<IndiceKey, PartidaHierarchyIndex> indices = new ConcurrentHashMap<>();
+    private final AtomicLong versiones = new AtomicLong();
 
     // Constantes para límites de niveles
     // Según notas del profesor: Ingresos nivel 2, Egresos nivel 3
@@ -47,84 +68,14 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
 
     @Override
     public List<PartidaTreeNode> buildPartidaTree(Long codCia, String ingEgr) {
-        // Obtener todas las partidas
-        List<Partida> partidas = partidaRepository.findByCodCiaAndIngEgrAndVigente(codCia, ingEgr, "1");
-
-        // Obtener todas las relaciones de jerarquía desde PartidaMezcla
-        List<PartidaMezcla> mezclas = partidaMezclaRepository.findByCodCiaAndIngEgrAndVigente(codCia, ingEgr, "1");
-
-        // Crear mapa de partidas por código para acceso rápido
-        Map<Long, Partida> partidaMap = partidas.stream()
-                .collect(Collectors.toMap(Partida::getCodPartida, p -> p));
-
-        // Crear mapa de nodos del árbol
-        Map<Long, PartidaTreeNode> nodeMap = new HashMap<>();
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
 
-        // Crear nodos para todas las partidas
-        for (Partida partida : partidas) {
-            PartidaTreeNode node = PartidaTreeNode.builder()
-                    .codPartida(partida.getCodPartida())
-                    .desPartida(partida.getDesPartida())
-                    .nivel(partida.getNivel())
-                    .codPartidas(partida.getCodPartidas())
-                    .children(new ArrayList<>())
-                    .isLeaf(true) // Asumimos que es hoja hasta que encontremos hijos
-                    .build();
-            nodeMap.put(partida.getCodPartida(), node);
+        // Copia mutable del árbol a partir de las raíces (nivel 1 o sin padre)
+        List<PartidaTreeNode> arbol = new ArrayList<>();
+        for (int raiz : indice.raices()) {
+            arbol.add(crearNodo(indice, raiz, 0));
         }
-
-        // Construir relaciones padre-hijo usando PartidaMezcla
-        Map<Long, List<Long>> parentChildMap = new HashMap<>();
-        for (PartidaMezcla mezcla : mezclas) {
-            Long childCode = mezcla.getCodPartida();
-            Long parentCode = mezcla.getPadCodPartida();
-
-            // Si el padre es diferente del hijo (no es raíz)
-            if (!childCode.equals(parentCode)) {
-                parentChildMap.computeIfAbsent(parentCode, k -> new ArrayList<>()).add(childCode);
-            }
-        }
-
-        // Establecer relaciones y marcar nodos que no son hojas
-        for (Map.Entry<Long, List<Long>> entry : parentChildMap.entrySet()) {
-            Long parentCode = entry.getKey();
-            List<Long> childCodes = entry.getValue();
-
-            PartidaTreeNode parentNode = nodeMap.get(parentCode);
-            if (parentNode != null) {
-                parentNode.setLeaf(false); // Tiene hijos, no es hoja
-
-                for (Long childCode : childCodes) {
-                    PartidaTreeNode childNode = nodeMap.get(childCode);
-                    if (childNode != null) {
-                        childNode.setPadCodPartida(parentCode);
-                        parentNode.getChildren().add(childNode);
-                    }
-                }
-
-                // Ordenar hijos por orden
-                parentNode.getChildren().sort((a, b) -> {
-                    Integer ordenA = getOrdenFromMezcla(mezclas, a.getCodPartida());
-                    Integer ordenB = getOrdenFromMezcla(mezclas, b.getCodPartida());
-                    return ordenA.compareTo(ordenB);
-                });
-            }
-        }
-
-        // Generar rutas completas para todos los nodos
-        for (PartidaTreeNode node : nodeMap.values()) {
-            node.setFullPath(buildFullPath(node, nodeMap));
-        }
-
-        // Retornar solo los nodos raíz (nivel 1 o sin padre)
-        return nodeMap.values().stream()
-                .filter(node -> node.getNivel() == 1 || node.getPadCodPartida() == null)
-                .sorted((a, b) -> {
-                    Integer ordenA = getOrdenFromMezcla(mezclas, a.getCodPartida());
-                    Integer ordenB = getOrdenFromMezcla(mezclas, b.getCodPartida());
-                    return ordenA.compareTo(ordenB);
-                })
-                .collect(Collectors.toList());
+        return arbol;
     }
 
     @Override
@@ -145,27 +96,12 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
 
     @Override
     public String getFullPath(Long codCia, String ingEgr, Long codPartida) {
-        Partida partida = partidaRepository.findById(new Partida.PartidaId(codCia, ingEgr, codPartida))
-                .orElseThrow(() -> new ResourceNotFoundException("Partida no encontrada"));
-
-        List<String> pathParts = new ArrayList<>();
-        pathParts.add(partida.getDesPartida());
-
-        // Buscar padres recursivamente
-        Long currentParentCode = findParentCode(codCia, ingEgr, codPartida);
-        while (currentParentCode != null && !currentParentCode.equals(codPartida)) {
-            Partida parent = partidaRepository.findById(new Partida.PartidaId(codCia, ingEgr, currentParentCode))
-                    .orElse(null);
-            if (parent != null) {
-                pathParts.add(0, parent.getDesPartida());
-                codPartida = currentParentCode;
-                currentParentCode = findParentCode(codCia, ingEgr, currentParentCode);
-            } else {
-                break;
-            }
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
+        int posicion = indice.posicion(codPartida);
+        if (posicion < 0) {
+            throw new ResourceNotFoundException("Partida no encontrada");
         }
-
-        return String.join(" > ", pathParts);
+        return indice.ruta(posicion);
     }
 
     @Override
@@ -191,8 +127,12 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
      * @return true si la partida es del último nivel, false en caso contrario
      */
     public boolean validatePartidaForComprobante(Long codCia, String ingEgr, Long codPartida) {
-        Partida partida = partidaRepository.findById(new Partida.PartidaId(codCia, ingEgr, codPartida))
-                .orElseThrow(() -> new ResourceNotFoundException("Partida no encontrada"));
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
+        int posicion = indice.posicion(codPartida);
+        if (posicion < 0) {
+            throw new ResourceNotFoundException("Partida no encontrada");
+        }
+        Partida partida = indice.partida(posicion);
 
         int nivelRequerido = TIPO_INGRESO.equalsIgnoreCase(ingEgr) ? MAX_NIVEL_INGRESO : MAX_NIVEL_EGRESO;
 
@@ -205,18 +145,111 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
             return 1; // Es raíz
         }
 
-        Partida parent = partidaRepository.findById(new Partida.PartidaId(codCia, ingEgr, padCodPartida))
-                .orElseThrow(() -> new ResourceNotFoundException("Partida padre no encontrada"));
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
+        int posicion = indice.posicion(padCodPartida);
+        if (posicion < 0) {
+            throw new ResourceNotFoundException("Partida padre no encontrada");
+        }
 
-        return parent.getNivel() + 1;
+        return indice.partida(posicion).getNivel() + 1;
     }
 
+    /**
+     * Presupuesto total (PROY_PARTIDA_MEZCLA.COSTOTOT) de la partida y todas sus
+     * subpartidas, sumando todos los proyectos de la compañía. Se resuelve en
+     * una sola consulta sobre la tabla de cierre PARTIDA_CLOSURE.
+     */
     @Override
     public BigDecimal calculateParentTotal(Long codCia, String ingEgr, Long codPartida) {
-        // Esta funcionalidad requeriría acceso a los comprobantes
-        // Por ahora retornamos BigDecimal.ZERO como placeholder
-        // Se implementará completamente cuando se integre con ComprobantePagoService
-        return BigDecimal.ZERO;
+        if (indice(codCia, ingEgr).posicion(codPartida) < 0) {
+            throw new ResourceNotFoundException("Partida no encontrada");
+        }
+        BigDecimal total = partidaRepository.sumarPresupuestoSubarbol(codCia, null, ingEgr, codPartida);
+        return total != null ? total : BigDecimal.ZERO;
+    }
+
+    /**
+     * Calcula en una sola pasada (post-orden, hijos antes que el padre) el
+     * presupuesto, lo ejecutado y el disponible de cada partida de un proyecto,
+     * acumulando sus subpartidas, y devuelve el árbol completo anotado.
+     * Solo se incluyen las partidas con presupuesto o ejecución en el proyecto
+     * y sus ancestros.
+     */
+    @Override
+    public ArbolPresupuestoDTO calcularArbolPresupuesto(Long codCia, Long codPyto, String ingEgr) {
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
+
+        // Importes propios: una consulta agrupada de presupuesto y una del ledger
+        Map<Long, BigDecimal> presupuestos = new HashMap<>();
+        for (Object[] fila : proyPartidaMezclaRepository.sumarCostoTotalPorProyectoYTipo(codCia, codPyto, ingEgr)) {
+            presupuestos.put(((Number) fila[0]).longValue(), toBigDecimal(fila[1]));
+        }
+        Map<Long, BigDecimal> ejecutados = ejecucionPresupuestoService.obtenerEjecutadosProyecto(codCia, codPyto,
+                ingEgr);
+
+        int n = indice.size();
+        BigDecimal[] presupuestado = new BigDecimal[n];
+        BigDecimal[] ejecutado = new BigDecimal[n];
+        boolean[] incluida = new boolean[n];
+        for (int posicion = 0; posicion < n; posicion++) {
+            Long codPartida = indice.partida(posicion).getCodPartida();
+            presupuestado[posicion] = presupuestos.getOrDefault(codPartida, BigDecimal.ZERO);
+            ejecutado[posicion] = ejecutados.getOrDefault(codPartida, BigDecimal.ZERO);
+            incluida[posicion] = presupuestos.containsKey(codPartida) || ejecutados.containsKey(codPartida);
+        }
+
+        // Recorrido post-orden: al llegar a una partida sus hijos ya están completos
+        Comparator<ArbolPresupuestoDTO.NodoPresupuesto> porOrden = Comparator
+                .comparingInt(ArbolPresupuestoDTO.NodoPresupuesto::getOrden);
+        Map<Integer, List<ArbolPresupuestoDTO.NodoPresupuesto>> hijosPorPadre = new HashMap<>();
+        List<ArbolPresupuestoDTO.NodoPresupuesto> raices = new ArrayList<>();
+        BigDecimal totalPresupuestado = BigDecimal.ZERO;
+        BigDecimal totalEjecutado = BigDecimal.ZERO;
+        int evaluadas = 0;
+
+        for (int posicion : indice.postOrden()) {
+            if (!incluida[posicion]) {
+                continue;
+            }
+            List<ArbolPresupuestoDTO.NodoPresupuesto> hijos = hijosPorPadre.getOrDefault(posicion,
+                    new ArrayList<>());
+            hijos.sort(porOrden);
+
+            ArbolPresupuestoDTO.NodoPresupuesto nodo = crearNodoPresupuesto(indice, posicion,
+                    presupuestos.getOrDefault(indice.partida(posicion).getCodPartida(), BigDecimal.ZERO),
+                    ejecutados.getOrDefault(indice.partida(posicion).getCodPartida(), BigDecimal.ZERO),
+                    presupuestado[posicion], ejecutado[posicion], hijos);
+            hijosPorPadre.remove(posicion);
+            evaluadas++;
+
+            int padre = indice.padre(posicion);
+            if (padre >= 0) {
+                presupuestado[padre] = presupuestado[padre].add(presupuestado[posicion]);
+                ejecutado[padre] = ejecutado[padre].add(ejecutado[posicion]);
+                incluida[padre] = true;
+                hijosPorPadre.computeIfAbsent(padre, k -> new ArrayList<>()).add(nodo);
+            } else {
+                raices.add(nodo);
+                totalPresupuestado = totalPresupuestado.add(presupuestado[posicion]);
+                totalEjecutado = totalEjecutado.add(ejecutado[posicion]);
+            }
+        }
+        raices.sort(porOrden);
+
+        log.debug("Árbol de presupuesto {}-{}-{}: {} partidas", codCia, codPyto, ingEgr, evaluadas);
+
+        return ArbolPresupuestoDTO.builder()
+                .codCia(codCia)
+                .codPyto(codPyto)
+                .ingEgr(ingEgr)
+                .totalPresupuestado(totalPresupuestado)
+                .totalEjecutado(totalEjecutado)
+                .totalDisponible(totalPresupuestado.subtract(totalEjecutado))
+                .porcentajeEjecutado(PresupuestoService.calcularPorcentaje(totalEjecutado, totalPresupuestado))
+                .partidasEvaluadas(evaluadas)
+                .arbol(raices)
+                .fechaCalculo(LocalDateTime.now())
+                .build();
     }
 
     // Métodos auxiliares privados
@@ -263,43 +296,34 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
         }
     }
 
-    private String buildFullPath(PartidaTreeNode node, Map<Long, PartidaTreeNode> nodeMap) {
-        List<String> pathParts = new ArrayList<>();
-        pathParts.add(node.getDesPartida());
-
-        Long currentParentCode = node.getPadCodPartida();
-        while (currentParentCode != null) {
-            PartidaTreeNode parentNode = nodeMap.get(currentParentCode);
-            if (parentNode != null && !currentParentCode.equals(parentNode.getCodPartida())) {
-                pathParts.add(0, parentNode.getDesPartida());
-                currentParentCode = parentNode.getPadCodPartida();
-            } else {
-                break;
-            }
-        }
-
-        return String.join(" > ", pathParts);
-    }
+    /**
+     * Crea el nodo (y sus hijos) del árbol a partir del índice
+     */
+    private PartidaTreeNode crearNodo(PartidaHierarchyIndex indice, int posicion, int profundidad) {
+        Partida partida = indice.partida(posicion);
+        int padre = indice.padre(posicion);
 
-    private Long findParentCode(Long codCia, String ingEgr, Long codPartida) {
-        List<PartidaMezcla> mezclas = partidaMezclaRepository
-                .findByCodCiaAndIngEgrAndCodPartidaAndVigente(codCia, ingEgr, codPartida, "1");
+        PartidaTreeNode node = PartidaTreeNode.builder()
+                .codPartida(partida.getCodPartida())
+                .desPartida(partida.getDesPartida())
+                .nivel(partida.getNivel())
+                .codPartidas(partida.getCodPartidas())
+                .padCodPartida(padre >= 0 && "1".equals(indice.partida(padre).getVigente())
+                        ? indice.partida(padre).getCodPartida()
+                        : null)
+                .fullPath(indice.ruta(posicion))
+                .orden(indice.orden(posicion))
+                .children(new ArrayList<>())
+                .isLeaf(!indice.tieneHijos(posicion))
+                .build();
 
-        if (!mezclas.isEmpty()) {
-            Long parentCode = mezclas.get(0).getPadCodPartida();
-            // Si el padre es igual al hijo, es raíz
-            return parentCode.equals(codPartida) ? null : parentCode;
+        // El límite de profundidad protege contra ciclos en los datos
+        if (profundidad < indice.size()) {
+            for (int hijo : indice.hijos(posicion)) {
+                node.getChildren().add(crearNodo(indice, hijo, profundidad + 1));
+            }
         }
-
-        return null;
-    }
-
-    private Integer getOrdenFromMezcla(List<PartidaMezcla> mezclas, Long codPartida) {
-        return mezclas.stream()
-                .filter(m -> m.getCodPartida().equals(codPartida))
-                .findFirst()
-                .map(PartidaMezcla::getOrden)
-                .orElse(999);
+        return node;
     }
 
     @Override
@@ -345,13 +369,16 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
      */
     @Override
     public List<PartidaDTO> getLevel3PartidasByProyecto(Long codCia, Long codPyto, String ingEgr) {
-        // Obtener todas las partidas de nivel 3 para la compañía y tipo
-        List<Partida> partidasNivel3 = partidaRepository.findByCodCiaAndIngEgrAndNivel(codCia, ingEgr, 3);
-
-        return partidasNivel3.stream()
-                .filter(p -> "1".equals(p.getVigente()))
-                .map(this::convertToDTOWithHierarchy)
-                .collect(Collectors.toList());
+        // Obtener todas las partidas de nivel 3 vigentes para la compañía y tipo
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
+        List<PartidaDTO> resultado = new ArrayList<>();
+        for (int posicion = 0; posicion < indice.size(); posicion++) {
+            Partida partida = indice.partida(posicion);
+            if (Integer.valueOf(3).equals(partida.getNivel()) && "1".equals(partida.getVigente())) {
+                resultado.add(convertToDTOWithHierarchy(indice, posicion));
+            }
+        }
+        return resultado;
     }
 
     /**
@@ -374,17 +401,24 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
             return new ArrayList<>();
         }
 
-        // Crear un mapa de partidas para buscar la descripción rápidamente
+        // Todas las partidas referenciadas en una sola consulta (IN)
+        Set<Long> codPartidas = new HashSet<>();
+        for (ProyPartidaMezcla ppm : partidasMezcla) {
+            codPartidas.add(ppm.getCodPartida());
+        }
         Map<Long, Partida> partidaMap = new HashMap<>();
+        for (Partida partida : partidaRepository.findByCodCiaAndIngEgrAndCodPartidaIn(codCia, ingEgr, codPartidas)) {
+            partidaMap.put(partida.getCodPartida(), partida);
+        }
+
+        // Primera mezcla de cada partida: define su padre en la ruta
+        Map<Long, ProyPartidaMezcla> mezclaPorPartida = new HashMap<>();
         for (ProyPartidaMezcla ppm : partidasMezcla) {
-            Partida partida = partidaRepository.findById(
-                    new Partida.PartidaId(codCia, ingEgr, ppm.getCodPartida())).orElse(null);
-            if (partida != null) {
-                partidaMap.put(ppm.getCodPartida(), partida);
-            }
+            mezclaPorPartida.putIfAbsent(ppm.getCodPartida(), ppm);
         }
 
         // Convertir a DTO con información de jerarquía del proyecto
+        Map<Long, String> rutas = new HashMap<>();
         List<PartidaDTO> resultado = new ArrayList<>();
         for (ProyPartidaMezcla ppm : partidasMezcla) {
             Partida partida = partidaMap.get(ppm.getCodPartida());
@@ -404,10 +438,8 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
                     .vigente(partida.getVigente())
                     .build();
 
-            // Construir la ruta jerárquica (ej: "INGRESOS > Venta > Producto A")
-            StringBuilder hierarchyPath = new StringBuilder();
-            buildHierarchyPathFromMezcla(partidasMezcla, partidaMap, ppm.getCodPartida(), hierarchyPath);
-            dto.setJerarquiaCompleta(hierarchyPath.toString());
+            // Ruta jerárquica (ej: "INGRESOS > Venta > Producto A")
+            dto.setJerarquiaCompleta(resolverRuta(ppm.getCodPartida(), mezclaPorPartida, partidaMap, rutas));
 
             resultado.add(dto);
         }
@@ -424,30 +456,49 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
     }
 
     /**
-     * Construye la ruta jerárquica de una partida recursivamente
+     * Resuelve la ruta jerárquica de una partida del proyecto. Las rutas ya
+     * calculadas se reutilizan, de modo que cada partida se resuelve una sola
+     * vez: sube por los padres hasta una ruta conocida (o la raíz) y luego
+     * completa las rutas de todo el tramo recorrido.
      */
-    private void buildHierarchyPathFromMezcla(List<ProyPartidaMezcla> mezclas, Map<Long, Partida> partidaMap,
-            Long codPartida, StringBuilder path) {
-        ProyPartidaMezcla actual = mezclas.stream()
-                .filter(m -> m.getCodPartida().equals(codPartida))
-                .findFirst().orElse(null);
-
-        if (actual == null)
-            return;
+    private String resolverRuta(Long codPartida, Map<Long, ProyPartidaMezcla> mezclaPorPartida,
+            Map<Long, Partida> partidaMap, Map<Long, String> rutas) {
+        String conocida = rutas.get(codPartida);
+        if (conocida != null) {
+            return conocida;
+        }
 
-        // Si tiene padre y no es él mismo, primero construir la ruta del padre
-        if (actual.getPadCodPartida() != null && !actual.getPadCodPartida().equals(codPartida)) {
-            buildHierarchyPathFromMezcla(mezclas, partidaMap, actual.getPadCodPartida(), path);
-            if (path.length() > 0) {
-                path.append(" > ");
+        // Tramo pendiente desde la partida hacia la raíz
+        List<Long> tramo = new ArrayList<>();
+        Set<Long> enTramo = new HashSet<>();
+        String base = "";
+        Long actual = codPartida;
+        while (actual != null) {
+            String ruta = rutas.get(actual);
+            if (ruta != null) {
+                base = ruta;
+                break;
             }
+            ProyPartidaMezcla mezcla = mezclaPorPartida.get(actual);
+            if (mezcla == null || !enTramo.add(actual)) {
+                // Sin mezcla en el proyecto (ruta vacía) o ciclo en los datos
+                break;
+            }
+            tramo.add(actual);
+            Long padre = mezcla.getPadCodPartida();
+            actual = padre != null && !padre.equals(actual) ? padre : null;
         }
 
-        // Agregar el nombre de esta partida
-        Partida partida = partidaMap.get(codPartida);
-        if (partida != null) {
-            path.append(partida.getDesPartida());
+        // Completar del ancestro más alto hacia la partida
+        String ruta = base;
+        for (int i = tramo.size() - 1; i >= 0; i--) {
+            Partida partida = partidaMap.get(tramo.get(i));
+            if (partida != null) {
+                ruta = ruta.isEmpty() ? partida.getDesPartida() : ruta + " > " + partida.getDesPartida();
+            }
+            rutas.put(tramo.get(i), ruta);
         }
+        return ruta;
     }
 
     /**
@@ -455,9 +506,9 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
      */
     @Override
     public boolean isLevel3Partida(Long codCia, String ingEgr, Long codPartida) {
-        Partida partida = partidaRepository.findById(new Partida.PartidaId(codCia, ingEgr, codPartida))
-                .orElse(null);
-        return partida != null && partida.getNivel() == 3;
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
+        int posicion = indice.posicion(codPartida);
+        return posicion >= 0 && indice.partida(posicion).getNivel() == 3;
     }
 
     /**
@@ -465,29 +516,97 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
      */
     @Override
     public PartidaDTO getParentPartida(Long codCia, String ingEgr, Long codPartida) {
-        Partida partida = partidaRepository.findById(new Partida.PartidaId(codCia, ingEgr, codPartida))
-                .orElse(null);
+        PartidaHierarchyIndex indice = indice(codCia, ingEgr);
+        int posicion = indice.posicion(codPartida);
 
-        if (partida == null || partida.getNivel() == 1) {
+        if (posicion < 0 || indice.partida(posicion).getNivel() == 1) {
             return null;
         }
 
-        // Buscar el padre usando PartidaMezcla
-        Long parentCode = findParentCode(codCia, ingEgr, codPartida);
-        if (parentCode == null) {
-            return null;
-        }
+        // Padre según PartidaMezcla
+        int padre = indice.padre(posicion);
+        return padre >= 0 ? convertToDTOWithHierarchy(indice, padre) : null;
+    }
 
-        Partida padre = partidaRepository.findById(new Partida.PartidaId(codCia, ingEgr, parentCode))
-                .orElse(null);
+    /**
+     * Reconstruye el índice de jerarquía cuando cambia el catálogo de partidas.
+     * Se ejecuta después del commit (o de inmediato si no hay transacción activa).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogoModificado(CatalogoPartidasModificadoEvent event) {
+        PartidaHierarchyIndex indice = reconstruir(new IndiceKey(event.codCia(), event.ingEgr()));
+        log.info("Índice de jerarquía de partidas {}-{} reconstruido (versión {}, {} partidas)",
+                event.codCia(), event.ingEgr(), indice.getVersion(), indice.size());
+    }
 
-        return padre != null ? convertToDTOWithHierarchy(padre) : null;
+    // ==================== Índice de jerarquía ====================
+
+    /**
+     * Obtiene el índice de la compañía y tipo, construyéndolo la primera vez
+     */
+    private PartidaHierarchyIndex indice(Long codCia, String ingEgr) {
+        IndiceKey key = new IndiceKey(codCia, ingEgr);
+        PartidaHierarchyIndex indice = indices.get(key);
+        return indice != null ? indice : reconstruir(key);
+    }
+
+    /**
+     * Construye un índice nuevo y lo publica solo si es más reciente que el
+     * actual. La versión se asigna antes de leer la BD, de modo que una
+     * construcción que leyó datos anteriores nunca reemplaza a una posterior.
+     */
+    private PartidaHierarchyIndex reconstruir(IndiceKey key) {
+        long version = versiones.incrementAndGet();
+        PartidaHierarchyIndex nuevo = PartidaHierarchyIndex.construir(version,
+                partidaRepository.findByCodCiaAndIngEgr(key.codCia(), key.ingEgr()),
+                partidaMezclaRepository.findByCodCiaAndIngEgrAndVigente(key.codCia(), key.ingEgr(), "1"));
+        return indices.merge(key, nuevo,
+                (actual, candidato) -> candidato.getVersion() > actual.getVersion() ? candidato : actual);
+    }
+
+    private ArbolPresupuestoDTO.NodoPresupuesto crearNodoPresupuesto(PartidaHierarchyIndex indice, int posicion,
+            BigDecimal presupuestadoPropio, BigDecimal ejecutadoPropio, BigDecimal presupuestado,
+            BigDecimal ejecutado, List<ArbolPresupuestoDTO.NodoPresupuesto> hijos) {
+        Partida partida = indice.partida(posicion);
+        int padre = indice.padre(posicion);
+        BigDecimal porcentaje = PresupuestoService.calcularPorcentaje(ejecutado, presupuestado);
+
+        return ArbolPresupuestoDTO.NodoPresupuesto.builder()
+                .codPartida(partida.getCodPartida())
+                .codPartidas(partida.getCodPartidas())
+                .desPartida(partida.getDesPartida())
+                .nivel(partida.getNivel())
+                .padCodPartida(padre >= 0 ? indice.partida(padre).getCodPartida() : null)
+                .fullPath(indice.ruta(posicion))
+                .orden(indice.orden(posicion))
+                .isLeaf(hijos.isEmpty())
+                .presupuestadoPropio(presupuestadoPropio)
+                .ejecutadoPropio(ejecutadoPropio)
+                .presupuestado(presupuestado)
+                .ejecutado(ejecutado)
+                .disponible(presupuestado.subtract(ejecutado))
+                .porcentajeEjecutado(porcentaje)
+                .nivelAlerta(PresupuestoService.determinarNivelAlerta(porcentaje))
+                .children(hijos)
+                .build();
+    }
+
+    private BigDecimal toBigDecimal(Object valor) {
+        if (valor == null) {
+            return BigDecimal.ZERO;
+        }
+        if (valor instanceof BigDecimal bd) {
+            return bd;
+        }
+        return new BigDecimal(valor.toString());
     }
 
     /**
-     * Convertir entidad Partida a DTO con información de jerarquía
+     * Convertir una partida del índice a DTO con información de jerarquía
      */
-    private PartidaDTO convertToDTOWithHierarchy(Partida partida) {
+    private PartidaDTO convertToDTOWithHierarchy(PartidaHierarchyIndex indice, int posicion) {
+        Partida partida = indice.partida(posicion);
         PartidaDTO dto = PartidaDTO.builder()
                 .codCia(partida.getCodCia())
                 .ingEgr(partida.getIngEgr())
@@ -502,7 +621,7 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
 
         // Construir jerarquía completa si es nivel 3
         if (partida.getNivel() == 3) {
-            buildHierarchyInfo(dto, partida);
+            buildHierarchyInfo(dto, indice, posicion);
         }
 
         return dto;
@@ -511,35 +630,35 @@ public class PartidaHierarchyServiceImpl implements PartidaHierarchyService {
     /**
      * Construir información de jerarquía para una partida de nivel 3
      */
-    private void buildHierarchyInfo(PartidaDTO dto, Partida partida) {
+    private void buildHierarchyInfo(PartidaDTO dto, PartidaHierarchyIndex indice, int posicion) {
         // Buscar padre nivel 2
-        Long parentCode2 = findParentCode(partida.getCodCia(), partida.getIngEgr(), partida.getCodPartida());
-        if (parentCode2 != null) {
-            Partida padreNivel2 = partidaRepository.findById(
-                    new Partida.PartidaId(partida.getCodCia(), partida.getIngEgr(), parentCode2)).orElse(null);
-
-            if (padreNivel2 != null) {
-                dto.setPadreNivel2(padreNivel2.getCodPartida());
-                dto.setDesPartidaNivel2(padreNivel2.getDesPartida());
-
-                // Buscar padre nivel 1
-                Long parentCode1 = findParentCode(partida.getCodCia(), partida.getIngEgr(), parentCode2);
-                if (parentCode1 != null) {
-                    Partida padreNivel1 = partidaRepository.findById(
-                            new Partida.PartidaId(partida.getCodCia(), partida.getIngEgr(), parentCode1)).orElse(null);
-
-                    if (padreNivel1 != null) {
-                        dto.setPadreNivel1(padreNivel1.getCodPartida());
-                        dto.setDesPartidaNivel1(padreNivel1.getDesPartida());
-
-                        // Construir jerarquía completa para display
-                        dto.setJerarquiaCompleta(
-                                padreNivel1.getDesPartida() + " > " +
-                                        padreNivel2.getDesPartida() + " > " +
-                                        partida.getDesPartida());
-                    }
-                }
-            }
+        int padre2 = indice.padre(posicion);
+        if (padre2 < 0) {
+            return;
         }
+        Partida padreNivel2 = indice.partida(padre2);
+        dto.setPadreNivel2(padreNivel2.getCodPartida());
+        dto.setDesPartidaNivel2(padreNivel2.getDesPartida());
+
+        // Buscar padre nivel 1
+        int padre1 = indice.padre(padre2);
+        if (padre1 < 0) {
+            return;
+        }
+        Partida padreNivel1 = indice.partida(padre1);
+        dto.setPadreNivel1(padreNivel1.getCodPartida());
+        dto.setDesPartidaNivel1(padreNivel1.getDesPartida());
+
+        // Construir jerarquía completa para display
+        dto.setJerarquiaCompleta(
+                padreNivel1.getDesPartida() + " > " +
+                        padreNivel2.getDesPartida() + " > " +
+                        dto.getDesPartida());
+    }
+
+    /**
+     * Clave del índice: compañía y tipo (I/E)
+     */
+    private record IndiceKey(Long codCia, String ingEgr) {
     }
 }
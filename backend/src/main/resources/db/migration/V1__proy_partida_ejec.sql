@@ -0,0 +1,40 @@
+-- ==================================================================
+-- PROY_PARTIDA_EJEC: Ledger de ejecución presupuestal por partida
+-- Importe ejecutado acumulado (comprobantes no anulados) por
+-- (CodCia, CodPyto, IngEgr, CodPartida). Se mantiene de forma
+-- incremental desde los servicios de comprobantes y se puede
+-- reconstruir desde COMP_PAGODET, VTACOMP_PAGODET y COMP_PAGOEMPLEADO_DET.
+-- ==================================================================
+CREATE TABLE PROY_PARTIDA_EJEC (
+    CodCia NUMBER(6) NOT NULL,
+    CodPyto NUMBER(6) NOT NULL,
+    IngEgr VARCHAR2(1) NOT NULL,
+    CodPartida NUMBER(6) NOT NULL,
+    ImpEjecMn NUMBER(14,2) DEFAULT 0 NOT NULL,
+    FecActualiza TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PROY_PARTIDA_EJEC_PK PRIMARY KEY (CodCia, CodPyto, IngEgr, CodPartida),
+    CONSTRAINT PROY_PARTIDA_EJEC_PARTIDA_FK FOREIGN KEY (CodCia, IngEgr, CodPartida) REFERENCES PARTIDA (CodCia, IngEgr, CodPartida)
+);
+
+-- Carga inicial desde las tablas origen
+INSERT INTO PROY_PARTIDA_EJEC (CodCia, CodPyto, IngEgr, CodPartida, ImpEjecMn)
+SELECT CodCia, CodPyto, IngEgr, CodPartida, SUM(ImpTotalMn)
+FROM (
+    SELECT c.CodCIA AS CodCia, c.CodPyto, d.IngEgr, d.CodPartida, d.ImpTotalMn
+    FROM COMP_PAGODET d
+    JOIN COMP_PAGOCAB c ON c.CodCIA = d.CodCIA AND c.CodProveedor = d.CodProveedor AND c.NroCP = d.NroCP
+    WHERE c.CodEstado <> 'ANU'
+    UNION ALL
+    SELECT c.CodCIA, c.CodPyto, d.IngEgr, d.CodPartida, d.ImpTotalMn
+    FROM VTACOMP_PAGODET d
+    JOIN VTACOMP_PAGOCAB c ON c.CodCIA = d.CodCIA AND c.NroCP = d.NroCP
+    WHERE c.CodEstado <> 'ANU'
+    UNION ALL
+    SELECT c.CodCia, c.CodPyto, d.IngEgr, d.CodPartida, d.ImpTotalMn
+    FROM COMP_PAGOEMPLEADO_DET d
+    JOIN COMP_PAGOEMPLEADO c ON c.CodCia = d.CodCia AND c.CodEmpleado = d.CodEmpleado AND c.NroCP = d.NroCP
+    WHERE c.CodEstado <> 'ANU'
+)
+GROUP BY CodCia, CodPyto, IngEgr, CodPartida;
+
+COMMIT;
@@ -0,0 +1,54 @@
+-- ==================================================================
+-- PARTIDA_CLOSURE: Tabla de cierre de la jerarquía de partidas
+-- Una fila por cada par (ancestro, descendiente) de la jerarquía
+-- definida en PARTIDA_MEZCLA, incluida la partida consigo misma
+-- (Profundidad 0). Permite resolver consultas por subárbol
+-- ("todo lo que cuelga de la partida X") con un solo JOIN.
+-- El padre de cada partida es el de su primera mezcla vigente
+-- (menor Corr); si el padre es la misma partida, es raíz.
+-- Se reconstruye por (CodCia, IngEgr) al modificar PARTIDA o
+-- PARTIDA_MEZCLA.
+-- ==================================================================
+CREATE TABLE PARTIDA_CLOSURE (
+    CodCia NUMBER(6) NOT NULL,
+    IngEgr VARCHAR2(1) NOT NULL,
+    AncCodPartida NUMBER(6) NOT NULL,
+    DesCodPartida NUMBER(6) NOT NULL,
+    Profundidad NUMBER(3) NOT NULL,
+    CONSTRAINT PARTIDA_CLOSURE_PK PRIMARY KEY (CodCia, IngEgr, AncCodPartida, DesCodPartida),
+    CONSTRAINT PARTIDA_CLOSURE_ANC_FK FOREIGN KEY (CodCia, IngEgr, AncCodPartida)
+        REFERENCES PARTIDA (CodCia, IngEgr, CodPartida) ON DELETE CASCADE,
+    CONSTRAINT PARTIDA_CLOSURE_DES_FK FOREIGN KEY (CodCia, IngEgr, DesCodPartida)
+        REFERENCES PARTIDA (CodCia, IngEgr, CodPartida) ON DELETE CASCADE
+);
+
+-- Búsqueda de ancestros de una partida
+CREATE INDEX PARTIDA_CLOSURE_DES_IX ON PARTIDA_CLOSURE (CodCia, IngEgr, DesCodPartida);
+
+-- Carga inicial desde PARTIDA y PARTIDA_MEZCLA
+INSERT INTO PARTIDA_CLOSURE (CodCia, IngEgr, AncCodPartida, DesCodPartida, Profundidad)
+WITH arista AS (
+    SELECT m.CodCia, m.IngEgr, m.CodPartida, m.PadCodPartida
+    FROM (
+        SELECT CodCia, IngEgr, CodPartida, PadCodPartida,
+               ROW_NUMBER() OVER (PARTITION BY CodCia, IngEgr, CodPartida ORDER BY Corr) AS Rn
+        FROM PARTIDA_MEZCLA
+        WHERE Vigente = '1'
+    ) m
+    JOIN PARTIDA p ON p.CodCia = m.CodCia AND p.IngEgr = m.IngEgr AND p.CodPartida = m.PadCodPartida
+    WHERE m.Rn = 1 AND m.PadCodPartida <> m.CodPartida
+),
+cierre (CodCia, IngEgr, AncCodPartida, DesCodPartida, Profundidad) AS (
+    SELECT CodCia, IngEgr, CodPartida, CodPartida, 0
+    FROM PARTIDA
+    UNION ALL
+    SELECT c.CodCia, c.IngEgr, a.PadCodPartida, c.DesCodPartida, c.Profundidad + 1
+    FROM cierre c
+    JOIN arista a ON a.CodCia = c.CodCia AND a.IngEgr = c.IngEgr AND a.CodPartida = c.AncCodPartida
+) CYCLE AncCodPartida SET EsCiclo TO 'S' DEFAULT 'N'
+SELECT CodCia, IngEgr, AncCodPartida, DesCodPartida, MIN(Profundidad)
+FROM cierre
+WHERE EsCiclo = 'N'
+GROUP BY CodCia, IngEgr, AncCodPartida, DesCodPartida;
+
+COMMIT;
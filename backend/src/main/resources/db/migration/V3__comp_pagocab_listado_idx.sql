@@ -0,0 +1,7 @@
+-- ==================================================================
+-- Índice para el listado paginado por cursor de COMP_PAGOCAB
+-- Cubre el orden (FecCP, CodProveedor, NroCP) descendente por
+-- compañía, de modo que cada página se lee con un rango del índice
+-- sin ordenar ni recorrer las filas de las páginas anteriores.
+-- ==================================================================
+CREATE INDEX COMP_PAGOCAB_LISTADO_IX ON COMP_PAGOCAB (CodCIA, FecCP DESC, CodProveedor DESC, NroCP DESC);
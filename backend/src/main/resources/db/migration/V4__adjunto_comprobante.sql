@@ -0,0 +1,34 @@
+-- ==================================================================
+-- ADJUNTO_COMPROBANTE: Archivos adjuntos de los comprobantes
+-- Reemplaza a las columnas BLOB FotoCP / FotoAbono de COMP_PAGOCAB,
+-- VTACOMP_PAGOCAB y COMP_PAGOEMPLEADO. El contenido se guarda en el
+-- almacenamiento de archivos (file.upload-dir) y aquí solo la
+-- referencia, el tamaño y el hash SHA-256 del contenido.
+-- TipoComprobante: EGR = COMP_PAGOCAB (CodTercero = CodProveedor),
+-- ING = VTACOMP_PAGOCAB (CodTercero = 0),
+-- EMP = COMP_PAGOEMPLEADO (CodTercero = CodEmpleado).
+-- Categoria: CP = comprobante, ABO = abono, OTR = otros.
+-- Los BLOB existentes los traslada por lotes AdjuntoMigracionJob.
+-- ==================================================================
+CREATE SEQUENCE SEQ_ADJUNTO_COMPROBANTE START WITH 1 INCREMENT BY 1 NOCACHE;
+
+CREATE TABLE ADJUNTO_COMPROBANTE (
+    CodAdjunto NUMBER(12) NOT NULL,
+    CodCia NUMBER(6) NOT NULL,
+    TipoComprobante VARCHAR2(3) NOT NULL,
+    CodTercero NUMBER(6) NOT NULL,
+    NroCP VARCHAR2(20) NOT NULL,
+    Categoria VARCHAR2(3) NOT NULL,
+    NombreArchivo VARCHAR2(255) NOT NULL,
+    ContentType VARCHAR2(100) NOT NULL,
+    Tamanio NUMBER(12) NOT NULL,
+    Hash VARCHAR2(64) NOT NULL,
+    RutaArchivo VARCHAR2(500) NOT NULL,
+    FecCreacion TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT ADJUNTO_COMPROBANTE_PK PRIMARY KEY (CodAdjunto),
+    CONSTRAINT ADJUNTO_COMPROBANTE_TIPO_CK CHECK (TipoComprobante IN ('EGR', 'ING', 'EMP')),
+    CONSTRAINT ADJUNTO_COMPROBANTE_CAT_CK CHECK (Categoria IN ('CP', 'ABO', 'OTR'))
+);
+
+-- Adjuntos de un comprobante (también usado por los indicadores tieneFotoCp / tieneFotoAbono)
+CREATE INDEX ADJUNTO_COMPROBANTE_CP_IX ON ADJUNTO_COMPROBANTE (CodCia, TipoComprobante, CodTercero, NroCP, Categoria);
@@ -0,0 +1,16 @@
+-- ==================================================================
+-- ADJUNTO_MIGRACION_FALLO: Comprobantes cuyas imágenes BLOB no se
+-- pudieron trasladar a ADJUNTO_COMPROBANTE. AdjuntoMigracionJob los
+-- omite en los lotes siguientes; para reintentar un comprobante se
+-- elimina su fila.
+-- ==================================================================
+CREATE TABLE ADJUNTO_MIGRACION_FALLO (
+    CodCia NUMBER(6) NOT NULL,
+    TipoComprobante VARCHAR2(3) NOT NULL,
+    CodTercero NUMBER(6) NOT NULL,
+    NroCP VARCHAR2(20) NOT NULL,
+    Mensaje VARCHAR2(500),
+    FecFallo TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT ADJUNTO_MIGRACION_FALLO_PK PRIMARY KEY (CodCia, TipoComprobante, CodTercero, NroCP),
+    CONSTRAINT ADJUNTO_MIGRACION_FALLO_TIPO_CK CHECK (TipoComprobante IN ('EGR', 'ING', 'EMP'))
+);
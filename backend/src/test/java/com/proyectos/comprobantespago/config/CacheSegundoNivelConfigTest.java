@@ -0,0 +1,163 @@
+package com.proyectos.comprobantespago.config;
+
+import java.util.List;
+
+import javax.cache.CacheManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.PhysicalNamingStrategyStandardImpl;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.proyectos.comprobantespago.entity.Elementos;
+import com.proyectos.comprobantespago.entity.Tabs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the second-level and query cache regions of CacheSegundoNivelConfig,
+ * on an in-memory H2 database
+ */
+class CacheSegundoNivelConfigTest {
+
+    private CacheManager cacheManager;
+    private SessionFactory sessionFactory;
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = CacheSegundoNivelConfig.crearCacheManager(CacheSegundoNivelConfig.REGIONES);
+        StandardServiceRegistry registro = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:cache-segundo-nivel;DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY,
+                        PhysicalNamingStrategyStandardImpl.class.getName())
+                .applySetting(AvailableSettings.JAKARTA_VALIDATION_MODE, "none")
+                .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, true)
+                .applySetting(AvailableSettings.USE_QUERY_CACHE, true)
+                .applySetting(AvailableSettings.CACHE_REGION_FACTORY, "jcache")
+                .applySetting(ConfigSettings.CACHE_MANAGER, cacheManager)
+                .applySetting(ConfigSettings.MISSING_CACHE_STRATEGY, "fail")
+                .applySetting(AvailableSettings.GENERATE_STATISTICS, true)
+                .build();
+        sessionFactory = new MetadataSources(registro)
+                .addAnnotatedClass(Tabs.class)
+                .addAnnotatedClass(Elementos.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        estadisticas = sessionFactory.getStatistics();
+
+        sessionFactory.inTransaction(session -> {
+            session.persist(Tabs.builder().codTab("003").denTab("Moneda").denCorta("MON").build());
+            session.persist(Elementos.builder().codTab("003").codElem("001").denEle("Soles").denCorta("PEN").build());
+        });
+        sessionFactory.getCache().evictAllRegions();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+        cacheManager.close();
+    }
+
+    @Test
+    void testSegundaLecturaNoConsultaLaBd() {
+        assertEquals("Moneda", leerTabla("003").getDenTab());
+        assertEquals(1, region("tabs").getMissCount());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        assertEquals("Moneda", leerTabla("003").getDenTab());
+        assertEquals(1, region("tabs").getHitCount());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void testModificacionActualizaLaCache() {
+        leerTabla("003");
+        sessionFactory.inTransaction(session -> session.find(Tabs.class, "003").setDenTab("Moneda nacional"));
+        long sentencias = estadisticas.getPrepareStatementCount();
+
+        assertEquals("Moneda nacional", leerTabla("003").getDenTab());
+        assertEquals(sentencias, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void testActualizacionMasivaInvalidaLaRegion() {
+        leerTabla("003");
+        sessionFactory.inTransaction(session -> session
+                .createMutationQuery("UPDATE Tabs t SET t.denTab = 'Divisa' WHERE t.codTab = '003'")
+                .executeUpdate());
+        long fallos = region("tabs").getMissCount();
+
+        assertEquals("Divisa", leerTabla("003").getDenTab());
+        assertEquals(fallos + 1, region("tabs").getMissCount());
+    }
+
+    @Test
+    void testSqlNativoConEspaciosSoloInvalidaSusTablas() {
+        leerTabla("003");
+        sessionFactory.inTransaction(session -> session
+                .createNativeMutationQuery("UPDATE ELEMENTOS SET DENCORTA = 'S/' WHERE CODTAB = '003'")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, "ELEMENTOS")
+                .executeUpdate());
+        long sentencias = estadisticas.getPrepareStatementCount();
+
+        leerTabla("003");
+        assertEquals(1, region("tabs").getHitCount());
+        assertEquals(sentencias, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void testConsultaCacheableSeInvalidaAlInsertar() {
+        assertEquals(1, elementosDeTabla("003").size());
+        assertEquals(1, elementosDeTabla("003").size());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+
+        sessionFactory.inTransaction(session -> session
+                .persist(Elementos.builder().codTab("003").codElem("002").denEle("Dólares").denCorta("USD").build()));
+
+        assertEquals(2, elementosDeTabla("003").size());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+        assertEquals(2, estadisticas.getQueryCacheMissCount());
+    }
+
+    @Test
+    void testRegionesLimitadasSalvoMarcasDeTiempo() {
+        for (CacheSegundoNivelConfig.Region region : CacheSegundoNivelConfig.REGIONES) {
+            assertNotNull(cacheManager.getCache(region.nombre()), region.nombre());
+            if (!CacheSegundoNivelConfig.REGION_MARCAS_TIEMPO.equals(region.nombre())) {
+                assertTrue(region.maxEntradas() > 0, region.nombre());
+                assertTrue(region.vigenciaMinutos() > 0, region.nombre());
+            }
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private Tabs leerTabla(String codTab) {
+        return sessionFactory.fromSession(session -> session.find(Tabs.class, codTab));
+    }
+
+    private List<Elementos> elementosDeTabla(String codTab) {
+        return sessionFactory.fromSession(session -> session
+                .createSelectionQuery("FROM Elementos e WHERE e.codTab = :codTab", Elementos.class)
+                .setParameter("codTab", codTab)
+                .setCacheable(true)
+                .getResultList());
+    }
+
+    private CacheRegionStatistics region(String nombre) {
+        return estadisticas.getDomainDataRegionStatistics(nombre);
+    }
+}
@@ -0,0 +1,121 @@
+package com.proyectos.comprobantespago.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyectos.comprobantespago.service.IdempotenciaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IdempotenciaFilter
+ */
+class IdempotenciaFilterTest {
+
+    private static final String RUTA = "/comprobantes-pago";
+    private static final String CUERPO = "{\"nroCp\": \"F001-1\", \"impTotalMn\": 118.00}";
+
+    private IdempotenciaFilter filter;
+    private AtomicInteger ejecuciones;
+
+    @BeforeEach
+    void setUp() {
+        IdempotenciaService service = new IdempotenciaService(new SimpleMeterRegistry(), 60, 100);
+        filter = new IdempotenciaFilter(service, new ObjectMapper().findAndRegisterModules(), 1_000);
+        ejecuciones = new AtomicInteger();
+    }
+
+    @Test
+    void testReintentoConMismoCuerpo_RepiteRespuestaSinEjecutar() throws Exception {
+        MockHttpServletResponse primera = enviar("clave-1", CUERPO, this::crearComprobante);
+        MockHttpServletResponse reintento = enviar("clave-1", CUERPO, this::crearComprobante);
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals(201, primera.getStatus());
+        assertNull(primera.getHeader(IdempotenciaFilter.HEADER_REPETIDA));
+        assertEquals(201, reintento.getStatus());
+        assertEquals("true", reintento.getHeader(IdempotenciaFilter.HEADER_REPETIDA));
+        assertEquals(primera.getContentAsString(), reintento.getContentAsString());
+    }
+
+    @Test
+    void testMismaClaveConOtroCuerpo_RespondeUnprocessable() throws Exception {
+        enviar("clave-1", CUERPO, this::crearComprobante);
+        MockHttpServletResponse conflicto = enviar("clave-1", CUERPO.replace("118.00", "236.00"),
+                this::crearComprobante);
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals(422, conflicto.getStatus());
+        assertNull(conflicto.getHeader(IdempotenciaFilter.HEADER_REPETIDA));
+    }
+
+    @Test
+    void testCuerpoLeido_AdmiteLecturaConReadListener() throws Exception {
+        ByteArrayOutputStream leido = new ByteArrayOutputStream();
+        FilterChain lecturaAsincrona = (request, response) -> {
+            ServletInputStream entrada = request.getInputStream();
+            entrada.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (entrada.isReady() && !entrada.isFinished()) {
+                        leido.write(entrada.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    ejecuciones.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    fail(t);
+                }
+            });
+        };
+
+        enviar("clave-2", CUERPO, lecturaAsincrona);
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals(CUERPO, leido.toString(StandardCharsets.UTF_8));
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private MockHttpServletResponse enviar(String clave, String cuerpo, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", RUTA);
+        request.addHeader(IdempotenciaFilter.HEADER, clave);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(cuerpo.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    /**
+     * Simula el controller: lee el cuerpo y responde 201 con un número de operación
+     */
+    private void crearComprobante(ServletRequest request, ServletResponse response) throws IOException {
+        request.getInputStream().readAllBytes();
+        int numero = ejecuciones.incrementAndGet();
+        HttpServletResponse http = (HttpServletResponse) response;
+        http.setStatus(201);
+        http.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        http.getOutputStream().write(("{\"operacion\": " + numero + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
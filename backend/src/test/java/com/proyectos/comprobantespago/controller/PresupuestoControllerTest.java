@@ -0,0 +1,79 @@
+package com.proyectos.comprobantespago.controller;
+
+import com.proyectos.comprobantespago.exception.GlobalExceptionHandler;
+import com.proyectos.comprobantespago.service.AlertaPresupuestoService;
+import com.proyectos.comprobantespago.service.EjecucionPresupuestoService;
+import com.proyectos.comprobantespago.service.PresupuestoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Request validation tests for PresupuestoController
+ */
+class PresupuestoControllerTest {
+
+    private PresupuestoService presupuestoService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        presupuestoService = mock(PresupuestoService.class);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PresupuestoController(presupuestoService,
+                        mock(EjecucionPresupuestoService.class), mock(AlertaPresupuestoService.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testSimular_SinBorradoresRespondeBadRequest() throws Exception {
+        mockMvc.perform(post("/presupuesto/simular")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"codCia\": 1, \"codPyto\": 7}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.borradores").exists());
+
+        verify(presupuestoService, never()).simularEgresos(any(), any(), any());
+    }
+
+    @Test
+    void testSimular_SinProyectoRespondeBadRequest() throws Exception {
+        mockMvc.perform(post("/presupuesto/simular")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"codCia\": 1, \"borradores\": [{\"referencia\": \"F001-1\", \"detalles\": []}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.codPyto").exists());
+
+        verify(presupuestoService, never()).simularEgresos(any(), any(), any());
+    }
+
+    @Test
+    void testSimular_BorradorMalformadoRespondeBadRequest() throws Exception {
+        String detalleSinPartida = "{\"codCia\": 1, \"codProveedor\": 20, \"nroCp\": \"F001-1\", \"sec\": 1, "
+                + "\"ingEgr\": \"E\", \"impNetoMn\": 100.00, \"impIgvMn\": 18.00, \"impTotalMn\": 118.00, "
+                + "\"semilla\": 1}";
+
+        mockMvc.perform(post("/presupuesto/simular")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"codCia\": 1, \"codPyto\": 7, \"borradores\": ["
+                        + "{\"referencia\": \"F001-1\", \"detalles\": [null, " + detalleSinPartida + "]}, "
+                        + "{\"referencia\": \"F001-2\"}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors['borradores[0].detalles[0]']").exists())
+                .andExpect(jsonPath("$.validationErrors['borradores[0].detalles[1].codPartida']").exists())
+                .andExpect(jsonPath("$.validationErrors['borradores[1].detalles']").exists());
+
+        verify(presupuestoService, never()).simularEgresos(any(), any(), any());
+    }
+}
@@ -0,0 +1,102 @@
+package com.proyectos.comprobantespago.service;
+
+import com.proyectos.comprobantespago.dto.AlertaPresupuestoDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AlertaPresupuestoService
+ */
+class AlertaPresupuestoServiceTest {
+
+    private static final Long COD_CIA = 1L;
+    private static final Long COD_PYTO = 7L;
+
+    private PresupuestoService presupuestoService;
+    private AlertaPresupuestoService servicio;
+
+    @BeforeEach
+    void setUp() {
+        presupuestoService = mock(PresupuestoService.class);
+        servicio = crearServicio(30, 1000);
+    }
+
+    private AlertaPresupuestoService crearServicio(long ttlMinutos, int maxProyectos) {
+        AlertaPresupuestoService nuevo = new AlertaPresupuestoService(presupuestoService, new SimpleMeterRegistry(),
+                ttlMinutos, maxProyectos);
+        nuevo.registrarMetricas();
+        return nuevo;
+    }
+
+    @Test
+    void testCambioDePresupuesto_RecalculaAlertas() {
+        when(presupuestoService.generarAlertas(COD_CIA, COD_PYTO))
+                .thenReturn(List.of(alerta("rojo")))
+                .thenReturn(List.of(alerta("verde")));
+        assertEquals("rojo", servicio.obtenerAlertas(COD_CIA, COD_PYTO).get(0).getNivel());
+
+        servicio.onPartidasProyectoModificadas(
+                new ProyPartidaMezclaService.PartidasProyectoModificadasEvent(COD_CIA, COD_PYTO));
+        servicio.procesarPendientes();
+
+        assertEquals("verde", servicio.obtenerAlertas(COD_CIA, COD_PYTO).get(0).getNivel());
+        verify(presupuestoService, times(2)).generarAlertas(COD_CIA, COD_PYTO);
+    }
+
+    @Test
+    void testSinCambios_LeeDelAlmacen() {
+        when(presupuestoService.generarAlertas(COD_CIA, COD_PYTO)).thenReturn(List.of(alerta("amarillo")));
+
+        servicio.obtenerAlertas(COD_CIA, COD_PYTO);
+        servicio.procesarPendientes();
+        servicio.obtenerAlertas(COD_CIA, COD_PYTO);
+
+        verify(presupuestoService, times(1)).generarAlertas(COD_CIA, COD_PYTO);
+    }
+
+    @Test
+    void testAlmacenLleno_DescartaElProyectoMasAntiguo() {
+        servicio = crearServicio(30, 2);
+        when(presupuestoService.generarAlertas(eq(COD_CIA), anyLong())).thenReturn(List.of(alerta("rojo")));
+
+        servicio.obtenerAlertas(COD_CIA, 1L);
+        servicio.obtenerAlertas(COD_CIA, 2L);
+        servicio.obtenerAlertas(COD_CIA, 3L);
+        assertEquals(2, servicio.proyectosAlmacenados());
+
+        // El proyecto 1 se descartó y se vuelve a calcular; el 3 sigue en el almacén
+        servicio.obtenerAlertas(COD_CIA, 3L);
+        servicio.obtenerAlertas(COD_CIA, 1L);
+        verify(presupuestoService, times(1)).generarAlertas(COD_CIA, 3L);
+        verify(presupuestoService, times(2)).generarAlertas(COD_CIA, 1L);
+        assertEquals(2, servicio.proyectosAlmacenados());
+    }
+
+    @Test
+    void testAlertasVencidas_SeRecalculanYSePurgan() {
+        servicio = crearServicio(0, 1000);
+        when(presupuestoService.generarAlertas(COD_CIA, COD_PYTO)).thenReturn(List.of());
+
+        servicio.obtenerAlertas(COD_CIA, COD_PYTO);
+        servicio.obtenerAlertas(COD_CIA, COD_PYTO);
+        verify(presupuestoService, times(2)).generarAlertas(COD_CIA, COD_PYTO);
+
+        servicio.purgarVencidas();
+        assertEquals(0, servicio.proyectosAlmacenados());
+    }
+
+    private AlertaPresupuestoDTO alerta(String nivel) {
+        return AlertaPresupuestoDTO.builder().codPyto(COD_PYTO).nivel(nivel).build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ComprobanteBusquedaIndex
+ */
+class ComprobanteBusquedaIndexTest {
+
+    private ComprobanteBusquedaIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new ComprobanteBusquedaIndex();
+        indice.agregar(documento("EGRESO|1|F001-100", ComprobanteBusquedaService.Origen.EGRESO, "F001-100",
+                "Ferretería San José", "Pago de cemento"), List.of("Materiales de construcción"));
+        indice.agregar(documento("EGRESO|2|F002-200", ComprobanteBusquedaService.Origen.EGRESO, "F002-200",
+                "Transportes Lima", null), List.of("Fletes"));
+        indice.agregar(documento("INGRESO|B001-300", ComprobanteBusquedaService.Origen.INGRESO, "B001-300",
+                "Constructora Andina", "Valorización 3"), List.of("Ventas de obra"));
+    }
+
+    @Test
+    void testBuscaSinTildesNiMayusculas() {
+        ComprobanteBusquedaIndex.Resultado resultado = indice.buscar("FERRETERIA jose", d -> true, 0, 10);
+
+        assertEquals(1, resultado.total());
+        assertEquals("F001-100", resultado.coincidencias().get(0).documento().nroCp());
+    }
+
+    @Test
+    void testBuscaPorNumeroCompactoYPrefijo() {
+        assertEquals("F002-200", indice.buscar("f002200", d -> true, 0, 10).coincidencias().get(0).documento()
+                .nroCp());
+        assertEquals(2, indice.buscar("constru", d -> true, 0, 10).total());
+    }
+
+    @Test
+    void testTodasLasPalabrasDebenCoincidir() {
+        assertEquals(0, indice.buscar("cemento fletes", d -> true, 0, 10).total());
+    }
+
+    @Test
+    void testFiltroYPaginacion() {
+        ComprobanteBusquedaIndex.Resultado resultado = indice.buscar("constru",
+                d -> d.origen() == ComprobanteBusquedaService.Origen.INGRESO, 0, 10);
+        assertEquals(1, resultado.total());
+
+        ComprobanteBusquedaIndex.Resultado segunda = indice.buscar("constru", d -> true, 1, 1);
+        assertEquals(2, segunda.total());
+        assertEquals(1, segunda.coincidencias().size());
+    }
+
+    @Test
+    void testReemplazarYEliminar() {
+        indice.agregar(documento("EGRESO|2|F002-200", ComprobanteBusquedaService.Origen.EGRESO, "F002-200",
+                "Transportes Lima", "Flete a Huancayo"), List.of("Fletes"));
+
+        assertEquals(1, indice.buscar("huancayo", d -> true, 0, 10).total());
+        assertEquals(1, indice.buscar("transportes", d -> true, 0, 10).total());
+        assertEquals(3, indice.size());
+
+        indice.eliminar("EGRESO|2|F002-200");
+        assertEquals(0, indice.buscar("transportes", d -> true, 0, 10).total());
+        assertEquals(2, indice.size());
+        assertTrue(indice.fraccionEliminada() > 0);
+    }
+
+    private static ComprobanteBusquedaIndex.Documento documento(String clave, ComprobanteBusquedaService.Origen origen,
+            String nroCp, String desPersona, String desAbono) {
+        return new ComprobanteBusquedaIndex.Documento(clave, origen, 1L, nroCp, 10L, LocalDate.of(2025, 1, 15),
+                new BigDecimal("100.00"), "REG", desPersona, desAbono);
+    }
+}
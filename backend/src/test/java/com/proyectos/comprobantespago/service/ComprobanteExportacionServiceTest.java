@@ -0,0 +1,33 @@
+package com.proyectos.comprobantespago.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CSV cell formatting of ComprobanteExportacionService
+ */
+class ComprobanteExportacionServiceTest {
+
+    @Test
+    void testCeldaCsv_NeutralizaFormulas() {
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\"",
+                ComprobanteExportacionService.celdaCsv("=HYPERLINK(\"http://x\")"));
+        assertEquals("'+51 999", ComprobanteExportacionService.celdaCsv("+51 999"));
+        assertEquals("'-2+3", ComprobanteExportacionService.celdaCsv("-2+3"));
+        assertEquals("'@SUM(A1)", ComprobanteExportacionService.celdaCsv("@SUM(A1)"));
+        assertEquals("Pago de planilla", ComprobanteExportacionService.celdaCsv("Pago de planilla"));
+    }
+
+    @Test
+    void testCeldaCsv_NumerosYComillas() {
+        assertEquals("-150.50", ComprobanteExportacionService.celdaCsv(new BigDecimal("-150.50")));
+        assertEquals("-7", ComprobanteExportacionService.celdaCsv(-7L));
+        assertEquals("2024-03-01", ComprobanteExportacionService.celdaCsv(LocalDate.of(2024, 3, 1)));
+        assertEquals("\"Servicios, obras\"", ComprobanteExportacionService.celdaCsv("Servicios, obras"));
+        assertEquals("", ComprobanteExportacionService.celdaCsv(null));
+    }
+}
@@ -0,0 +1,50 @@
+package com.proyectos.comprobantespago.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FiltroBloom
+ */
+class FiltroBloomTest {
+
+    @Test
+    void testSinFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(5_000, 0.01);
+        for (int i = 0; i < 5_000; i++) {
+            filtro.agregar(i + "|F001-" + i);
+        }
+
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(filtro.podriaContener(i + "|F001-" + i));
+        }
+        assertEquals(5_000, filtro.elementos());
+        assertFalse(filtro.saturado());
+    }
+
+    @Test
+    void testTasaFalsosPositivosCercanaALaObjetivo() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("20100" + i + "|F001-" + i);
+        }
+
+        int falsos = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filtro.podriaContener("20100" + i + "|B002-" + i)) {
+                falsos++;
+            }
+        }
+        assertTrue(falsos < 300, "Demasiados falsos positivos: " + falsos);
+    }
+
+    @Test
+    void testSaturado() {
+        FiltroBloom filtro = new FiltroBloom(10, 0.01);
+        for (int i = 0; i <= 10; i++) {
+            filtro.agregar("clave-" + i);
+        }
+        assertTrue(filtro.saturado());
+    }
+}
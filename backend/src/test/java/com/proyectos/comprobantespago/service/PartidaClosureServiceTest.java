@@ -0,0 +1,169 @@
+package com.proyectos.comprobantespago.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.PhysicalNamingStrategyStandardImpl;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+
+import com.proyectos.comprobantespago.entity.Elementos;
+import com.proyectos.comprobantespago.entity.Partida;
+import com.proyectos.comprobantespago.entity.PartidaMezcla;
+import com.proyectos.comprobantespago.entity.Tabs;
+import com.proyectos.comprobantespago.repository.PartidaRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PartidaClosureService on an in-memory H2 database, through the
+ * real PartidaRepository queries
+ */
+class PartidaClosureServiceTest {
+
+    private static final Long COD_CIA = 1L;
+    private static final String EGRESO = "E";
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        StandardServiceRegistry registro = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:partida-closure;DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY,
+                        PhysicalNamingStrategyStandardImpl.class.getName())
+                .applySetting(AvailableSettings.JAKARTA_VALIDATION_MODE, "none")
+                .applySetting(AvailableSettings.STATEMENT_INSPECTOR, SqlOracleEnH2.class.getName())
+                .build();
+        sessionFactory = new MetadataSources(registro)
+                .addAnnotatedClass(Tabs.class)
+                .addAnnotatedClass(Elementos.class)
+                .addAnnotatedClass(Partida.class)
+                .addAnnotatedClass(PartidaMezcla.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            session.createNativeMutationQuery("CREATE TABLE PARTIDA_CLOSURE (CODCIA NUMBER(6) NOT NULL, "
+                    + "INGEGR VARCHAR2(1) NOT NULL, ANCCODPARTIDA NUMBER(6) NOT NULL, "
+                    + "DESCODPARTIDA NUMBER(6) NOT NULL, PROFUNDIDAD NUMBER(3) NOT NULL)").executeUpdate();
+            session.persist(Tabs.builder().codTab("004").denTab("Unidad").denCorta("UND").build());
+            session.persist(Elementos.builder().codTab("004").codElem("001").denEle("Unidad").denCorta("UND").build());
+            session.persist(partida(1L, "EGRESOS", 1));
+            session.persist(mezcla(1L, 1L));
+        });
+        sessionFactory.inTransaction(session -> service(session).reconstruir(COD_CIA, EGRESO));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.inTransaction(session -> session
+                .createNativeMutationQuery("DROP TABLE PARTIDA_CLOSURE").executeUpdate());
+        sessionFactory.close();
+    }
+
+    @Test
+    void testPartidaNuevaSinFlush_ApareceEnLaTablaDeCierre() {
+        sessionFactory.inTransaction(session -> {
+            // Como en PartidaService.create: save y evento en la misma transacción, sin flush
+            session.persist(partida(2L, "Personal", 2));
+            session.persist(mezcla(2L, 1L));
+
+            service(session).reconstruir(COD_CIA, EGRESO);
+
+            List<Long> descendientes = repository(session).findDescendientes(COD_CIA, EGRESO, 1L, null).stream()
+                    .map(Partida::getCodPartida)
+                    .toList();
+            assertEquals(List.of(1L, 2L), descendientes);
+        });
+    }
+
+    @Test
+    void testReasignacionDePadreSinFlush_ActualizaLaTablaDeCierre() {
+        sessionFactory.inTransaction(session -> {
+            session.persist(partida(2L, "Personal", 2));
+            session.persist(mezcla(2L, 1L));
+            session.persist(partida(3L, "Planilla", 2));
+            session.persist(mezcla(3L, 1L));
+        });
+        sessionFactory.inTransaction(session -> service(session).reconstruir(COD_CIA, EGRESO));
+
+        sessionFactory.inTransaction(session -> {
+            session.find(PartidaMezcla.class, new PartidaMezcla.PartidaMezclaId(COD_CIA, EGRESO, 3L, 1L))
+                    .setPadCodPartida(2L);
+
+            service(session).reconstruir(COD_CIA, EGRESO);
+
+            List<Long> descendientes = repository(session).findDescendientes(COD_CIA, EGRESO, 2L, null).stream()
+                    .map(Partida::getCodPartida)
+                    .toList();
+            assertEquals(List.of(2L, 3L), descendientes);
+        });
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private PartidaClosureService service(Session session) {
+        return new PartidaClosureService(repository(session));
+    }
+
+    private PartidaRepository repository(Session session) {
+        return new JpaRepositoryFactory(session).getRepository(PartidaRepository.class);
+    }
+
+    private Partida partida(Long codPartida, String descripcion, int nivel) {
+        return Partida.builder()
+                .codCia(COD_CIA)
+                .ingEgr(EGRESO)
+                .codPartida(codPartida)
+                .codPartidas("P" + codPartida)
+                .desPartida(descripcion)
+                .flgCC("N")
+                .nivel(nivel)
+                .tUniMed("004")
+                .eUniMed("001")
+                .build();
+    }
+
+    private PartidaMezcla mezcla(Long codPartida, Long padCodPartida) {
+        return PartidaMezcla.builder()
+                .codCia(COD_CIA)
+                .ingEgr(EGRESO)
+                .codPartida(codPartida)
+                .corr(1L)
+                .padCodPartida(padCodPartida)
+                .tUniMed("004")
+                .eUniMed("001")
+                .costoUnit(BigDecimal.ONE)
+                .nivel(1)
+                .orden(1)
+                .build();
+    }
+
+    // ==================== Clases internas ====================
+
+    /**
+     * H2 no admite la cláusula CYCLE de Oracle: se quita y se declara la CTE
+     * recursiva con sus columnas. Las jerarquías de estos tests no tienen ciclos.
+     */
+    public static class SqlOracleEnH2 implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            return sql.replace(" CYCLE ANCCODPARTIDA SET ESCICLO TO 'S' DEFAULT 'N' ", " ")
+                    .replace("WHERE ESCICLO = 'N' ", "")
+                    .replace("WITH arista AS", "WITH RECURSIVE arista (CODPARTIDA, PADCODPARTIDA) AS");
+        }
+    }
+}
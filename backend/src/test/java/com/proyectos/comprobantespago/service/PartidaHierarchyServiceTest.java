@@ -0,0 +1,207 @@
+package com.proyectos.comprobantespago.service;
+
+import com.proyectos.comprobantespago.dto.PartidaDTO;
+import com.proyectos.comprobantespago.entity.Partida;
+import com.proyectos.comprobantespago.entity.ProyPartidaMezcla;
+import com.proyectos.comprobantespago.repository.PartidaMezclaRepository;
+import com.proyectos.comprobantespago.repository.PartidaRepository;
+import com.proyectos.comprobantespago.repository.ProyPartidaMezclaRepository;
+import com.proyectos.comprobantespago.repository.ProyPartidaRepository;
+import com.proyectos.comprobantespago.service.impl.PartidaHierarchyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests and latency benchmark for the project partida listing of
+ * PartidaHierarchyService. The benchmark is excluded from the default build;
+ * run it with mvn test -Pbenchmark
+ */
+class PartidaHierarchyServiceTest {
+
+    private static final Long COD_CIA = 1L;
+    private static final Long COD_PYTO = 1L;
+    private static final String EGRESO = "E";
+
+    private PartidaRepository partidaRepository;
+    private ProyPartidaMezclaRepository proyPartidaMezclaRepository;
+    private PartidaHierarchyService service;
+
+    @BeforeEach
+    void setUp() {
+        partidaRepository = mock(PartidaRepository.class);
+        proyPartidaMezclaRepository = mock(ProyPartidaMezclaRepository.class);
+        service = new PartidaHierarchyServiceImpl(
+                partidaRepository,
+                mock(PartidaMezclaRepository.class),
+                mock(ProyPartidaRepository.class),
+                proyPartidaMezclaRepository,
+                mock(EjecucionPresupuestoService.class));
+    }
+
+    @Test
+    void testGetAllPartidasByProyecto_ConstruyeRutasConUnaConsulta() {
+        List<Partida> partidas = List.of(
+                partida(1L, "EGRESOS", 1),
+                partida(2L, "Personal", 2),
+                partida(3L, "Planilla", 3),
+                partida(4L, "Materiales", 2));
+        List<ProyPartidaMezcla> mezclas = List.of(
+                mezcla(1L, 1L, 1),
+                mezcla(2L, 1L, 2),
+                mezcla(4L, 1L, 2),
+                mezcla(3L, 2L, 3));
+        prepararDatos(partidas, mezclas);
+
+        List<PartidaDTO> resultado = service.getAllPartidasByProyecto(COD_CIA, COD_PYTO, EGRESO);
+
+        Map<Long, String> rutas = resultado.stream()
+                .collect(Collectors.toMap(PartidaDTO::getCodPartida, PartidaDTO::getJerarquiaCompleta));
+        assertEquals("EGRESOS", rutas.get(1L));
+        assertEquals("EGRESOS > Personal", rutas.get(2L));
+        assertEquals("EGRESOS > Personal > Planilla", rutas.get(3L));
+        assertEquals("EGRESOS > Materiales", rutas.get(4L));
+        assertEquals(List.of(1L, 2L, 4L, 3L), resultado.stream().map(PartidaDTO::getCodPartida).toList());
+
+        verify(partidaRepository, times(1)).findByCodCiaAndIngEgrAndCodPartidaIn(eq(COD_CIA), eq(EGRESO),
+                anyCollection());
+        verify(partidaRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetAllPartidasByProyecto_ToleraCiclosYPadresFaltantes() {
+        List<Partida> partidas = List.of(
+                partida(1L, "A", 2),
+                partida(2L, "B", 2),
+                partida(3L, "C", 3));
+        List<ProyPartidaMezcla> mezclas = List.of(
+                mezcla(1L, 2L, 2),
+                mezcla(2L, 1L, 2),
+                mezcla(3L, 99L, 3));
+        prepararDatos(partidas, mezclas);
+
+        List<PartidaDTO> resultado = service.getAllPartidasByProyecto(COD_CIA, COD_PYTO, EGRESO);
+
+        Map<Long, String> rutas = resultado.stream()
+                .collect(Collectors.toMap(PartidaDTO::getCodPartida, PartidaDTO::getJerarquiaCompleta));
+        // El ciclo se corta sin recursión infinita
+        assertEquals("B > A", rutas.get(1L));
+        assertNotNull(rutas.get(2L));
+        assertEquals("C", rutas.get(3L));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testBenchmark_GetAllPartidasByProyecto(TestReporter reporter) {
+        for (int lineas : new int[] { 1_000, 10_000, 50_000 }) {
+            generarProyecto(lineas);
+
+            // Calentamiento
+            service.getAllPartidasByProyecto(COD_CIA, COD_PYTO, EGRESO);
+
+            int repeticiones = 5;
+            long t0 = System.nanoTime();
+            List<PartidaDTO> resultado = null;
+            for (int i = 0; i < repeticiones; i++) {
+                resultado = service.getAllPartidasByProyecto(COD_CIA, COD_PYTO, EGRESO);
+            }
+            double ms = (System.nanoTime() - t0) / 1_000_000.0 / repeticiones;
+
+            reporter.publishEntry("getAllPartidasByProyecto con " + lineas + " líneas (ms)",
+                    String.format("%.2f", ms));
+
+            assertEquals(lineas, resultado.size());
+            resultado.stream()
+                    .filter(dto -> dto.getNivel() == 3)
+                    .forEach(dto -> assertEquals(3, dto.getJerarquiaCompleta().split(" > ").length));
+            // Crecimiento lineal: muy por debajo del costo cuadrático anterior
+            assertTrue(ms < 5_000, "Resolución de " + lineas + " líneas demasiado lenta: " + ms + " ms");
+        }
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    /**
+     * Genera un proyecto de tres niveles con el número de líneas indicado:
+     * 10 raíces, 10 subpartidas por raíz y el resto en el nivel 3
+     */
+    private void generarProyecto(int lineas) {
+        List<Partida> partidas = new ArrayList<>(lineas);
+        List<ProyPartidaMezcla> mezclas = new ArrayList<>(lineas);
+        long cod = 1;
+        for (int r = 0; r < 10; r++, cod++) {
+            partidas.add(partida(cod, "Raiz " + r, 1));
+            mezclas.add(mezcla(cod, cod, 1));
+        }
+        for (int c = 0; c < 100; c++, cod++) {
+            partidas.add(partida(cod, "Categoria " + c, 2));
+            mezclas.add(mezcla(cod, 1L + c % 10, 2));
+        }
+        for (int d = 0; cod <= lineas; d++, cod++) {
+            partidas.add(partida(cod, "Detalle " + d, 3));
+            mezclas.add(mezcla(cod, 11L + d % 100, 3));
+        }
+        prepararDatos(partidas, mezclas);
+    }
+
+    private void prepararDatos(List<Partida> partidas, List<ProyPartidaMezcla> mezclas) {
+        Map<Long, Partida> porCodigo = partidas.stream()
+                .collect(Collectors.toMap(Partida::getCodPartida, Function.identity()));
+        when(proyPartidaMezclaRepository.findByProyectoAndTipo(COD_CIA, COD_PYTO, EGRESO)).thenReturn(mezclas);
+        when(partidaRepository.findByCodCiaAndIngEgrAndCodPartidaIn(eq(COD_CIA), eq(EGRESO), anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> codigos = invocation.getArgument(2);
+                    return codigos.stream().map(porCodigo::get).filter(p -> p != null).toList();
+                });
+    }
+
+    private Partida partida(Long codPartida, String descripcion, int nivel) {
+        return Partida.builder()
+                .codCia(COD_CIA)
+                .ingEgr(EGRESO)
+                .codPartida(codPartida)
+                .codPartidas("P" + codPartida)
+                .desPartida(descripcion)
+                .nivel(nivel)
+                .vigente("1")
+                .build();
+    }
+
+    private ProyPartidaMezcla mezcla(Long codPartida, Long padCodPartida, int nivel) {
+        return ProyPartidaMezcla.builder()
+                .codCia(COD_CIA)
+                .codPyto(COD_PYTO)
+                .ingEgr(EGRESO)
+                .nroVersion(1)
+                .codPartida(codPartida)
+                .corr(1L)
+                .padCodPartida(padCodPartida)
+                .tUniMed("UND")
+                .eUniMed("UND")
+                .nivel(nivel)
+                .orden(codPartida.intValue())
+                .costoUnit(BigDecimal.ONE)
+                .cant(BigDecimal.ONE)
+                .costoTot(BigDecimal.ONE)
+                .build();
+    }
+}
@@ -0,0 +1,264 @@
+package com.proyectos.comprobantespago.service;
+
+import com.proyectos.comprobantespago.exception.PresupuestoInsuficienteException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit and stress tests and throughput benchmark for ReservaPresupuestoService.
+ * The benchmark is excluded from the default build; run it with
+ * mvn test -Pbenchmark
+ */
+class ReservaPresupuestoServiceTest {
+
+    private static final BigDecimal PRESUPUESTO = new BigDecimal("1000.00");
+    private static final BigDecimal MONTO = new BigDecimal("10.00");
+
+    private ReservaPresupuestoService crearServicio(boolean rechazarSobregiro) {
+        return new ReservaPresupuestoService(new SimpleMeterRegistry(), 5, rechazarSobregiro);
+    }
+
+    private ReservaPresupuestoService crearServicioStress() {
+        return crearServicioStress(new SimpleMeterRegistry());
+    }
+
+    private ReservaPresupuestoService crearServicioStress(MeterRegistry registry) {
+        // Sin límite práctico de relecturas: cada liberación concurrente obliga a releer
+        return new ReservaPresupuestoService(registry, Integer.MAX_VALUE, false);
+    }
+
+    private ReservaPresupuestoService.ClavePartida clave(long codPartida) {
+        return new ReservaPresupuestoService.ClavePartida(1L, 1L, codPartida);
+    }
+
+    @Test
+    void testReservar_CuentaLoReservadoPorOtros() {
+        ReservaPresupuestoService servicio = crearServicio(false);
+        ReservaPresupuestoService.ClavePartida clave = clave(10L);
+
+        ReservaPresupuestoService.Reserva primera = servicio.reservar(clave, PRESUPUESTO, BigDecimal.ZERO,
+                servicio.version(clave), () -> BigDecimal.ZERO, new BigDecimal("300.00"));
+        ReservaPresupuestoService.Reserva segunda = servicio.reservar(clave, PRESUPUESTO, BigDecimal.ZERO,
+                servicio.version(clave), () -> BigDecimal.ZERO, new BigDecimal("200.00"));
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(primera.reservadoPrevio()));
+        assertEquals(0, new BigDecimal("300.00").compareTo(segunda.reservadoPrevio()));
+        assertEquals(0, new BigDecimal("500.00").compareTo(servicio.reservado(clave)));
+
+        servicio.liberar(primera);
+        servicio.liberar(segunda);
+        assertEquals(0, BigDecimal.ZERO.compareTo(servicio.reservado(clave)));
+    }
+
+    @Test
+    void testReservar_RechazaSobregiro() {
+        ReservaPresupuestoService servicio = crearServicio(true);
+        ReservaPresupuestoService.ClavePartida clave = clave(10L);
+
+        servicio.reservar(clave, PRESUPUESTO, new BigDecimal("900.00"), servicio.version(clave),
+                () -> new BigDecimal("900.00"), new BigDecimal("80.00"));
+
+        assertThrows(PresupuestoInsuficienteException.class, () -> servicio.reservar(clave, PRESUPUESTO,
+                new BigDecimal("900.00"), servicio.version(clave), () -> new BigDecimal("900.00"),
+                new BigDecimal("30.00")));
+    }
+
+    @Test
+    void testReservar_ReleeEjecutadoSiHuboLiberacion() {
+        ReservaPresupuestoService servicio = crearServicio(true);
+        ReservaPresupuestoService.ClavePartida clave = clave(10L);
+
+        // Se lee la versión y el ejecutado (0) antes de que otra transacción confirme
+        long versionLeida = servicio.version(clave);
+        ReservaPresupuestoService.Reserva otra = servicio.reservar(clave, PRESUPUESTO, BigDecimal.ZERO,
+                versionLeida, () -> BigDecimal.ZERO, new BigDecimal("800.00"));
+        servicio.liberar(otra); // commit: los 800 pasan al ledger
+
+        AtomicInteger relecturas = new AtomicInteger();
+        assertThrows(PresupuestoInsuficienteException.class, () -> servicio.reservar(clave, PRESUPUESTO,
+                BigDecimal.ZERO, versionLeida, () -> {
+                    relecturas.incrementAndGet();
+                    return new BigDecimal("800.00");
+                }, new BigDecimal("300.00")));
+        assertEquals(1, relecturas.get());
+    }
+
+    @Test
+    void testReservar_ConcurrenteNoSuperaPresupuesto() throws Exception {
+        ReservaPresupuestoService servicio = crearServicio(true);
+        ReservaPresupuestoService.ClavePartida clave = clave(10L);
+        int hilos = 16;
+        AtomicInteger aceptadas = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        servicio.reservar(clave, PRESUPUESTO, BigDecimal.ZERO, servicio.version(clave),
+                                () -> BigDecimal.ZERO, MONTO);
+                        aceptadas.incrementAndGet();
+                    } catch (PresupuestoInsuficienteException e) {
+                        // esperado cuando se agota el presupuesto
+                    }
+                }
+                return null;
+            }));
+        }
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 1000 / 10 = exactamente 100 reservas aceptadas de 800 intentos
+        assertEquals(100, aceptadas.get());
+        assertEquals(0, PRESUPUESTO.compareTo(servicio.reservado(clave)));
+    }
+
+    @Test
+    void testLiberar_DescartaPartidasSinReservas() {
+        ReservaPresupuestoService servicio = crearServicio(false);
+        List<ReservaPresupuestoService.Reserva> reservas = new ArrayList<>();
+        for (long codPartida = 1; codPartida <= 100; codPartida++) {
+            ReservaPresupuestoService.ClavePartida clave = clave(codPartida);
+            reservas.add(servicio.reservar(clave, PRESUPUESTO, BigDecimal.ZERO, servicio.version(clave),
+                    () -> BigDecimal.ZERO, MONTO));
+        }
+        assertEquals(100, servicio.partidasRegistradas());
+
+        reservas.forEach(servicio::liberar);
+
+        assertEquals(0, servicio.partidasRegistradas());
+    }
+
+    @Test
+    void testReservar_PartidaDescartadaNoRepiteVersion() {
+        ReservaPresupuestoService servicio = crearServicio(true);
+        ReservaPresupuestoService.ClavePartida clave = clave(10L);
+
+        // Se lee la versión antes de que otra transacción reserve, confirme y libere (descartando el saldo)
+        long versionLeida = servicio.version(clave);
+        servicio.liberar(servicio.reservar(clave, PRESUPUESTO, BigDecimal.ZERO, versionLeida,
+                () -> BigDecimal.ZERO, new BigDecimal("800.00")));
+        assertEquals(0, servicio.partidasRegistradas());
+
+        AtomicInteger relecturas = new AtomicInteger();
+        assertThrows(PresupuestoInsuficienteException.class, () -> servicio.reservar(clave, PRESUPUESTO,
+                BigDecimal.ZERO, versionLeida, () -> {
+                    relecturas.incrementAndGet();
+                    return new BigDecimal("800.00");
+                }, new BigDecimal("300.00")));
+        assertEquals(1, relecturas.get());
+        assertEquals(0, servicio.partidasRegistradas());
+    }
+
+    @Test
+    void testStress_ConcurrenteNoPierdeLiberaciones() throws Exception {
+        int operaciones = 20_000;
+        int hilos = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+        ReservaPresupuestoService distintas = crearServicioStress();
+        ReservaPresupuestoService misma = crearServicioStress();
+
+        ejecutarConcurrente(distintas, hilos, operaciones, h -> clave(h));
+        ejecutarConcurrente(misma, hilos, operaciones, h -> clave(0L));
+
+        // Todas las reservas se liberaron sin perder actualizaciones y no quedan saldos registrados
+        for (int h = 0; h < hilos; h++) {
+            assertEquals(0, BigDecimal.ZERO.compareTo(distintas.reservado(clave(h))));
+        }
+        assertEquals(0, BigDecimal.ZERO.compareTo(misma.reservado(clave(0L))));
+        assertEquals(0, distintas.partidasRegistradas());
+        assertEquals(0, misma.partidasRegistradas());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testBenchmark_ThroughputMismaVsDistintasPartidas(TestReporter reporter) throws Exception {
+        int operaciones = 2_000_000;
+        int hilos = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+        // Calentamiento
+        ejecutarConcurrente(crearServicioStress(), hilos, operaciones, h -> clave(h));
+        ejecutarConcurrente(crearServicioStress(), hilos, operaciones, h -> clave(0L));
+
+        Medicion distintas = medir(hilos, operaciones, h -> clave(h));
+        Medicion misma = medir(hilos, operaciones, h -> clave(0L));
+
+        reporter.publishEntry("Hilos", String.valueOf(hilos));
+        reporter.publishEntry("Partidas distintas (reservas/s)", String.format("%.0f", distintas.porSegundo()));
+        reporter.publishEntry("Misma partida (reservas/s)", String.format("%.0f", misma.porSegundo()));
+        reporter.publishEntry("Partidas distintas / misma partida",
+                String.format("%.2f", distintas.porSegundo() / misma.porSegundo()));
+        reporter.publishEntry("Partidas distintas (relecturas, conflictos)",
+                distintas.relecturas() + ", " + distintas.conflictos());
+        reporter.publishEntry("Misma partida (relecturas, conflictos)",
+                misma.relecturas() + ", " + misma.conflictos());
+
+        // La relación entre ambos escenarios depende de los núcleos disponibles (con uno solo no hay
+        // contención real); se informa y solo se exige un mínimo muy holgado en cada escenario
+        assertTrue(distintas.porSegundo() > 50_000, "Partidas distintas demasiado lentas: " + distintas.porSegundo());
+        assertTrue(misma.porSegundo() > 50_000, "Misma partida demasiado lenta: " + misma.porSegundo());
+    }
+
+    private Medicion medir(int hilos, int operaciones,
+            IntFunction<ReservaPresupuestoService.ClavePartida> clavePorHilo) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReservaPresupuestoService servicio = crearServicioStress(registry);
+        long t0 = System.nanoTime();
+        ejecutarConcurrente(servicio, hilos, operaciones, clavePorHilo);
+        double segundos = (System.nanoTime() - t0) / 1_000_000_000.0;
+        assertEquals(0, servicio.partidasRegistradas());
+        return new Medicion(operaciones / segundos,
+                (long) registry.counter("presupuesto.reserva.reintentos").count(),
+                (long) registry.counter("presupuesto.reserva.conflictos").count());
+    }
+
+    private void ejecutarConcurrente(ReservaPresupuestoService servicio, int hilos, int operaciones,
+            IntFunction<ReservaPresupuestoService.ClavePartida> clavePorHilo) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch inicio = new CountDownLatch(1);
+        int porHilo = operaciones / hilos;
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            ReservaPresupuestoService.ClavePartida clave = clavePorHilo.apply(h);
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < porHilo; i++) {
+                    ReservaPresupuestoService.Reserva reserva = servicio.reservar(clave, PRESUPUESTO,
+                            BigDecimal.ZERO, servicio.version(clave), () -> BigDecimal.ZERO, MONTO);
+                    servicio.liberar(reserva);
+                }
+                return null;
+            }));
+        }
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private record Medicion(double porSegundo, long relecturas, long conflictos) {
+    }
+}
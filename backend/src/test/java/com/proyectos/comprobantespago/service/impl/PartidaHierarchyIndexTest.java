@@ -0,0 +1,111 @@
+package com.proyectos.comprobantespago.service.impl;
+
+import com.proyectos.comprobantespago.entity.Partida;
+import com.proyectos.comprobantespago.entity.PartidaMezcla;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PartidaHierarchyIndex
+ */
+class PartidaHierarchyIndexTest {
+
+    private static final Long COD_CIA = 1L;
+    private static final String EGRESO = "E";
+
+    @Test
+    void testConstruir_PadresHijosOrdenadosYRutas() {
+        PartidaHierarchyIndex indice = PartidaHierarchyIndex.construir(1L,
+                List.of(
+                        partida(1L, "EGRESOS", 1, "1"),
+                        partida(2L, "Personal", 2, "1"),
+                        partida(3L, "Materiales", 2, "1"),
+                        partida(4L, "Planilla", 3, "1"),
+                        partida(5L, "Obsoleta", 2, "0")),
+                List.of(
+                        mezcla(1L, 1L, 1L, 1),
+                        mezcla(2L, 1L, 1L, 20),
+                        mezcla(3L, 1L, 1L, 10),
+                        // La mezcla de menor corr define el padre
+                        mezcla(4L, 2L, 1L, 1),
+                        mezcla(4L, 3L, 2L, 1),
+                        mezcla(5L, 1L, 1L, 5)));
+
+        int egresos = indice.posicion(1L);
+        int personal = indice.posicion(2L);
+        int materiales = indice.posicion(3L);
+        int planilla = indice.posicion(4L);
+
+        assertEquals(-1, indice.posicion(99L));
+        assertEquals(-1, indice.padre(egresos));
+        assertEquals(egresos, indice.padre(personal));
+        assertEquals(personal, indice.padre(planilla));
+        assertArrayEquals(new int[] { egresos }, indice.raices());
+        // Solo hijos vigentes, ordenados por orden y no por código
+        assertArrayEquals(new int[] { materiales, personal }, indice.hijos(egresos));
+        assertArrayEquals(new int[] { planilla }, indice.hijos(personal));
+        assertTrue(indice.tieneHijos(egresos));
+        assertFalse(indice.tieneHijos(planilla));
+        assertEquals(20, indice.orden(personal));
+        assertEquals("EGRESOS", indice.ruta(egresos));
+        assertEquals("EGRESOS > Personal > Planilla", indice.ruta(planilla));
+    }
+
+    @Test
+    void testPostOrden_HijosAntesQuePadresYSinCiclos() {
+        PartidaHierarchyIndex indice = PartidaHierarchyIndex.construir(1L,
+                List.of(
+                        partida(1L, "A", 1, "1"),
+                        partida(2L, "B", 2, "1"),
+                        partida(3L, "C", 3, "1"),
+                        partida(4L, "X", 2, "1"),
+                        partida(5L, "Y", 2, "1")),
+                List.of(
+                        mezcla(1L, 1L, 1L, 1),
+                        mezcla(2L, 1L, 1L, 1),
+                        mezcla(3L, 2L, 1L, 1),
+                        // X e Y forman un ciclo
+                        mezcla(4L, 5L, 1L, 1),
+                        mezcla(5L, 4L, 1L, 1)));
+
+        List<Integer> postOrden = Arrays.stream(indice.postOrden()).boxed().toList();
+
+        assertEquals(3, postOrden.size());
+        assertTrue(postOrden.indexOf(indice.posicion(3L)) < postOrden.indexOf(indice.posicion(2L)));
+        assertTrue(postOrden.indexOf(indice.posicion(2L)) < postOrden.indexOf(indice.posicion(1L)));
+        assertFalse(postOrden.contains(indice.posicion(4L)));
+        assertFalse(postOrden.contains(indice.posicion(5L)));
+        // La ruta de una partida en ciclo termina sin recursión infinita
+        assertNotNull(indice.ruta(indice.posicion(4L)));
+    }
+
+    // ==================== Métodos auxiliares ====================
+
+    private Partida partida(Long codPartida, String descripcion, int nivel, String vigente) {
+        return Partida.builder()
+                .codCia(COD_CIA)
+                .ingEgr(EGRESO)
+                .codPartida(codPartida)
+                .codPartidas("P" + codPartida)
+                .desPartida(descripcion)
+                .nivel(nivel)
+                .vigente(vigente)
+                .build();
+    }
+
+    private PartidaMezcla mezcla(Long codPartida, Long padCodPartida, Long corr, int orden) {
+        return PartidaMezcla.builder()
+                .codCia(COD_CIA)
+                .ingEgr(EGRESO)
+                .codPartida(codPartida)
+                .corr(corr)
+                .padCodPartida(padCodPartida)
+                .orden(orden)
+                .vigente("1")
+                .build();
+    }
+}
@@ -1627,6 +1627,63 @@ INSERT INTO COMP_PAGOEMPLEADO_DET VALUES (1, 6, 'CPE-011-2023-001', 1, 'E', 2104
 
 COMMIT;
 
+-- ==================================================================
+-- PARTIDA_CLOSURE: carga desde PARTIDA y PARTIDA_MEZCLA
+-- ==================================================================
+
+INSERT INTO PARTIDA_CLOSURE (CodCia, IngEgr, AncCodPartida, DesCodPartida, Profundidad)
+WITH arista AS (
+    SELECT m.CodCia, m.IngEgr, m.CodPartida, m.PadCodPartida
+    FROM (
+        SELECT CodCia, IngEgr, CodPartida, PadCodPartida,
+               ROW_NUMBER() OVER (PARTITION BY CodCia, IngEgr, CodPartida ORDER BY Corr) AS Rn
+        FROM PARTIDA_MEZCLA
+        WHERE Vigente = '1'
+    ) m
+    JOIN PARTIDA p ON p.CodCia = m.CodCia AND p.IngEgr = m.IngEgr AND p.CodPartida = m.PadCodPartida
+    WHERE m.Rn = 1 AND m.PadCodPartida <> m.CodPartida
+),
+cierre (CodCia, IngEgr, AncCodPartida, DesCodPartida, Profundidad) AS (
+    SELECT CodCia, IngEgr, CodPartida, CodPartida, 0
+    FROM PARTIDA
+    UNION ALL
+    SELECT c.CodCia, c.IngEgr, a.PadCodPartida, c.DesCodPartida, c.Profundidad + 1
+    FROM cierre c
+    JOIN arista a ON a.CodCia = c.CodCia AND a.IngEgr = c.IngEgr AND a.CodPartida = c.AncCodPartida
+) CYCLE AncCodPartida SET EsCiclo TO 'S' DEFAULT 'N'
+SELECT CodCia, IngEgr, AncCodPartida, DesCodPartida, MIN(Profundidad)
+FROM cierre
+WHERE EsCiclo = 'N'
+GROUP BY CodCia, IngEgr, AncCodPartida, DesCodPartida;
+
+COMMIT;
+
+-- ==================================================================
+-- PROY_PARTIDA_EJEC: carga desde los detalles de comprobantes
+-- ==================================================================
+
+INSERT INTO PROY_PARTIDA_EJEC (CodCia, CodPyto, IngEgr, CodPartida, ImpEjecMn)
+SELECT CodCia, CodPyto, IngEgr, CodPartida, SUM(ImpTotalMn)
+FROM (
+    SELECT c.CodCIA AS CodCia, c.CodPyto, d.IngEgr, d.CodPartida, d.ImpTotalMn
+    FROM COMP_PAGODET d
+    JOIN COMP_PAGOCAB c ON c.CodCIA = d.CodCIA AND c.CodProveedor = d.CodProveedor AND c.NroCP = d.NroCP
+    WHERE c.CodEstado <> 'ANU'
+    UNION ALL
+    SELECT c.CodCIA, c.CodPyto, d.IngEgr, d.CodPartida, d.ImpTotalMn
+    FROM VTACOMP_PAGODET d
+    JOIN VTACOMP_PAGOCAB c ON c.CodCIA = d.CodCIA AND c.NroCP = d.NroCP
+    WHERE c.CodEstado <> 'ANU'
+    UNION ALL
+    SELECT c.CodCia, c.CodPyto, d.IngEgr, d.CodPartida, d.ImpTotalMn
+    FROM COMP_PAGOEMPLEADO_DET d
+    JOIN COMP_PAGOEMPLEADO c ON c.CodCia = d.CodCia AND c.CodEmpleado = d.CodEmpleado AND c.NroCP = d.NroCP
+    WHERE c.CodEstado <> 'ANU'
+)
+GROUP BY CodCia, CodPyto, IngEgr, CodPartida;
+
+COMMIT;
+
 -- ==================================================================
 -- VERIFICACIÓN DE DATOS INSERTADOS
 -- ==================================================================
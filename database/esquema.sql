@@ -1145,6 +1145,8 @@ CREATE INDEX idx_proyecto_estado ON PROYECTO(EstPyto);
 CREATE INDEX idx_comp_pago_fecha ON COMP_PAGOCAB(FecCP);
 CREATE INDEX idx_comp_pago_estado ON COMP_PAGOCAB(CodEstado);
 CREATE INDEX idx_comp_pago_proveedor ON COMP_PAGOCAB(CodProveedor);
+-- Listado paginado por cursor: cubre el orden (FecCP, CodProveedor, NroCP) descendente por compañía
+CREATE INDEX COMP_PAGOCAB_LISTADO_IX ON COMP_PAGOCAB (CodCIA, FecCP DESC, CodProveedor DESC, NroCP DESC);
 
 CREATE INDEX idx_comp_pagoemp_fecha ON COMP_PAGOEMPLEADO(FecCP);
 CREATE INDEX idx_comp_pagoemp_estado ON COMP_PAGOEMPLEADO(CodEstado);
@@ -1420,6 +1422,99 @@ CREATE TABLE COMP_PAGOEMPLEADO_DET (
     CONSTRAINT COMP_PAGOEMPDET_PARTIDA_FK FOREIGN KEY (CodCIA, IngEgr, CodPartida) REFERENCES PARTIDA (CodCIA, IngEgr, CodPartida)
 );
 
+-- ==================================================================
+-- PROY_PARTIDA_EJEC: Ledger de ejecución presupuestal por partida
+-- ==================================================================
+CREATE TABLE PROY_PARTIDA_EJEC (
+    CodCia NUMBER(6) NOT NULL,
+    CodPyto NUMBER(6) NOT NULL,
+    IngEgr VARCHAR2(1) NOT NULL,
+    CodPartida NUMBER(6) NOT NULL,
+    ImpEjecMn NUMBER(14,2) DEFAULT 0 NOT NULL,
+    FecActualiza TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PROY_PARTIDA_EJEC_PK PRIMARY KEY (CodCia, CodPyto, IngEgr, CodPartida),
+    CONSTRAINT PROY_PARTIDA_EJEC_PARTIDA_FK FOREIGN KEY (CodCia, IngEgr, CodPartida) REFERENCES PARTIDA (CodCia, IngEgr, CodPartida)
+);
+
+-- ==================================================================
+-- PARTIDA_CLOSURE: Tabla de cierre de la jerarquía de partidas
+-- Una fila por cada par (ancestro, descendiente) de la jerarquía
+-- definida en PARTIDA_MEZCLA, incluida la partida consigo misma
+-- (Profundidad 0). Permite resolver consultas por subárbol
+-- ("todo lo que cuelga de la partida X") con un solo JOIN.
+-- El padre de cada partida es el de su primera mezcla vigente
+-- (menor Corr); si el padre es la misma partida, es raíz.
+-- Se reconstruye por (CodCia, IngEgr) al modificar PARTIDA o
+-- PARTIDA_MEZCLA; datos.sql la carga después de insertar las partidas.
+-- ==================================================================
+CREATE TABLE PARTIDA_CLOSURE (
+    CodCia NUMBER(6) NOT NULL,
+    IngEgr VARCHAR2(1) NOT NULL,
+    AncCodPartida NUMBER(6) NOT NULL,
+    DesCodPartida NUMBER(6) NOT NULL,
+    Profundidad NUMBER(3) NOT NULL,
+    CONSTRAINT PARTIDA_CLOSURE_PK PRIMARY KEY (CodCia, IngEgr, AncCodPartida, DesCodPartida),
+    CONSTRAINT PARTIDA_CLOSURE_ANC_FK FOREIGN KEY (CodCia, IngEgr, AncCodPartida)
+        REFERENCES PARTIDA (CodCia, IngEgr, CodPartida) ON DELETE CASCADE,
+    CONSTRAINT PARTIDA_CLOSURE_DES_FK FOREIGN KEY (CodCia, IngEgr, DesCodPartida)
+        REFERENCES PARTIDA (CodCia, IngEgr, CodPartida) ON DELETE CASCADE
+);
+
+-- Búsqueda de ancestros de una partida
+CREATE INDEX PARTIDA_CLOSURE_DES_IX ON PARTIDA_CLOSURE (CodCia, IngEgr, DesCodPartida);
+
+-- ==================================================================
+-- ADJUNTO_COMPROBANTE: Archivos adjuntos de los comprobantes
+-- Reemplaza a las columnas BLOB FotoCP / FotoAbono de COMP_PAGOCAB,
+-- VTACOMP_PAGOCAB y COMP_PAGOEMPLEADO. El contenido se guarda en el
+-- almacenamiento de archivos (file.upload-dir) y aquí solo la
+-- referencia, el tamaño y el hash SHA-256 del contenido.
+-- TipoComprobante: EGR = COMP_PAGOCAB (CodTercero = CodProveedor),
+-- ING = VTACOMP_PAGOCAB (CodTercero = 0),
+-- EMP = COMP_PAGOEMPLEADO (CodTercero = CodEmpleado).
+-- Categoria: CP = comprobante, ABO = abono, OTR = otros.
+-- Los BLOB existentes los traslada por lotes AdjuntoMigracionJob.
+-- ==================================================================
+CREATE SEQUENCE SEQ_ADJUNTO_COMPROBANTE START WITH 1 INCREMENT BY 1 NOCACHE;
+
+CREATE TABLE ADJUNTO_COMPROBANTE (
+    CodAdjunto NUMBER(12) NOT NULL,
+    CodCia NUMBER(6) NOT NULL,
+    TipoComprobante VARCHAR2(3) NOT NULL,
+    CodTercero NUMBER(6) NOT NULL,
+    NroCP VARCHAR2(20) NOT NULL,
+    Categoria VARCHAR2(3) NOT NULL,
+    NombreArchivo VARCHAR2(255) NOT NULL,
+    ContentType VARCHAR2(100) NOT NULL,
+    Tamanio NUMBER(12) NOT NULL,
+    Hash VARCHAR2(64) NOT NULL,
+    RutaArchivo VARCHAR2(500) NOT NULL,
+    FecCreacion TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT ADJUNTO_COMPROBANTE_PK PRIMARY KEY (CodAdjunto),
+    CONSTRAINT ADJUNTO_COMPROBANTE_TIPO_CK CHECK (TipoComprobante IN ('EGR', 'ING', 'EMP')),
+    CONSTRAINT ADJUNTO_COMPROBANTE_CAT_CK CHECK (Categoria IN ('CP', 'ABO', 'OTR'))
+);
+
+-- Adjuntos de un comprobante (también usado por los indicadores tieneFotoCp / tieneFotoAbono)
+CREATE INDEX ADJUNTO_COMPROBANTE_CP_IX ON ADJUNTO_COMPROBANTE (CodCia, TipoComprobante, CodTercero, NroCP, Categoria);
+
+-- ==================================================================
+-- ADJUNTO_MIGRACION_FALLO: Comprobantes cuyas imágenes BLOB no se
+-- pudieron trasladar a ADJUNTO_COMPROBANTE. AdjuntoMigracionJob los
+-- omite en los lotes siguientes; para reintentar un comprobante se
+-- elimina su fila.
+-- ==================================================================
+CREATE TABLE ADJUNTO_MIGRACION_FALLO (
+    CodCia NUMBER(6) NOT NULL,
+    TipoComprobante VARCHAR2(3) NOT NULL,
+    CodTercero NUMBER(6) NOT NULL,
+    NroCP VARCHAR2(20) NOT NULL,
+    Mensaje VARCHAR2(500),
+    FecFallo TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT ADJUNTO_MIGRACION_FALLO_PK PRIMARY KEY (CodCia, TipoComprobante, CodTercero, NroCP),
+    CONSTRAINT ADJUNTO_MIGRACION_FALLO_TIPO_CK CHECK (TipoComprobante IN ('EGR', 'ING', 'EMP'))
+);
+
 -- ==================================================================
 -- SECUENCIAS ADICIONALES PARA LAS NUEVAS TABLAS
 -- ==================================================================